@@ -0,0 +1,9 @@
+package com.jicd.stockmanager.Enums;
+
+public enum MOVEMENT_TYPE {
+    OPENING,
+    RECEIPT,
+    SALE,
+    ADJUSTMENT,
+    RETURN
+}
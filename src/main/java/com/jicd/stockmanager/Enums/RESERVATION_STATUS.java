@@ -0,0 +1,10 @@
+package com.jicd.stockmanager.Enums;
+
+public enum RESERVATION_STATUS {
+    ACTIVE,
+    CONFIRMING,
+    CONFIRMED,
+    RELEASED,
+    EXPIRED,
+    FAILED
+}
@@ -0,0 +1,129 @@
+package com.jicd.stockmanager.analytics;
+
+import java.time.LocalDate;
+import java.util.Arrays;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Almacén por columnas de las ventas diarias por producto, del que se publican instantáneas
+ * inmutables para consultar (SalesSnapshot).
+ * Los días anteriores a 'recentFrom' ya no cambian y se van añadiendo al histórico, que solo crece;
+ * los días recientes (aún con ventas o volcados pendientes) se guardan aparte y se sustituyen
+ * enteros en cada refresco con startRecent. Los productos se numeran en un diccionario para que
+ * las agregaciones acumulen en arrays indexados por producto.
+ * No es seguro para varios escritores: lo modifica un único hilo, que publica las instantáneas.
+ */
+public final class SalesColumnStore {
+
+    // Categoría usada para los productos sin categoría
+    public static final long NO_CATEGORY = 0L;
+
+    private final int firstDay;
+    private final Map<Long, Integer> productIndexes = new ConcurrentHashMap<>();
+    private long[] productIds = new long[1024];
+    private long[] categoryIds = new long[1024];
+    private boolean[] listed = new boolean[1024];
+    private int productCount;
+
+    private final SalesColumns history = new SalesColumns(1 << 16);
+    private SalesColumns recent = new SalesColumns(1 << 12);
+    private int recentFrom;
+
+    /**
+     * @param firstDay El primer día que se guarda; las filas anteriores se ignoran.
+     * @param recentFrom El primer día reciente.
+     */
+    public SalesColumnStore(LocalDate firstDay, LocalDate recentFrom) {
+        this.firstDay = toDay(firstDay);
+        this.recentFrom = toDay(recentFrom);
+    }
+
+    /**
+     * Registra un producto del catálogo con su categoría actual. Los productos que solo aparecen en
+     * las ventas (borrados del catálogo) no se listan y no cuentan como productos sin ventas.
+     * Debe llamarse antes de añadir filas y de publicar la primera instantánea.
+     *
+     * @param productId El id del producto.
+     * @param categoryId El id de su categoría, o null.
+     */
+    public void list(long productId, Long categoryId) {
+        int index = indexOf(productId, categoryId);
+        categoryIds[index] = categoryOrNone(categoryId);
+        listed[index] = true;
+    }
+
+    /**
+     * Añade las ventas de un producto en un día. Las filas deben llegar en orden de día.
+     *
+     * @param day El día.
+     * @param productId El id del producto.
+     * @param categoryId La categoría, usada solo si el producto aún no está en el diccionario.
+     * @param units Las unidades vendidas.
+     * @param revenueMinor El importe en céntimos.
+     */
+    public void add(LocalDate day, long productId, Long categoryId, long units, long revenueMinor) {
+        int epochDay = toDay(day);
+        if (epochDay < firstDay) return;
+        int product = indexOf(productId, categoryId);
+        (epochDay < recentFrom ? history : recent).add(epochDay, product, Math.toIntExact(units), revenueMinor);
+    }
+
+    public LocalDate recentFrom() {
+        return LocalDate.ofEpochDay(recentFrom);
+    }
+
+    /**
+     * Descarta los días recientes y mueve su inicio a 'day'. A continuación deben añadirse de nuevo
+     * las filas desde el inicio anterior: las de días ya cerrados pasan al histórico.
+     *
+     * @param day El nuevo primer día reciente, no anterior al actual.
+     */
+    public void startRecent(LocalDate day) {
+        int epochDay = toDay(day);
+        if (epochDay < recentFrom) {
+            throw new IllegalArgumentException("Recent days can only move forward");
+        }
+        recentFrom = epochDay;
+        recent = new SalesColumns(recent.size());
+    }
+
+    public int rows() {
+        return history.size() + recent.size();
+    }
+
+    /**
+     * @return SalesSnapshot las filas y productos añadidos hasta ahora; no ve los cambios posteriores.
+     */
+    public SalesSnapshot snapshot() {
+        return new SalesSnapshot(firstDay, new SalesColumns.Segment[]{history.segment(), recent.segment()},
+                productIds, categoryIds, listed, productCount, productIndexes);
+    }
+
+    private int indexOf(long productId, Long categoryId) {
+        Integer index = productIndexes.get(productId);
+        if (index != null) return index;
+
+        if (productCount == productIds.length) {
+            int capacity = productCount * 2;
+            productIds = Arrays.copyOf(productIds, capacity);
+            categoryIds = Arrays.copyOf(categoryIds, capacity);
+            listed = Arrays.copyOf(listed, capacity);
+        }
+        int created = productCount;
+        productIds[created] = productId;
+        categoryIds[created] = categoryOrNone(categoryId);
+        productCount++;
+        // Las instantáneas anteriores ignoran los índices a partir de su productCount
+        productIndexes.put(productId, created);
+        return created;
+    }
+
+    private static long categoryOrNone(Long categoryId) {
+        return categoryId == null ? NO_CATEGORY : categoryId;
+    }
+
+    static int toDay(LocalDate day) {
+        return Math.toIntExact(day.toEpochDay());
+    }
+}
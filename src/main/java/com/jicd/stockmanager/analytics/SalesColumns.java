@@ -0,0 +1,82 @@
+package com.jicd.stockmanager.analytics;
+
+import java.util.Arrays;
+
+/**
+ * Hechos de ventas por día y producto guardados por columnas en arrays primitivos (20 bytes por fila).
+ * Las filas se añaden en orden de día y nunca se modifican: un Segment tomado antes de añadir más
+ * filas sigue viendo las suyas aunque comparta los arrays, y al crecer se copian a arrays nuevos.
+ * Un único hilo escribe; los lectores reciben el Segment publicado.
+ */
+final class SalesColumns {
+
+    private int[] days;
+    private int[] products;
+    private int[] units;
+    private long[] revenue;
+    private int size;
+
+    SalesColumns(int capacity) {
+        int initial = Math.max(capacity, 16);
+        days = new int[initial];
+        products = new int[initial];
+        units = new int[initial];
+        revenue = new long[initial];
+    }
+
+    /**
+     * @param day El día (epoch day), no anterior al de la última fila.
+     * @param product El índice del producto en el diccionario.
+     * @param quantity Las unidades vendidas.
+     * @param revenueMinor El importe en céntimos.
+     */
+    void add(int day, int product, int quantity, long revenueMinor) {
+        if (size > 0 && day < days[size - 1]) {
+            throw new IllegalArgumentException("Rows must be added in day order");
+        }
+        if (size == days.length) {
+            int capacity = size + (size >> 1);
+            days = Arrays.copyOf(days, capacity);
+            products = Arrays.copyOf(products, capacity);
+            units = Arrays.copyOf(units, capacity);
+            revenue = Arrays.copyOf(revenue, capacity);
+        }
+        days[size] = day;
+        products[size] = product;
+        units[size] = quantity;
+        revenue[size] = revenueMinor;
+        size++;
+    }
+
+    int size() {
+        return size;
+    }
+
+    Segment segment() {
+        return new Segment(days, products, units, revenue, size);
+    }
+
+    /**
+     * Vista inmutable de las primeras 'size' filas.
+     */
+    record Segment(int[] days, int[] products, int[] units, long[] revenue, int size) {
+
+        /**
+         * @param day El día (epoch day).
+         * @return int la primera fila con día mayor o igual que 'day' (size si no hay ninguna).
+         */
+        int lowerBound(int day) {
+            int low = 0;
+            int high = size;
+            while (low < high) {
+                int middle = (low + high) >>> 1;
+                if (days[middle] < day) {
+                    low = middle + 1;
+                } else {
+                    high = middle;
+                }
+            }
+            return low;
+        }
+    }
+}
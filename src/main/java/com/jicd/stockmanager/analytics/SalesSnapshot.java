@@ -0,0 +1,356 @@
+package com.jicd.stockmanager.analytics;
+
+import java.time.DayOfWeek;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
+
+/**
+ * Instantánea inmutable de las ventas diarias por producto, con consultas de top-N, series por
+ * intervalo y filtros por categoría.
+ * Las filas del rango pedido (contiguas, al estar ordenadas por día) se reparten en tantos trozos
+ * como hilos tiene el pool; cada trozo acumula en un array de long indexado por producto o por
+ * intervalo y los parciales se suman al final, sin crear objetos por fila.
+ * La categoría de un producto es la actual del catálogo, no la que tenía en cada venta.
+ */
+public final class SalesSnapshot {
+
+    private static final int MIN_CHUNK_ROWS = 1 << 14;
+    private static final long ANY_CATEGORY = Long.MIN_VALUE;
+    private static final int ANY_PRODUCT = -1;
+
+    public enum Metric {
+        UNITS,
+        REVENUE
+    }
+
+    public enum Bucket {
+        DAY,
+        WEEK,
+        MONTH;
+
+        LocalDate start(LocalDate day) {
+            return switch (this) {
+                case DAY -> day;
+                case WEEK -> day.with(DayOfWeek.MONDAY);
+                case MONTH -> day.withDayOfMonth(1);
+            };
+        }
+    }
+
+    public record ProductTotal(long productId, long categoryId, long units, long revenueMinor) {
+    }
+
+    /**
+     * Totales de un intervalo; 'start' es su inicio de calendario aunque el rango pedido empiece después.
+     */
+    public record BucketTotal(LocalDate start, long units, long revenueMinor) {
+    }
+
+    private final int firstDay;
+    private final SalesColumns.Segment[] segments;
+    private final long[] productIds;
+    private final long[] categoryIds;
+    private final boolean[] listed;
+    private final int productCount;
+    private final Map<Long, Integer> productIndexes;
+
+    SalesSnapshot(int firstDay, SalesColumns.Segment[] segments, long[] productIds, long[] categoryIds,
+                  boolean[] listed, int productCount, Map<Long, Integer> productIndexes) {
+        this.firstDay = firstDay;
+        this.segments = segments;
+        this.productIds = productIds;
+        this.categoryIds = categoryIds;
+        this.listed = listed;
+        this.productCount = productCount;
+        this.productIndexes = productIndexes;
+    }
+
+    /**
+     * Filtro y destino de una agregación: los totales se acumulan por producto o, con 'buckets',
+     * por intervalo (buckets[día - fromDay]).
+     */
+    private record Scan(long categoryId, int product, int fromDay, int[] buckets, int keys) {
+    }
+
+    private record Chunk(SalesColumns.Segment segment, int from, int to) {
+    }
+
+    public LocalDate firstDay() {
+        return LocalDate.ofEpochDay(firstDay);
+    }
+
+    public int rows() {
+        int rows = 0;
+        for (SalesColumns.Segment segment : segments) rows += segment.size();
+        return rows;
+    }
+
+    public int products() {
+        return productCount;
+    }
+
+    /**
+     * Productos ordenados por una métrica en un rango de días. En orden descendente solo aparecen
+     * productos con ventas; en ascendente (los que menos rotan) todos los del catálogo, también sin ventas.
+     *
+     * @param from El primer día (incluido).
+     * @param to El último día (incluido).
+     * @param categoryId La categoría, o null para todas.
+     * @param metric La métrica por la que se ordena.
+     * @param ascending true para empezar por los que menos venden.
+     * @param limit El número máximo de productos.
+     * @param pool El pool en el que se reparten los trozos.
+     * @return List los productos, empatados por id.
+     */
+    public List<ProductTotal> top(LocalDate from, LocalDate to, Long categoryId, Metric metric, boolean ascending,
+                                  int limit, ForkJoinPool pool) {
+        validate(from, to, limit);
+        long category = categoryId == null ? ANY_CATEGORY : categoryId;
+        long[] totals = aggregate(from, to, new Scan(category, ANY_PRODUCT, 0, null, productCount), pool);
+        int offset = metric == Metric.UNITS ? 0 : 1;
+
+        int[] candidates = new int[productCount];
+        int count = 0;
+        for (int product = 0; product < productCount; product++) {
+            if (category != ANY_CATEGORY && categoryIds[product] != category) continue;
+            if (ascending ? !listed[product] : totals[2 * product + offset] <= 0) continue;
+            candidates[count++] = product;
+        }
+        return select(totals, offset, ascending, limit, candidates, 0, count);
+    }
+
+    /**
+     * Los productos más vendidos de cada categoría en un rango de días, con una sola agregación.
+     *
+     * @return Map los productos por id de categoría, en orden de id.
+     */
+    public Map<Long, List<ProductTotal>> topByCategory(LocalDate from, LocalDate to, Metric metric, int limit,
+                                                       ForkJoinPool pool) {
+        validate(from, to, limit);
+        long[] totals = aggregate(from, to, new Scan(ANY_CATEGORY, ANY_PRODUCT, 0, null, productCount), pool);
+        int offset = metric == Metric.UNITS ? 0 : 1;
+
+        int[] sold = new int[productCount];
+        int count = 0;
+        for (int product = 0; product < productCount; product++) {
+            if (totals[2 * product + offset] > 0) sold[count++] = product;
+        }
+
+        // Categorías distintas ordenadas y productos agrupados por categoría (ordenación por conteo)
+        long[] categories = new long[count];
+        for (int i = 0; i < count; i++) categories[i] = categoryIds[sold[i]];
+        Arrays.sort(categories);
+        int distinct = 0;
+        for (int i = 0; i < count; i++) {
+            if (i == 0 || categories[i] != categories[i - 1]) categories[distinct++] = categories[i];
+        }
+        int[] offsets = new int[distinct + 1];
+        int[] slots = new int[count];
+        for (int i = 0; i < count; i++) {
+            slots[i] = Arrays.binarySearch(categories, 0, distinct, categoryIds[sold[i]]);
+            offsets[slots[i] + 1]++;
+        }
+        for (int slot = 0; slot < distinct; slot++) offsets[slot + 1] += offsets[slot];
+        int[] grouped = new int[count];
+        int[] next = Arrays.copyOf(offsets, distinct);
+        for (int i = 0; i < count; i++) grouped[next[slots[i]]++] = sold[i];
+
+        Map<Long, List<ProductTotal>> result = new LinkedHashMap<>();
+        for (int slot = 0; slot < distinct; slot++) {
+            result.put(categories[slot], select(totals, offset, false, limit, grouped, offsets[slot], offsets[slot + 1]));
+        }
+        return result;
+    }
+
+    /**
+     * Totales por intervalo de calendario en un rango de días, incluidos los intervalos sin ventas.
+     *
+     * @param categoryId La categoría, o null para todas.
+     * @param productId El producto, o null para todos.
+     * @return List los intervalos en orden.
+     */
+    public List<BucketTotal> series(LocalDate from, LocalDate to, Bucket bucket, Long categoryId, Long productId,
+                                    ForkJoinPool pool) {
+        validate(from, to, 1);
+        int fromDay = SalesColumnStore.toDay(from);
+        int[] buckets = new int[SalesColumnStore.toDay(to) - fromDay + 1];
+        List<LocalDate> starts = new ArrayList<>();
+        LocalDate day = from;
+        for (int i = 0; i < buckets.length; i++) {
+            LocalDate start = bucket.start(day);
+            if (starts.isEmpty() || !starts.getLast().equals(start)) starts.add(start);
+            buckets[i] = starts.size() - 1;
+            day = day.plusDays(1);
+        }
+
+        Integer product = productId == null ? Integer.valueOf(ANY_PRODUCT) : productIndexes.get(productId);
+        long category = categoryId == null ? ANY_CATEGORY : categoryId;
+        // Un producto que no está en esta instantánea no tiene ventas: la serie queda a cero
+        long[] totals = product == null || product >= productCount ? new long[2 * starts.size()]
+                : aggregate(from, to, new Scan(category, product, fromDay, buckets, starts.size()), pool);
+
+        List<BucketTotal> result = new ArrayList<>(starts.size());
+        for (int key = 0; key < starts.size(); key++) {
+            result.add(new BucketTotal(starts.get(key), totals[2 * key], totals[2 * key + 1]));
+        }
+        return result;
+    }
+
+    private long[] aggregate(LocalDate from, LocalDate to, Scan scan, ForkJoinPool pool) {
+        int fromDay = SalesColumnStore.toDay(from);
+        int toDay = SalesColumnStore.toDay(to);
+
+        int[] starts = new int[segments.length];
+        int[] ends = new int[segments.length];
+        long rows = 0;
+        for (int i = 0; i < segments.length; i++) {
+            starts[i] = segments[i].lowerBound(fromDay);
+            ends[i] = segments[i].lowerBound(toDay + 1);
+            rows += ends[i] - starts[i];
+        }
+        if (rows == 0) return new long[2 * scan.keys()];
+
+        int parallelism = pool.getParallelism();
+        int chunkRows = (int) Math.max(MIN_CHUNK_ROWS, (rows + parallelism - 1) / parallelism);
+        List<Chunk> chunks = new ArrayList<>();
+        for (int i = 0; i < segments.length; i++) {
+            for (int start = starts[i]; start < ends[i]; start += chunkRows) {
+                chunks.add(new Chunk(segments[i], start, Math.min(ends[i], start + chunkRows)));
+            }
+        }
+        return pool.invoke(new ScanTask(chunks, 0, chunks.size(), scan));
+    }
+
+    /**
+     * Divide la lista de trozos por la mitad hasta llegar a uno y suma los parciales.
+     */
+    private final class ScanTask extends RecursiveTask<long[]> {
+
+        private final List<Chunk> chunks;
+        private final int from;
+        private final int to;
+        private final Scan scan;
+
+        private ScanTask(List<Chunk> chunks, int from, int to, Scan scan) {
+            this.chunks = chunks;
+            this.from = from;
+            this.to = to;
+            this.scan = scan;
+        }
+
+        @Override
+        protected long[] compute() {
+            if (to - from == 1) return scan(chunks.get(from), scan);
+
+            int middle = (from + to) >>> 1;
+            ScanTask left = new ScanTask(chunks, from, middle, scan);
+            left.fork();
+            long[] right = new ScanTask(chunks, middle, to, scan).compute();
+            long[] totals = left.join();
+            for (int i = 0; i < totals.length; i++) totals[i] += right[i];
+            return totals;
+        }
+    }
+
+    // Totales intercalados: unidades en [2 * clave] e importe en [2 * clave + 1]
+    private long[] scan(Chunk chunk, Scan scan) {
+        long[] totals = new long[2 * scan.keys()];
+        int[] days = chunk.segment().days();
+        int[] products = chunk.segment().products();
+        int[] units = chunk.segment().units();
+        long[] revenue = chunk.segment().revenue();
+        long category = scan.categoryId();
+        int onlyProduct = scan.product();
+        int[] buckets = scan.buckets();
+        int fromDay = scan.fromDay();
+
+        for (int row = chunk.from(); row < chunk.to(); row++) {
+            int product = products[row];
+            if (category != ANY_CATEGORY && categoryIds[product] != category) continue;
+            if (onlyProduct != ANY_PRODUCT && product != onlyProduct) continue;
+            int key = buckets == null ? product : buckets[days[row] - fromDay];
+            totals[2 * key] += units[row];
+            totals[2 * key + 1] += revenue[row];
+        }
+        return totals;
+    }
+
+    /**
+     * Los 'limit' mejores candidatos con un montículo de índices cuya raíz es el peor de los retenidos.
+     */
+    private List<ProductTotal> select(long[] totals, int offset, boolean ascending, int limit,
+                                      int[] candidates, int from, int to) {
+        int[] heap = new int[Math.min(limit, to - from)];
+        int size = 0;
+        for (int i = from; i < to; i++) {
+            int product = candidates[i];
+            if (size < heap.length) {
+                heap[size] = product;
+                siftUp(heap, size++, totals, offset, ascending);
+            } else if (before(product, heap[0], totals, offset, ascending)) {
+                heap[0] = product;
+                siftDown(heap, size, totals, offset, ascending);
+            }
+        }
+
+        ProductTotal[] ranked = new ProductTotal[size];
+        while (size > 0) {
+            int product = heap[0];
+            ranked[--size] = new ProductTotal(productIds[product], categoryIds[product],
+                    totals[2 * product], totals[2 * product + 1]);
+            heap[0] = heap[size];
+            siftDown(heap, size, totals, offset, ascending);
+        }
+        return List.of(ranked);
+    }
+
+    private void siftUp(int[] heap, int node, long[] totals, int offset, boolean ascending) {
+        while (node > 0) {
+            int parent = (node - 1) >>> 1;
+            if (!before(heap[parent], heap[node], totals, offset, ascending)) return;
+            swap(heap, parent, node);
+            node = parent;
+        }
+    }
+
+    private void siftDown(int[] heap, int size, long[] totals, int offset, boolean ascending) {
+        int node = 0;
+        while (true) {
+            int worst = node;
+            int left = 2 * node + 1;
+            int right = left + 1;
+            if (left < size && before(heap[worst], heap[left], totals, offset, ascending)) worst = left;
+            if (right < size && before(heap[worst], heap[right], totals, offset, ascending)) worst = right;
+            if (worst == node) return;
+            swap(heap, node, worst);
+            node = worst;
+        }
+    }
+
+    // true si el producto 'a' va antes que 'b' en el resultado
+    private boolean before(int a, int b, long[] totals, int offset, boolean ascending) {
+        long valueA = totals[2 * a + offset];
+        long valueB = totals[2 * b + offset];
+        if (valueA != valueB) return ascending ? valueA < valueB : valueA > valueB;
+        return productIds[a] < productIds[b];
+    }
+
+    private static void swap(int[] heap, int i, int j) {
+        int value = heap[i];
+        heap[i] = heap[j];
+        heap[j] = value;
+    }
+
+    private static void validate(LocalDate from, LocalDate to, int limit) {
+        if (from == null || to == null || to.isBefore(from)) {
+            throw new IllegalArgumentException("Error: Invalid date range");
+        }
+        if (limit <= 0) throw new IllegalArgumentException("Error: limit must be positive");
+    }
+}
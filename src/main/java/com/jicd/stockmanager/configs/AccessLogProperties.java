@@ -0,0 +1,19 @@
+package com.jicd.stockmanager.configs;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Configuration;
+
+@Configuration
+@ConfigurationProperties(prefix = "app.logging.access")
+@Data
+public class AccessLogProperties {
+
+    private boolean enabled = true;
+    // Fracción de peticiones correctas (2xx/3xx) que se registran
+    private double sampleRate = 0.01;
+    // Fracción de peticiones con error (4xx/5xx) que se registran
+    private double errorSampleRate = 1.0;
+    // Las peticiones más lentas que este umbral (ms) se registran siempre
+    private long slowThreshold = 1_000;
+}
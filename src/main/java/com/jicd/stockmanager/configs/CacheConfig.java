@@ -0,0 +1,46 @@
+package com.jicd.stockmanager.configs;
+
+import com.github.benmanes.caffeine.cache.Caffeine;
+import lombok.RequiredArgsConstructor;
+import org.springframework.cache.CacheManager;
+import org.springframework.cache.annotation.EnableCaching;
+import org.springframework.cache.caffeine.CaffeineCacheManager;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import java.time.Duration;
+
+/**
+ * Configuración de las cachés de lectura del catálogo.
+ * Cada región tiene su propio tamaño máximo y TTL (app.cache.regions) y registra estadísticas,
+ * que Actuator publica como métricas de aciertos, fallos y expulsiones.
+ */
+@Configuration
+@EnableCaching
+@RequiredArgsConstructor
+public class CacheConfig {
+
+    public static final String PRODUCTS = "products";
+    public static final String CATEGORIES = "categories";
+    public static final String PRODUCTS_BY_CATEGORY = "products-by-category";
+
+    private final CacheRegionProperties properties;
+
+    @Bean
+    public CacheManager cacheManager() {
+        CaffeineCacheManager cacheManager = new CaffeineCacheManager();
+        cacheManager.setAllowNullValues(false);
+        cacheManager.setCaffeine(builder(properties.getDefaults()));
+
+        properties.getRegions().forEach((name, region) ->
+                cacheManager.registerCustomCache(name, builder(region).build()));
+        return cacheManager;
+    }
+
+    private static Caffeine<Object, Object> builder(CacheRegionProperties.Region region) {
+        return Caffeine.newBuilder()
+                .maximumSize(region.getMaxSize())
+                .expireAfterWrite(Duration.ofMillis(region.getTtl()))
+                .recordStats();
+    }
+}
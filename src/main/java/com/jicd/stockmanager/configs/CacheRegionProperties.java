@@ -0,0 +1,24 @@
+package com.jicd.stockmanager.configs;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Configuration;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+@Configuration
+@ConfigurationProperties(prefix = "app.cache")
+@Data
+public class CacheRegionProperties {
+
+    // Configuración por defecto para las cachés sin región propia
+    private Region defaults = new Region();
+    private Map<String, Region> regions = new LinkedHashMap<>();
+
+    @Data
+    public static class Region {
+        private long maxSize = 1_000;
+        private long ttl = 60_000;
+    }
+}
@@ -0,0 +1,13 @@
+package com.jicd.stockmanager.configs;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Configuration;
+
+@Configuration
+@ConfigurationProperties(prefix = "app.catalog.transfer")
+@Data
+public class CatalogTransferProperties {
+
+    private int batchSize = 500;
+}
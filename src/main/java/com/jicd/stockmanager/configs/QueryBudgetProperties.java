@@ -0,0 +1,19 @@
+package com.jicd.stockmanager.configs;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Configuration;
+
+@Configuration
+@ConfigurationProperties(prefix = "app.query-budget")
+@Data
+public class QueryBudgetProperties {
+
+    private boolean enabled = true;
+    // Sentencias SQL por petición a partir de las cuales se avisa
+    private int maxPerRequest = 20;
+    // Repeticiones de una misma sentencia en una petición que se consideran un N+1
+    private int repeatThreshold = 5;
+    // Añade la cabecera X-Query-Count a las respuestas (solo en desarrollo: obliga a cachear el cuerpo)
+    private boolean exposeHeader = false;
+}
@@ -0,0 +1,55 @@
+package com.jicd.stockmanager.configs;
+
+import com.jicd.stockmanager.datasource.PinningDataSource;
+import com.jicd.stockmanager.datasource.ReplicaLagMonitor;
+import com.jicd.stockmanager.datasource.ReplicaRoutingDataSource;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.env.Environment;
+import org.springframework.jdbc.datasource.LazyConnectionDataSourceProxy;
+
+import javax.sql.DataSource;
+
+/**
+ * Enrutado de las transacciones de solo lectura a una réplica (app.datasource.replica).
+ * El DataSource autoconfigurado (primario) se envuelve en un LazyConnectionDataSourceProxy cuyo
+ * DataSource de solo lectura es ReplicaRoutingDataSource: como Hibernate marca la conexión como
+ * read-only antes de pedirla, las transacciones readOnly = true obtienen la conexión de la réplica
+ * y el resto la del primario.
+ * Requiere spring.jpa.open-in-view=false: con la sesión abierta durante toda la petición la primera
+ * conexión se mantiene para las transacciones siguientes, incluidas las de escritura.
+ */
+@Configuration
+@ConditionalOnProperty(prefix = "app.datasource.replica", name = "enabled", havingValue = "true")
+public class ReadReplicaConfig {
+
+    @Bean(destroyMethod = "close")
+    public ReplicaLagMonitor replicaLagMonitor(ReplicaDataSourceProperties properties, MeterRegistry meterRegistry) {
+        return new ReplicaLagMonitor(properties, meterRegistry);
+    }
+
+    @Bean
+    public static BeanPostProcessor replicaRoutingPostProcessor(ObjectProvider<ReplicaLagMonitor> monitor,
+                                                                ObjectProvider<MeterRegistry> meterRegistry,
+                                                                Environment environment) {
+        if (environment.getProperty("spring.jpa.open-in-view", Boolean.class, true)) {
+            throw new IllegalStateException(
+                    "El enrutado a la réplica de lectura requiere spring.jpa.open-in-view=false");
+        }
+        return new BeanPostProcessor() {
+            @Override
+            public Object postProcessAfterInitialization(Object bean, String beanName) {
+                if (!"dataSource".equals(beanName) || !(bean instanceof DataSource primary)) return bean;
+
+                LazyConnectionDataSourceProxy proxy = new LazyConnectionDataSourceProxy(new PinningDataSource(primary));
+                proxy.setReadOnlyDataSource(
+                        new ReplicaRoutingDataSource(primary, monitor.getObject(), meterRegistry.getObject()));
+                return proxy;
+            }
+        };
+    }
+}
@@ -0,0 +1,25 @@
+package com.jicd.stockmanager.configs;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Configuration;
+
+@Configuration
+@ConfigurationProperties(prefix = "app.replenishment")
+@Data
+public class ReplenishmentProperties {
+
+    // Días de historial de ventas (hasta ayer) para la velocidad
+    private int windowDays = 56;
+    private double halfLifeDays = 14;
+    private int leadTimeDays = 7;
+    private int safetyDays = 3;
+    private int reviewDays = 7;
+    // Particiones del catálogo evaluadas en paralelo, cada una con su transacción y conexión
+    private int parallelism = 4;
+    // Productos (o ids, en la ejecución completa) por partición
+    private int partitionSize = 2000;
+    // Margen (ms) con el que la ejecución incremental relee movimientos anteriores a la ejecución previa:
+    // un movimiento lleva la hora de su transacción, que puede confirmarse después de que esta empiece
+    private long incrementalOverlap = 300000;
+}
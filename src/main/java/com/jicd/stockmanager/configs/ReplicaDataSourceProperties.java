@@ -0,0 +1,22 @@
+package com.jicd.stockmanager.configs;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Configuration;
+
+@Configuration
+@ConfigurationProperties(prefix = "app.datasource.replica")
+@Data
+public class ReplicaDataSourceProperties {
+
+    // Desactivado: todas las transacciones usan spring.datasource
+    private boolean enabled = false;
+    private String url;
+    private String username;
+    private String password;
+    private int poolSize = 10;
+    // Espera máxima (ms) por una conexión de la réplica
+    private long connectionTimeout = 3000;
+    // Retraso máximo (ms) de replicación con el que se siguen enviando lecturas a la réplica
+    private long maxLag = 5000;
+}
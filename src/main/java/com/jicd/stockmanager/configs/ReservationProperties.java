@@ -0,0 +1,16 @@
+package com.jicd.stockmanager.configs;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Configuration;
+
+@Configuration
+@ConfigurationProperties(prefix = "app.reservations")
+@Data
+public class ReservationProperties {
+
+    // Duración de una reserva antes de liberarse automáticamente (ms)
+    private long ttl = 900_000;
+    // Reservas confirmadas volcadas a la BD por transacción
+    private int flushBatchSize = 200;
+}
@@ -0,0 +1,45 @@
+package com.jicd.stockmanager.configs;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Configuration;
+
+@Configuration
+@ConfigurationProperties(prefix = "app.sales")
+@Data
+public class SaleProperties {
+
+    private Ingest ingest = new Ingest();
+    private Partitions partitions = new Partitions();
+    private Analytics analytics = new Analytics();
+
+    @Data
+    public static class Ingest {
+        private int batchSize = 500;
+    }
+
+    @Data
+    public static class Partitions {
+        // Meses futuros con particion ya creada
+        private int premakeMonths = 3;
+        // Meses anteriores al actual que se conservan; 0 desactiva la retencion
+        private int retentionMonths = 24;
+        private RetentionAction retentionAction = RetentionAction.ARCHIVE;
+    }
+
+    @Data
+    public static class Analytics {
+        // Días (hasta hoy) de ventas diarias por producto cargados en memoria
+        private int retentionDays = 400;
+        // Días recientes que se releen en cada refresco; los anteriores ya no cambian
+        private int recentDays = 2;
+        // Hilos de las agregaciones; 0 usa todos los núcleos
+        private int parallelism = 0;
+    }
+
+    public enum RetentionAction {
+        // Mover las particiones separadas al esquema sales_archive
+        ARCHIVE,
+        DROP
+    }
+}
@@ -0,0 +1,17 @@
+package com.jicd.stockmanager.configs;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Configuration;
+
+@Configuration
+@ConfigurationProperties(prefix = "app.stock.feed")
+@Data
+public class StockFeedProperties {
+
+    // Mensajes pendientes por suscriptor; al llenarse la cola el suscriptor se da de baja
+    private int queueCapacity = 32;
+    private int maxSubscribers = 10_000;
+    // Productos más categorías por suscripción
+    private int maxFilterIds = 1000;
+}
@@ -0,0 +1,15 @@
+package com.jicd.stockmanager.configs;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Configuration;
+
+@Configuration
+@ConfigurationProperties(prefix = "app.stock.journal")
+@Data
+public class StockJournalProperties {
+
+    // Antigüedad mínima (ms) de los movimientos que se compactan: deja margen a las transacciones
+    // que aún no han confirmado movimientos con una fecha anterior
+    private long compactionLag = 300_000;
+}
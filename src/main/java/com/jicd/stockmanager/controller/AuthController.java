@@ -1,10 +1,13 @@
 package com.jicd.stockmanager.controller;
 
 import com.jicd.stockmanager.dto.AuthResDTO;
+import com.jicd.stockmanager.dto.RefreshTokenReqDTO;
 import com.jicd.stockmanager.dto.UserReqDTO;
 import com.jicd.stockmanager.service.AuthService;
 import lombok.RequiredArgsConstructor;
 import org.springframework.http.ResponseEntity;
+import org.springframework.security.access.prepost.PreAuthorize;
+import org.springframework.web.bind.annotation.PathVariable;
 import org.springframework.web.bind.annotation.PostMapping;
 import org.springframework.web.bind.annotation.RequestBody;
 import org.springframework.web.bind.annotation.RequestMapping;
@@ -27,8 +30,19 @@ public class AuthController {
         return ResponseEntity.ok(service.register(registerRequest));
     }
 
+    @PostMapping("/revoke/{username}")
+    @PreAuthorize("hasRole('ADMIN')")
+    public ResponseEntity<String> revoke(@PathVariable String username) {
+        return ResponseEntity.ok(service.revokeTokens(username));
+    }
+
     @PostMapping("/refresh-token")
-    public String refreshToken() {
-        return "refresh-token";
+    public ResponseEntity<AuthResDTO> refreshToken(@RequestBody RefreshTokenReqDTO refreshRequest) {
+        return ResponseEntity.ok(service.refresh(refreshRequest));
+    }
+
+    @PostMapping("/logout")
+    public ResponseEntity<String> logout(@RequestBody RefreshTokenReqDTO logoutRequest) {
+        return ResponseEntity.ok(service.logout(logoutRequest));
     }
 }
@@ -0,0 +1,49 @@
+package com.jicd.stockmanager.controller;
+
+import com.jicd.stockmanager.dto.CatalogImportResDTO;
+import com.jicd.stockmanager.dto.CategoryDTO;
+import com.jicd.stockmanager.service.CatalogService;
+import com.jicd.stockmanager.service.CatalogTransferService;
+import jakarta.servlet.http.HttpServletResponse;
+import lombok.RequiredArgsConstructor;
+import org.springframework.http.ContentDisposition;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.ResponseEntity;
+import org.springframework.security.access.prepost.PreAuthorize;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.List;
+
+@RestController
+@RequestMapping("/api/categories")
+@RequiredArgsConstructor
+public class CategoryController {
+
+    private final CatalogService catalogService;
+    private final CatalogTransferService transferService;
+
+    @GetMapping
+    public ResponseEntity<List<CategoryDTO>> listCategories() {
+        return ResponseEntity.ok(catalogService.listCategories());
+    }
+
+    @PostMapping(value = "/import", consumes = "text/csv")
+    @PreAuthorize("hasRole('ADMIN')")
+    public ResponseEntity<CatalogImportResDTO> importCategories(InputStream body) throws IOException {
+        return ResponseEntity.ok(transferService.importCategories(body));
+    }
+
+    @GetMapping(value = "/export", produces = "text/csv")
+    @PreAuthorize("hasRole('ADMIN')")
+    public void exportCategories(HttpServletResponse response) throws IOException {
+        response.setContentType("text/csv;charset=UTF-8");
+        response.setHeader(HttpHeaders.CONTENT_DISPOSITION,
+                ContentDisposition.attachment().filename("categories.csv").build().toString());
+        transferService.exportCategories(response.getOutputStream());
+    }
+}
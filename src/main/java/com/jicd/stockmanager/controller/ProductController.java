@@ -0,0 +1,73 @@
+package com.jicd.stockmanager.controller;
+
+import com.jicd.stockmanager.dto.CatalogImportResDTO;
+import com.jicd.stockmanager.dto.KeysetPageDTO;
+import com.jicd.stockmanager.dto.PageResDTO;
+import com.jicd.stockmanager.dto.ProductDetailDTO;
+import com.jicd.stockmanager.dto.ProductSearchResDTO;
+import com.jicd.stockmanager.dto.ProductSummaryDTO;
+import com.jicd.stockmanager.service.CatalogService;
+import com.jicd.stockmanager.service.CatalogTransferService;
+import com.jicd.stockmanager.service.ProductSearchService;
+import jakarta.servlet.http.HttpServletResponse;
+import lombok.RequiredArgsConstructor;
+import org.springframework.http.ContentDisposition;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.ResponseEntity;
+import org.springframework.security.access.prepost.PreAuthorize;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+
+import java.io.IOException;
+import java.io.InputStream;
+
+@RestController
+@RequestMapping("/api/products")
+@RequiredArgsConstructor
+public class ProductController {
+
+    private final ProductSearchService searchService;
+    private final CatalogService catalogService;
+    private final CatalogTransferService transferService;
+
+    @GetMapping
+    public ResponseEntity<KeysetPageDTO<ProductSummaryDTO>> listProducts(
+            @RequestParam(required = false) Long categoryId,
+            @RequestParam(defaultValue = CatalogService.SORT_BY_ID) String sort,
+            @RequestParam(required = false) String cursor,
+            @RequestParam(defaultValue = "20") int size) {
+        return ResponseEntity.ok(catalogService.listProducts(categoryId, sort, cursor, size));
+    }
+
+    @GetMapping("/{id}")
+    public ResponseEntity<ProductDetailDTO> getProduct(@PathVariable Long id) {
+        return ResponseEntity.ok(catalogService.getProduct(id));
+    }
+
+    @GetMapping("/search")
+    public ResponseEntity<PageResDTO<ProductSearchResDTO>> search(@RequestParam("q") String query,
+                                                                  @RequestParam(defaultValue = "0") int page,
+                                                                  @RequestParam(defaultValue = "20") int size) {
+        return ResponseEntity.ok(searchService.search(query, page, size));
+    }
+
+    @PostMapping(value = "/import", consumes = "text/csv")
+    @PreAuthorize("hasRole('ADMIN')")
+    public ResponseEntity<CatalogImportResDTO> importProducts(InputStream body) throws IOException {
+        return ResponseEntity.ok(transferService.importProducts(body));
+    }
+
+    //El CSV se escribe en la respuesta a medida que se lee de la BD
+    @GetMapping(value = "/export", produces = "text/csv")
+    @PreAuthorize("hasRole('ADMIN')")
+    public void exportProducts(HttpServletResponse response) throws IOException {
+        response.setContentType("text/csv;charset=UTF-8");
+        response.setHeader(HttpHeaders.CONTENT_DISPOSITION,
+                ContentDisposition.attachment().filename("products.csv").build().toString());
+        transferService.exportProducts(response.getOutputStream());
+    }
+}
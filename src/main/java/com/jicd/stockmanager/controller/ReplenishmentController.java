@@ -0,0 +1,38 @@
+package com.jicd.stockmanager.controller;
+
+import com.jicd.stockmanager.dto.ReplenishmentRunResDTO;
+import com.jicd.stockmanager.dto.ReplenishmentSuggestionDTO;
+import com.jicd.stockmanager.service.ReplenishmentService;
+import lombok.RequiredArgsConstructor;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.security.access.prepost.PreAuthorize;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+
+import java.util.List;
+
+@RestController
+@RequestMapping("/api/replenishment")
+@PreAuthorize("hasRole('ADMIN')")
+@RequiredArgsConstructor
+public class ReplenishmentController {
+
+    private final ReplenishmentService replenishmentService;
+
+    @GetMapping("/suggestions")
+    public ResponseEntity<List<ReplenishmentSuggestionDTO>> suggestions(@RequestParam(defaultValue = "100") int limit) {
+        return ResponseEntity.ok(replenishmentService.findSuggestions(limit));
+    }
+
+    //Ejecucion a demanda; full=false solo evalua los productos con movimientos desde la anterior
+    @PostMapping("/run")
+    public ResponseEntity<ReplenishmentRunResDTO> run(@RequestParam(defaultValue = "false") boolean full) {
+        return replenishmentService.run(full)
+                .map(ResponseEntity::ok)
+                .orElseGet(() -> ResponseEntity.status(HttpStatus.CONFLICT).build());
+    }
+}
@@ -0,0 +1,93 @@
+package com.jicd.stockmanager.controller;
+
+import com.jicd.stockmanager.analytics.SalesSnapshot;
+import com.jicd.stockmanager.dto.CategoryRevenueDTO;
+import com.jicd.stockmanager.dto.CategoryTopProductsDTO;
+import com.jicd.stockmanager.dto.DailyRevenueDTO;
+import com.jicd.stockmanager.dto.ProductRevenueDTO;
+import com.jicd.stockmanager.dto.ProductSalesDTO;
+import com.jicd.stockmanager.dto.SalesBucketDTO;
+import com.jicd.stockmanager.service.SalesAnalyticsService;
+import com.jicd.stockmanager.service.SalesRollupService;
+import lombok.RequiredArgsConstructor;
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.ResponseEntity;
+import org.springframework.security.access.prepost.PreAuthorize;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+
+import java.time.LocalDate;
+import java.util.List;
+
+@RestController
+@RequestMapping("/api/reports")
+@PreAuthorize("hasRole('ADMIN')")
+@RequiredArgsConstructor
+public class ReportController {
+
+    private final SalesRollupService rollupService;
+    private final SalesAnalyticsService analyticsService;
+
+    @GetMapping("/revenue/by-category")
+    public ResponseEntity<List<CategoryRevenueDTO>> revenueByCategory(
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate from,
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate to) {
+        return ResponseEntity.ok(rollupService.revenueByCategory(from, to));
+    }
+
+    @GetMapping("/revenue/by-product")
+    public ResponseEntity<List<ProductRevenueDTO>> revenueByProduct(
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate from,
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate to,
+            @RequestParam(defaultValue = "100") int limit) {
+        return ResponseEntity.ok(rollupService.revenueByProduct(from, to, limit));
+    }
+
+    @GetMapping("/revenue/daily")
+    public ResponseEntity<List<DailyRevenueDTO>> revenueByDay(
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate from,
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate to) {
+        return ResponseEntity.ok(rollupService.revenueByDay(from, to));
+    }
+
+    //Consultas sobre la instantanea en memoria; ascending=true devuelve los productos que menos rotan
+    @GetMapping("/analytics/top-products")
+    public ResponseEntity<List<ProductSalesDTO>> topProducts(
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate from,
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate to,
+            @RequestParam(required = false) Long categoryId,
+            @RequestParam(defaultValue = "UNITS") SalesSnapshot.Metric metric,
+            @RequestParam(defaultValue = "false") boolean ascending,
+            @RequestParam(defaultValue = "100") int limit) {
+        return ResponseEntity.ok(analyticsService.topProducts(from, to, categoryId, metric, ascending, limit));
+    }
+
+    @GetMapping("/analytics/top-products/by-category")
+    public ResponseEntity<List<CategoryTopProductsDTO>> topProductsByCategory(
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate from,
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate to,
+            @RequestParam(defaultValue = "UNITS") SalesSnapshot.Metric metric,
+            @RequestParam(defaultValue = "100") int limit) {
+        return ResponseEntity.ok(analyticsService.topProductsByCategory(from, to, metric, limit));
+    }
+
+    @GetMapping("/analytics/series")
+    public ResponseEntity<List<SalesBucketDTO>> salesSeries(
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate from,
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate to,
+            @RequestParam(defaultValue = "DAY") SalesSnapshot.Bucket bucket,
+            @RequestParam(required = false) Long categoryId,
+            @RequestParam(required = false) Long productId) {
+        return ResponseEntity.ok(analyticsService.series(from, to, bucket, categoryId, productId));
+    }
+
+    @PostMapping("/rollups/rebuild")
+    public ResponseEntity<String> rebuildRollups(
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate from,
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate to) {
+        return ResponseEntity.ok(rollupService.rebuild(from, to));
+    }
+}
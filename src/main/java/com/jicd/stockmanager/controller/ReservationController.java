@@ -0,0 +1,50 @@
+package com.jicd.stockmanager.controller;
+
+import com.jicd.stockmanager.dto.ReservationResDTO;
+import com.jicd.stockmanager.dto.SaleReqDTO;
+import com.jicd.stockmanager.model.User;
+import com.jicd.stockmanager.service.ReservationService;
+import lombok.RequiredArgsConstructor;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.security.core.annotation.AuthenticationPrincipal;
+import org.springframework.web.bind.annotation.DeleteMapping;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+
+@RestController
+@RequestMapping("/api/reservations")
+@RequiredArgsConstructor
+public class ReservationController {
+
+    private final ReservationService service;
+
+    @PostMapping
+    public ResponseEntity<ReservationResDTO> reserve(@RequestBody SaleReqDTO reservationRequest,
+                                                     @AuthenticationPrincipal User user) {
+        return ResponseEntity.status(HttpStatus.CREATED).body(service.reserve(reservationRequest, user));
+    }
+
+    @GetMapping("/{id}")
+    public ResponseEntity<ReservationResDTO> getReservation(@PathVariable Long id,
+                                                            @AuthenticationPrincipal User user) {
+        return ResponseEntity.ok(service.getReservation(id, user));
+    }
+
+    //La venta se registra en el siguiente volcado: el cliente consulta la reserva para obtener su id
+    @PostMapping("/{id}/confirm")
+    public ResponseEntity<ReservationResDTO> confirm(@PathVariable Long id,
+                                                     @AuthenticationPrincipal User user) {
+        return ResponseEntity.status(HttpStatus.ACCEPTED).body(service.confirm(id, user));
+    }
+
+    @DeleteMapping("/{id}")
+    public ResponseEntity<Void> release(@PathVariable Long id, @AuthenticationPrincipal User user) {
+        service.release(id, user);
+        return ResponseEntity.noContent().build();
+    }
+}
@@ -0,0 +1,40 @@
+package com.jicd.stockmanager.controller;
+
+import com.jicd.stockmanager.dto.SaleImportResDTO;
+import com.jicd.stockmanager.dto.SaleReqDTO;
+import com.jicd.stockmanager.dto.SaleResDTO;
+import com.jicd.stockmanager.model.User;
+import com.jicd.stockmanager.service.SaleService;
+import lombok.RequiredArgsConstructor;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.security.access.prepost.PreAuthorize;
+import org.springframework.security.core.annotation.AuthenticationPrincipal;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+
+import java.io.IOException;
+import java.io.InputStream;
+
+@RestController
+@RequestMapping("/api/sales")
+@RequiredArgsConstructor
+public class SaleController {
+
+    private final SaleService service;
+
+    @PostMapping
+    public ResponseEntity<SaleResDTO> checkout(@RequestBody SaleReqDTO saleRequest,
+                                               @AuthenticationPrincipal User user) {
+        return ResponseEntity.status(HttpStatus.CREATED).body(service.checkout(saleRequest, user));
+    }
+
+    @PostMapping(value = "/import", consumes = "application/x-ndjson")
+    @PreAuthorize("hasRole('ADMIN')")
+    public ResponseEntity<SaleImportResDTO> importSales(InputStream body,
+                                                        @AuthenticationPrincipal User user) throws IOException {
+        return ResponseEntity.ok(service.importSales(body, user));
+    }
+}
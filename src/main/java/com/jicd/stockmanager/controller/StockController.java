@@ -0,0 +1,107 @@
+package com.jicd.stockmanager.controller;
+
+import com.jicd.stockmanager.dto.LowStockItemDTO;
+import com.jicd.stockmanager.dto.StockDiscrepancyDTO;
+import com.jicd.stockmanager.dto.StockLevelDTO;
+import com.jicd.stockmanager.dto.StockMovementReqDTO;
+import com.jicd.stockmanager.dto.StockShardsDTO;
+import com.jicd.stockmanager.service.LowStockService;
+import com.jicd.stockmanager.service.ShardedStockService;
+import com.jicd.stockmanager.service.StockFeedService;
+import com.jicd.stockmanager.service.StockJournalService;
+import com.jicd.stockmanager.service.StockService;
+import lombok.RequiredArgsConstructor;
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.security.access.prepost.PreAuthorize;
+import org.springframework.web.bind.annotation.DeleteMapping;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.PutMapping;
+import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Set;
+
+@RestController
+@RequestMapping("/api/stock")
+@RequiredArgsConstructor
+public class StockController {
+
+    private final LowStockService lowStockService;
+    private final StockService stockService;
+    private final StockJournalService journalService;
+    private final ShardedStockService shardedStockService;
+    private final StockFeedService stockFeedService;
+
+    @GetMapping("/low")
+    public ResponseEntity<List<LowStockItemDTO>> lowStock() {
+        return ResponseEntity.ok(lowStockService.findLowStock());
+    }
+
+    @GetMapping(value = "/low/stream", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    public SseEmitter lowStockStream() {
+        return lowStockService.subscribe();
+    }
+
+    //Stock en vivo de los productos y categorias indicados (?productIds=1,2&categoryIds=3)
+    @GetMapping(value = "/feed", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    public SseEmitter feed(@RequestParam(required = false) Set<Long> productIds,
+                           @RequestParam(required = false) Set<Long> categoryIds) {
+        return stockFeedService.subscribe(productIds == null ? Set.of() : productIds,
+                categoryIds == null ? Set.of() : categoryIds);
+    }
+
+    @PostMapping("/movements")
+    @PreAuthorize("hasRole('ADMIN')")
+    public ResponseEntity<StockLevelDTO> recordMovement(@RequestBody StockMovementReqDTO movementRequest) {
+        return ResponseEntity.status(HttpStatus.CREATED).body(stockService.recordMovement(movementRequest));
+    }
+
+    //Stock reconstruido desde el diario, opcionalmente en un instante pasado
+    @GetMapping("/{productId}/level")
+    public ResponseEntity<StockLevelDTO> level(@PathVariable Long productId,
+                                               @RequestParam(required = false)
+                                               @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime at) {
+        return ResponseEntity.ok(journalService.levelAt(productId, at));
+    }
+
+    @GetMapping("/reconciliation")
+    @PreAuthorize("hasRole('ADMIN')")
+    public ResponseEntity<List<StockDiscrepancyDTO>> reconcile() {
+        return ResponseEntity.ok(journalService.reconcile());
+    }
+
+    @GetMapping("/{productId}/shards")
+    @PreAuthorize("hasRole('ADMIN')")
+    public ResponseEntity<StockShardsDTO> shards(@PathVariable Long productId) {
+        return ResponseEntity.ok(shardedStockService.getShards(productId));
+    }
+
+    //Reparte el stock del producto en 'slots' slots (o cambia su numero si ya estaba repartido)
+    @PutMapping("/{productId}/shards")
+    @PreAuthorize("hasRole('ADMIN')")
+    public ResponseEntity<StockShardsDTO> shard(@PathVariable Long productId, @RequestParam int slots) {
+        return ResponseEntity.ok(shardedStockService.shard(productId, slots));
+    }
+
+    @PostMapping("/{productId}/shards/rebalance")
+    @PreAuthorize("hasRole('ADMIN')")
+    public ResponseEntity<StockShardsDTO> rebalance(@PathVariable Long productId) {
+        return ResponseEntity.ok(shardedStockService.rebalance(productId));
+    }
+
+    @DeleteMapping("/{productId}/shards")
+    @PreAuthorize("hasRole('ADMIN')")
+    public ResponseEntity<StockShardsDTO> merge(@PathVariable Long productId) {
+        return ResponseEntity.ok(shardedStockService.merge(productId));
+    }
+}
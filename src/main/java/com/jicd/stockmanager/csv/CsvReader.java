@@ -0,0 +1,92 @@
+package com.jicd.stockmanager.csv;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.Reader;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Lector CSV (RFC 4180) que devuelve un registro cada vez, sin cargar el fichero en memoria.
+ * Admite campos entre comillas con separadores, comillas dobladas y saltos de línea, y finales de línea LF o CRLF.
+ */
+public class CsvReader {
+
+    private final BufferedReader reader;
+    private final char delimiter;
+    private long recordNumber;
+
+    public CsvReader(Reader reader) {
+        this(reader, ',');
+    }
+
+    public CsvReader(Reader reader, char delimiter) {
+        this.reader = reader instanceof BufferedReader buffered ? buffered : new BufferedReader(reader);
+        this.delimiter = delimiter;
+    }
+
+    /**
+     * @return List los campos del siguiente registro, o null al final de la entrada.
+     * @throws IOException si falla la lectura o un campo entre comillas no se cierra.
+     */
+    public List<String> next() throws IOException {
+        int c = reader.read();
+        if (c == -1) return null;
+        recordNumber++;
+
+        List<String> fields = new ArrayList<>();
+        StringBuilder field = new StringBuilder();
+        boolean quoted = false;
+        boolean inQuotes = false;
+        for (; c != -1; c = reader.read()) {
+            if (inQuotes) {
+                if (c != '"') {
+                    field.append((char) c);
+                    continue;
+                }
+                reader.mark(1);
+                int following = reader.read();
+                if (following == '"') {
+                    field.append('"');
+                } else {
+                    inQuotes = false;
+                    if (following != -1) reader.reset();
+                }
+            } else if (c == '"' && !quoted && field.isEmpty()) {
+                quoted = true;
+                inQuotes = true;
+            } else if (c == delimiter) {
+                fields.add(field.toString());
+                field.setLength(0);
+                quoted = false;
+            } else if (c == '\n') {
+                break;
+            } else if (c == '\r') {
+                reader.mark(1);
+                if (reader.read() != '\n') reader.reset();
+                break;
+            } else {
+                field.append((char) c);
+            }
+        }
+        if (inQuotes) {
+            throw new IOException("Unterminated quoted field in record " + recordNumber);
+        }
+        fields.add(field.toString());
+        return fields;
+    }
+
+    /**
+     * @return long el número del último registro leído (la cabecera es el 1).
+     */
+    public long recordNumber() {
+        return recordNumber;
+    }
+
+    /**
+     * @return boolean true si el registro corresponde a una línea vacía.
+     */
+    public static boolean isBlank(List<String> record) {
+        return record.size() == 1 && record.getFirst().isBlank();
+    }
+}
@@ -0,0 +1,30 @@
+package com.jicd.stockmanager.datasource;
+
+import org.springframework.jdbc.datasource.DelegatingDataSource;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.SQLException;
+
+/**
+ * DataSource del primario que fija la petición en curso al primario al entregar una conexión
+ * de escritura (ver ReadYourWrites).
+ */
+public class PinningDataSource extends DelegatingDataSource {
+
+    public PinningDataSource(DataSource primary) {
+        super(primary);
+    }
+
+    @Override
+    public Connection getConnection() throws SQLException {
+        ReadYourWrites.pin();
+        return super.getConnection();
+    }
+
+    @Override
+    public Connection getConnection(String username, String password) throws SQLException {
+        ReadYourWrites.pin();
+        return super.getConnection(username, password);
+    }
+}
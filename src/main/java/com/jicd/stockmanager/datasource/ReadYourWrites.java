@@ -0,0 +1,60 @@
+package com.jicd.stockmanager.datasource;
+
+import org.springframework.web.context.request.RequestAttributes;
+import org.springframework.web.context.request.RequestContextHolder;
+
+import java.util.function.Supplier;
+
+/**
+ * Fijación de la petición en curso al primario: una vez que ha usado una conexión de escritura,
+ * sus lecturas posteriores no van a la réplica, que podría no tener aún esos cambios.
+ * Fuera de una petición HTTP no se enruta a la réplica: las tareas programadas y los listeners
+ * releen datos recién confirmados (índices, cachés, contadores repartidos).
+ * Tampoco las lecturas que rellenan una caché compartida (readFromPrimary): lo que se guarda vive
+ * todo el TTL, así que un valor antiguo leído de una réplica retrasada sobreviviría a la invalidación.
+ */
+public final class ReadYourWrites {
+
+    private static final String PINNED = ReadYourWrites.class.getName() + ".pinned";
+    private static final ThreadLocal<Boolean> PRIMARY_READ = new ThreadLocal<>();
+
+    private ReadYourWrites() {
+    }
+
+    /**
+     * Ejecuta una lectura en el primario sin fijar el resto de la petición. La conexión se obtiene al
+     * ejecutar la primera sentencia, por lo que basta con que esta ocurra dentro de 'read'.
+     *
+     * @param read La lectura.
+     * @return T el resultado de la lectura.
+     */
+    public static <T> T readFromPrimary(Supplier<T> read) {
+        if (PRIMARY_READ.get() != null) return read.get();
+        PRIMARY_READ.set(Boolean.TRUE);
+        try {
+            return read.get();
+        } finally {
+            PRIMARY_READ.remove();
+        }
+    }
+
+    static void pin() {
+        RequestAttributes attributes = RequestContextHolder.getRequestAttributes();
+        if (attributes != null && attributes.getAttribute(PINNED, RequestAttributes.SCOPE_REQUEST) == null) {
+            attributes.setAttribute(PINNED, Boolean.TRUE, RequestAttributes.SCOPE_REQUEST);
+        }
+    }
+
+    static boolean inRequest() {
+        return RequestContextHolder.getRequestAttributes() != null;
+    }
+
+    static boolean isPrimaryRead() {
+        return PRIMARY_READ.get() != null;
+    }
+
+    static boolean isPinned() {
+        RequestAttributes attributes = RequestContextHolder.getRequestAttributes();
+        return attributes != null && attributes.getAttribute(PINNED, RequestAttributes.SCOPE_REQUEST) != null;
+    }
+}
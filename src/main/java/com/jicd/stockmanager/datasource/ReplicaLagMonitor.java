@@ -0,0 +1,102 @@
+package com.jicd.stockmanager.datasource;
+
+import com.jicd.stockmanager.configs.ReplicaDataSourceProperties;
+import com.zaxxer.hikari.HikariConfig;
+import com.zaxxer.hikari.HikariDataSource;
+import com.zaxxer.hikari.metrics.micrometer.MicrometerMetricsTrackerFactory;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.scheduling.annotation.Scheduled;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+
+/**
+ * Pool de la réplica y medición periódica de su retraso de replicación.
+ * La réplica se considera disponible mientras responde y su retraso no supera app.datasource.replica.max-lag;
+ * hasta la primera medición correcta las lecturas van al primario.
+ */
+@Slf4j
+public class ReplicaLagMonitor implements AutoCloseable {
+
+    static final String LAG_GAUGE = "datasource.replica.lag";
+
+    // Sin nada pendiente de aplicar el retraso es 0 aunque no haya habido escrituras recientes;
+    // si la instancia no es una réplica (pruebas locales con dos instancias) también es 0
+    private static final String LAG_QUERY = """
+            select case
+                when not pg_is_in_recovery() then 0
+                when pg_last_wal_receive_lsn() = pg_last_wal_replay_lsn() then 0
+                else coalesce(extract(epoch from now() - pg_last_xact_replay_timestamp()) * 1000, 0)
+            end""";
+
+    private final HikariDataSource dataSource;
+    private final long maxLag;
+
+    // Retraso en ms de la última medición, -1 si falló
+    private volatile long lag = -1;
+    private volatile boolean available;
+
+    public ReplicaLagMonitor(ReplicaDataSourceProperties properties, MeterRegistry meterRegistry) {
+        HikariConfig config = new HikariConfig();
+        config.setPoolName("replica");
+        config.setJdbcUrl(properties.getUrl());
+        config.setUsername(properties.getUsername());
+        config.setPassword(properties.getPassword());
+        config.setMaximumPoolSize(properties.getPoolSize());
+        config.setConnectionTimeout(properties.getConnectionTimeout());
+        config.setReadOnly(true);
+        // La aplicación arranca aunque la réplica no esté accesible; las lecturas van al primario
+        config.setInitializationFailTimeout(-1);
+        config.setMetricsTrackerFactory(new MicrometerMetricsTrackerFactory(meterRegistry));
+        this.dataSource = new HikariDataSource(config);
+        this.maxLag = properties.getMaxLag();
+
+        Gauge.builder(LAG_GAUGE, this, monitor -> monitor.lag < 0 ? Double.NaN : monitor.lag)
+                .description("Retraso de replicación de la réplica de lectura en ms")
+                .baseUnit("milliseconds")
+                .register(meterRegistry);
+    }
+
+    public DataSource getDataSource() {
+        return dataSource;
+    }
+
+    public boolean isAvailable() {
+        return available;
+    }
+
+    @Scheduled(fixedDelayString = "${app.datasource.replica.lag-check-interval:1000}")
+    public void check() {
+        long measured;
+        try (Connection connection = dataSource.getConnection();
+             Statement statement = connection.createStatement();
+             ResultSet result = statement.executeQuery(LAG_QUERY)) {
+            result.next();
+            measured = result.getLong(1);
+        } catch (SQLException e) {
+            if (available) log.warn("Réplica de lectura inaccesible, las lecturas pasan al primario", e);
+            lag = -1;
+            available = false;
+            return;
+        }
+
+        boolean nowAvailable = measured <= maxLag;
+        if (available && !nowAvailable) {
+            log.warn("Retraso de la réplica de {} ms (máximo {} ms), las lecturas pasan al primario", measured, maxLag);
+        } else if (!available && nowAvailable) {
+            log.info("Réplica de lectura disponible con {} ms de retraso", measured);
+        }
+        lag = measured;
+        available = nowAvailable;
+    }
+
+    @Override
+    public void close() {
+        dataSource.close();
+    }
+}
@@ -0,0 +1,72 @@
+package com.jicd.stockmanager.datasource;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.jdbc.datasource.lookup.AbstractRoutingDataSource;
+
+import javax.sql.DataSource;
+import java.util.Map;
+
+/**
+ * DataSource de las transacciones de solo lectura: usa la réplica en las peticiones HTTP salvo que la
+ * petición esté fijada al primario por una escritura previa, que la lectura rellene una caché o que la
+ * réplica esté caída o acumule demasiado retraso (ver ReadYourWrites).
+ */
+public class ReplicaRoutingDataSource extends AbstractRoutingDataSource {
+
+    static final String ROUTING_COUNTER = "datasource.routing";
+
+    private enum Route {PRIMARY, REPLICA}
+
+    private final ReplicaLagMonitor monitor;
+
+    private final Counter toReplica;
+    private final Counter background;
+    private final Counter pinned;
+    private final Counter primaryRead;
+    private final Counter lagging;
+
+    public ReplicaRoutingDataSource(DataSource primary, ReplicaLagMonitor monitor, MeterRegistry meterRegistry) {
+        this.monitor = monitor;
+        this.toReplica = counter(meterRegistry, "replica", "read_only");
+        this.background = counter(meterRegistry, "primary", "background");
+        this.pinned = counter(meterRegistry, "primary", "pinned");
+        this.primaryRead = counter(meterRegistry, "primary", "cache_fill");
+        this.lagging = counter(meterRegistry, "primary", "replica_unavailable");
+
+        setTargetDataSources(Map.of(Route.PRIMARY, primary, Route.REPLICA, monitor.getDataSource()));
+        setDefaultTargetDataSource(primary);
+        setLenientFallback(false);
+        afterPropertiesSet();
+    }
+
+    @Override
+    protected Object determineCurrentLookupKey() {
+        if (!ReadYourWrites.inRequest()) {
+            background.increment();
+            return Route.PRIMARY;
+        }
+        if (ReadYourWrites.isPrimaryRead()) {
+            primaryRead.increment();
+            return Route.PRIMARY;
+        }
+        if (ReadYourWrites.isPinned()) {
+            pinned.increment();
+            return Route.PRIMARY;
+        }
+        if (!monitor.isAvailable()) {
+            lagging.increment();
+            return Route.PRIMARY;
+        }
+        toReplica.increment();
+        return Route.REPLICA;
+    }
+
+    private static Counter counter(MeterRegistry meterRegistry, String target, String reason) {
+        return Counter.builder(ROUTING_COUNTER)
+                .description("Conexiones de solo lectura según el DataSource al que se enrutan")
+                .tag("target", target)
+                .tag("reason", reason)
+                .register(meterRegistry);
+    }
+}
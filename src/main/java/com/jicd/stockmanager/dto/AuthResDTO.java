@@ -2,6 +2,7 @@ package com.jicd.stockmanager.dto;
 
 public record AuthResDTO(
         String token,
+        String refreshToken,
         String username,
         String role
 ) {
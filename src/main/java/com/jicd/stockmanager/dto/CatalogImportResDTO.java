@@ -0,0 +1,8 @@
+package com.jicd.stockmanager.dto;
+
+public record CatalogImportResDTO(
+        long created,
+        long updated,
+        long rejected
+) {
+}
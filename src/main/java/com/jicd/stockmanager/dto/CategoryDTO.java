@@ -0,0 +1,8 @@
+package com.jicd.stockmanager.dto;
+
+public record CategoryDTO(
+        Long id,
+        String name,
+        String description
+) {
+}
@@ -0,0 +1,11 @@
+package com.jicd.stockmanager.dto;
+
+import java.math.BigDecimal;
+
+public record CategoryRevenueDTO(
+        Long categoryId,
+        Long units,
+        BigDecimal revenue,
+        Long saleCount
+) {
+}
@@ -0,0 +1,9 @@
+package com.jicd.stockmanager.dto;
+
+import java.util.List;
+
+public record CategoryTopProductsDTO(
+        Long categoryId,
+        List<ProductSalesDTO> products
+) {
+}
@@ -0,0 +1,11 @@
+package com.jicd.stockmanager.dto;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+
+public record DailyRevenueDTO(
+        LocalDate day,
+        Long units,
+        BigDecimal revenue
+) {
+}
@@ -0,0 +1,9 @@
+package com.jicd.stockmanager.dto;
+
+import java.util.List;
+
+public record KeysetPageDTO<T>(
+        List<T> items,
+        String nextCursor
+) {
+}
@@ -0,0 +1,9 @@
+package com.jicd.stockmanager.dto;
+
+public record LowStockItemDTO(
+        Long productId,
+        String name,
+        Integer stockQuantity,
+        Integer minThreshold
+) {
+}
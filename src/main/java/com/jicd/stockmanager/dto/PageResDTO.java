@@ -0,0 +1,11 @@
+package com.jicd.stockmanager.dto;
+
+import java.util.List;
+
+public record PageResDTO<T>(
+        List<T> items,
+        int page,
+        int size,
+        long total
+) {
+}
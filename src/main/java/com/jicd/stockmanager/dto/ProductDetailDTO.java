@@ -0,0 +1,13 @@
+package com.jicd.stockmanager.dto;
+
+public record ProductDetailDTO(
+        Long id,
+        String name,
+        String description,
+        Double price,
+        Integer stockQuantity,
+        Integer minThreshold,
+        Long categoryId,
+        String categoryName
+) {
+}
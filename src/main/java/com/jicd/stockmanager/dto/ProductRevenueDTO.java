@@ -0,0 +1,12 @@
+package com.jicd.stockmanager.dto;
+
+import java.math.BigDecimal;
+
+public record ProductRevenueDTO(
+        Long productId,
+        Long categoryId,
+        Long units,
+        BigDecimal revenue,
+        Long saleCount
+) {
+}
@@ -0,0 +1,11 @@
+package com.jicd.stockmanager.dto;
+
+import java.math.BigDecimal;
+
+public record ProductSalesDTO(
+        Long productId,
+        Long categoryId,
+        Long units,
+        BigDecimal revenue
+) {
+}
@@ -0,0 +1,8 @@
+package com.jicd.stockmanager.dto;
+
+public record ProductSearchResDTO(
+        Long id,
+        String name,
+        double score
+) {
+}
@@ -0,0 +1,11 @@
+package com.jicd.stockmanager.dto;
+
+public record ProductSummaryDTO(
+        Long id,
+        String name,
+        Double price,
+        Integer stockQuantity,
+        Long categoryId,
+        String categoryName
+) {
+}
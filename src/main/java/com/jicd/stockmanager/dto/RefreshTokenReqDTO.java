@@ -0,0 +1,6 @@
+package com.jicd.stockmanager.dto;
+
+public record RefreshTokenReqDTO(
+        String refreshToken
+) {
+}
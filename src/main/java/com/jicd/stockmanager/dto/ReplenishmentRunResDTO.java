@@ -0,0 +1,8 @@
+package com.jicd.stockmanager.dto;
+
+public record ReplenishmentRunResDTO(
+        boolean full,
+        int products,
+        long durationMillis
+) {
+}
@@ -0,0 +1,14 @@
+package com.jicd.stockmanager.dto;
+
+import java.time.LocalDateTime;
+
+public record ReplenishmentSuggestionDTO(
+        Long productId,
+        String productName,
+        Integer stockQuantity,
+        Double velocity,
+        Double daysOfCover,
+        Integer suggestedQuantity,
+        LocalDateTime computedAt
+) {
+}
@@ -0,0 +1,15 @@
+package com.jicd.stockmanager.dto;
+
+import com.jicd.stockmanager.Enums.RESERVATION_STATUS;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+public record ReservationResDTO(
+        Long id,
+        RESERVATION_STATUS status,
+        LocalDateTime expiresAt,
+        Long saleId,
+        List<ReservationItemDTO> items
+) {
+}
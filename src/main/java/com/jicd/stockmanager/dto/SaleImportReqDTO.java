@@ -0,0 +1,10 @@
+package com.jicd.stockmanager.dto;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+public record SaleImportReqDTO(
+        LocalDateTime date,
+        List<SaleItemReqDTO> items
+) {
+}
@@ -0,0 +1,7 @@
+package com.jicd.stockmanager.dto;
+
+public record SaleImportResDTO(
+        long imported,
+        long rejected
+) {
+}
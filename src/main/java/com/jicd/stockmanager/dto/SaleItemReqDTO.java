@@ -0,0 +1,7 @@
+package com.jicd.stockmanager.dto;
+
+public record SaleItemReqDTO(
+        Long productId,
+        Integer quantity
+) {
+}
@@ -0,0 +1,11 @@
+package com.jicd.stockmanager.dto;
+
+import java.math.BigDecimal;
+
+public record SaleItemResDTO(
+        Long productId,
+        Integer quantity,
+        BigDecimal unitPrice,
+        BigDecimal totalPrice
+) {
+}
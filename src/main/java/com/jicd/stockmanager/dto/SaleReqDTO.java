@@ -0,0 +1,8 @@
+package com.jicd.stockmanager.dto;
+
+import java.util.List;
+
+public record SaleReqDTO(
+        List<SaleItemReqDTO> items
+) {
+}
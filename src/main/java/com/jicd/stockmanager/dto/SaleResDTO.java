@@ -0,0 +1,12 @@
+package com.jicd.stockmanager.dto;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+public record SaleResDTO(
+        Long id,
+        LocalDateTime date,
+        Double totalAmount,
+        List<SaleItemResDTO> items
+) {
+}
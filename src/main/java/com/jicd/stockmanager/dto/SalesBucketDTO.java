@@ -0,0 +1,11 @@
+package com.jicd.stockmanager.dto;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+
+public record SalesBucketDTO(
+        LocalDate start,
+        Long units,
+        BigDecimal revenue
+) {
+}
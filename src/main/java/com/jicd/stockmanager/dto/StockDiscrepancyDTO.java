@@ -0,0 +1,8 @@
+package com.jicd.stockmanager.dto;
+
+public record StockDiscrepancyDTO(
+        Long productId,
+        Long recordedQuantity,
+        Long journalQuantity
+) {
+}
@@ -0,0 +1,10 @@
+package com.jicd.stockmanager.dto;
+
+import java.time.LocalDateTime;
+
+public record StockLevelDTO(
+        Long productId,
+        LocalDateTime at,
+        Long quantity
+) {
+}
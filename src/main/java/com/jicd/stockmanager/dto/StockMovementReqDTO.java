@@ -0,0 +1,11 @@
+package com.jicd.stockmanager.dto;
+
+import com.jicd.stockmanager.Enums.MOVEMENT_TYPE;
+
+public record StockMovementReqDTO(
+        Long productId,
+        MOVEMENT_TYPE type,
+        Integer quantity,
+        String reference
+) {
+}
@@ -0,0 +1,11 @@
+package com.jicd.stockmanager.dto;
+
+import java.util.List;
+
+public record StockShardsDTO(
+        Long productId,
+        Integer slots,
+        List<Integer> quantities,
+        Long total
+) {
+}
@@ -0,0 +1,8 @@
+package com.jicd.stockmanager.dto;
+
+public record StockUpdateDTO(
+        Long productId,
+        Long categoryId,
+        Integer stockQuantity
+) {
+}
@@ -0,0 +1,9 @@
+package com.jicd.stockmanager.event;
+
+/**
+ * Evento publicado cuando se crea, modifica o elimina una categoría.
+ */
+public record CategoryChangedEvent(
+        Long categoryId
+) {
+}
@@ -0,0 +1,14 @@
+package com.jicd.stockmanager.event;
+
+import java.util.Set;
+
+/**
+ * Evento publicado cuando se crean, modifican o eliminan productos (datos de catálogo, no stock).
+ */
+public record ProductChangedEvent(
+        Set<Long> productIds
+) {
+    public ProductChangedEvent {
+        productIds = Set.copyOf(productIds);
+    }
+}
@@ -0,0 +1,59 @@
+package com.jicd.stockmanager.event;
+
+import com.jicd.stockmanager.model.Product;
+import jakarta.persistence.PostPersist;
+import jakarta.persistence.PostRemove;
+import jakarta.persistence.PostUpdate;
+import lombok.RequiredArgsConstructor;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.HashSet;
+import java.util.Set;
+
+/**
+ * Listener JPA que publica un ProductChangedEvent por cada escritura de un producto,
+ * para que los índices derivados (p. ej. la búsqueda) se mantengan sincronizados
+ * sin importar desde qué servicio se modifique el catálogo.
+ */
+@Component
+@RequiredArgsConstructor
+public class ProductEntityListener {
+
+    private static final Object COLLECTOR_KEY = ProductEntityListener.class.getName() + ".collector";
+
+    private final ApplicationEventPublisher eventPublisher;
+
+    @PostPersist
+    @PostUpdate
+    @PostRemove
+    public void onProductWrite(Product product) {
+        @SuppressWarnings("unchecked")
+        Set<Long> collector = (Set<Long>) TransactionSynchronizationManager.getResource(COLLECTOR_KEY);
+        if (collector != null) {
+            collector.add(product.getId());
+            return;
+        }
+        eventPublisher.publishEvent(new ProductChangedEvent(Set.of(product.getId())));
+    }
+
+    /**
+     * Ejecuta escrituras masivas acumulando los ids de los productos escritos en lugar de publicar
+     * un evento por producto; quien llama publica un único evento con todos ellos.
+     * Debe llamarse dentro de una transacción y 'writes' debe terminar con un flush.
+     *
+     * @param writes Las escrituras.
+     * @return Set los ids de los productos escritos.
+     */
+    public static Set<Long> collecting(Runnable writes) {
+        Set<Long> collector = new HashSet<>();
+        TransactionSynchronizationManager.bindResource(COLLECTOR_KEY, collector);
+        try {
+            writes.run();
+        } finally {
+            TransactionSynchronizationManager.unbindResource(COLLECTOR_KEY);
+        }
+        return collector;
+    }
+}
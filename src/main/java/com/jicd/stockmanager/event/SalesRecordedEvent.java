@@ -0,0 +1,29 @@
+package com.jicd.stockmanager.event;
+
+import java.time.LocalDate;
+import java.util.List;
+
+/**
+ * Evento publicado al registrar una o varias ventas, con una línea por producto y venta.
+ */
+public record SalesRecordedEvent(
+        List<SaleFact> facts
+) {
+    public SalesRecordedEvent {
+        facts = List.copyOf(facts);
+    }
+
+    /**
+     * Línea de venta ya agrupada por producto (un producto aparece una vez por venta).
+     */
+    public record SaleFact(
+            Long saleId,
+            LocalDate day,
+            Long productId,
+            Long categoryId,
+            int quantity,
+            // Importe de la línea en céntimos
+            long amountMinor
+    ) {
+    }
+}
@@ -0,0 +1,15 @@
+package com.jicd.stockmanager.event;
+
+import java.util.Set;
+
+/**
+ * Evento publicado dentro de una transacción que modifica el stock de uno o varios productos.
+ * Los oyentes lo procesan tras el commit y releen el stock actual de esos productos.
+ */
+public record StockChangedEvent(
+        Set<Long> productIds
+) {
+    public StockChangedEvent {
+        productIds = Set.copyOf(productIds);
+    }
+}
@@ -0,0 +1,7 @@
+package com.jicd.stockmanager.exceptions;
+
+public class AnalyticsUnavailableException extends RuntimeException {
+    public AnalyticsUnavailableException(String message) {
+        super(message);
+    }
+}
@@ -0,0 +1,7 @@
+package com.jicd.stockmanager.exceptions;
+
+public class InsufficientStockException extends RuntimeException {
+    public InsufficientStockException(String message) {
+        super(message);
+    }
+}
@@ -0,0 +1,7 @@
+package com.jicd.stockmanager.exceptions;
+
+public class InvalidRefreshTokenException extends RuntimeException {
+    public InvalidRefreshTokenException(String message) {
+        super(message);
+    }
+}
@@ -0,0 +1,7 @@
+package com.jicd.stockmanager.exceptions;
+
+public class InvalidReservationStateException extends RuntimeException {
+    public InvalidReservationStateException(String message) {
+        super(message);
+    }
+}
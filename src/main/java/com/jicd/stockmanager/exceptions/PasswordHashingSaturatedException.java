@@ -0,0 +1,7 @@
+package com.jicd.stockmanager.exceptions;
+
+public class PasswordHashingSaturatedException extends RuntimeException {
+    public PasswordHashingSaturatedException(String message) {
+        super(message);
+    }
+}
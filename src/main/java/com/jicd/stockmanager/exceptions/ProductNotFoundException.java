@@ -0,0 +1,7 @@
+package com.jicd.stockmanager.exceptions;
+
+public class ProductNotFoundException extends RuntimeException {
+    public ProductNotFoundException(String message) {
+        super(message);
+    }
+}
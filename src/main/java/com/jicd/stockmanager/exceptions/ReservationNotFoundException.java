@@ -0,0 +1,7 @@
+package com.jicd.stockmanager.exceptions;
+
+public class ReservationNotFoundException extends RuntimeException {
+    public ReservationNotFoundException(String message) {
+        super(message);
+    }
+}
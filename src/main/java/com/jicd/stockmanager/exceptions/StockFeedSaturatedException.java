@@ -0,0 +1,7 @@
+package com.jicd.stockmanager.exceptions;
+
+public class StockFeedSaturatedException extends RuntimeException {
+    public StockFeedSaturatedException(String message) {
+        super(message);
+    }
+}
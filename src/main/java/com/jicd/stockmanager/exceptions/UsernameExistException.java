@@ -0,0 +1,7 @@
+package com.jicd.stockmanager.exceptions;
+
+public class UsernameExistException extends RuntimeException {
+    public UsernameExistException(String message) {
+        super(message);
+    }
+}
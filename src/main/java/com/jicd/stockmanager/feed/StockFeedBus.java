@@ -0,0 +1,220 @@
+package com.jicd.stockmanager.feed;
+
+import com.jicd.stockmanager.dto.StockUpdateDTO;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Bus en memoria del feed de stock en vivo.
+ * Las actualizaciones publicadas se acumulan por producto hasta el siguiente flush (gana el último valor)
+ * y se reparten a los suscriptores interesados en el producto o en su categoría.
+ * Cada suscriptor tiene una cola acotada que vacía su propio hilo virtual: quien publica nunca espera
+ * a un cliente lento, y el suscriptor cuya cola se llena se da de baja.
+ */
+public class StockFeedBus {
+
+    public enum Kind {SNAPSHOT, UPDATE, HEARTBEAT}
+
+    /**
+     * Destino de los mensajes de un suscriptor. send se llama solo desde el hilo del suscriptor;
+     * close se llama una vez, desde un hilo propio para no bloquear a quien da de baja.
+     */
+    public interface Sink {
+        void send(Kind kind, List<StockUpdateDTO> updates) throws IOException;
+
+        void close();
+    }
+
+    private record Message(Kind kind, List<StockUpdateDTO> updates) {
+    }
+
+    private static final Message HEARTBEAT = new Message(Kind.HEARTBEAT, List.of());
+
+    private final int queueCapacity;
+
+    private final Map<Long, StockUpdateDTO> pending = new ConcurrentHashMap<>();
+    private final Set<Subscription> subscriptions = ConcurrentHashMap.newKeySet();
+    private final Map<Long, Set<Subscription>> byProduct = new ConcurrentHashMap<>();
+    private final Map<Long, Set<Subscription>> byCategory = new ConcurrentHashMap<>();
+
+    private final AtomicLong sequence = new AtomicLong();
+    private final AtomicLong dropped = new AtomicLong();
+
+    public StockFeedBus(int queueCapacity) {
+        this.queueCapacity = queueCapacity;
+    }
+
+    /**
+     * Da de alta un suscriptor a los productos y categorías indicados.
+     *
+     * @param productIds Los ids de producto.
+     * @param categoryIds Los ids de categoría.
+     * @param sink El destino de sus mensajes.
+     * @return Subscription la suscripción, que debe cerrarse al desconectarse el cliente.
+     */
+    public Subscription subscribe(Set<Long> productIds, Set<Long> categoryIds, Sink sink) {
+        Subscription subscription = new Subscription(Set.copyOf(productIds), Set.copyOf(categoryIds), sink);
+        subscriptions.add(subscription);
+        subscription.productIds.forEach(id -> index(byProduct, id, subscription));
+        subscription.categoryIds.forEach(id -> index(byCategory, id, subscription));
+        subscription.start();
+        return subscription;
+    }
+
+    /**
+     * Registra el nivel de stock de un producto; sustituye al pendiente de ese producto si lo hay.
+     *
+     * @param update El nivel de stock.
+     */
+    public void publish(StockUpdateDTO update) {
+        pending.put(update.productId(), update);
+    }
+
+    /**
+     * Reparte las actualizaciones pendientes, un único mensaje por suscriptor.
+     */
+    public void flush() {
+        if (pending.isEmpty()) return;
+
+        Map<Subscription, List<StockUpdateDTO>> batches = new HashMap<>();
+        for (Long productId : List.copyOf(pending.keySet())) {
+            StockUpdateDTO update = pending.remove(productId);
+            if (update == null) continue;
+            route(byProduct.get(productId), update, batches);
+            if (update.categoryId() != null) route(byCategory.get(update.categoryId()), update, batches);
+        }
+        batches.forEach((subscription, updates) -> subscription.offer(new Message(Kind.UPDATE, updates)));
+    }
+
+    /**
+     * Encola un latido a todos los suscriptores, lo que también detecta las conexiones cerradas.
+     */
+    public void heartbeat() {
+        subscriptions.forEach(subscription -> subscription.offer(HEARTBEAT));
+    }
+
+    public boolean hasSubscribers() {
+        return !subscriptions.isEmpty();
+    }
+
+    public int subscriberCount() {
+        return subscriptions.size();
+    }
+
+    /**
+     * @return long el número de suscriptores dados de baja por no consumir a tiempo.
+     */
+    public long droppedCount() {
+        return dropped.get();
+    }
+
+    private static void route(Set<Subscription> targets, StockUpdateDTO update,
+                              Map<Subscription, List<StockUpdateDTO>> batches) {
+        if (targets == null) return;
+        for (Subscription subscription : targets) {
+            List<StockUpdateDTO> batch = batches.computeIfAbsent(subscription, s -> new ArrayList<>());
+            // Suscrito al producto y a su categoría: una sola entrada
+            if (batch.isEmpty() || batch.getLast() != update) batch.add(update);
+        }
+    }
+
+    private static void index(Map<Long, Set<Subscription>> index, Long key, Subscription subscription) {
+        index.compute(key, (k, set) -> {
+            Set<Subscription> target = set == null ? ConcurrentHashMap.newKeySet() : set;
+            target.add(subscription);
+            return target;
+        });
+    }
+
+    private static void unindex(Map<Long, Set<Subscription>> index, Long key, Subscription subscription) {
+        index.computeIfPresent(key, (k, set) -> {
+            set.remove(subscription);
+            return set.isEmpty() ? null : set;
+        });
+    }
+
+    public final class Subscription {
+
+        private final Set<Long> productIds;
+        private final Set<Long> categoryIds;
+        private final Sink sink;
+        private final BlockingQueue<Message> queue = new ArrayBlockingQueue<>(queueCapacity);
+        private final AtomicBoolean closed = new AtomicBoolean();
+        private volatile Thread sender;
+
+        private Subscription(Set<Long> productIds, Set<Long> categoryIds, Sink sink) {
+            this.productIds = productIds;
+            this.categoryIds = categoryIds;
+            this.sink = sink;
+        }
+
+        /**
+         * Encola el estado inicial de los productos suscritos.
+         *
+         * @param levels Los niveles de stock actuales.
+         */
+        public void snapshot(List<StockUpdateDTO> levels) {
+            offer(new Message(Kind.SNAPSHOT, List.copyOf(levels)));
+        }
+
+        public boolean isClosed() {
+            return closed.get();
+        }
+
+        /**
+         * Da de baja la suscripción; los mensajes encolados se descartan.
+         */
+        public void close() {
+            shutdown();
+        }
+
+        private void start() {
+            sender = Thread.ofVirtual().name("stock-feed-" + sequence.incrementAndGet()).start(this::run);
+            // Cerrada antes de asignar el hilo: close no ha podido interrumpirlo
+            if (closed.get()) sender.interrupt();
+        }
+
+        private void offer(Message message) {
+            if (closed.get()) return;
+            if (!queue.offer(message) && shutdown()) dropped.incrementAndGet();
+        }
+
+        private void run() {
+            try {
+                while (!closed.get()) {
+                    Message message = queue.take();
+                    sink.send(message.kind(), message.updates());
+                }
+            } catch (InterruptedException e) {
+                // Baja desde otro hilo
+            } catch (IOException | RuntimeException e) {
+                shutdown();
+            }
+        }
+
+        /**
+         * @return boolean true si esta llamada es la que ha dado de baja la suscripción.
+         */
+        private boolean shutdown() {
+            if (!closed.compareAndSet(false, true)) return false;
+            subscriptions.remove(this);
+            productIds.forEach(id -> unindex(byProduct, id, this));
+            categoryIds.forEach(id -> unindex(byCategory, id, this));
+            queue.clear();
+            if (sender != null && Thread.currentThread() != sender) sender.interrupt();
+            // El envío en curso puede estar bloqueado en el socket: se cierra sin esperarlo
+            Thread.ofVirtual().start(sink::close);
+            return true;
+        }
+    }
+}
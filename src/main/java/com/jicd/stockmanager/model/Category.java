@@ -1,5 +1,6 @@
 package com.jicd.stockmanager.model;
 
+import com.jicd.stockmanager.event.CategoryEntityListener;
 import jakarta.persistence.*;
 import lombok.*;
 
@@ -11,11 +12,13 @@ import java.util.List;
 @Setter
 @Builder
 @Entity
+@EntityListeners(CategoryEntityListener.class)
 @Table(name = "category")
 public class Category {
 
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "category_seq")
+    @SequenceGenerator(name = "category_seq", sequenceName = "category_seq", allocationSize = 50)
     @Column(name = "category_id")
     private Long id;
 
@@ -0,0 +1,31 @@
+package com.jicd.stockmanager.model;
+
+import jakarta.persistence.*;
+import lombok.*;
+
+import java.math.BigDecimal;
+
+/**
+ * Agregado diario de ventas por categoría, mantenido de forma incremental al registrar ventas.
+ */
+@AllArgsConstructor
+@NoArgsConstructor
+@Getter
+@Setter
+@Builder
+@Entity
+@Table(name = "daily_category_sales")
+public class DailyCategorySales {
+
+    @EmbeddedId
+    private DailyCategorySalesId id;
+
+    @Column(name = "units", nullable = false)
+    private Long units;
+
+    @Column(name = "revenue", nullable = false, precision = 14, scale = 2)
+    private BigDecimal revenue;
+
+    @Column(name = "sale_count", nullable = false)
+    private Long saleCount;
+}
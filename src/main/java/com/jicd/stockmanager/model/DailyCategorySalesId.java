@@ -0,0 +1,24 @@
+package com.jicd.stockmanager.model;
+
+import jakarta.persistence.Column;
+import jakarta.persistence.Embeddable;
+import lombok.*;
+
+import java.io.Serializable;
+import java.time.LocalDate;
+
+@AllArgsConstructor
+@NoArgsConstructor
+@Getter
+@Setter
+@EqualsAndHashCode
+@Embeddable
+public class DailyCategorySalesId implements Serializable {
+
+    @Column(name = "rollup_day")
+    private LocalDate day;
+
+    //0 para los productos sin categoria
+    @Column(name = "category_id")
+    private Long categoryId;
+}
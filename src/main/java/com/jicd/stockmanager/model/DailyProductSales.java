@@ -0,0 +1,34 @@
+package com.jicd.stockmanager.model;
+
+import jakarta.persistence.*;
+import lombok.*;
+
+import java.math.BigDecimal;
+
+/**
+ * Agregado diario de ventas por producto, mantenido de forma incremental al registrar ventas.
+ */
+@AllArgsConstructor
+@NoArgsConstructor
+@Getter
+@Setter
+@Builder
+@Entity
+@Table(name = "daily_product_sales")
+public class DailyProductSales {
+
+    @EmbeddedId
+    private DailyProductSalesId id;
+
+    @Column(name = "category_id")
+    private Long categoryId;
+
+    @Column(name = "units", nullable = false)
+    private Long units;
+
+    @Column(name = "revenue", nullable = false, precision = 14, scale = 2)
+    private BigDecimal revenue;
+
+    @Column(name = "sale_count", nullable = false)
+    private Long saleCount;
+}
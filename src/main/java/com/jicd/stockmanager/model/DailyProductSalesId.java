@@ -0,0 +1,23 @@
+package com.jicd.stockmanager.model;
+
+import jakarta.persistence.Column;
+import jakarta.persistence.Embeddable;
+import lombok.*;
+
+import java.io.Serializable;
+import java.time.LocalDate;
+
+@AllArgsConstructor
+@NoArgsConstructor
+@Getter
+@Setter
+@EqualsAndHashCode
+@Embeddable
+public class DailyProductSalesId implements Serializable {
+
+    @Column(name = "rollup_day")
+    private LocalDate day;
+
+    @Column(name = "product_id")
+    private Long productId;
+}
@@ -1,5 +1,6 @@
 package com.jicd.stockmanager.model;
 
+import com.jicd.stockmanager.event.ProductEntityListener;
 import jakarta.persistence.*;
 import lombok.*;
 
@@ -11,14 +12,25 @@ import java.util.List;
 @Setter
 @Builder
 @Entity
-@Table(name = "products")
+@EntityListeners(ProductEntityListener.class)
+@Table(name = "products", indexes = {
+        // Indices para la paginacion por keyset del catalogo
+        @Index(name = "idx_products_name_id", columnList = "product_name, product_id"),
+        @Index(name = "idx_products_category_id", columnList = "category_id, product_id"),
+        @Index(name = "idx_products_category_name_id", columnList = "category_id, product_name, product_id")
+})
 public class Product {
 
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "products_seq")
+    @SequenceGenerator(name = "products_seq", sequenceName = "products_seq", allocationSize = 50)
     @Column(name = "product_id")
     private Long id;
 
+    //Codigo del ERP; clave de la importacion del catalogo (si falta se usa el nombre)
+    @Column(name = "product_sku", unique = true)
+    private String sku;
+
     @Column(name = "product_name", nullable = false)
     private String name;
 
@@ -31,6 +43,11 @@ public class Product {
     @Column(name = "product_stock_quantity", nullable = false)
     private Integer stockQuantity;
 
+    //Numero de slots en que se reparte el stock (null si no esta repartido); con slots, el stock
+    //vive en product_stock_shards y esta columna es su suma, sincronizada periodicamente
+    @Column(name = "product_stock_shards")
+    private Integer stockShards;
+
     @Column(name = "product_min_threshold")
     private Integer minThreshold;
 
@@ -0,0 +1,24 @@
+package com.jicd.stockmanager.model;
+
+import jakarta.persistence.*;
+import lombok.*;
+
+/**
+ * Slot de stock de un producto repartido: las ventas concurrentes de un producto muy demandado
+ * descuentan de slots distintos en lugar de competir por la misma fila.
+ */
+@AllArgsConstructor
+@NoArgsConstructor
+@Getter
+@Setter
+@Builder
+@Entity
+@Table(name = "product_stock_shards")
+public class ProductStockShard {
+
+    @EmbeddedId
+    private ProductStockShardId id;
+
+    @Column(name = "shard_quantity", nullable = false)
+    private Integer quantity;
+}
@@ -0,0 +1,22 @@
+package com.jicd.stockmanager.model;
+
+import jakarta.persistence.Column;
+import jakarta.persistence.Embeddable;
+import lombok.*;
+
+import java.io.Serializable;
+
+@AllArgsConstructor
+@NoArgsConstructor
+@Getter
+@Setter
+@EqualsAndHashCode
+@Embeddable
+public class ProductStockShardId implements Serializable {
+
+    @Column(name = "product_id")
+    private Long productId;
+
+    @Column(name = "shard_slot")
+    private Integer slot;
+}
@@ -0,0 +1,46 @@
+package com.jicd.stockmanager.model;
+
+import jakarta.persistence.*;
+import lombok.*;
+
+import java.time.LocalDateTime;
+
+/**
+ * Token de refresco opaco. Solo se guarda el hash SHA-256 del token; todos los tokens
+ * obtenidos por rotación a partir del mismo login comparten familia.
+ */
+@AllArgsConstructor
+@NoArgsConstructor
+@Getter
+@Setter
+@Builder
+@Entity
+@Table(name = "refresh_tokens", indexes = {
+        @Index(name = "idx_refresh_tokens_family", columnList = "refresh_token_family"),
+        @Index(name = "idx_refresh_tokens_expires_at", columnList = "refresh_token_expires_at")
+})
+public class RefreshToken {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "refresh_tokens_seq")
+    @SequenceGenerator(name = "refresh_tokens_seq", sequenceName = "refresh_tokens_seq", allocationSize = 50)
+    @Column(name = "refresh_token_id")
+    private Long id;
+
+    @Column(name = "refresh_token_hash", nullable = false, unique = true, length = 64)
+    private String tokenHash;
+
+    @Column(name = "refresh_token_family", nullable = false, length = 36)
+    private String familyId;
+
+    @Column(name = "refresh_token_expires_at", nullable = false)
+    private LocalDateTime expiresAt;
+
+    //true cuando el token ya se ha usado (rotado) o se ha revocado
+    @Column(name = "refresh_token_revoked", nullable = false)
+    private boolean revoked;
+
+    @ManyToOne(fetch = FetchType.LAZY)
+    @JoinColumn(name = "user_id", nullable = false)
+    private User user;
+}
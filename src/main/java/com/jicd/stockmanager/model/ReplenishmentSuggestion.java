@@ -0,0 +1,45 @@
+package com.jicd.stockmanager.model;
+
+import jakarta.persistence.*;
+import lombok.*;
+
+import java.time.LocalDateTime;
+
+/**
+ * Última evaluación de reposición de un producto, calculada por el planificador de reposición.
+ */
+@AllArgsConstructor
+@NoArgsConstructor
+@Getter
+@Setter
+@Builder
+@Entity
+@Table(name = "replenishment_suggestions")
+public class ReplenishmentSuggestion {
+
+    //Id del producto sin asociacion: el planificador escribe sin cargar los productos
+    @Id
+    @Column(name = "product_id")
+    private Long productId;
+
+    //Stock con el que se evaluo
+    @Column(name = "stock_quantity", nullable = false)
+    private Integer stockQuantity;
+
+    //Unidades vendidas por dia
+    @Column(name = "velocity", nullable = false)
+    private Double velocity;
+
+    //null si el producto no tiene ventas en la ventana
+    @Column(name = "days_of_cover")
+    private Double daysOfCover;
+
+    @Column(name = "suggested_quantity", nullable = false)
+    private Integer suggestedQuantity;
+
+    @Column(name = "reorder", nullable = false)
+    private boolean reorder;
+
+    @Column(name = "computed_at", nullable = false)
+    private LocalDateTime computedAt;
+}
@@ -0,0 +1,19 @@
+package com.jicd.stockmanager.model;
+
+import jakarta.persistence.Column;
+import jakarta.persistence.Embeddable;
+import lombok.*;
+
+@AllArgsConstructor
+@NoArgsConstructor
+@Getter
+@Setter
+@Embeddable
+public class ReservationItem {
+
+    @Column(name = "product_id", nullable = false)
+    private Long productId;
+
+    @Column(name = "reservation_item_quantity", nullable = false)
+    private Integer quantity;
+}
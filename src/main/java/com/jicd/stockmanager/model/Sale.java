@@ -12,11 +12,13 @@ import lombok.*;
 @Table(name = "sales")
 public class Sale {
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "sales_seq")
+    @SequenceGenerator(name = "sales_seq", sequenceName = "sales_seq", allocationSize = 50)
     @Column(name = "sale_id")
     private Long id;
 
-    @Column(name = "sale_date")
+    //Clave de particion de sales y sale_detail (una particion por mes)
+    @Column(name = "sale_date", nullable = false)
     private java.time.LocalDateTime date;
 
     @Column(name = "total_amount")
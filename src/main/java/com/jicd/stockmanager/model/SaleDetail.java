@@ -4,6 +4,7 @@ import jakarta.persistence.*;
 import lombok.*;
 
 import java.math.BigDecimal;
+import java.time.LocalDateTime;
 
 @AllArgsConstructor
 @NoArgsConstructor
@@ -15,7 +16,8 @@ import java.math.BigDecimal;
 public class SaleDetail {
 
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "sale_detail_seq")
+    @SequenceGenerator(name = "sale_detail_seq", sequenceName = "sale_detail_seq", allocationSize = 50)
     @Column(name = "sale_detail_id")
     private Long id;
 
@@ -33,6 +35,10 @@ public class SaleDetail {
     @JoinColumn(name = "product_id",nullable = false)
     private Product product;
 
+    //Fecha de la venta, repetida para particionar sale_detail igual que sales
+    @Column(name = "sale_date", nullable = false)
+    private LocalDateTime saleDate;
+
     //Relacion ManyToOne con Sales
     @ManyToOne(fetch = FetchType.LAZY)
     @JoinColumn(name = "sale_id",nullable = false)
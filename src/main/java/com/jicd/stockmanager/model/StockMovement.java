@@ -0,0 +1,48 @@
+package com.jicd.stockmanager.model;
+
+import com.jicd.stockmanager.Enums.MOVEMENT_TYPE;
+import jakarta.persistence.*;
+import lombok.*;
+
+import java.time.LocalDateTime;
+
+/**
+ * Movimiento de stock del diario. Solo se inserta, nunca se actualiza ni se borra:
+ * el stock de un producto en cualquier instante es la suma de sus movimientos hasta ese instante.
+ */
+@AllArgsConstructor
+@NoArgsConstructor
+@Getter
+@Setter
+@Builder
+@Entity
+@Table(name = "stock_movements", indexes = {
+        @Index(name = "idx_stock_movements_product_time", columnList = "product_id, movement_occurred_at"),
+        @Index(name = "idx_stock_movements_time", columnList = "movement_occurred_at")
+})
+public class StockMovement {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "stock_movements_seq")
+    @SequenceGenerator(name = "stock_movements_seq", sequenceName = "stock_movements_seq", allocationSize = 50)
+    @Column(name = "movement_id")
+    private Long id;
+
+    //Id del producto sin asociacion: escribir un movimiento no debe cargar el producto
+    @Column(name = "product_id", nullable = false, updatable = false)
+    private Long productId;
+
+    @Enumerated(EnumType.STRING)
+    @Column(name = "movement_type", nullable = false, length = 16, updatable = false)
+    private MOVEMENT_TYPE type;
+
+    //Variacion con signo: negativa en ventas, positiva en entradas y devoluciones
+    @Column(name = "movement_delta", nullable = false, updatable = false)
+    private Integer delta;
+
+    @Column(name = "movement_occurred_at", nullable = false, updatable = false)
+    private LocalDateTime occurredAt;
+
+    @Column(name = "movement_reference", length = 128, updatable = false)
+    private String reference;
+}
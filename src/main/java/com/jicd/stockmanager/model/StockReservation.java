@@ -0,0 +1,54 @@
+package com.jicd.stockmanager.model;
+
+import com.jicd.stockmanager.Enums.RESERVATION_STATUS;
+import jakarta.persistence.*;
+import lombok.*;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Reserva temporal de stock para un carrito. Se persiste para poder recuperar las retenciones
+ * tras un reinicio; el stock retenido vive en el {@code StockLedger} en memoria.
+ */
+@AllArgsConstructor
+@NoArgsConstructor
+@Getter
+@Setter
+@Builder
+@Entity
+@Table(name = "stock_reservations", indexes = {
+        @Index(name = "idx_stock_reservations_status_expires", columnList = "reservation_status, reservation_expires_at")
+})
+public class StockReservation {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "stock_reservations_seq")
+    @SequenceGenerator(name = "stock_reservations_seq", sequenceName = "stock_reservations_seq", allocationSize = 50)
+    @Column(name = "reservation_id")
+    private Long id;
+
+    @Enumerated(EnumType.STRING)
+    @Column(name = "reservation_status", nullable = false, length = 16)
+    private RESERVATION_STATUS status;
+
+    @Column(name = "reservation_created_at", nullable = false)
+    private LocalDateTime createdAt;
+
+    @Column(name = "reservation_expires_at", nullable = false)
+    private LocalDateTime expiresAt;
+
+    //Venta generada al volcar la confirmacion
+    @Column(name = "sale_id")
+    private Long saleId;
+
+    @ManyToOne(fetch = FetchType.LAZY)
+    @JoinColumn(name = "user_id")
+    private User user;
+
+    @ElementCollection
+    @CollectionTable(name = "stock_reservation_items", joinColumns = @JoinColumn(name = "reservation_id"))
+    @Builder.Default
+    private List<ReservationItem> items = new ArrayList<>();
+}
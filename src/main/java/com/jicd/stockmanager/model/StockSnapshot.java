@@ -0,0 +1,37 @@
+package com.jicd.stockmanager.model;
+
+import jakarta.persistence.*;
+import lombok.*;
+
+import java.time.LocalDateTime;
+
+/**
+ * Stock de un producto acumulado hasta 'asOf' (excluido), calculado por el compactador del diario.
+ */
+@AllArgsConstructor
+@NoArgsConstructor
+@Getter
+@Setter
+@Builder
+@Entity
+@Table(name = "stock_snapshots", indexes = {
+        @Index(name = "idx_stock_snapshots_product_as_of", columnList = "product_id, snapshot_as_of"),
+        @Index(name = "idx_stock_snapshots_as_of", columnList = "snapshot_as_of")
+})
+public class StockSnapshot {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "stock_snapshots_seq")
+    @SequenceGenerator(name = "stock_snapshots_seq", sequenceName = "stock_snapshots_seq", allocationSize = 50)
+    @Column(name = "snapshot_id")
+    private Long id;
+
+    @Column(name = "product_id", nullable = false)
+    private Long productId;
+
+    @Column(name = "snapshot_quantity", nullable = false)
+    private Long quantity;
+
+    @Column(name = "snapshot_as_of", nullable = false)
+    private LocalDateTime asOf;
+}
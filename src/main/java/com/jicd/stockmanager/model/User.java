@@ -19,17 +19,25 @@ import java.util.List;
 @Setter
 @Builder
 @Entity
-@Table(name = "users")
+@Table(name = "users", uniqueConstraints = {
+        @UniqueConstraint(name = User.USERNAME_CONSTRAINT, columnNames = "username"),
+        @UniqueConstraint(name = User.EMAIL_CONSTRAINT, columnNames = "user_email")
+})
 public class User implements UserDetails {
 
+    public static final String USERNAME_CONSTRAINT = "uk_users_username";
+    public static final String EMAIL_CONSTRAINT = "uk_users_email";
+
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "users_seq")
+    @SequenceGenerator(name = "users_seq", sequenceName = "users_seq", allocationSize = 50)
     @Column(name = "user_id")
     private Long id;
 
+    @Column(name = "username")
     private String username;
 
-    @Column(name = "user_email",unique = true, nullable = false)
+    @Column(name = "user_email", nullable = false)
     private String email;
 
     @Column(name = "user_password")
@@ -39,6 +47,11 @@ public class User implements UserDetails {
     @Column(name = "user_rol")
     private ROL_TYPE rol;
 
+    //Version de los tokens emitidos; al incrementarla se invalidan todos los JWT anteriores
+    @Column(name = "user_token_version")
+    @Builder.Default
+    private Integer tokenVersion = 0;
+
     @OneToMany(mappedBy = "user")
     private List<Sale> sales;
 
@@ -0,0 +1,71 @@
+package com.jicd.stockmanager.observability;
+
+import com.jicd.stockmanager.configs.AccessLogProperties;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.jspecify.annotations.NonNull;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.stereotype.Component;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import java.io.IOException;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Log de acceso estructurado y muestreado. Se registra una fracción configurable de las peticiones
+ * correctas y de las erróneas, y siempre las que superan el umbral de lentitud; la latencia de todas
+ * las peticiones ya queda en las métricas 'http.server.requests'.
+ * Se ejecuta antes que la cadena de seguridad para incluir los rechazos 401/403.
+ */
+@Component
+@Order(Ordered.HIGHEST_PRECEDENCE)
+@RequiredArgsConstructor
+@Slf4j(topic = "access")
+public class AccessLogFilter extends OncePerRequestFilter {
+
+    private final AccessLogProperties properties;
+
+    @Override
+    protected boolean shouldNotFilter(@NonNull HttpServletRequest request) {
+        return !properties.isEnabled();
+    }
+
+    @Override
+    protected void doFilterInternal(@NonNull HttpServletRequest request,
+                                    @NonNull HttpServletResponse response,
+                                    @NonNull FilterChain filterChain)
+            throws ServletException, IOException {
+
+        long start = System.nanoTime();
+        boolean failed = true;
+        try {
+            filterChain.doFilter(request, response);
+            failed = false;
+        } finally {
+            long durationMs = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start);
+            // Una excepción no controlada acaba como 500 aunque la respuesta aún no lo indique
+            int status = failed ? HttpServletResponse.SC_INTERNAL_SERVER_ERROR : response.getStatus();
+            if (isSampled(status, durationMs)) {
+                log.atInfo()
+                        .addKeyValue("method", request.getMethod())
+                        .addKeyValue("uri", request.getRequestURI())
+                        .addKeyValue("status", status)
+                        .addKeyValue("durationMs", durationMs)
+                        .log("{} {} {} {}ms", request.getMethod(), request.getRequestURI(), status, durationMs);
+            }
+        }
+    }
+
+    private boolean isSampled(int status, long durationMs) {
+        if (durationMs >= properties.getSlowThreshold()) return true;
+
+        double rate = status >= 400 ? properties.getErrorSampleRate() : properties.getSampleRate();
+        return rate >= 1.0 || (rate > 0 && ThreadLocalRandom.current().nextDouble() < rate);
+    }
+}
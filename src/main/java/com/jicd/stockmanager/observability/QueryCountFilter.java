@@ -0,0 +1,116 @@
+package com.jicd.stockmanager.observability;
+
+import com.jicd.stockmanager.configs.QueryBudgetProperties;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.jspecify.annotations.NonNull;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.stereotype.Component;
+import org.springframework.web.filter.OncePerRequestFilter;
+import org.springframework.web.servlet.HandlerMapping;
+import org.springframework.web.util.ContentCachingResponseWrapper;
+
+import java.io.IOException;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Cuenta las sentencias SQL de cada petición y las publica por endpoint en la métrica
+ * 'http.server.requests.queries'. Avisa cuando una petición supera el presupuesto de sentencias
+ * o repite la misma sentencia muchas veces (N+1). En desarrollo puede añadir la cabecera X-Query-Count
+ * (salvo en las respuestas en streaming: SSE y exportaciones CSV).
+ */
+@Component
+@Order(Ordered.HIGHEST_PRECEDENCE + 1)
+@RequiredArgsConstructor
+@Slf4j
+public class QueryCountFilter extends OncePerRequestFilter {
+
+    static final String QUERY_COUNT_HEADER = "X-Query-Count";
+    static final String QUERIES_SUMMARY = "http.server.requests.queries";
+    static final String BUDGET_EXCEEDED_COUNTER = "http.server.requests.queries.budget.exceeded";
+    static final String N_PLUS_ONE_COUNTER = "http.server.requests.queries.repeated";
+    // Endpoints que responden en streaming (SSE y CSV), sea cual sea la cabecera Accept del cliente
+    private static final Set<String> STREAMED_PATHS = Set.of(
+            "/api/stock/feed", "/api/stock/low/stream", "/api/products/export", "/api/categories/export");
+
+    private final QueryBudgetProperties properties;
+    private final MeterRegistry meterRegistry;
+
+    @Override
+    protected boolean shouldNotFilter(@NonNull HttpServletRequest request) {
+        return !properties.isEnabled();
+    }
+
+    @Override
+    protected void doFilterInternal(@NonNull HttpServletRequest request,
+                                    @NonNull HttpServletResponse response,
+                                    @NonNull FilterChain filterChain)
+            throws ServletException, IOException {
+
+        // La cabecera debe escribirse antes que el cuerpo: se cachea la respuesta salvo en flujos SSE o CSV
+        ContentCachingResponseWrapper wrapper = properties.isExposeHeader() && !isStreamed(request)
+                ? new ContentCachingResponseWrapper(response)
+                : null;
+
+        try (QueryCounter.Scope scope = QueryCounter.start()) {
+            try {
+                filterChain.doFilter(request, wrapper == null ? response : wrapper);
+            } finally {
+                record(request, scope);
+                if (wrapper != null) {
+                    wrapper.setHeader(QUERY_COUNT_HEADER, String.valueOf(scope.count()));
+                    wrapper.copyBodyToResponse();
+                }
+            }
+        }
+    }
+
+    private void record(HttpServletRequest request, QueryCounter.Scope scope) {
+        String uri = endpoint(request);
+        DistributionSummary.builder(QUERIES_SUMMARY)
+                .description("Sentencias SQL ejecutadas por petición")
+                .tag("uri", uri)
+                .register(meterRegistry)
+                .record(scope.count());
+
+        if (scope.count() > properties.getMaxPerRequest()) {
+            counter(BUDGET_EXCEEDED_COUNTER, uri).increment();
+            log.warn("{} {} ejecuto {} sentencias SQL (presupuesto {})",
+                    request.getMethod(), uri, scope.count(), properties.getMaxPerRequest());
+        }
+
+        Map<String, Integer> repeated = scope.repeatedStatements(properties.getRepeatThreshold());
+        if (!repeated.isEmpty()) {
+            counter(N_PLUS_ONE_COUNTER, uri).increment();
+            repeated.forEach((sql, times) ->
+                    log.warn("Posible N+1 en {} {}: {} ejecuciones de '{}'", request.getMethod(), uri, times, sql));
+        }
+    }
+
+    private Counter counter(String name, String uri) {
+        return Counter.builder(name)
+                .tag("uri", uri)
+                .register(meterRegistry);
+    }
+
+    /**
+     * Usa el patrón del endpoint (p. ej. /api/products/{id}) para no crear una serie por cada id.
+     */
+    private static String endpoint(HttpServletRequest request) {
+        Object pattern = request.getAttribute(HandlerMapping.BEST_MATCHING_PATTERN_ATTRIBUTE);
+        return pattern == null ? "UNKNOWN" : pattern.toString();
+    }
+
+    private static boolean isStreamed(HttpServletRequest request) {
+        return STREAMED_PATHS.contains(request.getRequestURI().substring(request.getContextPath().length()));
+    }
+}
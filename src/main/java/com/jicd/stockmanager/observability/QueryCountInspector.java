@@ -0,0 +1,17 @@
+package com.jicd.stockmanager.observability;
+
+import org.hibernate.resource.jdbc.spi.StatementInspector;
+
+/**
+ * Inspector de sentencias de Hibernate que alimenta el {@link QueryCounter} del hilo actual.
+ * Se registra por nombre de clase en 'hibernate.session_factory.statement_inspector'; sin un
+ * ámbito abierto su coste es una lectura de ThreadLocal por sentencia.
+ */
+public class QueryCountInspector implements StatementInspector {
+
+    @Override
+    public String inspect(String sql) {
+        QueryCounter.record(sql);
+        return sql;
+    }
+}
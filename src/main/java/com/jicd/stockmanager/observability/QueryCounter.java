@@ -0,0 +1,86 @@
+package com.jicd.stockmanager.observability;
+
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Contador de sentencias SQL por hilo. Un ámbito abierto con {@link #start()} cuenta todas las
+ * sentencias que Hibernate prepara en el hilo actual hasta que se cierra; los ámbitos se pueden
+ * anidar (p. ej. una aserción de test dentro de una petición) y el externo incluye al interno.
+ * Como cada petición se atiende en su propio hilo virtual, un ámbito equivale a una petición.
+ */
+public final class QueryCounter {
+
+    private static final ThreadLocal<Scope> CURRENT = new ThreadLocal<>();
+
+    private QueryCounter() {
+    }
+
+    /**
+     * Abre un ámbito de conteo en el hilo actual.
+     *
+     * @return Scope el ámbito abierto; debe cerrarse en el mismo hilo.
+     */
+    public static Scope start() {
+        Scope scope = new Scope(CURRENT.get());
+        CURRENT.set(scope);
+        return scope;
+    }
+
+    /**
+     * Registra una sentencia en el ámbito activo, si lo hay.
+     */
+    static void record(String sql) {
+        Scope scope = CURRENT.get();
+        if (scope != null) scope.record(sql);
+    }
+
+    public static final class Scope implements AutoCloseable {
+
+        private final Scope parent;
+        private final Map<String, Integer> statements = new HashMap<>();
+        private int count;
+
+        private Scope(Scope parent) {
+            this.parent = parent;
+        }
+
+        private void record(String sql) {
+            count++;
+            statements.merge(sql, 1, Integer::sum);
+            if (parent != null) parent.record(sql);
+        }
+
+        /**
+         * @return int el número de sentencias ejecutadas en el ámbito.
+         */
+        public int count() {
+            return count;
+        }
+
+        /**
+         * Sentencias idénticas (mismo SQL con parámetros) repetidas al menos 'threshold' veces,
+         * el patrón típico de una asociación lazy recorrida en un bucle (N+1).
+         *
+         * @param threshold El número mínimo de repeticiones.
+         * @return Map el SQL de cada sentencia repetida y su número de ejecuciones.
+         */
+        public Map<String, Integer> repeatedStatements(int threshold) {
+            Map<String, Integer> repeated = new LinkedHashMap<>();
+            statements.forEach((sql, times) -> {
+                if (times >= threshold) repeated.put(sql, times);
+            });
+            return repeated;
+        }
+
+        @Override
+        public void close() {
+            if (parent == null) {
+                CURRENT.remove();
+            } else {
+                CURRENT.set(parent);
+            }
+        }
+    }
+}
@@ -0,0 +1,12 @@
+package com.jicd.stockmanager.pricing;
+
+/**
+ * Totales de una cesta en céntimos: total = subtotal - discount + tax.
+ */
+public record BasketTotals(
+        long subtotal,
+        long discount,
+        long tax,
+        long total
+) {
+}
@@ -0,0 +1,70 @@
+package com.jicd.stockmanager.pricing;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+
+/**
+ * Conversión entre importes en unidades menores (céntimos, como long) y los tipos de la persistencia
+ * (Double en productos y ventas, BigDecimal con escala 2 en las líneas y agregados).
+ * Los cálculos se hacen siempre en céntimos; solo se convierte al leer y al escribir.
+ */
+public final class Money {
+
+    public static final int SCALE = 2;
+    private static final double FACTOR = 100.0;
+    // Margen, en ulps del valor escalado, dentro del cual un importe se considera a medio céntimo
+    private static final int HALF_TOLERANCE_ULPS = 256;
+
+    private Money() {
+    }
+
+    /**
+     * Redondea un importe a céntimos (HALF_UP), con el mismo resultado que
+     * {@code BigDecimal.valueOf(amount).setScale(2, RoundingMode.HALF_UP)} pero sin crear objetos
+     * salvo en los importes que quedan a medio céntimo.
+     *
+     * @param amount El importe.
+     * @return long el importe en céntimos.
+     * @throws IllegalArgumentException si el importe no es finito o no cabe en un long.
+     */
+    public static long toMinor(double amount) {
+        if (!Double.isFinite(amount) || Math.abs(amount) >= Long.MAX_VALUE / FACTOR) {
+            throw new IllegalArgumentException("Error: Invalid amount " + amount);
+        }
+
+        double scaled = Math.abs(amount) * FACTOR;
+        double fraction = scaled - Math.floor(scaled);
+        // Cerca de medio céntimo el error binario de la multiplicación puede cambiar el redondeo:
+        // se decide con la representación decimal del double
+        if (Math.abs(fraction - 0.5) <= HALF_TOLERANCE_ULPS * Math.ulp(scaled)) {
+            return toMinor(BigDecimal.valueOf(amount));
+        }
+        long minor = (long) Math.floor(scaled + 0.5);
+        return amount < 0 ? -minor : minor;
+    }
+
+    /**
+     * @param amount El importe (null se trata como 0).
+     * @return long el importe redondeado a céntimos (HALF_UP).
+     */
+    public static long toMinor(BigDecimal amount) {
+        if (amount == null) return 0;
+        return amount.setScale(SCALE, RoundingMode.HALF_UP).unscaledValue().longValueExact();
+    }
+
+    /**
+     * @param minor El importe en céntimos.
+     * @return BigDecimal el importe con escala 2.
+     */
+    public static BigDecimal toDecimal(long minor) {
+        return BigDecimal.valueOf(minor, SCALE);
+    }
+
+    /**
+     * @param minor El importe en céntimos.
+     * @return double el double más cercano al importe exacto.
+     */
+    public static double toDouble(long minor) {
+        return minor / FACTOR;
+    }
+}
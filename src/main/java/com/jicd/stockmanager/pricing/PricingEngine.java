@@ -0,0 +1,75 @@
+package com.jicd.stockmanager.pricing;
+
+/**
+ * Cálculo de importes de líneas y cestas en céntimos (long), sin objetos intermedios por línea.
+ * Los porcentajes se expresan en puntos básicos (1 % = 100) y cada importe derivado de un porcentaje
+ * se redondea una sola vez a céntimos (HALF_UP), de modo que las sumas no acumulan error.
+ * Las operaciones que desbordarían un long lanzan ArithmeticException.
+ */
+public final class PricingEngine {
+
+    public static final int BASIS_POINTS = 10_000;
+
+    private PricingEngine() {
+    }
+
+    /**
+     * @param unitPrice El precio unitario en céntimos.
+     * @param quantity Las unidades.
+     * @return long el importe de la línea en céntimos.
+     */
+    public static long lineTotal(long unitPrice, int quantity) {
+        return Math.multiplyExact(unitPrice, quantity);
+    }
+
+    /**
+     * @param amount El importe en céntimos.
+     * @param basisPoints El porcentaje en puntos básicos.
+     * @return long el porcentaje del importe, redondeado a céntimos (HALF_UP).
+     */
+    public static long percentOf(long amount, int basisPoints) {
+        return divideHalfUp(Math.multiplyExact(amount, basisPoints), BASIS_POINTS);
+    }
+
+    /**
+     * Calcula el importe de cada línea y los totales de la cesta. El descuento se aplica sobre el
+     * subtotal y el impuesto sobre el subtotal ya descontado.
+     *
+     * @param unitPrices Precios unitarios en céntimos.
+     * @param quantities Unidades de cada línea.
+     * @param lines El número de líneas a considerar.
+     * @param lineTotals Destino de los importes de cada línea (al menos 'lines' posiciones).
+     * @param discountBasisPoints El descuento en puntos básicos (0 sin descuento).
+     * @param taxBasisPoints El impuesto en puntos básicos (0 sin impuesto).
+     * @return BasketTotals los totales de la cesta.
+     */
+    public static BasketTotals price(long[] unitPrices, int[] quantities, int lines, long[] lineTotals,
+                                     int discountBasisPoints, int taxBasisPoints) {
+        if (discountBasisPoints < 0 || discountBasisPoints > BASIS_POINTS || taxBasisPoints < 0) {
+            throw new IllegalArgumentException("Error: Invalid discount or tax rate");
+        }
+
+        long subtotal = 0;
+        for (int i = 0; i < lines; i++) {
+            long lineTotal = lineTotal(unitPrices[i], quantities[i]);
+            lineTotals[i] = lineTotal;
+            subtotal = Math.addExact(subtotal, lineTotal);
+        }
+        long discount = percentOf(subtotal, discountBasisPoints);
+        long taxable = subtotal - discount;
+        long tax = percentOf(taxable, taxBasisPoints);
+        return new BasketTotals(subtotal, discount, tax, taxable + tax);
+    }
+
+    /**
+     * División entera redondeando la mitad alejándose de cero.
+     */
+    static long divideHalfUp(long dividend, long divisor) {
+        long quotient = dividend / divisor;
+        long remainder = dividend % divisor;
+        if (Math.abs(remainder) * 2 >= divisor) {
+            quotient += Long.signum(dividend);
+        }
+        return quotient;
+    }
+}
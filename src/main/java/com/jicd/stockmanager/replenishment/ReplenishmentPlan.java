@@ -0,0 +1,17 @@
+package com.jicd.stockmanager.replenishment;
+
+/**
+ * Resultado de evaluar un producto.
+ *
+ * @param velocity Unidades vendidas por día (media ponderada por antigüedad).
+ * @param daysOfCover Días que cubre el stock actual a esa velocidad, null si no hay ventas.
+ * @param suggestedQuantity Unidades a pedir, 0 si no hay que reponer.
+ * @param reorder true si el producto debe reponerse.
+ */
+public record ReplenishmentPlan(
+        double velocity,
+        Double daysOfCover,
+        int suggestedQuantity,
+        boolean reorder
+) {
+}
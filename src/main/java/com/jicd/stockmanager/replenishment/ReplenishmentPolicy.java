@@ -0,0 +1,82 @@
+package com.jicd.stockmanager.replenishment;
+
+/**
+ * Política de reposición a partir de la velocidad de venta.
+ * La velocidad es la media diaria de unidades vendidas en la ventana, con los días ponderados por
+ * antigüedad (el peso se reduce a la mitad cada 'halfLifeDays'): un cambio reciente de demanda pesa
+ * más que las ventas del principio de la ventana, y los días sin ventas cuentan como cero.
+ * Un producto se repone cuando su stock no cubre el plazo de entrega más el de seguridad, o cuando
+ * está por debajo de su umbral mínimo; se pide hasta cubrir además el periodo de revisión.
+ */
+public final class ReplenishmentPolicy {
+
+    private final double[] weights;
+    private final double totalWeight;
+    private final int reorderDays;
+    private final int targetDays;
+
+    /**
+     * @param windowDays Días de historial considerados.
+     * @param halfLifeDays Antigüedad en días a la que una venta pesa la mitad.
+     * @param leadTimeDays Días desde el pedido hasta la recepción.
+     * @param safetyDays Días de stock de seguridad.
+     * @param reviewDays Días hasta la siguiente revisión, que también debe cubrir el pedido.
+     */
+    public ReplenishmentPolicy(int windowDays, double halfLifeDays, int leadTimeDays, int safetyDays,
+                               int reviewDays) {
+        if (windowDays <= 0 || halfLifeDays <= 0 || leadTimeDays < 0 || safetyDays < 0 || reviewDays < 0) {
+            throw new IllegalArgumentException("Invalid replenishment policy");
+        }
+        this.weights = new double[windowDays];
+        double total = 0;
+        for (int age = 0; age < windowDays; age++) {
+            weights[age] = Math.pow(0.5, age / halfLifeDays);
+            total += weights[age];
+        }
+        this.totalWeight = total;
+        this.reorderDays = leadTimeDays + safetyDays;
+        this.targetDays = leadTimeDays + safetyDays + reviewDays;
+    }
+
+    public int windowDays() {
+        return weights.length;
+    }
+
+    /**
+     * @param age Días transcurridos desde el día más reciente de la ventana (0 para ese día).
+     * @return double el peso de las ventas de ese día, 0 fuera de la ventana.
+     */
+    public double weight(int age) {
+        return age < 0 || age >= weights.length ? 0 : weights[age];
+    }
+
+    /**
+     * @param weightedUnits La suma de las unidades vendidas de cada día por su peso.
+     * @return double las unidades vendidas por día.
+     */
+    public double velocity(double weightedUnits) {
+        return weightedUnits / totalWeight;
+    }
+
+    /**
+     * @param stock El stock actual.
+     * @param minThreshold El umbral mínimo del producto, puede ser null.
+     * @param weightedUnits La suma ponderada de las unidades vendidas en la ventana.
+     * @return ReplenishmentPlan la evaluación del producto.
+     */
+    public ReplenishmentPlan evaluate(int stock, Integer minThreshold, double weightedUnits) {
+        double velocity = velocity(weightedUnits);
+        Double daysOfCover = velocity > 0 ? stock / velocity : null;
+
+        boolean belowThreshold = minThreshold != null && stock < minThreshold;
+        boolean uncovered = velocity > 0 && stock <= velocity * reorderDays;
+        if (!belowThreshold && !uncovered) {
+            return new ReplenishmentPlan(velocity, daysOfCover, 0, false);
+        }
+
+        long target = (long) Math.ceil(velocity * targetDays);
+        if (minThreshold != null) target = Math.max(target, minThreshold);
+        int quantity = (int) Math.min(Integer.MAX_VALUE, Math.max(0, target - stock));
+        return new ReplenishmentPlan(velocity, daysOfCover, quantity, true);
+    }
+}
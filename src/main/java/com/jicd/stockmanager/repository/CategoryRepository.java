@@ -1,7 +1,18 @@
 package com.jicd.stockmanager.repository;
 
+import com.jicd.stockmanager.dto.CategoryDTO;
 import com.jicd.stockmanager.model.Category;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+
+import java.util.Collection;
+import java.util.List;
 
 public interface CategoryRepository extends JpaRepository<Category, Long> {
+
+    //Listado de categorias sin cargar la coleccion de productos
+    @Query("select new com.jicd.stockmanager.dto.CategoryDTO(c.id, c.name, c.description) from Category c order by c.name")
+    List<CategoryDTO> findAllSummaries();
+
+    List<Category> findByNameIn(Collection<String> names);
 }
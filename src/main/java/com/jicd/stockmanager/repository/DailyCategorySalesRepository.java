@@ -0,0 +1,61 @@
+package com.jicd.stockmanager.repository;
+
+import com.jicd.stockmanager.dto.CategoryRevenueDTO;
+import com.jicd.stockmanager.dto.DailyRevenueDTO;
+import com.jicd.stockmanager.model.DailyCategorySales;
+import com.jicd.stockmanager.model.DailyCategorySalesId;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.List;
+
+public interface DailyCategorySalesRepository extends JpaRepository<DailyCategorySales, DailyCategorySalesId> {
+
+    //Suma los incrementos al agregado del dia (o lo crea si no existe)
+    @Modifying
+    @Query(value = "insert into daily_category_sales (rollup_day, category_id, units, revenue, sale_count) " +
+            "values (:day, :categoryId, :units, :revenue, :saleCount) " +
+            "on conflict (rollup_day, category_id) do update set " +
+            "units = daily_category_sales.units + excluded.units, " +
+            "revenue = daily_category_sales.revenue + excluded.revenue, " +
+            "sale_count = daily_category_sales.sale_count + excluded.sale_count", nativeQuery = true)
+    void upsert(@Param("day") LocalDate day, @Param("categoryId") Long categoryId,
+                @Param("units") long units, @Param("revenue") BigDecimal revenue, @Param("saleCount") long saleCount);
+
+    //Primera sentencia de la reconstruccion: fija la foto de la transaccion REPEATABLE READ sin tocar filas
+    @Query(value = "select 1", nativeQuery = true)
+    int takeSnapshot();
+
+    //Reconstruccion de los agregados a partir del detalle de ventas
+    @Modifying
+    @Query("delete from DailyCategorySales r where r.id.day between :from and :to")
+    int deleteByDayBetween(@Param("from") LocalDate from, @Param("to") LocalDate to);
+
+    @Modifying
+    @Query(value = "insert into daily_category_sales (rollup_day, category_id, units, revenue, sale_count) " +
+            "select cast(s.sale_date as date), coalesce(p.category_id, 0), sum(d.sale_quantity), " +
+            "coalesce(sum(d.sale_total_price), 0), count(distinct s.sale_id) " +
+            "from sale_detail d join sales s on s.sale_id = d.sale_id and s.sale_date = d.sale_date " +
+            "join products p on p.product_id = d.product_id " +
+            "where d.sale_date >= :fromTime and d.sale_date < :toTime " +
+            "and s.sale_date >= :fromTime and s.sale_date < :toTime " +
+            "group by cast(s.sale_date as date), coalesce(p.category_id, 0)", nativeQuery = true)
+    int rebuild(@Param("fromTime") LocalDateTime fromTime, @Param("toTime") LocalDateTime toTime);
+
+    //Ingresos por categoria en un rango de dias, leyendo solo los agregados
+    @Query("select new com.jicd.stockmanager.dto.CategoryRevenueDTO(r.id.categoryId, " +
+            "sum(r.units), sum(r.revenue), sum(r.saleCount)) from DailyCategorySales r " +
+            "where r.id.day between :from and :to group by r.id.categoryId order by sum(r.revenue) desc")
+    List<CategoryRevenueDTO> sumByCategory(@Param("from") LocalDate from, @Param("to") LocalDate to);
+
+    //Totales por dia (sale_count no se suma: una venta con varias categorias cuenta en cada una)
+    @Query("select new com.jicd.stockmanager.dto.DailyRevenueDTO(r.id.day, " +
+            "sum(r.units), sum(r.revenue)) from DailyCategorySales r " +
+            "where r.id.day between :from and :to group by r.id.day order by r.id.day")
+    List<DailyRevenueDTO> sumByDay(@Param("from") LocalDate from, @Param("to") LocalDate to);
+}
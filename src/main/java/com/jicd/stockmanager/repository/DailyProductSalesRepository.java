@@ -0,0 +1,79 @@
+package com.jicd.stockmanager.repository;
+
+import com.jicd.stockmanager.dto.ProductRevenueDTO;
+import com.jicd.stockmanager.model.DailyProductSales;
+import com.jicd.stockmanager.model.DailyProductSalesId;
+import com.jicd.stockmanager.repository.projection.ProductDaySalesView;
+import com.jicd.stockmanager.repository.projection.ProductDayUnitsView;
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.HibernateHints;
+import org.springframework.data.domain.Limit;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.data.repository.query.Param;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.List;
+import java.util.stream.Stream;
+
+public interface DailyProductSalesRepository extends JpaRepository<DailyProductSales, DailyProductSalesId> {
+
+    //Suma los incrementos al agregado del dia (o lo crea si no existe)
+    @Modifying
+    @Query(value = "insert into daily_product_sales (rollup_day, product_id, category_id, units, revenue, sale_count) " +
+            "values (:day, :productId, :categoryId, :units, :revenue, :saleCount) " +
+            "on conflict (rollup_day, product_id) do update set " +
+            "category_id = excluded.category_id, " +
+            "units = daily_product_sales.units + excluded.units, " +
+            "revenue = daily_product_sales.revenue + excluded.revenue, " +
+            "sale_count = daily_product_sales.sale_count + excluded.sale_count", nativeQuery = true)
+    void upsert(@Param("day") LocalDate day, @Param("productId") Long productId, @Param("categoryId") Long categoryId,
+                @Param("units") long units, @Param("revenue") BigDecimal revenue, @Param("saleCount") long saleCount);
+
+    //Reconstruccion de los agregados a partir del detalle de ventas
+    @Modifying
+    @Query("delete from DailyProductSales r where r.id.day between :from and :to")
+    int deleteByDayBetween(@Param("from") LocalDate from, @Param("to") LocalDate to);
+
+    @Modifying
+    @Query(value = "insert into daily_product_sales (rollup_day, product_id, category_id, units, revenue, sale_count) " +
+            "select cast(s.sale_date as date), d.product_id, max(p.category_id), sum(d.sale_quantity), " +
+            "coalesce(sum(d.sale_total_price), 0), count(distinct s.sale_id) " +
+            "from sale_detail d join sales s on s.sale_id = d.sale_id and s.sale_date = d.sale_date " +
+            "join products p on p.product_id = d.product_id " +
+            "where d.sale_date >= :fromTime and d.sale_date < :toTime " +
+            "and s.sale_date >= :fromTime and s.sale_date < :toTime " +
+            "group by cast(s.sale_date as date), d.product_id", nativeQuery = true)
+    int rebuild(@Param("fromTime") LocalDateTime fromTime, @Param("toTime") LocalDateTime toTime);
+
+    //Ventas por producto en un rango de dias, leyendo solo los agregados
+    @Query("select new com.jicd.stockmanager.dto.ProductRevenueDTO(r.id.productId, max(r.categoryId), " +
+            "sum(r.units), sum(r.revenue), sum(r.saleCount)) from DailyProductSales r " +
+            "where r.id.day between :from and :to group by r.id.productId order by sum(r.revenue) desc")
+    List<ProductRevenueDTO> sumByProduct(@Param("from") LocalDate from, @Param("to") LocalDate to, Limit limit);
+
+    //Unidades diarias en [from, to) de un rango de ids de producto (historial del planificador de reposicion)
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "1000"))
+    @Query("select r.id.productId as productId, r.id.day as day, r.units as units from DailyProductSales r " +
+            "where r.id.productId between :fromId and :toId and r.id.day >= :from and r.id.day < :to")
+    Stream<ProductDayUnitsView> streamUnitsByProductIdBetween(@Param("fromId") Long fromId, @Param("toId") Long toId,
+                                                              @Param("from") LocalDate from, @Param("to") LocalDate to);
+
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "1000"))
+    @Query("select r.id.productId as productId, r.id.day as day, r.units as units from DailyProductSales r " +
+            "where r.id.productId in :productIds and r.id.day >= :from and r.id.day < :to")
+    Stream<ProductDayUnitsView> streamUnitsByProductIdIn(@Param("productIds") Collection<Long> productIds,
+                                                         @Param("from") LocalDate from, @Param("to") LocalDate to);
+
+    //Agregados desde un dia en orden de dia (carga de la instantanea de analitica)
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "1000"))
+    @Query("select r.id.productId as productId, r.categoryId as categoryId, r.id.day as day, " +
+            "r.units as units, r.revenue as revenue from DailyProductSales r " +
+            "where r.id.day >= :from order by r.id.day")
+    Stream<ProductDaySalesView> streamSalesFrom(@Param("from") LocalDate from);
+}
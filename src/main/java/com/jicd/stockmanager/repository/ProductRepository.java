@@ -1,15 +1,171 @@
 package com.jicd.stockmanager.repository;
 
+import com.jicd.stockmanager.dto.ProductDetailDTO;
+import com.jicd.stockmanager.dto.ProductSummaryDTO;
 import com.jicd.stockmanager.model.Product;
+import com.jicd.stockmanager.repository.projection.ProductCategoryView;
+import com.jicd.stockmanager.repository.projection.ProductExportView;
+import com.jicd.stockmanager.repository.projection.ProductPriceView;
+import com.jicd.stockmanager.repository.projection.ProductQuantityView;
+import com.jicd.stockmanager.repository.projection.ProductSearchView;
+import com.jicd.stockmanager.repository.projection.ProductStockView;
+import jakarta.persistence.LockModeType;
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.HibernateHints;
+import org.springframework.data.domain.Limit;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.data.repository.query.Param;
 
+import java.util.Collection;
 import java.util.List;
+import java.util.Optional;
+import java.util.stream.Stream;
 
 public interface ProductRepository extends JpaRepository<Product, Long> {
 
+    String PRODUCT_SUMMARY = "select new com.jicd.stockmanager.dto.ProductSummaryDTO(" +
+            "p.id, p.name, p.price, p.stockQuantity, c.id, c.name) from Product p left join p.category c ";
+
     //Productos con stock bajo
     List<Product> findByStockQuantityLessThan(Integer minThreshold);
 
     List<Product> findByNameContainingIgnoreCase(String name);
 
+    //Catalogo paginado por keyset (seek): cada pagina continua tras la ultima clave devuelta
+    @Query(PRODUCT_SUMMARY + "where p.id > :afterId order by p.id")
+    List<ProductSummaryDTO> findSummariesAfterId(@Param("afterId") long afterId, Limit limit);
+
+    @Query(PRODUCT_SUMMARY + "where c.id = :categoryId and p.id > :afterId order by p.id")
+    List<ProductSummaryDTO> findSummariesByCategoryAfterId(@Param("categoryId") Long categoryId,
+                                                           @Param("afterId") long afterId, Limit limit);
+
+    @Query(PRODUCT_SUMMARY + "order by p.name, p.id")
+    List<ProductSummaryDTO> findSummariesOrderByName(Limit limit);
+
+    @Query(PRODUCT_SUMMARY + "where (p.name, p.id) > (:afterName, :afterId) order by p.name, p.id")
+    List<ProductSummaryDTO> findSummariesAfterName(@Param("afterName") String afterName,
+                                                   @Param("afterId") long afterId, Limit limit);
+
+    @Query(PRODUCT_SUMMARY + "where c.id = :categoryId order by p.name, p.id")
+    List<ProductSummaryDTO> findSummariesByCategoryOrderByName(@Param("categoryId") Long categoryId, Limit limit);
+
+    @Query(PRODUCT_SUMMARY + "where c.id = :categoryId and (p.name, p.id) > (:afterName, :afterId) order by p.name, p.id")
+    List<ProductSummaryDTO> findSummariesByCategoryAfterName(@Param("categoryId") Long categoryId,
+                                                             @Param("afterName") String afterName,
+                                                             @Param("afterId") long afterId, Limit limit);
+
+    //Detalle de un producto sin hidratar la entidad ni sus asociaciones
+    @Query("select new com.jicd.stockmanager.dto.ProductDetailDTO(p.id, p.name, p.description, p.price, " +
+            "p.stockQuantity, p.minThreshold, c.id, c.name) from Product p left join p.category c where p.id = :id")
+    Optional<ProductDetailDTO> findDetailById(@Param("id") Long id);
+
+    //Categorias de los productos indicados (para invalidar cachés por categoria)
+    @Query("select distinct p.category.id from Product p where p.id in :ids")
+    List<Long> findCategoryIdsByIdIn(@Param("ids") Collection<Long> ids);
+
+    //Precio y categoria de los productos de una venta, sin cargar la entidad
+    @Query("select p.id as id, p.price as price, p.category.id as categoryId from Product p where p.id in :ids")
+    List<ProductPriceView> findPricesByIdIn(@Param("ids") Collection<Long> ids);
+
+    //Nivel de stock y umbral de los productos indicados
+    @Query("select p.id as id, p.name as name, p.stockQuantity as stockQuantity, " +
+            "p.minThreshold as minThreshold, p.category.id as categoryId from Product p where p.id in :ids")
+    List<ProductStockView> findStockLevelsByIdIn(@Param("ids") Collection<Long> ids);
+
+    //Nivel de stock de los productos de un rango de ids (particion del planificador de reposicion)
+    @Query("select p.id as id, p.name as name, p.stockQuantity as stockQuantity, " +
+            "p.minThreshold as minThreshold, p.category.id as categoryId from Product p " +
+            "where p.id between :fromId and :toId")
+    List<ProductStockView> findStockLevelsByIdBetween(@Param("fromId") Long fromId, @Param("toId") Long toId);
+
+    @Query("select min(p.id) from Product p")
+    Optional<Long> findMinId();
+
+    @Query("select max(p.id) from Product p")
+    Optional<Long> findMaxId();
+
+    //Nivel de stock de los productos indicados y de los de las categorias indicadas (estado inicial del feed)
+    @Query("select p.id as id, p.name as name, p.stockQuantity as stockQuantity, " +
+            "p.minThreshold as minThreshold, p.category.id as categoryId from Product p " +
+            "where p.id in :ids or p.category.id in :categoryIds")
+    List<ProductStockView> findStockLevelsByIdInOrCategoryIdIn(@Param("ids") Collection<Long> ids,
+                                                               @Param("categoryIds") Collection<Long> categoryIds);
+
+    //Productos por debajo de su propio umbral minimo (recorrido en streaming)
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "1000"))
+    @Query("select p.id as id, p.name as name, p.stockQuantity as stockQuantity, " +
+            "p.minThreshold as minThreshold, p.category.id as categoryId from Product p " +
+            "where p.minThreshold is not null and p.stockQuantity < p.minThreshold")
+    Stream<ProductStockView> streamBelowMinThreshold();
+
+    //Campos de texto para el indice de busqueda
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "1000"))
+    @Query("select p.id as id, p.name as name, p.description as description from Product p")
+    Stream<ProductSearchView> streamSearchDocuments();
+
+    //Categoria actual de cada producto (diccionario de la instantanea de analitica)
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "1000"))
+    @Query("select p.id as id, p.category.id as categoryId from Product p")
+    Stream<ProductCategoryView> streamCategories();
+
+    @Query("select p.id as id, p.name as name, p.description as description from Product p where p.id in :ids")
+    List<ProductSearchView> findSearchDocumentsByIdIn(@Param("ids") Collection<Long> ids);
+
+    //Productos de un lote de importacion por codigo o nombre, bloqueados en orden de id para que la
+    //reescritura de la entidad no pise descuentos de stock concurrentes
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("select p from Product p where p.sku in :skus or p.name in :names order by p.id")
+    List<Product> lockBySkuInOrNameIn(@Param("skus") Collection<String> skus,
+                                      @Param("names") Collection<String> names);
+
+    //Exportacion del catalogo en streaming
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "1000"))
+    @Query("select p.sku as sku, p.name as name, p.description as description, p.price as price, " +
+            "p.stockQuantity as stockQuantity, p.minThreshold as minThreshold, c.name as categoryName " +
+            "from Product p left join p.category c order by p.id")
+    Stream<ProductExportView> streamExportRows();
+
+    //Descuento atomico: solo se aplica si hay stock suficiente (devuelve 0 filas en caso contrario
+    //o si el producto esta repartido en slots)
+    @Modifying
+    @Query("update Product p set p.stockQuantity = p.stockQuantity - :quantity " +
+            "where p.id = :id and p.stockQuantity >= :quantity and p.stockShards is null")
+    int decrementStock(@Param("id") Long id, @Param("quantity") int quantity);
+
+    //Descuento atomico que respeta el stock retenido por reservas
+    @Modifying
+    @Query("update Product p set p.stockQuantity = p.stockQuantity - :quantity " +
+            "where p.id = :id and p.stockQuantity - :reserved >= :quantity and p.stockShards is null")
+    int decrementUnreservedStock(@Param("id") Long id, @Param("quantity") int quantity,
+                                 @Param("reserved") long reserved);
+
+    //Incremento atomico del stock
+    @Modifying
+    @Query("update Product p set p.stockQuantity = p.stockQuantity + :quantity " +
+            "where p.id = :id and p.stockShards is null")
+    int incrementStock(@Param("id") Long id, @Param("quantity") int quantity);
+
+    //Numero de slots de un producto (vacio si no esta repartido o no existe)
+    @Query("select p.stockShards from Product p where p.id = :id and p.stockShards is not null")
+    Optional<Integer> findStockShardsById(@Param("id") Long id);
+
+    //Productos repartidos en slots y su numero de slots
+    @Query("select p.id as productId, cast(p.stockShards as Long) as quantity from Product p " +
+            "where p.stockShards is not null")
+    List<ProductQuantityView> findShardCounts();
+
+    //Bloquea la fila del producto para repartir o fusionar sus slots
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("select p from Product p where p.id = :id")
+    Optional<Product> lockById(@Param("id") Long id);
+
+    //Sincroniza el stock materializado de un producto repartido con la suma de sus slots
+    @Modifying
+    @Query("update Product p set p.stockQuantity = :quantity where p.id = :id and p.stockShards is not null")
+    int updateShardedStock(@Param("id") Long id, @Param("quantity") int quantity);
+
 }
@@ -0,0 +1,61 @@
+package com.jicd.stockmanager.repository;
+
+import com.jicd.stockmanager.model.ProductStockShard;
+import com.jicd.stockmanager.model.ProductStockShardId;
+import com.jicd.stockmanager.repository.projection.ProductQuantityView;
+import jakarta.persistence.LockModeType;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+
+import java.util.Collection;
+import java.util.List;
+
+public interface ProductStockShardRepository extends JpaRepository<ProductStockShard, ProductStockShardId> {
+
+    //Descuento en un slot sin esperar: si otra transaccion tiene bloqueado el slot se salta (0 filas)
+    @Modifying
+    @Query(value = "update product_stock_shards set shard_quantity = shard_quantity - :quantity " +
+            "where (product_id, shard_slot) = (select product_id, shard_slot from product_stock_shards " +
+            "where product_id = :productId and shard_slot = :slot and shard_quantity >= :quantity " +
+            "for update skip locked)", nativeQuery = true)
+    int tryDecrementSlot(@Param("productId") Long productId, @Param("slot") int slot,
+                         @Param("quantity") int quantity);
+
+    //Descuento en un slot esperando a su bloqueo si hace falta
+    @Modifying
+    @Query("update ProductStockShard s set s.quantity = s.quantity - :quantity " +
+            "where s.id.productId = :productId and s.id.slot = :slot and s.quantity >= :quantity")
+    int decrementSlot(@Param("productId") Long productId, @Param("slot") int slot,
+                      @Param("quantity") int quantity);
+
+    @Modifying
+    @Query("update ProductStockShard s set s.quantity = s.quantity + :quantity " +
+            "where s.id.productId = :productId and s.id.slot = :slot")
+    int incrementSlot(@Param("productId") Long productId, @Param("slot") int slot,
+                      @Param("quantity") int quantity);
+
+    //Slots de un producto bloqueados en orden de slot (reparto entre varios slots, rebalanceo y fusion)
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("select s from ProductStockShard s where s.id.productId = :productId order by s.id.slot")
+    List<ProductStockShard> lockSlots(@Param("productId") Long productId);
+
+    @Query("select s from ProductStockShard s where s.id.productId = :productId order by s.id.slot")
+    List<ProductStockShard> findSlots(@Param("productId") Long productId);
+
+    //Stock total de cada producto repartido
+    @Query("select s.id.productId as productId, sum(s.quantity) as quantity from ProductStockShard s " +
+            "group by s.id.productId")
+    List<ProductQuantityView> sumByProduct();
+
+    //Stock total de los productos indicados que esten repartidos
+    @Query("select s.id.productId as productId, sum(s.quantity) as quantity from ProductStockShard s " +
+            "where s.id.productId in :productIds group by s.id.productId")
+    List<ProductQuantityView> sumByProductIdIn(@Param("productIds") Collection<Long> productIds);
+
+    @Modifying
+    @Query("delete from ProductStockShard s where s.id.productId = :productId")
+    int deleteByProductId(@Param("productId") Long productId);
+}
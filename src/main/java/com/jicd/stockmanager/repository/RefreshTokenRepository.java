@@ -0,0 +1,38 @@
+package com.jicd.stockmanager.repository;
+
+import com.jicd.stockmanager.model.RefreshToken;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+
+import java.time.LocalDateTime;
+import java.util.Optional;
+
+public interface RefreshTokenRepository extends JpaRepository<RefreshToken, Long> {
+
+    Optional<RefreshToken> findByTokenHash(String tokenHash);
+
+    //Marca el token como usado; devuelve 0 si ya estaba usado o revocado (reutilizacion)
+    @Modifying
+    @Query("update RefreshToken t set t.revoked = true where t.id = :id and t.revoked = false")
+    int markUsed(@Param("id") Long id);
+
+    //Revoca toda la familia de tokens (deteccion de reutilizacion o logout)
+    @Modifying
+    @Query("update RefreshToken t set t.revoked = true where t.familyId = :familyId and t.revoked = false")
+    int revokeFamily(@Param("familyId") String familyId);
+
+    //Revoca todos los tokens de un usuario
+    @Modifying
+    @Query("update RefreshToken t set t.revoked = true where t.revoked = false " +
+            "and t.user.id in (select u.id from User u where u.username = :username)")
+    int revokeAllByUsername(@Param("username") String username);
+
+    //Borrado de tokens expirados en lotes acotados
+    @Modifying
+    @Query(value = "delete from refresh_tokens where refresh_token_id in (" +
+            "select refresh_token_id from refresh_tokens where refresh_token_expires_at < :now limit :batchSize)",
+            nativeQuery = true)
+    int deleteExpiredBatch(@Param("now") LocalDateTime now, @Param("batchSize") int batchSize);
+}
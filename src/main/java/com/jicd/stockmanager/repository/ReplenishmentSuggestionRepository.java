@@ -0,0 +1,31 @@
+package com.jicd.stockmanager.repository;
+
+import com.jicd.stockmanager.dto.ReplenishmentSuggestionDTO;
+import com.jicd.stockmanager.model.ReplenishmentSuggestion;
+import org.springframework.data.domain.Limit;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+
+import java.util.Collection;
+import java.util.List;
+
+public interface ReplenishmentSuggestionRepository extends JpaRepository<ReplenishmentSuggestion, Long> {
+
+    //Borrado previo a reescribir las evaluaciones de una particion del catalogo
+    @Modifying
+    @Query("delete from ReplenishmentSuggestion s where s.productId between :fromId and :toId")
+    int deleteByProductIdBetween(@Param("fromId") Long fromId, @Param("toId") Long toId);
+
+    @Modifying
+    @Query("delete from ReplenishmentSuggestion s where s.productId in :productIds")
+    int deleteByProductIdIn(@Param("productIds") Collection<Long> productIds);
+
+    //Productos a reponer, primero los que antes se quedan sin stock
+    @Query("select new com.jicd.stockmanager.dto.ReplenishmentSuggestionDTO(s.productId, p.name, s.stockQuantity, " +
+            "s.velocity, s.daysOfCover, s.suggestedQuantity, s.computedAt) " +
+            "from ReplenishmentSuggestion s join Product p on p.id = s.productId " +
+            "where s.reorder = true order by s.daysOfCover asc nulls first, s.productId")
+    List<ReplenishmentSuggestionDTO> findReorders(Limit limit);
+}
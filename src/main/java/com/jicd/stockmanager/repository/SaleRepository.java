@@ -2,6 +2,18 @@ package com.jicd.stockmanager.repository;
 
 import com.jicd.stockmanager.model.Sale;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+
+import java.time.LocalDate;
 
 public interface SaleRepository extends JpaRepository<Sale, Long> {
+
+    //Crea las particiones mensuales que falten desde el mes de 'firstMonth' (funcion de V2__partition_sales.sql)
+    @Query(value = "select create_sales_partitions(:firstMonth, :months)", nativeQuery = true)
+    int createPartitions(@Param("firstMonth") LocalDate firstMonth, @Param("months") int months);
+
+    //Separa las particiones de los meses anteriores a 'cutoff' y las archiva o borra
+    @Query(value = "select detach_sales_partitions(:cutoff, :dropTables)", nativeQuery = true)
+    int detachPartitionsBefore(@Param("cutoff") LocalDate cutoff, @Param("dropTables") boolean dropTables);
 }
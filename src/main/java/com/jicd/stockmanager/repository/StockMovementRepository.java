@@ -0,0 +1,55 @@
+package com.jicd.stockmanager.repository;
+
+import com.jicd.stockmanager.model.StockMovement;
+import com.jicd.stockmanager.repository.projection.ProductQuantityView;
+import org.springframework.data.domain.Limit;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+public interface StockMovementRepository extends JpaRepository<StockMovement, Long> {
+
+    //Suma de los movimientos de un producto en [from, to)
+    @Query("select coalesce(sum(m.delta), 0) from StockMovement m " +
+            "where m.productId = :productId and m.occurredAt >= :from and m.occurredAt < :to")
+    long sumDeltaBetween(@Param("productId") Long productId,
+                         @Param("from") LocalDateTime from,
+                         @Param("to") LocalDateTime to);
+
+    //Suma de los movimientos de un producto anteriores a 'to'
+    @Query("select coalesce(sum(m.delta), 0) from StockMovement m " +
+            "where m.productId = :productId and m.occurredAt < :to")
+    long sumDeltaBefore(@Param("productId") Long productId, @Param("to") LocalDateTime to);
+
+    //Suma por producto de los movimientos en [from, to), solo de los productos con movimientos
+    @Query("select m.productId as productId, sum(m.delta) as quantity from StockMovement m " +
+            "where m.occurredAt >= :from and m.occurredAt < :to group by m.productId")
+    List<ProductQuantityView> sumDeltaByProductBetween(@Param("from") LocalDateTime from,
+                                                       @Param("to") LocalDateTime to);
+
+    //Suma por producto de los movimientos desde 'from'
+    @Query("select m.productId as productId, sum(m.delta) as quantity from StockMovement m " +
+            "where m.occurredAt >= :from group by m.productId")
+    List<ProductQuantityView> sumDeltaByProductSince(@Param("from") LocalDateTime from);
+
+    //Productos con algun movimiento desde 'from'
+    @Query("select distinct m.productId from StockMovement m where m.occurredAt >= :from")
+    List<Long> findProductIdsMovedSince(@Param("from") LocalDateTime from);
+
+    //Stock registrado en la tabla de productos, para conciliarlo con el diario
+    @Query("select p.id as productId, cast(p.stockQuantity as Long) as quantity from Product p")
+    List<ProductQuantityView> findRecordedQuantities();
+
+    //Productos sin movimiento de apertura, con la apertura que falta: su stock actual menos la suma de sus
+    //movimientos, leidos en la misma sentencia (misma foto) para no mezclar un stock y un diario de
+    //momentos distintos
+    @Query("select p.id as productId, cast(coalesce(p.stockQuantity, 0) as Long) " +
+            "- coalesce((select sum(d.delta) from StockMovement d where d.productId = p.id), 0L) as quantity " +
+            "from Product p " +
+            "where not exists (select 1 from StockMovement m where m.productId = p.id " +
+            "and m.type = com.jicd.stockmanager.Enums.MOVEMENT_TYPE.OPENING) order by p.id")
+    List<ProductQuantityView> findMissingOpenings(Limit limit);
+}
@@ -0,0 +1,35 @@
+package com.jicd.stockmanager.repository;
+
+import com.jicd.stockmanager.Enums.RESERVATION_STATUS;
+import com.jicd.stockmanager.model.StockReservation;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.List;
+
+public interface StockReservationRepository extends JpaRepository<StockReservation, Long> {
+
+    //Reservas abiertas con sus lineas en una sola consulta (recuperacion tras reinicio)
+    @Query("select distinct r from StockReservation r left join fetch r.items where r.status in :statuses")
+    List<StockReservation> findWithItemsByStatusIn(@Param("statuses") Collection<RESERVATION_STATUS> statuses);
+
+    //Transicion de estado condicional: solo cambia las reservas que siguen en el estado esperado
+    @Modifying
+    @Transactional
+    @Query("update StockReservation r set r.status = :status where r.id in :ids and r.status = :expected")
+    int updateStatus(@Param("ids") Collection<Long> ids,
+                     @Param("expected") RESERVATION_STATUS expected,
+                     @Param("status") RESERVATION_STATUS status);
+
+    //Marca como expiradas las reservas activas vencidas
+    @Modifying
+    @Transactional
+    @Query("update StockReservation r set r.status = com.jicd.stockmanager.Enums.RESERVATION_STATUS.EXPIRED " +
+            "where r.status = com.jicd.stockmanager.Enums.RESERVATION_STATUS.ACTIVE and r.expiresAt < :now")
+    int expireBefore(@Param("now") LocalDateTime now);
+}
@@ -0,0 +1,31 @@
+package com.jicd.stockmanager.repository;
+
+import com.jicd.stockmanager.model.StockSnapshot;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.List;
+import java.util.Optional;
+
+public interface StockSnapshotRepository extends JpaRepository<StockSnapshot, Long> {
+
+    //Ultima instantanea de un producto tomada como mucho en 'at'
+    Optional<StockSnapshot> findFirstByProductIdAndAsOfLessThanEqualOrderByAsOfDesc(Long productId, LocalDateTime at);
+
+    //Instante de la ultima compactacion
+    @Query("select max(s.asOf) from StockSnapshot s")
+    Optional<LocalDateTime> findLatestAsOf();
+
+    //Ultima instantanea de cada producto
+    @Query("select s from StockSnapshot s where s.asOf = " +
+            "(select max(s2.asOf) from StockSnapshot s2 where s2.productId = s.productId)")
+    List<StockSnapshot> findLatestPerProduct();
+
+    //Ultima instantanea de los productos indicados
+    @Query("select s from StockSnapshot s where s.productId in :productIds and s.asOf = " +
+            "(select max(s2.asOf) from StockSnapshot s2 where s2.productId = s.productId)")
+    List<StockSnapshot> findLatestByProductIdIn(@Param("productIds") Collection<Long> productIds);
+}
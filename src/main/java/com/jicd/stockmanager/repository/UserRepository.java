@@ -2,10 +2,19 @@ package com.jicd.stockmanager.repository;
 
 import com.jicd.stockmanager.Enums.ROL_TYPE;
 import com.jicd.stockmanager.model.User;
+import com.jicd.stockmanager.repository.projection.UserIdentityView;
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.HibernateHints;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.data.repository.query.Param;
+import org.springframework.transaction.annotation.Transactional;
 
 import java.util.List;
 import java.util.Optional;
+import java.util.stream.Stream;
 
 public interface UserRepository extends JpaRepository<User, Long> {
 
@@ -22,6 +31,21 @@ public interface UserRepository extends JpaRepository<User, Long> {
     //Verificar si existe el usuario
     boolean existsByEmail(String userEmail);
 
+    //Nombres y emails de todos los usuarios (recorrido en streaming)
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "1000"))
+    @Query("select u.username as username, u.email as email from User u")
+    Stream<UserIdentityView> streamIdentities();
+
     //Buscar por rol
     List<User> findByRol(ROL_TYPE rol);
+
+    //Version actual de los tokens del usuario (para la revocacion de JWT)
+    @Query("select coalesce(u.tokenVersion, 0) from User u where u.username = :username")
+    Optional<Integer> findTokenVersionByUsername(@Param("username") String username);
+
+    //Invalida todos los tokens emitidos al usuario
+    @Modifying
+    @Transactional
+    @Query("update User u set u.tokenVersion = coalesce(u.tokenVersion, 0) + 1 where u.username = :username")
+    int incrementTokenVersion(@Param("username") String username);
 }
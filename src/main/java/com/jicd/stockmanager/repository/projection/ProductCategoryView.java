@@ -0,0 +1,11 @@
+package com.jicd.stockmanager.repository.projection;
+
+/**
+ * Proyección con la categoría actual de un producto.
+ */
+public interface ProductCategoryView {
+
+    Long getId();
+
+    Long getCategoryId();
+}
@@ -0,0 +1,20 @@
+package com.jicd.stockmanager.repository.projection;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+
+/**
+ * Proyección con las ventas de un producto en un día, leídas de los agregados diarios.
+ */
+public interface ProductDaySalesView {
+
+    Long getProductId();
+
+    Long getCategoryId();
+
+    LocalDate getDay();
+
+    Long getUnits();
+
+    BigDecimal getRevenue();
+}
@@ -0,0 +1,15 @@
+package com.jicd.stockmanager.repository.projection;
+
+import java.time.LocalDate;
+
+/**
+ * Proyección con las unidades vendidas de un producto en un día.
+ */
+public interface ProductDayUnitsView {
+
+    Long getProductId();
+
+    LocalDate getDay();
+
+    Long getUnits();
+}
@@ -0,0 +1,21 @@
+package com.jicd.stockmanager.repository.projection;
+
+/**
+ * Proyección con los campos de un producto que se exportan a CSV.
+ */
+public interface ProductExportView {
+
+    String getSku();
+
+    String getName();
+
+    String getDescription();
+
+    Double getPrice();
+
+    Integer getStockQuantity();
+
+    Integer getMinThreshold();
+
+    String getCategoryName();
+}
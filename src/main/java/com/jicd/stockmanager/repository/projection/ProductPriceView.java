@@ -0,0 +1,13 @@
+package com.jicd.stockmanager.repository.projection;
+
+/**
+ * Proyección con los datos de un producto necesarios para registrar una venta.
+ */
+public interface ProductPriceView {
+
+    Long getId();
+
+    Double getPrice();
+
+    Long getCategoryId();
+}
@@ -0,0 +1,11 @@
+package com.jicd.stockmanager.repository.projection;
+
+/**
+ * Proyección con una cantidad agregada por producto (stock o suma de movimientos).
+ */
+public interface ProductQuantityView {
+
+    Long getProductId();
+
+    Long getQuantity();
+}
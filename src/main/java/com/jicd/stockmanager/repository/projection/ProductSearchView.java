@@ -0,0 +1,13 @@
+package com.jicd.stockmanager.repository.projection;
+
+/**
+ * Proyección con los campos de texto de un producto que se indexan para la búsqueda.
+ */
+public interface ProductSearchView {
+
+    Long getId();
+
+    String getName();
+
+    String getDescription();
+}
@@ -0,0 +1,17 @@
+package com.jicd.stockmanager.repository.projection;
+
+/**
+ * Proyección con el nivel de stock de un producto y su umbral mínimo.
+ */
+public interface ProductStockView {
+
+    Long getId();
+
+    String getName();
+
+    Integer getStockQuantity();
+
+    Integer getMinThreshold();
+
+    Long getCategoryId();
+}
@@ -0,0 +1,11 @@
+package com.jicd.stockmanager.repository.projection;
+
+/**
+ * Proyección con los identificadores únicos de un usuario (nombre y email).
+ */
+public interface UserIdentityView {
+
+    String getUsername();
+
+    String getEmail();
+}
@@ -0,0 +1,297 @@
+package com.jicd.stockmanager.reservation;
+
+import org.springframework.stereotype.Component;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Libro de stock en memoria para las reservas. Por producto guarda el último stock leído de la BD,
+ * lo retenido por reservas activas, lo confirmado pendiente de volcar y lo que las ventas directas
+ * están descontando en transacciones aún abiertas; el disponible para reservar es
+ * stock - retenido - pendiente - en curso.
+ * Una venta directa anota su cantidad como en curso (claim) con el cerrojo de su franja, el mismo que
+ * toma la admisión de reservas, y la descuenta del stock del libro al confirmarse su transacción: así
+ * una reserva nunca se admite contra stock que una venta directa ya se ha llevado.
+ * Los productos se reparten entre un número fijo de cerrojos (lock striping): las reservas sobre
+ * productos distintos no compiten, una reserva sobre un producto muy demandado solo espera unos
+ * nanosegundos en memoria en lugar de un bloqueo de fila en la BD, y una reserva de varias líneas
+ * toma sus cerrojos siempre en el mismo orden para no interbloquearse.
+ */
+@Component
+public class StockLedger {
+
+    private static final int STRIPES = 64;
+
+    private final ReentrantLock[] stripes = new ReentrantLock[STRIPES];
+    private final Map<Long, Entry> entries = new ConcurrentHashMap<>();
+
+    /**
+     * Estado de un producto; sus campos solo se leen y escriben con el cerrojo de su franja.
+     */
+    private static final class Entry {
+        // false mientras solo lo conocen las ventas directas: aún no se ha leído su stock de la BD
+        private boolean loaded;
+        private long stock;
+        private long held;
+        private long pending;
+        private long inFlight;
+
+        private long available() {
+            return stock - held - pending - inFlight;
+        }
+    }
+
+    @FunctionalInterface
+    private interface LineUpdate {
+        void apply(Entry entry, int quantity);
+    }
+
+    public StockLedger() {
+        for (int i = 0; i < STRIPES; i++) {
+            stripes[i] = new ReentrantLock();
+        }
+    }
+
+    /**
+     * @param productId El id del producto.
+     * @return boolean true si el producto ya tiene entrada en el libro.
+     */
+    public boolean isTracked(long productId) {
+        Entry entry = entries.get(productId);
+        if (entry == null) return false;
+
+        ReentrantLock lock = stripeOf(productId);
+        lock.lock();
+        try {
+            return entry.loaded;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Añade un producto con el stock leído de la BD si aún no estaba en el libro.
+     *
+     * @param productId El id del producto.
+     * @param stock El stock actual en la BD.
+     */
+    public void track(long productId, long stock) {
+        Entry entry = entries.computeIfAbsent(productId, id -> new Entry());
+
+        ReentrantLock lock = stripeOf(productId);
+        lock.lock();
+        try {
+            if (entry.loaded) return;
+            entry.stock = stock;
+            entry.loaded = true;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Actualiza el stock de un producto ya presente tras un cambio confirmado en la BD.
+     *
+     * @param productId El id del producto.
+     * @param stock El stock actual en la BD.
+     */
+    public void updateStock(long productId, long stock) {
+        Entry entry = entries.get(productId);
+        if (entry == null) return;
+
+        ReentrantLock lock = stripeOf(productId);
+        lock.lock();
+        try {
+            if (entry.loaded) entry.stock = stock;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Retiene stock para todas las líneas o para ninguna.
+     *
+     * @param quantities Cantidades por id de producto.
+     * @return boolean true si había disponible suficiente para todas las líneas.
+     */
+    public boolean tryReserve(Map<Long, Integer> quantities) {
+        int[] order = stripesOf(quantities);
+        lockAll(order);
+        try {
+            for (Map.Entry<Long, Integer> line : quantities.entrySet()) {
+                Entry entry = entries.get(line.getKey());
+                if (entry == null || !entry.loaded || entry.available() < line.getValue()) return false;
+            }
+            quantities.forEach((productId, quantity) -> entries.get(productId).held += quantity);
+            return true;
+        } finally {
+            unlockAll(order);
+        }
+    }
+
+    /**
+     * Devuelve al disponible el stock retenido (liberación o expiración).
+     */
+    public void release(Map<Long, Integer> quantities) {
+        apply(quantities, (entry, quantity) -> entry.held -= quantity);
+    }
+
+    /**
+     * Pasa el stock retenido a pendiente de volcar en la BD.
+     */
+    public void confirm(Map<Long, Integer> quantities) {
+        apply(quantities, (entry, quantity) -> {
+            entry.held -= quantity;
+            entry.pending += quantity;
+        });
+    }
+
+    /**
+     * Elimina el stock pendiente una vez volcado (o descartado) en la BD.
+     */
+    public void settle(Map<Long, Integer> quantities) {
+        apply(quantities, (entry, quantity) -> entry.pending -= quantity);
+    }
+
+    /**
+     * Restaura una reserva recuperada de la BD sin comprobar el disponible: ya se admitió antes del reinicio.
+     *
+     * @param quantities Cantidades por id de producto.
+     * @param pending true si la reserva estaba confirmada y pendiente de volcar.
+     */
+    public void restore(Map<Long, Integer> quantities, boolean pending) {
+        quantities.keySet().forEach(productId -> track(productId, 0));
+        apply(quantities, (entry, quantity) -> {
+            if (pending) {
+                entry.pending += quantity;
+            } else {
+                entry.held += quantity;
+            }
+        });
+    }
+
+    /**
+     * Stock del producto que las ventas directas no pueden tocar: retenido más pendiente de volcar.
+     *
+     * @param productId El id del producto.
+     * @return long la cantidad reservada (0 si el producto no está en el libro).
+     */
+    public long reserved(long productId) {
+        Entry entry = entries.get(productId);
+        if (entry == null) return 0;
+
+        ReentrantLock lock = stripeOf(productId);
+        lock.lock();
+        try {
+            return entry.held + entry.pending;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Anota una venta directa en curso y devuelve el stock que no puede tocar: retenido más pendiente
+     * de volcar. Desde este momento las reservas ya no cuentan con esa cantidad; quien llama debe
+     * terminar con {@link #completeClaim} tanto si el descuento se aplica como si no.
+     *
+     * @param productId El id del producto.
+     * @param quantity La cantidad que se va a descontar.
+     * @return long la cantidad reservada.
+     */
+    public long claim(long productId, int quantity) {
+        Entry entry = entries.computeIfAbsent(productId, id -> new Entry());
+
+        ReentrantLock lock = stripeOf(productId);
+        lock.lock();
+        try {
+            entry.inFlight += quantity;
+            return entry.held + entry.pending;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Cierra una venta directa anotada con {@link #claim}.
+     *
+     * @param productId El id del producto.
+     * @param quantity La cantidad anotada.
+     * @param committed true si el descuento se confirmó en la BD y debe restarse del stock del libro.
+     */
+    public void completeClaim(long productId, int quantity, boolean committed) {
+        Entry entry = entries.get(productId);
+        if (entry == null) return;
+
+        ReentrantLock lock = stripeOf(productId);
+        lock.lock();
+        try {
+            entry.inFlight -= quantity;
+            if (committed && entry.loaded) entry.stock -= quantity;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * @param productId El id del producto.
+     * @return long el disponible para vender (0 si el producto no está en el libro).
+     */
+    public long available(long productId) {
+        Entry entry = entries.get(productId);
+        if (entry == null) return 0;
+
+        ReentrantLock lock = stripeOf(productId);
+        lock.lock();
+        try {
+            return entry.loaded ? entry.available() : 0;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private void apply(Map<Long, Integer> quantities, LineUpdate update) {
+        int[] order = stripesOf(quantities);
+        lockAll(order);
+        try {
+            quantities.forEach((productId, quantity) -> {
+                Entry entry = entries.get(productId);
+                if (entry != null) update.apply(entry, quantity);
+            });
+        } finally {
+            unlockAll(order);
+        }
+    }
+
+    private ReentrantLock stripeOf(long productId) {
+        return stripes[stripeIndex(productId)];
+    }
+
+    private static int stripeIndex(long productId) {
+        return Math.floorMod(Long.hashCode(productId), STRIPES);
+    }
+
+    /**
+     * Franjas distintas de las líneas, en orden ascendente.
+     */
+    private static int[] stripesOf(Map<Long, Integer> quantities) {
+        return quantities.keySet().stream()
+                .mapToInt(StockLedger::stripeIndex)
+                .distinct()
+                .sorted()
+                .toArray();
+    }
+
+    private void lockAll(int[] order) {
+        for (int stripe : order) {
+            stripes[stripe].lock();
+        }
+    }
+
+    private void unlockAll(int[] order) {
+        for (int i = order.length - 1; i >= 0; i--) {
+            stripes[order[i]].unlock();
+        }
+    }
+}
@@ -0,0 +1,347 @@
+package com.jicd.stockmanager.search;
+
+import java.text.Normalizer;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.Set;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.regex.Pattern;
+
+/**
+ * Índice invertido de trigramas en memoria sobre el nombre y la descripción de los productos.
+ * Los trigramas se generan como en pg_trgm (palabras en minúsculas, sin acentos y con relleno),
+ * lo que permite búsquedas por subcadena y tolerantes a errores tipográficos.
+ * Cada producto indexado ocupa un documento con id interno denso; las listas de postings son
+ * arrays de enteros para no crear objetos por entrada.
+ */
+public class ProductSearchIndex {
+
+    // Pesos del ranking: cobertura de la consulta en el nombre, similitud de Jaccard con el nombre,
+    // cobertura en la descripción y bonus si el nombre empieza por la consulta
+    private static final double NAME_COVERAGE_WEIGHT = 0.6;
+    private static final double NAME_JACCARD_WEIGHT = 0.2;
+    private static final double DESCRIPTION_WEIGHT = 0.2;
+    private static final double PREFIX_BONUS = 0.2;
+    private static final double MIN_SCORE = 0.3;
+
+    private static final Pattern DIACRITICS = Pattern.compile("\\p{M}+");
+    private static final Pattern NON_ALPHANUMERIC = Pattern.compile("[^\\p{L}\\p{N}]+");
+
+    private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+
+    private final Map<String, Postings> namePostings = new HashMap<>();
+    private final Map<String, Postings> descriptionPostings = new HashMap<>();
+    private final Map<Long, Integer> docByProduct = new HashMap<>();
+
+    private long[] productIds = new long[1024];
+    private String[] names = new String[1024];
+    private String[] normalizedNames = new String[1024];
+    private int[] nameTrigramCounts = new int[1024];
+    private final BitSet deleted = new BitSet();
+    private int docCount;
+    private int deletedCount;
+
+    public record Hit(long productId, String name, double score) {
+    }
+
+    public record SearchResult(List<Hit> hits, int totalHits) {
+    }
+
+    /**
+     * Indexa un producto o reemplaza su entrada anterior.
+     *
+     * @param productId El id del producto.
+     * @param name El nombre del producto.
+     * @param description La descripción del producto (puede ser null).
+     */
+    public void put(long productId, String name, String description) {
+        Set<String> nameGrams = trigrams(name);
+        Set<String> descriptionGrams = trigrams(description);
+
+        lock.writeLock().lock();
+        try {
+            removeInternal(productId);
+
+            int doc = docCount++;
+            ensureCapacity(docCount);
+            productIds[doc] = productId;
+            names[doc] = name;
+            normalizedNames[doc] = normalize(name);
+            nameTrigramCounts[doc] = nameGrams.size();
+            docByProduct.put(productId, doc);
+
+            nameGrams.forEach(gram -> namePostings.computeIfAbsent(gram, key -> new Postings()).add(doc));
+            descriptionGrams.forEach(gram -> descriptionPostings.computeIfAbsent(gram, key -> new Postings()).add(doc));
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Elimina un producto del índice.
+     *
+     * @param productId El id del producto.
+     */
+    public void remove(long productId) {
+        lock.writeLock().lock();
+        try {
+            removeInternal(productId);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Busca productos por relevancia y devuelve la página solicitada.
+     *
+     * @param query El texto a buscar.
+     * @param page El número de página (desde 0).
+     * @param size El tamaño de página.
+     * @return SearchResult los resultados de la página y el total de coincidencias.
+     * @throws ArithmeticException si (page + 1) * size no cabe en un int.
+     */
+    public SearchResult search(String query, int page, int size) {
+        if (page < 0 || size <= 0) throw new IllegalArgumentException("Invalid page");
+        Set<String> queryGrams = trigrams(query);
+        if (queryGrams.isEmpty()) return new SearchResult(List.of(), 0);
+
+        String normalizedQuery = normalize(query);
+        int limit = Math.multiplyExact(page + 1, size);
+
+        lock.readLock().lock();
+        try {
+            // Solo se cuentan y puntúan los documentos que aparecen en los postings de la consulta
+            List<Postings> nameLists = new ArrayList<>(queryGrams.size());
+            List<Postings> descriptionLists = new ArrayList<>(queryGrams.size());
+            long postingsSize = 0;
+            for (String gram : queryGrams) {
+                Postings name = namePostings.get(gram);
+                Postings description = descriptionPostings.get(gram);
+                if (name != null) {
+                    nameLists.add(name);
+                    postingsSize += name.size;
+                }
+                if (description != null) {
+                    descriptionLists.add(description);
+                    postingsSize += description.size;
+                }
+            }
+            if (postingsSize == 0) return new SearchResult(List.of(), 0);
+
+            Accumulator hits = new Accumulator((int) Math.min(postingsSize, docCount));
+            nameLists.forEach(list -> hits.count(list, true));
+            descriptionLists.forEach(list -> hits.count(list, false));
+
+            // Montículo de mínimos con los 'limit' mejores documentos
+            PriorityQueue<Hit> top = new PriorityQueue<>(Math.min(limit, hits.size) + 1,
+                    Comparator.comparingDouble(Hit::score));
+            int total = 0;
+            double queryCount = queryGrams.size();
+            for (int i = 0; i < hits.size; i++) {
+                int slot = hits.touched[i];
+                int doc = hits.docs[slot];
+                if (deleted.get(doc)) continue;
+
+                int nameHits = hits.nameHits[slot];
+                double score = NAME_COVERAGE_WEIGHT * nameHits / queryCount
+                        + NAME_JACCARD_WEIGHT * nameHits / (queryCount + nameTrigramCounts[doc] - nameHits)
+                        + DESCRIPTION_WEIGHT * hits.descriptionHits[slot] / queryCount
+                        + (normalizedNames[doc].startsWith(normalizedQuery) ? PREFIX_BONUS : 0);
+                if (score < MIN_SCORE) continue;
+
+                total++;
+                if (top.size() < limit || score > top.peek().score()) {
+                    top.offer(new Hit(productIds[doc], names[doc], score));
+                    if (top.size() > limit) top.poll();
+                }
+            }
+
+            List<Hit> ranked = new ArrayList<>(top);
+            ranked.sort(Comparator.comparingDouble(Hit::score).reversed());
+            int from = Math.min(page * size, ranked.size());
+            return new SearchResult(List.copyOf(ranked.subList(from, ranked.size())), total);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * @return int el número de productos indexados.
+     */
+    public int size() {
+        lock.readLock().lock();
+        try {
+            return docByProduct.size();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    private void removeInternal(long productId) {
+        Integer doc = docByProduct.remove(productId);
+        if (doc == null) return;
+
+        deleted.set(doc);
+        deletedCount++;
+        // Cuando la mitad de los documentos están borrados se compactan los postings
+        if (deletedCount > 1024 && deletedCount * 2 > docCount) {
+            compact();
+        }
+    }
+
+    /**
+     * Reasigna ids internos densos a los documentos vivos y elimina los borrados de los postings.
+     */
+    private void compact() {
+        int[] remap = new int[docCount];
+        int next = 0;
+        for (int doc = 0; doc < docCount; doc++) {
+            if (deleted.get(doc)) {
+                remap[doc] = -1;
+                continue;
+            }
+            remap[doc] = next;
+            productIds[next] = productIds[doc];
+            names[next] = names[doc];
+            normalizedNames[next] = normalizedNames[doc];
+            nameTrigramCounts[next] = nameTrigramCounts[doc];
+            next++;
+        }
+        Arrays.fill(names, next, docCount, null);
+        Arrays.fill(normalizedNames, next, docCount, null);
+
+        remapPostings(namePostings, remap);
+        remapPostings(descriptionPostings, remap);
+        docByProduct.replaceAll((productId, doc) -> remap[doc]);
+
+        docCount = next;
+        deleted.clear();
+        deletedCount = 0;
+    }
+
+    private static void remapPostings(Map<String, Postings> postings, int[] remap) {
+        Iterator<Postings> iterator = postings.values().iterator();
+        while (iterator.hasNext()) {
+            Postings list = iterator.next();
+            list.remap(remap);
+            if (list.size == 0) iterator.remove();
+        }
+    }
+
+    private void ensureCapacity(int capacity) {
+        if (capacity <= productIds.length) return;
+        int newLength = Math.max(capacity, productIds.length * 2);
+        productIds = Arrays.copyOf(productIds, newLength);
+        names = Arrays.copyOf(names, newLength);
+        normalizedNames = Arrays.copyOf(normalizedNames, newLength);
+        nameTrigramCounts = Arrays.copyOf(nameTrigramCounts, newLength);
+    }
+
+    /**
+     * Normaliza un texto: minúsculas, sin acentos y con los separadores reducidos a un espacio.
+     */
+    static String normalize(String text) {
+        if (text == null) return "";
+        String withoutAccents = DIACRITICS.matcher(Normalizer.normalize(text, Normalizer.Form.NFD)).replaceAll("");
+        return NON_ALPHANUMERIC.matcher(withoutAccents.toLowerCase(Locale.ROOT)).replaceAll(" ").trim();
+    }
+
+    /**
+     * Genera los trigramas distintos de un texto, rellenando cada palabra con dos espacios
+     * delante y uno detrás como hace pg_trgm.
+     */
+    static Set<String> trigrams(String text) {
+        String normalized = normalize(text);
+        if (normalized.isEmpty()) return Set.of();
+
+        Set<String> grams = new LinkedHashSet<>();
+        for (String word : normalized.split(" ")) {
+            String padded = "  " + word + " ";
+            for (int i = 0; i + 3 <= padded.length(); i++) {
+                grams.add(padded.substring(i, i + 3));
+            }
+        }
+        return grams;
+    }
+
+    /**
+     * Coincidencias por documento de una consulta en una tabla hash abierta de enteros, dimensionada
+     * por el tamaño de los postings de la consulta y no por el del catálogo. 'touched' guarda las
+     * posiciones ocupadas para recorrerlas sin barrer la tabla.
+     */
+    private static final class Accumulator {
+        private final int[] docs;
+        private final int[] nameHits;
+        private final int[] descriptionHits;
+        private final int[] touched;
+        private final int mask;
+        private int size;
+
+        Accumulator(int expectedDocs) {
+            int capacity = 2;
+            while (capacity < expectedDocs * 2) capacity <<= 1;
+            docs = new int[capacity];
+            Arrays.fill(docs, -1);
+            nameHits = new int[capacity];
+            descriptionHits = new int[capacity];
+            touched = new int[expectedDocs];
+            mask = capacity - 1;
+        }
+
+        void count(Postings postings, boolean name) {
+            for (int i = 0; i < postings.size; i++) {
+                int slot = slotOf(postings.docs[i]);
+                if (name) {
+                    nameHits[slot]++;
+                } else {
+                    descriptionHits[slot]++;
+                }
+            }
+        }
+
+        private int slotOf(int doc) {
+            int hash = doc * 0x9E3779B9;
+            int slot = (hash ^ (hash >>> 16)) & mask;
+            while (docs[slot] != doc) {
+                if (docs[slot] == -1) {
+                    docs[slot] = doc;
+                    touched[size++] = slot;
+                    return slot;
+                }
+                slot = (slot + 1) & mask;
+            }
+            return slot;
+        }
+    }
+
+    /**
+     * Lista creciente de ids de documento, ordenada por inserción.
+     */
+    private static final class Postings {
+        private int[] docs = new int[4];
+        private int size;
+
+        void add(int doc) {
+            if (size == docs.length) docs = Arrays.copyOf(docs, size * 2);
+            docs[size++] = doc;
+        }
+
+        void remap(int[] remap) {
+            int next = 0;
+            for (int i = 0; i < size; i++) {
+                int mapped = remap[docs[i]];
+                if (mapped >= 0) docs[next++] = mapped;
+            }
+            size = next;
+        }
+    }
+}
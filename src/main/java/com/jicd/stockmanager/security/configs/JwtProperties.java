@@ -17,8 +17,29 @@ public class JwtProperties {
     private long expiration;
     private RefreshToken refreshToken;
 
+    // Si es true, la autenticación se construye a partir de los claims del token sin consultar la BD
+    private boolean stateless = true;
+    private PrincipalCache principalCache = new PrincipalCache();
+    private VerifiedCache verifiedCache = new VerifiedCache();
+
     @Data
     public static class RefreshToken{
         private long expiration;
+        // Entradas de la caché de búsqueda de tokens activos
+        private long cacheMaxSize = 10_000;
+        // Tokens expirados borrados por sentencia en el barrido periódico
+        private int sweepBatchSize = 1_000;
+    }
+
+    @Data
+    public static class PrincipalCache {
+        private long maxSize = 10_000;
+        private long ttl = 60_000;
+    }
+
+    @Data
+    public static class VerifiedCache {
+        private boolean enabled = true;
+        private long maxSize = 10_000;
     }
 }
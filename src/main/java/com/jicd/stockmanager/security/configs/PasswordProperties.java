@@ -0,0 +1,18 @@
+package com.jicd.stockmanager.security.configs;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Configuration;
+
+@Configuration
+@ConfigurationProperties(prefix = "app.security.password")
+@Data
+public class PasswordProperties {
+
+    // Coste de BCrypt; al cambiarlo los hashes existentes se actualizan en el siguiente login
+    private int strength = 10;
+    // Hilos dedicados al hashing (por defecto, uno por núcleo)
+    private int poolSize = Runtime.getRuntime().availableProcessors();
+    // Peticiones en espera antes de rechazar con 503
+    private int queueCapacity = 200;
+}
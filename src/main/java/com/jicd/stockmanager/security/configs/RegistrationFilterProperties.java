@@ -0,0 +1,19 @@
+package com.jicd.stockmanager.security.configs;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Configuration;
+
+@Configuration
+@ConfigurationProperties(prefix = "app.security.registration-filter")
+@Data
+public class RegistrationFilterProperties {
+
+    // Si es false, el registro consulta siempre la BD
+    private boolean enabled = true;
+    // Usuarios previstos; el filtro se dimensiona con el mayor entre este valor y el doble de los existentes
+    private long expectedUsers = 100_000;
+    private double falsePositiveRate = 0.01;
+    // Reconstrucción periódica (usuarios borrados, registros en otros nodos y crecimiento)
+    private long rebuildInterval = 3_600_000;
+}
@@ -1,6 +1,8 @@
 package com.jicd.stockmanager.security.configs;
 
 import com.jicd.stockmanager.security.jwt.JwtAuthFilter;
+import com.jicd.stockmanager.security.password.BoundedPasswordEncoder;
+import io.micrometer.core.instrument.MeterRegistry;
 import lombok.RequiredArgsConstructor;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
@@ -11,7 +13,6 @@ import org.springframework.security.config.annotation.web.builders.HttpSecurity;
 import org.springframework.security.config.annotation.web.configuration.EnableWebSecurity;
 import org.springframework.security.config.annotation.web.configurers.AbstractHttpConfigurer;
 import org.springframework.security.config.http.SessionCreationPolicy;
-import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
 import org.springframework.security.crypto.password.PasswordEncoder;
 import org.springframework.security.web.SecurityFilterChain;
 import org.springframework.security.web.authentication.UsernamePasswordAuthenticationFilter;
@@ -30,13 +31,16 @@ public class SecurityConfig {
 
     /**
      * Define el bean para el codificador de contraseñas.
-     * Utiliza BCrypt, que es el estándar actual para el almacenamiento seguro de contraseñas.
+     * Utiliza BCrypt, que es el estándar actual para el almacenamiento seguro de contraseñas,
+     * ejecutado en un pool acotado para no bloquear los hilos de petición.
      *
-     * @return PasswordEncoder instancia de BCryptPasswordEncoder.
+     * @param properties la configuración del hashing (coste, hilos y cola).
+     * @param meterRegistry el registro de métricas.
+     * @return PasswordEncoder instancia de BoundedPasswordEncoder.
      */
     @Bean
-    public PasswordEncoder passwordEncoder() {
-        return new BCryptPasswordEncoder();
+    public PasswordEncoder passwordEncoder(PasswordProperties properties, MeterRegistry meterRegistry) {
+        return new BoundedPasswordEncoder(properties, meterRegistry);
     }
 
     /**
@@ -70,6 +74,9 @@ public class SecurityConfig {
                 .authorizeHttpRequests(auth -> auth
                         // Permitir acceso público a los endpoints de autenticación
                         .requestMatchers("/auth/**").permitAll()
+                        // Actuator: health para las sondas; el resto (métricas, vaciado de cachés) solo ADMIN
+                        .requestMatchers("/actuator/health", "/actuator/health/**").authenticated()
+                        .requestMatchers("/actuator/**").hasRole("ADMIN")
                         // Ejemplo de protección por rol: solo ADMIN puede acceder a ciertos endpoints (si existieran)
                         // .requestMatchers("/api/admin/**").hasRole("ADMIN")
                         // Cualquier otra petición requiere autenticación
@@ -1,10 +1,14 @@
 package com.jicd.stockmanager.security.jwt;
 
+import com.jicd.stockmanager.security.configs.JwtProperties;
+import io.jsonwebtoken.Claims;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
 import jakarta.servlet.FilterChain;
 import jakarta.servlet.ServletException;
 import jakarta.servlet.http.HttpServletRequest;
 import jakarta.servlet.http.HttpServletResponse;
-import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.jspecify.annotations.NonNull;
 import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
@@ -21,14 +25,44 @@ import java.io.IOException;
 /**
  * Filtro de autenticación JWT que se ejecuta una vez por cada petición.
  * Se encarga de extraer el token, validarlo y configurar el contexto de seguridad si es válido.
+ * Cada fase (lectura de la cabecera, verificación del token y carga del usuario) se mide con un
+ * timer y el resultado se cuenta por tipo, en lugar de registrarse en el log en cada petición.
  */
 @Component
-@RequiredArgsConstructor
 @Slf4j
 public class JwtAuthFilter extends OncePerRequestFilter {
 
+    static final String PHASE_TIMER = "auth.filter.phase";
+    static final String OUTCOME_COUNTER = "auth.filter.outcome";
+
     private final JwtUtils jwtUtils;
     private final UserDetailsService userDetailsService;
+    private final JwtPrincipalCache principalCache;
+    private final JwtProperties properties;
+
+    private final Timer parseTimer;
+    private final Timer verifyTimer;
+    private final Timer principalTimer;
+    private final Counter authenticated;
+    private final Counter anonymous;
+    private final Counter invalid;
+    private final Counter revoked;
+
+    public JwtAuthFilter(JwtUtils jwtUtils, UserDetailsService userDetailsService,
+                         JwtPrincipalCache principalCache, JwtProperties properties, MeterRegistry meterRegistry) {
+        this.jwtUtils = jwtUtils;
+        this.userDetailsService = userDetailsService;
+        this.principalCache = principalCache;
+        this.properties = properties;
+
+        this.parseTimer = phaseTimer(meterRegistry, "header-parse");
+        this.verifyTimer = phaseTimer(meterRegistry, "token-verify");
+        this.principalTimer = phaseTimer(meterRegistry, "principal-load");
+        this.authenticated = outcomeCounter(meterRegistry, "authenticated");
+        this.anonymous = outcomeCounter(meterRegistry, "anonymous");
+        this.invalid = outcomeCounter(meterRegistry, "invalid");
+        this.revoked = outcomeCounter(meterRegistry, "revoked");
+    }
 
     /**
      * Metodo interno del filtro que procesa cada petición HTTP.
@@ -45,22 +79,16 @@ public class JwtAuthFilter extends OncePerRequestFilter {
                                     @NonNull FilterChain filterChain)
             throws ServletException, IOException {
 
-        log.info("Peticion para: {}", request.getRequestURI());
         try {
             // 1. Extraer el token de la cabecera Authorization
-            String jwt = parseJwt(request);
-
-            log.info("Token JWT: {}", jwt);
-            // 2. Validar el token usando JwtUtils
-            if (jwt != null && jwtUtils.validateJwtToken(jwt)) {
+            String jwt = parseTimer.record(() -> parseJwt(request));
 
-                // 3. Obtener el nombre de usuario del token
-                String username = jwtUtils.getUserNameFromJwtToken(jwt);
+            // 2. Validar el token y obtener el usuario (desde los claims o desde la base de datos)
+            UserDetails userDetails = jwt == null ? null : authenticate(jwt);
 
-                // 4. Cargar los detalles del usuario desde la base de datos
-                UserDetails userDetails = userDetailsService.loadUserByUsername(username);
+            if (userDetails != null) {
 
-                // 5. Crear el objeto de autenticación con las autoridades (roles) del usuario
+                // 3. Crear el objeto de autenticación con las autoridades (roles) del usuario
                 UsernamePasswordAuthenticationToken authentication = new UsernamePasswordAuthenticationToken(
                         userDetails,
                         null,
@@ -68,11 +96,14 @@ public class JwtAuthFilter extends OncePerRequestFilter {
                 );
                 authentication.setDetails(new WebAuthenticationDetailsSource().buildDetails(request));
 
-                // 6. Establecer la autenticación en el contexto de seguridad de Spring
+                // 4. Establecer la autenticación en el contexto de seguridad de Spring
                 SecurityContextHolder.getContext().setAuthentication(authentication);
-                log.info("Usuario autenticado: {}", username);
+                authenticated.increment();
+            } else if (jwt == null) {
+                anonymous.increment();
             }
         } catch (Exception e) {
+            invalid.increment();
             log.error("No se pudo configurar la autenticación del usuario: {}", e.getMessage());
         }
 
@@ -80,6 +111,52 @@ public class JwtAuthFilter extends OncePerRequestFilter {
         filterChain.doFilter(request, response);
     }
 
+    /**
+     * Verifica el token y obtiene el usuario, midiendo cada fase por separado.
+     *
+     * @param jwt El token JWT.
+     * @return UserDetails el usuario autenticado o null si el token no es válido o fue revocado.
+     */
+    private UserDetails authenticate(String jwt) {
+        Claims claims = verifyTimer.record(() -> jwtUtils.getClaimsFromJwtToken(jwt));
+        if (claims == null) {
+            invalid.increment();
+            return null;
+        }
+
+        UserDetails userDetails = principalTimer.record(() -> properties.isStateless()
+                ? loadUserFromClaims(claims)
+                : loadUserFromDatabase(claims));
+        if (userDetails == null) revoked.increment();
+        return userDetails;
+    }
+
+    /**
+     * Construye el usuario a partir de los claims verificados del token, sin consultar la BD.
+     * La versión del token se comprueba contra una caché acotada para respetar las revocaciones.
+     *
+     * @param claims Los claims verificados del token.
+     * @return UserDetails el usuario autenticado o null si el token fue revocado.
+     */
+    private UserDetails loadUserFromClaims(Claims claims) {
+        String username = claims.getSubject();
+        if (!principalCache.isTokenVersionCurrent(username, jwtUtils.getTokenVersion(claims))) {
+            log.debug("Token revocado para el usuario: {}", username);
+            return null;
+        }
+        return jwtUtils.buildPrincipal(claims);
+    }
+
+    /**
+     * Carga los detalles del usuario del token desde la base de datos.
+     *
+     * @param claims Los claims verificados del token.
+     * @return UserDetails el usuario autenticado.
+     */
+    private UserDetails loadUserFromDatabase(Claims claims) {
+        return userDetailsService.loadUserByUsername(claims.getSubject());
+    }
+
     /**
      * Extrae el token JWT de la cabecera 'Authorization' de la petición.
      *
@@ -95,4 +172,18 @@ public class JwtAuthFilter extends OncePerRequestFilter {
 
         return null;
     }
+
+    private static Timer phaseTimer(MeterRegistry meterRegistry, String phase) {
+        return Timer.builder(PHASE_TIMER)
+                .description("Duración de cada fase del filtro JWT")
+                .tag("phase", phase)
+                .register(meterRegistry);
+    }
+
+    private static Counter outcomeCounter(MeterRegistry meterRegistry, String outcome) {
+        return Counter.builder(OUTCOME_COUNTER)
+                .description("Resultado de la autenticación JWT por petición")
+                .tag("outcome", outcome)
+                .register(meterRegistry);
+    }
 }
@@ -0,0 +1,52 @@
+package com.jicd.stockmanager.security.jwt;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.jicd.stockmanager.repository.UserRepository;
+import com.jicd.stockmanager.security.configs.JwtProperties;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+
+/**
+ * Caché acotada (tamaño y TTL) con la versión de tokens vigente de cada usuario.
+ * Permite validar la revocación de un JWT sin consultar la base de datos en cada petición:
+ * solo se accede a la BD cuando la entrada no existe o ha expirado.
+ */
+@Component
+public class JwtPrincipalCache {
+
+    private final UserRepository userRepository;
+    private final Cache<String, Integer> tokenVersions;
+
+    public JwtPrincipalCache(UserRepository userRepository, JwtProperties properties) {
+        this.userRepository = userRepository;
+        this.tokenVersions = Caffeine.newBuilder()
+                .maximumSize(properties.getPrincipalCache().getMaxSize())
+                .expireAfterWrite(Duration.ofMillis(properties.getPrincipalCache().getTtl()))
+                .build();
+    }
+
+    /**
+     * Comprueba si la versión de un token sigue vigente para el usuario.
+     *
+     * @param username El nombre de usuario (subject del token).
+     * @param tokenVersion La versión incluida en el token.
+     * @return boolean true si el usuario existe y el token no ha sido revocado.
+     */
+    public boolean isTokenVersionCurrent(String username, int tokenVersion) {
+        // Si el usuario no existe el loader devuelve null y no se guarda en caché
+        Integer current = tokenVersions.get(username,
+                key -> userRepository.findTokenVersionByUsername(key).orElse(null));
+        return current != null && tokenVersion >= current;
+    }
+
+    /**
+     * Elimina la entrada de un usuario para que la siguiente petición lea la versión actualizada.
+     *
+     * @param username El nombre de usuario.
+     */
+    public void invalidate(String username) {
+        tokenVersions.invalidate(username);
+    }
+}
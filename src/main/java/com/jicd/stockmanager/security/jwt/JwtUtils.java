@@ -1,33 +1,73 @@
 package com.jicd.stockmanager.security.jwt;
 
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.Expiry;
+import com.jicd.stockmanager.Enums.ROL_TYPE;
+import com.jicd.stockmanager.model.User;
 import com.jicd.stockmanager.security.configs.JwtProperties;
+import io.jsonwebtoken.Claims;
+import io.jsonwebtoken.JwtBuilder;
 import io.jsonwebtoken.JwtException;
+import io.jsonwebtoken.JwtParser;
 import io.jsonwebtoken.Jwts;
 import io.jsonwebtoken.security.Keys;
-import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.security.core.Authentication;
 import org.springframework.security.core.GrantedAuthority;
 import org.springframework.security.core.userdetails.UserDetails;
 import org.springframework.stereotype.Component;
+import org.springframework.util.StringUtils;
 
 import javax.crypto.SecretKey;
 import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Arrays;
+import java.util.Base64;
 import java.util.Date;
 import java.util.List;
+import java.util.concurrent.TimeUnit;
 
 /**
  * Clase de utilidad para el manejo de JSON Web Tokens (JWT).
  * Proporciona métodos para generar, leer y validar tokens.
  */
 @Component
-@RequiredArgsConstructor
 @Slf4j
 public class JwtUtils {
 
+    static final String ROLES_CLAIM = "roles";
+    static final String USER_ID_CLAIM = "uid";
+    static final String TOKEN_VERSION_CLAIM = "ver";
+    private static final String ROLE_PREFIX = "ROLE_";
+
     // Importa la configuración de JWT desde application.yaml mediante JwtProperties
     private final JwtProperties properties;
 
+    // Clave y parser construidos una sola vez: son inmutables y seguros entre hilos
+    private final SecretKey signingKey;
+    private final JwtParser parser;
+
+    // Caché opcional de tokens ya verificados, indexada por el digest SHA-256 del token (null si está deshabilitada)
+    private final Cache<String, Claims> verifiedTokens;
+
+    public JwtUtils(JwtProperties properties) {
+        this.properties = properties;
+        this.signingKey = Keys.hmacShaKeyFor(properties.getSecretKey().getBytes(StandardCharsets.UTF_8));
+        this.parser = Jwts.parser()
+                .verifyWith(signingKey)
+                .build();
+
+        JwtProperties.VerifiedCache cacheConfig = properties.getVerifiedCache();
+        this.verifiedTokens = cacheConfig.isEnabled()
+                ? Caffeine.newBuilder()
+                        .maximumSize(cacheConfig.getMaxSize())
+                        .expireAfter(new ClaimsExpiry())
+                        .build()
+                : null;
+    }
+
     /**
      * Genera un token JWT basado en la autenticación del usuario.
      * Incluye el nombre de usuario y sus roles como claims.
@@ -36,23 +76,99 @@ public class JwtUtils {
      * @return String el token JWT generado.
      */
     public String generateToken(Authentication authentication) {
+        return generateToken((UserDetails) authentication.getPrincipal());
+    }
+
+    /**
+     * Genera un token JWT para un usuario ya autenticado (p. ej. al rotar un refresh token).
+     *
+     * @param userPrincipal El usuario.
+     * @return String el token JWT generado.
+     */
+    public String generateToken(UserDetails userPrincipal) {
 
-        UserDetails userPrincipal = (UserDetails) authentication.getPrincipal();
-        
         // Obtenemos los roles del usuario y los convertimos a una lista de strings
         List<String> roles = userPrincipal.getAuthorities().stream()
                 .map(GrantedAuthority::getAuthority)
                 .toList();
 
-        return Jwts.builder()
+        JwtBuilder builder = Jwts.builder()
                 .subject(userPrincipal.getUsername()) // Identificador del usuario
-                .claim("roles", roles)               // Añadimos los roles como claim personalizado
+                .claim(ROLES_CLAIM, roles)           // Añadimos los roles como claim personalizado
                 .issuedAt(new Date())                // Fecha de emisión
-                .expiration(new Date(System.currentTimeMillis() + properties.getExpiration())) // Fecha de expiración
+                .expiration(new Date(System.currentTimeMillis() + properties.getExpiration())); // Fecha de expiración
+
+        // Id y versión de tokens para poder autenticar sin consultar la BD y revocar tokens
+        if (userPrincipal instanceof User user) {
+            builder.claim(USER_ID_CLAIM, user.getId())
+                    .claim(TOKEN_VERSION_CLAIM, user.getTokenVersion() == null ? 0 : user.getTokenVersion());
+        }
+
+        return builder
                 .signWith(getSigningKey())           // Firma del token con la clave secreta
                 .compact();
     }
 
+    /**
+     * Verifica el token y devuelve todos sus claims con un único parseo.
+     * Si la caché está habilitada, un token ya verificado no se vuelve a parsear hasta su expiración.
+     *
+     * @param token El token JWT.
+     * @return Claims los claims del token o null si no es válido.
+     */
+    public Claims getClaimsFromJwtToken(String token) {
+        if (verifiedTokens == null || !StringUtils.hasText(token)) {
+            return parseClaims(token);
+        }
+
+        String key = digest(token);
+        Claims claims = verifiedTokens.getIfPresent(key);
+        if (claims == null) {
+            claims = parseClaims(token);
+            if (claims != null) verifiedTokens.put(key, claims);
+        }
+        return claims;
+    }
+
+    /**
+     * Obtiene la versión de tokens incluida en los claims (0 para tokens antiguos sin el claim).
+     *
+     * @param claims Los claims verificados del token.
+     * @return int la versión del token.
+     */
+    public int getTokenVersion(Claims claims) {
+        Number version = claims.get(TOKEN_VERSION_CLAIM, Number.class);
+        return version == null ? 0 : version.intValue();
+    }
+
+    /**
+     * Construye el usuario autenticado a partir de los claims verificados (subject, id y roles),
+     * sin acceder a la base de datos.
+     *
+     * @param claims Los claims verificados del token.
+     * @return User el principal con su nombre de usuario, id y rol.
+     */
+    public User buildPrincipal(Claims claims) {
+        Number userId = claims.get(USER_ID_CLAIM, Number.class);
+        List<?> roles = claims.get(ROLES_CLAIM, List.class);
+
+        ROL_TYPE rol = roles == null ? null : roles.stream()
+                .map(String::valueOf)
+                .filter(role -> role.startsWith(ROLE_PREFIX))
+                .map(role -> role.substring(ROLE_PREFIX.length()))
+                .filter(role -> Arrays.stream(ROL_TYPE.values()).anyMatch(type -> type.name().equals(role)))
+                .map(ROL_TYPE::valueOf)
+                .findFirst()
+                .orElse(null);
+
+        return User.builder()
+                .id(userId == null ? null : userId.longValue())
+                .username(claims.getSubject())
+                .rol(rol)
+                .tokenVersion(getTokenVersion(claims))
+                .build();
+    }
+
     /**
      * Obtiene el nombre de usuario (subject) contenido en el token JWT.
      *
@@ -60,12 +176,8 @@ public class JwtUtils {
      * @return String el nombre de usuario.
      */
     public String getUserNameFromJwtToken(String token) {
-        return Jwts.parser()
-                .verifyWith(getSigningKey())
-                .build()
-                .parseSignedClaims(token)
-                .getPayload()
-                .getSubject();
+        Claims claims = getClaimsFromJwtToken(token);
+        return claims == null ? null : claims.getSubject();
     }
 
     /**
@@ -75,18 +187,24 @@ public class JwtUtils {
      * @return boolean true si es válido, false en caso contrario.
      */
     public boolean validateJwtToken(String authToken) {
+        return getClaimsFromJwtToken(authToken) != null;
+    }
+
+    /**
+     * Parsea el token verificando su firma y expiración con el parser preconstruido.
+     *
+     * @param token El token JWT.
+     * @return Claims los claims del token o null si no es válido.
+     */
+    private Claims parseClaims(String token) {
         try {
-            Jwts.parser()
-                    .verifyWith(getSigningKey())
-                    .build()
-                    .parseSignedClaims(authToken);
-            return true;
+            return parser.parseSignedClaims(token).getPayload();
         } catch (JwtException e) {
-            log.error("Error al validar el token JWT: {}", e.getMessage());
+            log.debug("Error al validar el token JWT: {}", e.getMessage());
         } catch (IllegalArgumentException e) {
-            log.error("La cadena de claims JWT está vacía: {}", e.getMessage());
+            log.debug("La cadena de claims JWT está vacía: {}", e.getMessage());
         }
-        return false;
+        return null;
     }
 
     /**
@@ -95,7 +213,44 @@ public class JwtUtils {
      * @return SecretKey la clave para firmar/verificar el JWT.
      */
     private SecretKey getSigningKey() {
-        byte[] keyBytes = properties.getSecretKey().getBytes(StandardCharsets.UTF_8);
-        return Keys.hmacShaKeyFor(keyBytes);
+        return signingKey;
+    }
+
+    /**
+     * Calcula el digest SHA-256 del token para no retener tokens completos en la caché.
+     *
+     * @param token El token JWT.
+     * @return String el digest codificado en Base64.
+     */
+    private static String digest(String token) {
+        try {
+            byte[] hash = MessageDigest.getInstance("SHA-256").digest(token.getBytes(StandardCharsets.UTF_8));
+            return Base64.getEncoder().encodeToString(hash);
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 no disponible", e);
+        }
+    }
+
+    /**
+     * Expira cada entrada de la caché en el instante 'exp' del token.
+     */
+    private static final class ClaimsExpiry implements Expiry<String, Claims> {
+
+        @Override
+        public long expireAfterCreate(String key, Claims claims, long currentTime) {
+            Date expiration = claims.getExpiration();
+            long remainingMillis = expiration == null ? 0 : expiration.getTime() - System.currentTimeMillis();
+            return TimeUnit.MILLISECONDS.toNanos(Math.max(remainingMillis, 0));
+        }
+
+        @Override
+        public long expireAfterUpdate(String key, Claims claims, long currentTime, long currentDuration) {
+            return expireAfterCreate(key, claims, currentTime);
+        }
+
+        @Override
+        public long expireAfterRead(String key, Claims claims, long currentTime, long currentDuration) {
+            return currentDuration;
+        }
     }
 }
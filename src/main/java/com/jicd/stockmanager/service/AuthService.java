@@ -2,13 +2,19 @@ package com.jicd.stockmanager.service;
 
 import com.jicd.stockmanager.Enums.ROL_TYPE;
 import com.jicd.stockmanager.dto.AuthResDTO;
+import com.jicd.stockmanager.dto.RefreshTokenReqDTO;
 import com.jicd.stockmanager.dto.UserReqDTO;
 import com.jicd.stockmanager.exceptions.EmailExistException;
+import com.jicd.stockmanager.exceptions.InvalidRefreshTokenException;
 import com.jicd.stockmanager.exceptions.UserNotFoundException;
+import com.jicd.stockmanager.exceptions.UsernameExistException;
 import com.jicd.stockmanager.model.User;
 import com.jicd.stockmanager.repository.UserRepository;
+import com.jicd.stockmanager.security.jwt.JwtPrincipalCache;
 import com.jicd.stockmanager.security.jwt.JwtUtils;
 import lombok.RequiredArgsConstructor;
+import org.hibernate.exception.ConstraintViolationException;
+import org.springframework.dao.DataIntegrityViolationException;
 import org.springframework.security.authentication.AuthenticationManager;
 import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
 import org.springframework.security.core.Authentication;
@@ -27,6 +33,9 @@ public class AuthService {
     private final JwtUtils jwtUtils;
     private final UserRepository userRepository;
     private final PasswordEncoder passwordEncoder;
+    private final JwtPrincipalCache principalCache;
+    private final RefreshTokenService refreshTokenService;
+    private final UserExistenceService userExistenceService;
 
 
     public AuthResDTO login(UserReqDTO userDto) throws UserNotFoundException {
@@ -42,26 +51,58 @@ public class AuthService {
         );
 
         String token = jwtUtils.generateToken(authentication);
+        User user = (User) authentication.getPrincipal();
+        String refreshToken = refreshTokenService.issue(user);
 
+        return toResponse(token, refreshToken, user);
 
-        //Detalles de la respuesta
-        UserDetails userDetails = (UserDetails) authentication.getPrincipal();
+    }
 
-        String role = userDetails.getAuthorities().stream()
-                .map(GrantedAuthority::getAuthority)
-                .filter(Objects::nonNull) // --> Para evitar nullPointerException
-                .findFirst()
-                .orElse("ROLE_USER");
+    /**
+     * Rota el refresh token y emite un nuevo token de acceso.
+     *
+     * @param request El refresh token actual.
+     * @return AuthResDTO el nuevo token de acceso y el nuevo refresh token.
+     * @throws InvalidRefreshTokenException si el refresh token no es válido o ya se había usado.
+     */
+    public AuthResDTO refresh(RefreshTokenReqDTO request) throws InvalidRefreshTokenException {
+
+        if (request == null) throw new InvalidRefreshTokenException("Error: Invalid refresh token");
 
-        return new AuthResDTO(token, userDetails.getUsername(), role);
+        RefreshTokenService.Rotation rotation = refreshTokenService.rotate(request.refreshToken());
+        String token = jwtUtils.generateToken(rotation.user());
 
+        return toResponse(token, rotation.refreshToken(), rotation.user());
     }
 
+    /**
+     * Cierra la sesión revocando la familia del refresh token.
+     *
+     * @param request El refresh token de la sesión.
+     * @return String mensaje de confirmación.
+     */
+    public String logout(RefreshTokenReqDTO request) {
+        if (request != null) refreshTokenService.revoke(request.refreshToken());
+        return "Logged out successfully";
+    }
+
+    /**
+     * Registra un usuario. La existencia del email y del nombre se comprueba primero en memoria
+     * ({@link UserExistenceService}); la BD solo se consulta ante un posible duplicado.
+     *
+     * @param userDto Los datos del usuario.
+     * @return String mensaje de confirmación.
+     * @throws EmailExistException si el email ya está registrado.
+     * @throws UsernameExistException si el nombre de usuario ya está registrado.
+     */
     public String register(UserReqDTO userDto) {
 
-        if (userRepository.existsByEmail(userDto.email())) {
+        if (userExistenceService.emailExists(userDto.email())) {
             throw new EmailExistException("Error: Email already exist");
         }
+        if (userExistenceService.usernameExists(userDto.username())) {
+            throw new UsernameExistException("Error: Username already exist");
+        }
 
         User user = User.builder()
                 .username(userDto.username())
@@ -70,11 +111,62 @@ public class AuthService {
                 .rol(ROL_TYPE.valueOf(userDto.role().toUpperCase()))
                 .build();
 
-        userRepository.save(user);
+        try {
+            userRepository.save(user);
+        } catch (DataIntegrityViolationException e) {
+            // Alta simultánea o registrada en otro nodo tras la última reconstrucción del filtro
+            String constraint = violatedConstraint(e);
+            if (User.USERNAME_CONSTRAINT.equalsIgnoreCase(constraint)) {
+                throw new UsernameExistException("Error: Username already exist");
+            }
+            if (User.EMAIL_CONSTRAINT.equalsIgnoreCase(constraint)) {
+                throw new EmailExistException("Error: Email already exist");
+            }
+            throw e;
+        }
+        userExistenceService.add(user.getUsername(), user.getEmail());
         return "User registered successfully";
 
 
     }
 
+    /**
+     * Revoca todos los tokens emitidos a un usuario incrementando su versión de tokens
+     * y revocando sus refresh tokens.
+     *
+     * @param username El nombre de usuario.
+     * @return String mensaje de confirmación.
+     * @throws UserNotFoundException si el usuario no existe.
+     */
+    public String revokeTokens(String username) throws UserNotFoundException {
+
+        if (userRepository.incrementTokenVersion(username) == 0) {
+            throw new UserNotFoundException("User not found");
+        }
+        refreshTokenService.revokeAll(username);
 
+        // La actualización ya está confirmada: se fuerza la recarga de la versión en la caché
+        principalCache.invalidate(username);
+        return "Tokens revoked successfully";
+    }
+
+    //Detalles de la respuesta
+    private AuthResDTO toResponse(String token, String refreshToken, UserDetails userDetails) {
+
+        String role = userDetails.getAuthorities().stream()
+                .map(GrantedAuthority::getAuthority)
+                .filter(Objects::nonNull) // --> Para evitar nullPointerException
+                .findFirst()
+                .orElse("ROLE_USER");
+
+        return new AuthResDTO(token, refreshToken, userDetails.getUsername(), role);
+    }
+
+    // Nombre de la restricción única incumplida, o null si el error no la indica
+    private static String violatedConstraint(DataIntegrityViolationException e) {
+        for (Throwable cause = e; cause != null; cause = cause.getCause()) {
+            if (cause instanceof ConstraintViolationException violation) return violation.getConstraintName();
+        }
+        return null;
+    }
 }
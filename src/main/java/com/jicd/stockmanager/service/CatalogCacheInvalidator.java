@@ -0,0 +1,93 @@
+package com.jicd.stockmanager.service;
+
+import com.jicd.stockmanager.configs.CacheConfig;
+import com.jicd.stockmanager.dto.KeysetPageDTO;
+import com.jicd.stockmanager.dto.ProductSummaryDTO;
+import com.jicd.stockmanager.event.CategoryChangedEvent;
+import com.jicd.stockmanager.event.ProductChangedEvent;
+import com.jicd.stockmanager.event.StockChangedEvent;
+import com.jicd.stockmanager.repository.ProductRepository;
+import lombok.RequiredArgsConstructor;
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.util.Collection;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+/**
+ * Invalida las cachés del catálogo tras el commit de cada escritura o cambio de stock,
+ * de modo que ninguna lectura posterior vea datos anteriores a la transacción.
+ */
+@Component
+@RequiredArgsConstructor
+public class CatalogCacheInvalidator {
+
+    // Prefijo de las claves del listado sin filtro de categoría (categoryId == null)
+    private static final String ALL_CATEGORIES_PREFIX = "null:";
+
+    private final CacheManager cacheManager;
+    private final ProductRepository productRepository;
+
+    @TransactionalEventListener
+    @Transactional(propagation = Propagation.REQUIRES_NEW, readOnly = true)
+    public void onStockChanged(StockChangedEvent event) {
+        evictProducts(event.productIds());
+    }
+
+    @TransactionalEventListener
+    @Transactional(propagation = Propagation.REQUIRES_NEW, readOnly = true)
+    public void onProductChanged(ProductChangedEvent event) {
+        evictProducts(event.productIds());
+    }
+
+    @TransactionalEventListener
+    public void onCategoryChanged(CategoryChangedEvent event) {
+        // Los nombres de categoría aparecen en todos los listados y detalles
+        clear(CacheConfig.CATEGORIES);
+        clear(CacheConfig.PRODUCTS_BY_CATEGORY);
+        clear(CacheConfig.PRODUCTS);
+    }
+
+    /**
+     * Elimina el detalle de cada producto, las primeras páginas de sus categorías actuales y las
+     * páginas que los listaban.
+     */
+    private void evictProducts(Collection<Long> productIds) {
+        Cache products = cacheManager.getCache(CacheConfig.PRODUCTS);
+        if (products != null) productIds.forEach(products::evict);
+
+        Cache pages = cacheManager.getCache(CacheConfig.PRODUCTS_BY_CATEGORY);
+        if (pages == null) return;
+
+        // Tras el commit solo se conoce la categoría nueva. Si un producto ha cambiado de categoría, las
+        // páginas de la anterior que lo listaban se encuentran por su contenido; las que no lo
+        // listaban no cambian al quitarlo
+        Set<Long> ids = Set.copyOf(productIds);
+        Set<String> prefixes = productRepository.findCategoryIdsByIdIn(productIds).stream()
+                .map(categoryId -> categoryId + ":")
+                .collect(Collectors.toSet());
+        prefixes.add(ALL_CATEGORIES_PREFIX);
+
+        if (pages.getNativeCache() instanceof com.github.benmanes.caffeine.cache.Cache<?, ?> nativeCache) {
+            nativeCache.asMap().entrySet().removeIf(entry -> lists(entry.getValue(), ids)
+                    || prefixes.stream().anyMatch(prefix -> entry.getKey().toString().startsWith(prefix)));
+        } else {
+            pages.clear();
+        }
+    }
+
+    private static boolean lists(Object page, Set<Long> productIds) {
+        return page instanceof KeysetPageDTO<?> keyset && keyset.items().stream()
+                .anyMatch(item -> item instanceof ProductSummaryDTO summary && productIds.contains(summary.id()));
+    }
+
+    private void clear(String cacheName) {
+        Cache cache = cacheManager.getCache(cacheName);
+        if (cache != null) cache.clear();
+    }
+}
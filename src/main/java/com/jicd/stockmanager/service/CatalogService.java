@@ -0,0 +1,152 @@
+package com.jicd.stockmanager.service;
+
+import com.jicd.stockmanager.configs.CacheConfig;
+import com.jicd.stockmanager.datasource.ReadYourWrites;
+import com.jicd.stockmanager.dto.CategoryDTO;
+import com.jicd.stockmanager.dto.KeysetPageDTO;
+import com.jicd.stockmanager.dto.ProductDetailDTO;
+import com.jicd.stockmanager.dto.ProductSummaryDTO;
+import com.jicd.stockmanager.exceptions.ProductNotFoundException;
+import com.jicd.stockmanager.repository.CategoryRepository;
+import com.jicd.stockmanager.repository.ProductRepository;
+import lombok.RequiredArgsConstructor;
+import org.springframework.cache.annotation.Cacheable;
+import org.springframework.data.domain.Limit;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+import java.util.List;
+
+/**
+ * Consultas de solo lectura del catálogo. Todas devuelven proyecciones DTO (nunca entidades)
+ * y paginan por keyset: cada página continúa tras la última clave devuelta, por lo que una
+ * página profunda cuesta lo mismo que la primera.
+ * El detalle de producto, las categorías y la primera página de cada listado se sirven desde caché;
+ * CatalogCacheInvalidator las invalida tras cada escritura o cambio de stock. Lo que se guarda en caché
+ * se lee del primario: un valor leído de una réplica retrasada justo tras la invalidación duraría
+ * todo el TTL.
+ */
+@Service
+@RequiredArgsConstructor
+@Transactional(readOnly = true)
+public class CatalogService {
+
+    public static final String SORT_BY_ID = "id";
+    public static final String SORT_BY_NAME = "name";
+    private static final int MAX_PAGE_SIZE = 100;
+    private static final char CURSOR_SEPARATOR = '\u0000';
+
+    private final ProductRepository productRepository;
+    private final CategoryRepository categoryRepository;
+
+    /**
+     * Lista productos ordenados por id o por nombre, opcionalmente filtrados por categoría.
+     *
+     * @param categoryId La categoría a filtrar (opcional).
+     * @param sort El orden: "id" o "name".
+     * @param cursor El cursor devuelto por la página anterior (null para la primera página).
+     * @param size El tamaño de página (máximo 100).
+     * @return KeysetPageDTO la página y el cursor de la siguiente (null si no hay más).
+     */
+    @Cacheable(cacheNames = CacheConfig.PRODUCTS_BY_CATEGORY, condition = "#cursor == null",
+            key = "#categoryId + ':' + #sort + ':' + #size")
+    public KeysetPageDTO<ProductSummaryDTO> listProducts(Long categoryId, String sort, String cursor, int size) {
+        if (size <= 0 || size > MAX_PAGE_SIZE) {
+            throw new IllegalArgumentException("Error: size must be between 1 and " + MAX_PAGE_SIZE);
+        }
+
+        if (!SORT_BY_ID.equals(sort) && !SORT_BY_NAME.equals(sort)) {
+            throw new IllegalArgumentException("Error: sort must be 'id' or 'name'");
+        }
+
+        // Se pide un elemento extra para saber si existe una página siguiente
+        Limit limit = Limit.of(size + 1);
+        // Solo la primera página se guarda en caché; las siguientes pueden leerse de la réplica
+        List<ProductSummaryDTO> rows = cursor == null
+                ? ReadYourWrites.readFromPrimary(() -> findPage(categoryId, sort, null, limit))
+                : findPage(categoryId, sort, cursor, limit);
+
+        if (rows.size() <= size) return new KeysetPageDTO<>(rows, null);
+
+        List<ProductSummaryDTO> page = rows.subList(0, size);
+        ProductSummaryDTO last = page.get(size - 1);
+        String nextCursor = SORT_BY_ID.equals(sort)
+                ? encodeCursor(String.valueOf(last.id()))
+                : encodeCursor(last.name() + CURSOR_SEPARATOR + last.id());
+        return new KeysetPageDTO<>(List.copyOf(page), nextCursor);
+    }
+
+    /**
+     * Obtiene el detalle de un producto.
+     *
+     * @param id El id del producto.
+     * @return ProductDetailDTO el detalle del producto.
+     * @throws ProductNotFoundException si el producto no existe.
+     */
+    @Cacheable(cacheNames = CacheConfig.PRODUCTS, key = "#id")
+    public ProductDetailDTO getProduct(Long id) {
+        return ReadYourWrites.readFromPrimary(() -> productRepository.findDetailById(id))
+                .orElseThrow(() -> new ProductNotFoundException("Error: Product not found with id: " + id));
+    }
+
+    /**
+     * Lista todas las categorías ordenadas por nombre.
+     *
+     * @return List las categorías.
+     */
+    @Cacheable(CacheConfig.CATEGORIES)
+    public List<CategoryDTO> listCategories() {
+        return ReadYourWrites.readFromPrimary(categoryRepository::findAllSummaries);
+    }
+
+    private List<ProductSummaryDTO> findPage(Long categoryId, String sort, String cursor, Limit limit) {
+        return SORT_BY_ID.equals(sort) ? findById(categoryId, cursor, limit) : findByName(categoryId, cursor, limit);
+    }
+
+    private List<ProductSummaryDTO> findById(Long categoryId, String cursor, Limit limit) {
+        long afterId = cursor == null ? 0L : parseId(decodeCursor(cursor));
+        return categoryId == null
+                ? productRepository.findSummariesAfterId(afterId, limit)
+                : productRepository.findSummariesByCategoryAfterId(categoryId, afterId, limit);
+    }
+
+    private List<ProductSummaryDTO> findByName(Long categoryId, String cursor, Limit limit) {
+        if (cursor == null) {
+            return categoryId == null
+                    ? productRepository.findSummariesOrderByName(limit)
+                    : productRepository.findSummariesByCategoryOrderByName(categoryId, limit);
+        }
+
+        String decoded = decodeCursor(cursor);
+        int separator = decoded.lastIndexOf(CURSOR_SEPARATOR);
+        if (separator < 0) throw new IllegalArgumentException("Error: Invalid cursor");
+        String afterName = decoded.substring(0, separator);
+        long afterId = parseId(decoded.substring(separator + 1));
+
+        return categoryId == null
+                ? productRepository.findSummariesAfterName(afterName, afterId, limit)
+                : productRepository.findSummariesByCategoryAfterName(categoryId, afterName, afterId, limit);
+    }
+
+    private static String encodeCursor(String value) {
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(value.getBytes(StandardCharsets.UTF_8));
+    }
+
+    private static String decodeCursor(String cursor) {
+        try {
+            return new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8);
+        } catch (IllegalArgumentException e) {
+            throw new IllegalArgumentException("Error: Invalid cursor");
+        }
+    }
+
+    private static long parseId(String value) {
+        try {
+            return Long.parseLong(value);
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException("Error: Invalid cursor");
+        }
+    }
+}
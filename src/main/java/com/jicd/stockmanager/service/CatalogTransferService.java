@@ -0,0 +1,434 @@
+package com.jicd.stockmanager.service;
+
+import com.jicd.stockmanager.configs.CatalogTransferProperties;
+import com.jicd.stockmanager.csv.CsvReader;
+import com.jicd.stockmanager.csv.CsvWriter;
+import com.jicd.stockmanager.dto.CatalogImportResDTO;
+import com.jicd.stockmanager.dto.CategoryDTO;
+import com.jicd.stockmanager.event.ProductChangedEvent;
+import com.jicd.stockmanager.event.ProductEntityListener;
+import com.jicd.stockmanager.event.StockChangedEvent;
+import com.jicd.stockmanager.model.Category;
+import com.jicd.stockmanager.model.Product;
+import com.jicd.stockmanager.repository.CategoryRepository;
+import com.jicd.stockmanager.repository.ProductRepository;
+import com.jicd.stockmanager.repository.projection.ProductExportView;
+import jakarta.persistence.EntityManager;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.hibernate.exception.ConstraintViolationException;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+/**
+ * Importación y exportación del catálogo en CSV para la sincronización con el ERP.
+ * La importación lee el cuerpo registro a registro y persiste lotes de tamaño fijo, cada uno en su
+ * transacción y con el contexto de persistencia vaciado al terminar, así que la memoria no crece con
+ * el tamaño del fichero. Una fila que viola una restricción de la BD se rechaza sin abortar la
+ * importación. La exportación recorre un cursor y escribe directamente en la respuesta.
+ */
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class CatalogTransferService {
+
+    static final List<String> PRODUCT_COLUMNS = List.of(
+            "sku", "name", "description", "price", "stock_quantity", "min_threshold", "category");
+    static final List<String> CATEGORY_COLUMNS = List.of("name", "description");
+
+    private final ProductRepository productRepository;
+    private final CategoryRepository categoryRepository;
+    private final EntityManager entityManager;
+    private final TransactionTemplate transactionTemplate;
+    private final ApplicationEventPublisher eventPublisher;
+    private final CatalogTransferProperties properties;
+
+    /**
+     * Fila de producto validada.
+     */
+    private record ProductRow(String sku, String name, String description, double price,
+                              Integer stockQuantity, Integer minThreshold, String category) {
+    }
+
+    /**
+     * Fila de categoría validada.
+     */
+    private record CategoryRow(String name, String description) {
+    }
+
+    /**
+     * Contadores de una importación.
+     */
+    private static final class Tally {
+        private long created;
+        private long updated;
+        private long rejected;
+
+        private CatalogImportResDTO toDto() {
+            return new CatalogImportResDTO(created, updated, rejected);
+        }
+    }
+
+    /**
+     * Crea o actualiza productos desde un CSV con cabecera (columnas de PRODUCT_COLUMNS; name y price
+     * obligatorias). Cada fila se identifica por su sku o, si no tiene, por su nombre. El stock solo se
+     * asigna a los productos nuevos: el de los existentes cambia mediante movimientos de stock.
+     * Las categorías se resuelven con un mapa precargado y las que no existen se crean.
+     *
+     * @param input El CSV.
+     * @return CatalogImportResDTO los productos creados, actualizados y rechazados.
+     * @throws IOException si falla la lectura o el CSV está mal formado.
+     * @throws IllegalArgumentException si falta la cabecera o alguna columna obligatoria.
+     */
+    public CatalogImportResDTO importProducts(InputStream input) throws IOException {
+        CsvReader reader = new CsvReader(new InputStreamReader(input, StandardCharsets.UTF_8));
+        Map<String, Integer> columns = header(reader.next(), List.of("name", "price"));
+        Map<String, Long> categoryIds = new HashMap<>();
+        categoryRepository.findAllSummaries().forEach(category -> categoryIds.put(category.name(), category.id()));
+
+        int batchSize = properties.getBatchSize();
+        Tally tally = new Tally();
+        List<ProductRow> batch = new ArrayList<>(batchSize);
+        List<String> record;
+        while ((record = reader.next()) != null) {
+            if (CsvReader.isBlank(record)) continue;
+            try {
+                batch.add(toProductRow(record, columns));
+            } catch (IllegalArgumentException e) {
+                log.warn("Producto descartado, registro CSV {}: {}", reader.recordNumber(), e.getMessage());
+                tally.rejected++;
+                continue;
+            }
+
+            if (batch.size() == batchSize) {
+                upsertProducts(batch, categoryIds, tally);
+                batch.clear();
+            }
+        }
+        if (!batch.isEmpty()) upsertProducts(batch, categoryIds, tally);
+
+        log.info("Importacion de productos: {} creados, {} actualizados, {} rechazados",
+                tally.created, tally.updated, tally.rejected);
+        return tally.toDto();
+    }
+
+    /**
+     * Crea o actualiza categorías por nombre desde un CSV con cabecera (name obligatoria, description).
+     *
+     * @param input El CSV.
+     * @return CatalogImportResDTO las categorías creadas, actualizadas y rechazadas.
+     * @throws IOException si falla la lectura o el CSV está mal formado.
+     * @throws IllegalArgumentException si falta la cabecera o la columna name.
+     */
+    public CatalogImportResDTO importCategories(InputStream input) throws IOException {
+        CsvReader reader = new CsvReader(new InputStreamReader(input, StandardCharsets.UTF_8));
+        Map<String, Integer> columns = header(reader.next(), List.of("name"));
+
+        int batchSize = properties.getBatchSize();
+        Tally tally = new Tally();
+        List<CategoryRow> batch = new ArrayList<>(batchSize);
+        List<String> record;
+        while ((record = reader.next()) != null) {
+            if (CsvReader.isBlank(record)) continue;
+            String name = field(record, columns, "name");
+            if (name == null) {
+                log.warn("Categoria descartada, registro CSV {}: sin nombre", reader.recordNumber());
+                tally.rejected++;
+                continue;
+            }
+            batch.add(new CategoryRow(name, field(record, columns, "description")));
+
+            if (batch.size() == batchSize) {
+                upsertCategories(batch, tally);
+                batch.clear();
+            }
+        }
+        if (!batch.isEmpty()) upsertCategories(batch, tally);
+        return tally.toDto();
+    }
+
+    /**
+     * Escribe el catálogo de productos en CSV con las columnas de PRODUCT_COLUMNS, leyendo del cursor
+     * por bloques de filas sin cargar entidades.
+     *
+     * @param output El destino (normalmente la respuesta HTTP).
+     * @throws IOException si falla la escritura.
+     */
+    @Transactional(readOnly = true)
+    public void exportProducts(OutputStream output) throws IOException {
+        CsvWriter writer = new CsvWriter(new OutputStreamWriter(output, StandardCharsets.UTF_8));
+        writer.writeRow(PRODUCT_COLUMNS);
+        try (Stream<ProductExportView> rows = productRepository.streamExportRows()) {
+            Iterator<ProductExportView> iterator = rows.iterator();
+            while (iterator.hasNext()) {
+                ProductExportView row = iterator.next();
+                writer.writeRow(Arrays.asList(
+                        row.getSku(),
+                        row.getName(),
+                        row.getDescription(),
+                        row.getPrice() == null ? null : BigDecimal.valueOf(row.getPrice()).toPlainString(),
+                        row.getStockQuantity(),
+                        row.getMinThreshold(),
+                        row.getCategoryName()));
+            }
+        }
+        writer.flush();
+    }
+
+    /**
+     * Escribe las categorías en CSV con las columnas de CATEGORY_COLUMNS.
+     *
+     * @param output El destino (normalmente la respuesta HTTP).
+     * @throws IOException si falla la escritura.
+     */
+    @Transactional(readOnly = true)
+    public void exportCategories(OutputStream output) throws IOException {
+        CsvWriter writer = new CsvWriter(new OutputStreamWriter(output, StandardCharsets.UTF_8));
+        writer.writeRow(CATEGORY_COLUMNS);
+        for (CategoryDTO category : categoryRepository.findAllSummaries()) {
+            writer.writeRow(Arrays.asList(category.name(), category.description()));
+        }
+        writer.flush();
+    }
+
+    /**
+     * Aplica un lote de productos. Si choca con una restricción de la BD (p. ej. un sku que ya usa
+     * otro producto o un alta simultánea) el lote se revierte y se reintenta fila a fila: solo se
+     * rechazan las filas que fallan y el resto de la importación continúa.
+     */
+    private void upsertProducts(List<ProductRow> batch, Map<String, Long> categoryIds, Tally tally) {
+        try {
+            applyProducts(batch, categoryIds, tally);
+        } catch (RuntimeException e) {
+            if (!isConstraintViolation(e)) throw e;
+            if (batch.size() > 1) {
+                log.warn("Lote de productos revertido por una restriccion, se aplica fila a fila: {}", e.getMessage());
+                batch.forEach(row -> upsertProducts(List.of(row), categoryIds, tally));
+                return;
+            }
+            ProductRow row = batch.getFirst();
+            log.warn("Producto descartado, sku {} nombre '{}': {}", row.sku(), row.name(), e.getMessage());
+            tally.rejected++;
+        }
+    }
+
+    /**
+     * Aplica un lote de productos en una transacción: una consulta (con bloqueo) para los existentes,
+     * inserciones y actualizaciones en lotes JDBC, un único evento de cambio para todo el lote y un
+     * evento de stock para los productos creados. Los contadores solo cuentan si el lote se confirma.
+     */
+    private void applyProducts(List<ProductRow> batch, Map<String, Long> categoryIds, Tally tally) {
+        Map<String, Long> createdCategories = new HashMap<>();
+        Tally applied = new Tally();
+        transactionTemplate.executeWithoutResult(status -> {
+            Set<String> skus = new HashSet<>();
+            Set<String> names = new HashSet<>();
+            batch.forEach(row -> {
+                if (row.sku() != null) skus.add(row.sku());
+                names.add(row.name());
+            });
+
+            Map<String, Product> bySku = new HashMap<>();
+            Map<String, Product> byName = new HashMap<>();
+            for (Product product : productRepository.lockBySkuInOrNameIn(skus, names)) {
+                if (product.getSku() != null) bySku.put(product.getSku(), product);
+                byName.putIfAbsent(product.getName(), product);
+            }
+
+            List<Product> created = new ArrayList<>();
+            Set<Long> productIds = ProductEntityListener.collecting(() -> {
+                for (ProductRow row : batch) {
+                    Product product = match(row, bySku, byName);
+                    Category category = resolveCategory(row.category(), categoryIds, createdCategories);
+                    if (product == null) {
+                        product = Product.builder()
+                                .sku(row.sku())
+                                .name(row.name())
+                                .description(row.description())
+                                .price(row.price())
+                                .stockQuantity(row.stockQuantity() == null ? 0 : row.stockQuantity())
+                                .minThreshold(row.minThreshold())
+                                .category(category)
+                                .build();
+                        entityManager.persist(product);
+                        created.add(product);
+                        applied.created++;
+                    } else {
+                        if (row.sku() != null) product.setSku(row.sku());
+                        product.setName(row.name());
+                        product.setDescription(row.description());
+                        product.setPrice(row.price());
+                        product.setMinThreshold(row.minThreshold());
+                        product.setCategory(category);
+                        applied.updated++;
+                    }
+                    if (product.getSku() != null) bySku.put(product.getSku(), product);
+                    byName.putIfAbsent(product.getName(), product);
+                }
+                entityManager.flush();
+            });
+            if (!productIds.isEmpty()) eventPublisher.publishEvent(new ProductChangedEvent(productIds));
+            // Solo los nuevos tienen stock asignado por la importación
+            if (!created.isEmpty()) {
+                eventPublisher.publishEvent(new StockChangedEvent(
+                        created.stream().map(Product::getId).collect(Collectors.toSet())));
+            }
+            entityManager.clear();
+        });
+        categoryIds.putAll(createdCategories);
+        tally.created += applied.created;
+        tally.updated += applied.updated;
+    }
+
+    private void upsertCategories(List<CategoryRow> batch, Tally tally) {
+        transactionTemplate.executeWithoutResult(status -> {
+            Map<String, Category> existing = new HashMap<>();
+            categoryRepository.findByNameIn(batch.stream().map(CategoryRow::name).toList())
+                    .forEach(category -> existing.put(category.getName(), category));
+
+            for (CategoryRow row : batch) {
+                Category category = existing.get(row.name());
+                if (category == null) {
+                    category = Category.builder().name(row.name()).description(row.description()).build();
+                    entityManager.persist(category);
+                    existing.put(row.name(), category);
+                    tally.created++;
+                } else {
+                    category.setDescription(row.description());
+                    tally.updated++;
+                }
+            }
+            entityManager.flush();
+            entityManager.clear();
+        });
+    }
+
+    /**
+     * Producto existente de una fila: por sku, o por nombre si la fila o el producto no tienen sku.
+     */
+    private static Product match(ProductRow row, Map<String, Product> bySku, Map<String, Product> byName) {
+        if (row.sku() != null) {
+            Product product = bySku.get(row.sku());
+            if (product != null) return product;
+        }
+        Product named = byName.get(row.name());
+        if (named != null && (row.sku() == null || named.getSku() == null)) return named;
+        return null;
+    }
+
+    /**
+     * Referencia a la categoría de una fila sin consultarla, creándola si no existe.
+     */
+    private Category resolveCategory(String name, Map<String, Long> categoryIds, Map<String, Long> createdCategories) {
+        if (name == null) return null;
+
+        Long id = categoryIds.get(name);
+        if (id == null) id = createdCategories.get(name);
+        if (id == null) {
+            Category category = Category.builder().name(name).build();
+            entityManager.persist(category);
+            id = category.getId();
+            createdCategories.put(name, id);
+        }
+        return entityManager.getReference(Category.class, id);
+    }
+
+    private static ProductRow toProductRow(List<String> record, Map<String, Integer> columns) {
+        String name = field(record, columns, "name");
+        if (name == null) throw new IllegalArgumentException("missing name");
+
+        String price = field(record, columns, "price");
+        if (price == null) throw new IllegalArgumentException("missing price");
+        double parsedPrice = parseNumber(price, "price", Double::parseDouble);
+        if (!Double.isFinite(parsedPrice)) throw new IllegalArgumentException("invalid price");
+        if (parsedPrice < 0) throw new IllegalArgumentException("negative price");
+
+        Integer stockQuantity = optionalInt(record, columns, "stock_quantity");
+        if (stockQuantity != null && stockQuantity < 0) throw new IllegalArgumentException("negative stock_quantity");
+
+        return new ProductRow(
+                field(record, columns, "sku"),
+                name,
+                field(record, columns, "description"),
+                parsedPrice,
+                stockQuantity,
+                optionalInt(record, columns, "min_threshold"),
+                field(record, columns, "category"));
+    }
+
+    private static boolean isConstraintViolation(Throwable e) {
+        for (Throwable cause = e; cause != null; cause = cause.getCause()) {
+            if (cause instanceof DataIntegrityViolationException || cause instanceof ConstraintViolationException) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static Integer optionalInt(List<String> record, Map<String, Integer> columns, String column) {
+        String value = field(record, columns, column);
+        return value == null ? null : parseNumber(value, column, Integer::valueOf);
+    }
+
+    private static <T> T parseNumber(String value, String column, Function<String, T> parser) {
+        try {
+            return parser.apply(value);
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException("invalid " + column + " '" + value + "'");
+        }
+    }
+
+    /**
+     * Valor recortado de una columna, o null si la columna no existe o está vacía.
+     */
+    private static String field(List<String> record, Map<String, Integer> columns, String column) {
+        Integer index = columns.get(column);
+        if (index == null || index >= record.size()) return null;
+        String value = record.get(index).trim();
+        return value.isEmpty() ? null : value;
+    }
+
+    /**
+     * Posición de cada columna de la cabecera (sin distinguir mayúsculas).
+     */
+    private static Map<String, Integer> header(List<String> record, List<String> required) {
+        if (record == null) throw new IllegalArgumentException("Error: The CSV is empty");
+
+        Map<String, Integer> columns = new HashMap<>();
+        for (int i = 0; i < record.size(); i++) {
+            String column = record.get(i).trim().toLowerCase(Locale.ROOT);
+            // Marca de orden de bytes que algunos ERP añaden al inicio del fichero
+            if (i == 0 && column.startsWith("\uFEFF")) column = column.substring(1);
+            columns.putIfAbsent(column, i);
+        }
+        for (String column : required) {
+            if (!columns.containsKey(column)) {
+                throw new IllegalArgumentException("Error: The CSV header needs a '" + column + "' column");
+            }
+        }
+        return columns;
+    }
+}
@@ -0,0 +1,214 @@
+package com.jicd.stockmanager.service;
+
+import com.jicd.stockmanager.dto.LowStockItemDTO;
+import com.jicd.stockmanager.event.StockChangedEvent;
+import com.jicd.stockmanager.repository.ProductRepository;
+import com.jicd.stockmanager.repository.projection.ProductStockView;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.event.TransactionalEventListener;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.io.IOException;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+/**
+ * Índice en memoria de los productos con stock por debajo de su propio umbral mínimo.
+ * Se inicializa al arrancar y se actualiza tras cada cambio de stock, de modo que la consulta
+ * de productos con stock bajo es O(productos en stock bajo) y no O(catálogo).
+ * Los cruces del umbral se notifican por SSE a los suscriptores, cada uno con su propia cola.
+ */
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class LowStockService {
+
+    static final String BELOW_EVENT = "below";
+    static final String RECOVERED_EVENT = "recovered";
+    static final String SNAPSHOT_EVENT = "snapshot";
+    // Eventos pendientes por suscriptor; al llenarse se le desconecta
+    private static final int QUEUE_CAPACITY = 64;
+
+    private final ProductRepository productRepository;
+
+    private final Map<Long, LowStockItemDTO> lowStock = new ConcurrentHashMap<>();
+    private final List<Subscriber> subscribers = new CopyOnWriteArrayList<>();
+
+    /**
+     * Carga el índice con los productos que ya están por debajo de su umbral.
+     * Se repite periódicamente para corregir cualquier desviación (p. ej. cambios hechos fuera de la aplicación).
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    @Scheduled(fixedDelayString = "${app.stock.low-stock.resync-interval:300000}",
+            initialDelayString = "${app.stock.low-stock.resync-interval:300000}")
+    @Transactional(readOnly = true)
+    public void resync() {
+        Map<Long, LowStockItemDTO> current;
+        try (Stream<ProductStockView> views = productRepository.streamBelowMinThreshold()) {
+            current = views.map(this::toItem)
+                    .collect(Collectors.toMap(LowStockItemDTO::productId, Function.identity()));
+        }
+
+        // Productos que se recuperaron o bajaron del umbral sin pasar por la aplicación
+        lowStock.keySet().stream()
+                .filter(id -> !current.containsKey(id))
+                .toList()
+                .forEach(id -> apply(id, null));
+        current.forEach(this::apply);
+
+        log.info("Indice de stock bajo sincronizado: {} productos", lowStock.size());
+    }
+
+    /**
+     * Relee el stock de los productos modificados una vez confirmada la transacción.
+     *
+     * @param event El evento con los productos modificados.
+     */
+    @TransactionalEventListener
+    @Transactional(propagation = Propagation.REQUIRES_NEW, readOnly = true)
+    public void onStockChanged(StockChangedEvent event) {
+        Map<Long, ProductStockView> views = new HashMap<>();
+        productRepository.findStockLevelsByIdIn(event.productIds())
+                .forEach(view -> views.put(view.getId(), view));
+
+        for (Long productId : event.productIds()) {
+            ProductStockView view = views.get(productId);
+            apply(productId, view != null && isLow(view) ? toItem(view) : null);
+        }
+    }
+
+    /**
+     * Devuelve los productos con stock bajo, ordenados por stock ascendente.
+     *
+     * @return List la lista de productos con stock bajo.
+     */
+    public List<LowStockItemDTO> findLowStock() {
+        return lowStock.values().stream()
+                .sorted(Comparator.comparing(LowStockItemDTO::stockQuantity))
+                .toList();
+    }
+
+    /**
+     * Registra un suscriptor SSE y le envía el estado actual del índice.
+     *
+     * @return SseEmitter el emisor asociado al suscriptor.
+     */
+    public SseEmitter subscribe() {
+        SseEmitter emitter = new SseEmitter(0L);
+        Subscriber subscriber = new Subscriber(emitter);
+        emitter.onCompletion(subscriber::close);
+        emitter.onTimeout(subscriber::close);
+        emitter.onError(e -> subscriber.close());
+
+        // Después de registrarse, para no perder los cruces que se produzcan mientras tanto
+        subscribers.add(subscriber);
+        subscriber.offer(new Event(SNAPSHOT_EVENT, findLowStock()));
+        subscriber.start();
+        return emitter;
+    }
+
+    /**
+     * Actualiza la entrada de un producto y notifica si ha cruzado su umbral.
+     *
+     * @param productId El id del producto.
+     * @param item El estado de stock bajo o null si el producto está por encima del umbral.
+     */
+    private void apply(Long productId, LowStockItemDTO item) {
+        LowStockItemDTO previous = item == null ? lowStock.remove(productId) : lowStock.put(productId, item);
+
+        if (previous == null && item != null) {
+            publish(BELOW_EVENT, item);
+        } else if (previous != null && item == null) {
+            publish(RECOVERED_EVENT, previous);
+        }
+    }
+
+    // Solo encola: se llama desde el hilo que confirmó el cambio de stock (p. ej. el de una venta)
+    private void publish(String eventName, LowStockItemDTO item) {
+        Event event = new Event(eventName, item);
+        for (Subscriber subscriber : subscribers) {
+            subscriber.offer(event);
+        }
+    }
+
+    private boolean isLow(ProductStockView view) {
+        return view.getMinThreshold() != null && view.getStockQuantity() < view.getMinThreshold();
+    }
+
+    private LowStockItemDTO toItem(ProductStockView view) {
+        return new LowStockItemDTO(view.getId(), view.getName(), view.getStockQuantity(), view.getMinThreshold());
+    }
+
+    private record Event(String name, Object data) {
+    }
+
+    /**
+     * Suscriptor SSE con una cola acotada que vacía su propio hilo virtual, de modo que un cliente
+     * lento o bloqueado no retrasa a quien publica. Si la cola se llena se le desconecta en lugar de
+     * descartar eventos sueltos: al reconectar recibe de nuevo el estado completo.
+     */
+    private final class Subscriber {
+
+        private final SseEmitter emitter;
+        private final BlockingQueue<Event> queue = new ArrayBlockingQueue<>(QUEUE_CAPACITY);
+        private final AtomicBoolean closed = new AtomicBoolean();
+        private volatile Thread sender;
+
+        private Subscriber(SseEmitter emitter) {
+            this.emitter = emitter;
+        }
+
+        private void start() {
+            sender = Thread.ofVirtual().name("low-stock-sse").start(this::run);
+            // Cerrado antes de asignar el hilo: close no ha podido interrumpirlo
+            if (closed.get()) sender.interrupt();
+        }
+
+        private void offer(Event event) {
+            if (closed.get()) return;
+            if (!queue.offer(event)) {
+                log.debug("Suscriptor de stock bajo desconectado: cola llena");
+                close();
+            }
+        }
+
+        private void run() {
+            try {
+                while (!closed.get()) {
+                    Event event = queue.take();
+                    emitter.send(SseEmitter.event().name(event.name()).data(event.data()));
+                }
+            } catch (InterruptedException e) {
+                // Baja desde otro hilo
+            } catch (IOException | RuntimeException e) {
+                close();
+            }
+        }
+
+        private void close() {
+            if (!closed.compareAndSet(false, true)) return;
+            subscribers.remove(this);
+            queue.clear();
+            if (sender != null && Thread.currentThread() != sender) sender.interrupt();
+            // El envío en curso puede estar bloqueado en el socket: se cierra sin esperarlo
+            Thread.ofVirtual().start(emitter::complete);
+        }
+    }
+}
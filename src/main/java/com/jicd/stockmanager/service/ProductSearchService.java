@@ -0,0 +1,120 @@
+package com.jicd.stockmanager.service;
+
+import com.jicd.stockmanager.dto.PageResDTO;
+import com.jicd.stockmanager.dto.ProductSearchResDTO;
+import com.jicd.stockmanager.event.ProductChangedEvent;
+import com.jicd.stockmanager.repository.ProductRepository;
+import com.jicd.stockmanager.repository.projection.ProductSearchView;
+import com.jicd.stockmanager.search.ProductSearchIndex;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.stream.Stream;
+
+/**
+ * Búsqueda de productos por nombre y descripción sobre un índice de trigramas en memoria.
+ * El índice se construye al arrancar y se mantiene sincronizado con las escrituras del catálogo:
+ * los productos modificados se acumulan tras cada commit y se reindexan en lotes.
+ */
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class ProductSearchService {
+
+    private static final int MAX_PAGE_SIZE = 100;
+    // Resultados que se pueden recorrer paginando: el índice ordena page * size + size documentos
+    private static final int MAX_RESULT_WINDOW = 1000;
+    private static final int REFRESH_BATCH_SIZE = 1000;
+
+    private final ProductRepository productRepository;
+    private final ProductSearchIndex index = new ProductSearchIndex();
+    private final Set<Long> pendingProducts = ConcurrentHashMap.newKeySet();
+    // Hasta terminar la construcción los cambios solo se acumulan: el streaming podría pisarlos con datos anteriores
+    private volatile boolean indexBuilt;
+
+    /**
+     * Construye el índice completo recorriendo el catálogo en streaming. Los productos modificados
+     * mientras tanto quedan pendientes y se reindexan al terminar.
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    @Transactional(readOnly = true)
+    public void rebuild() {
+        try (Stream<ProductSearchView> documents = productRepository.streamSearchDocuments()) {
+            documents.forEach(document -> index.put(document.getId(), document.getName(), document.getDescription()));
+        } finally {
+            indexBuilt = true;
+        }
+        log.info("Indice de busqueda de productos construido: {} productos", index.size());
+    }
+
+    /**
+     * Encola para reindexar los productos modificados una vez confirmada la transacción.
+     *
+     * @param event El evento con los productos modificados.
+     */
+    @TransactionalEventListener
+    public void onProductChanged(ProductChangedEvent event) {
+        pendingProducts.addAll(event.productIds());
+    }
+
+    /**
+     * Reindexa en lotes los productos pendientes; los que ya no existen se eliminan del índice.
+     * No hace nada hasta que termina la construcción inicial.
+     */
+    @Scheduled(fixedDelayString = "${app.search.refresh-interval:1000}")
+    @Transactional(readOnly = true)
+    public void refreshPending() {
+        if (!indexBuilt) return;
+        while (!pendingProducts.isEmpty()) {
+            List<Long> batch = new ArrayList<>(REFRESH_BATCH_SIZE);
+            Iterator<Long> iterator = pendingProducts.iterator();
+            while (iterator.hasNext() && batch.size() < REFRESH_BATCH_SIZE) {
+                batch.add(iterator.next());
+                iterator.remove();
+            }
+
+            Set<Long> missing = new HashSet<>(batch);
+            for (ProductSearchView document : productRepository.findSearchDocumentsByIdIn(batch)) {
+                index.put(document.getId(), document.getName(), document.getDescription());
+                missing.remove(document.getId());
+            }
+            missing.forEach(index::remove);
+        }
+    }
+
+    /**
+     * Busca productos ordenados por relevancia.
+     *
+     * @param query El texto a buscar.
+     * @param page El número de página (desde 0).
+     * @param size El tamaño de página (máximo 100).
+     * @return PageResDTO la página de resultados.
+     * @throws IllegalArgumentException si la página queda fuera de los primeros 1000 resultados.
+     */
+    public PageResDTO<ProductSearchResDTO> search(String query, int page, int size) {
+        if (page < 0 || size <= 0 || size > MAX_PAGE_SIZE) {
+            throw new IllegalArgumentException("Error: page must be >= 0 and size between 1 and " + MAX_PAGE_SIZE);
+        }
+        if ((long) (page + 1) * size > MAX_RESULT_WINDOW) {
+            throw new IllegalArgumentException("Error: only the first " + MAX_RESULT_WINDOW + " results can be paged");
+        }
+
+        ProductSearchIndex.SearchResult result = index.search(query, page, size);
+        List<ProductSearchResDTO> items = result.hits().stream()
+                .map(hit -> new ProductSearchResDTO(hit.productId(), hit.name(), hit.score()))
+                .toList();
+        return new PageResDTO<>(items, page, size, result.totalHits());
+    }
+}
@@ -0,0 +1,205 @@
+package com.jicd.stockmanager.service;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.jicd.stockmanager.exceptions.InvalidRefreshTokenException;
+import com.jicd.stockmanager.model.RefreshToken;
+import com.jicd.stockmanager.model.User;
+import com.jicd.stockmanager.repository.RefreshTokenRepository;
+import com.jicd.stockmanager.repository.UserRepository;
+import com.jicd.stockmanager.security.configs.JwtProperties;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.springframework.util.StringUtils;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.security.SecureRandom;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.Base64;
+import java.util.HexFormat;
+import java.util.UUID;
+
+/**
+ * Emisión y rotación de refresh tokens opacos.
+ * Cada uso de un refresh token lo invalida y emite uno nuevo de la misma familia; si un token ya
+ * usado se vuelve a presentar se considera robado y se revoca la familia completa.
+ * Los tokens activos se cachean por hash para que la rotación no tenga que leerlos de la BD.
+ */
+@Service
+@Slf4j
+public class RefreshTokenService {
+
+    private static final int TOKEN_BYTES = 32;
+
+    private final RefreshTokenRepository refreshTokenRepository;
+    private final UserRepository userRepository;
+    private final TransactionTemplate transactionTemplate;
+    private final JwtProperties.RefreshToken properties;
+
+    private final SecureRandom secureRandom = new SecureRandom();
+    private final Cache<String, ActiveToken> activeTokens;
+
+    /**
+     * Datos de un token activo necesarios para rotarlo, indexados por el hash del token.
+     */
+    private record ActiveToken(Long id, Long userId, String familyId, LocalDateTime expiresAt) {
+    }
+
+    /**
+     * Resultado de una rotación: el nuevo refresh token y su usuario.
+     */
+    public record Rotation(String refreshToken, User user) {
+    }
+
+    public RefreshTokenService(RefreshTokenRepository refreshTokenRepository, UserRepository userRepository,
+                               TransactionTemplate transactionTemplate, JwtProperties jwtProperties) {
+        this.refreshTokenRepository = refreshTokenRepository;
+        this.userRepository = userRepository;
+        this.transactionTemplate = transactionTemplate;
+        this.properties = jwtProperties.getRefreshToken();
+        this.activeTokens = Caffeine.newBuilder()
+                .maximumSize(properties.getCacheMaxSize())
+                .expireAfterWrite(Duration.ofMillis(properties.getExpiration()))
+                .build();
+    }
+
+    /**
+     * Emite un refresh token que inicia una nueva familia (login).
+     *
+     * @param user El usuario autenticado.
+     * @return String el refresh token en claro; solo se persiste su hash.
+     */
+    @Transactional
+    public String issue(User user) {
+        return issue(user.getId(), UUID.randomUUID().toString());
+    }
+
+    /**
+     * Consume un refresh token y emite otro de la misma familia.
+     * La marca de uso es una actualización condicional: de dos peticiones concurrentes con el mismo
+     * token solo una puede rotarlo; la otra se trata como reutilización.
+     *
+     * @param rawToken El refresh token en claro.
+     * @return Rotation el nuevo refresh token y el usuario al que pertenece.
+     * @throws InvalidRefreshTokenException si el token no existe, ha expirado o ya se había usado.
+     */
+    @Transactional(noRollbackFor = InvalidRefreshTokenException.class)
+    public Rotation rotate(String rawToken) {
+        String hash = hash(rawToken);
+        ActiveToken current = lookup(hash);
+
+        activeTokens.invalidate(hash);
+        if (refreshTokenRepository.markUsed(current.id()) == 0) {
+            // La revocación de la familia se confirma aunque la petición termine con error
+            refreshTokenRepository.revokeFamily(current.familyId());
+            log.warn("Reutilizacion de refresh token detectada, familia {} revocada", current.familyId());
+            throw new InvalidRefreshTokenException("Error: Refresh token already used, session revoked");
+        }
+        if (current.expiresAt().isBefore(LocalDateTime.now())) {
+            throw new InvalidRefreshTokenException("Error: Refresh token expired");
+        }
+
+        User user = userRepository.findById(current.userId())
+                .orElseThrow(() -> new InvalidRefreshTokenException("Error: Invalid refresh token"));
+        return new Rotation(issue(current.userId(), current.familyId()), user);
+    }
+
+    /**
+     * Revoca la familia del refresh token indicado (logout de esa sesión).
+     * Un token desconocido se ignora para que el logout sea idempotente.
+     *
+     * @param rawToken El refresh token en claro.
+     */
+    @Transactional
+    public void revoke(String rawToken) {
+        if (!StringUtils.hasText(rawToken)) return;
+
+        String hash = hash(rawToken);
+        activeTokens.invalidate(hash);
+        refreshTokenRepository.findByTokenHash(hash)
+                .ifPresent(token -> refreshTokenRepository.revokeFamily(token.getFamilyId()));
+    }
+
+    /**
+     * Revoca todos los refresh tokens de un usuario. Las entradas que queden en la caché no permiten
+     * rotar: la marca de uso en la BD falla y la familia se revoca.
+     *
+     * @param username El nombre de usuario.
+     */
+    @Transactional
+    public void revokeAll(String username) {
+        refreshTokenRepository.revokeAllByUsername(username);
+    }
+
+    /**
+     * Borra los tokens expirados en lotes acotados, cada uno en su propia transacción,
+     * para no mantener bloqueos largos sobre la tabla.
+     */
+    @Scheduled(fixedDelayString = "${app.security.jwt.refresh-token.sweep-interval:3600000}",
+            initialDelayString = "${app.security.jwt.refresh-token.sweep-interval:3600000}")
+    public void sweepExpired() {
+        int batchSize = properties.getSweepBatchSize();
+        LocalDateTime now = LocalDateTime.now();
+        long total = 0;
+        Integer deleted;
+        do {
+            deleted = transactionTemplate.execute(status -> refreshTokenRepository.deleteExpiredBatch(now, batchSize));
+            total += deleted == null ? 0 : deleted;
+        } while (deleted != null && deleted == batchSize);
+
+        if (total > 0) log.info("Refresh tokens expirados eliminados: {}", total);
+    }
+
+    private String issue(Long userId, String familyId) {
+        byte[] bytes = new byte[TOKEN_BYTES];
+        secureRandom.nextBytes(bytes);
+        String rawToken = Base64.getUrlEncoder().withoutPadding().encodeToString(bytes);
+        String hash = hash(rawToken);
+        LocalDateTime expiresAt = LocalDateTime.now().plus(Duration.ofMillis(properties.getExpiration()));
+
+        RefreshToken token = refreshTokenRepository.save(RefreshToken.builder()
+                .tokenHash(hash)
+                .familyId(familyId)
+                .expiresAt(expiresAt)
+                .user(userRepository.getReferenceById(userId))
+                .build());
+
+        activeTokens.put(hash, new ActiveToken(token.getId(), userId, familyId, expiresAt));
+        return rawToken;
+    }
+
+    /**
+     * Busca un token primero en la caché y, si no está, en la BD (incluidos los ya usados,
+     * para poder detectar su reutilización).
+     */
+    private ActiveToken lookup(String hash) {
+        ActiveToken cached = activeTokens.getIfPresent(hash);
+        if (cached != null) return cached;
+
+        return refreshTokenRepository.findByTokenHash(hash)
+                .map(token -> new ActiveToken(token.getId(), token.getUser().getId(),
+                        token.getFamilyId(), token.getExpiresAt()))
+                .orElseThrow(() -> new InvalidRefreshTokenException("Error: Invalid refresh token"));
+    }
+
+    /**
+     * Calcula el hash SHA-256 del token en hexadecimal; el token en claro nunca se persiste.
+     */
+    private static String hash(String rawToken) {
+        if (!StringUtils.hasText(rawToken)) {
+            throw new InvalidRefreshTokenException("Error: Invalid refresh token");
+        }
+        try {
+            byte[] digest = MessageDigest.getInstance("SHA-256").digest(rawToken.getBytes(StandardCharsets.UTF_8));
+            return HexFormat.of().formatHex(digest);
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 no disponible", e);
+        }
+    }
+}
@@ -0,0 +1,256 @@
+package com.jicd.stockmanager.service;
+
+import com.jicd.stockmanager.configs.ReplenishmentProperties;
+import com.jicd.stockmanager.dto.ReplenishmentRunResDTO;
+import com.jicd.stockmanager.dto.ReplenishmentSuggestionDTO;
+import com.jicd.stockmanager.model.ReplenishmentSuggestion;
+import com.jicd.stockmanager.replenishment.ReplenishmentPlan;
+import com.jicd.stockmanager.replenishment.ReplenishmentPolicy;
+import com.jicd.stockmanager.repository.DailyProductSalesRepository;
+import com.jicd.stockmanager.repository.ProductRepository;
+import com.jicd.stockmanager.repository.ReplenishmentSuggestionRepository;
+import com.jicd.stockmanager.repository.StockMovementRepository;
+import com.jicd.stockmanager.repository.projection.ProductDayUnitsView;
+import com.jicd.stockmanager.repository.projection.ProductStockView;
+import jakarta.persistence.EntityManager;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.data.domain.Limit;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.stream.Stream;
+
+/**
+ * Planificador de reposición: evalúa la velocidad de venta y los días de cobertura de cada producto
+ * y guarda una sugerencia de pedido por producto en replenishment_suggestions.
+ * El catálogo se reparte en particiones por id que un ForkJoinPool propio evalúa en paralelo; cada
+ * partición recorre en streaming el historial diario de ventas de sus productos, de modo que la
+ * memoria depende del tamaño de partición y no del historial ni del catálogo.
+ * La ejecución completa (nocturna) evalúa todo el catálogo; la incremental solo los productos con
+ * movimientos de stock desde la ejecución anterior, menos un margen (incremental-overlap) para los
+ * movimientos cuya transacción se confirmó después de que empezara la ejecución anterior.
+ */
+@Service
+@Slf4j
+public class ReplenishmentService {
+
+    private final ProductRepository productRepository;
+    private final DailyProductSalesRepository salesRepository;
+    private final StockMovementRepository movementRepository;
+    private final ReplenishmentSuggestionRepository suggestionRepository;
+    private final EntityManager entityManager;
+    private final TransactionTemplate transactionTemplate;
+    private final ReplenishmentProperties properties;
+    private final ReplenishmentPolicy policy;
+
+    private final AtomicBoolean running = new AtomicBoolean();
+    // Inicio de la última ejecución terminada; null hasta la primera ejecución completa
+    private volatile LocalDateTime lastRunStartedAt;
+
+    public ReplenishmentService(ProductRepository productRepository, DailyProductSalesRepository salesRepository,
+                                StockMovementRepository movementRepository,
+                                ReplenishmentSuggestionRepository suggestionRepository, EntityManager entityManager,
+                                TransactionTemplate transactionTemplate, ReplenishmentProperties properties) {
+        this.productRepository = productRepository;
+        this.salesRepository = salesRepository;
+        this.movementRepository = movementRepository;
+        this.suggestionRepository = suggestionRepository;
+        this.entityManager = entityManager;
+        this.transactionTemplate = transactionTemplate;
+        this.properties = properties;
+        this.policy = new ReplenishmentPolicy(properties.getWindowDays(), properties.getHalfLifeDays(),
+                properties.getLeadTimeDays(), properties.getSafetyDays(), properties.getReviewDays());
+    }
+
+    /**
+     * Evaluación de una partición: un rango de ids (ejecución completa) o una lista de ids (incremental).
+     */
+    private record Partition(long fromId, long toId, long[] productIds) {
+    }
+
+    /**
+     * Datos comunes a todas las particiones de una ejecución.
+     */
+    private record Run(LocalDate windowEnd, LocalDateTime computedAt) {
+    }
+
+    @Scheduled(cron = "${app.replenishment.full-cron:0 0 3 * * *}")
+    public void scheduledFullRun() {
+        run(true);
+    }
+
+    @Scheduled(fixedDelayString = "${app.replenishment.incremental-interval:900000}",
+            initialDelayString = "${app.replenishment.incremental-interval:900000}")
+    public void scheduledIncrementalRun() {
+        run(false);
+    }
+
+    /**
+     * Ejecuta el planificador. Sin una ejecución completa previa en este nodo, la incremental
+     * se convierte en completa.
+     *
+     * @param full true para evaluar todo el catálogo.
+     * @return Optional el resultado, vacío si ya había una ejecución en curso.
+     */
+    public Optional<ReplenishmentRunResDTO> run(boolean full) {
+        if (!running.compareAndSet(false, true)) return Optional.empty();
+        try {
+            LocalDateTime startedAt = LocalDateTime.now();
+            LocalDateTime since = lastRunStartedAt;
+            boolean fullRun = full || since == null;
+
+            Run run = new Run(startedAt.toLocalDate(), startedAt);
+            Partition root = fullRun
+                    ? fullPartition()
+                    : changedPartition(since.minus(properties.getIncrementalOverlap(), ChronoUnit.MILLIS));
+            int products = 0;
+            if (root != null) {
+                try (ForkJoinPool pool = new ForkJoinPool(properties.getParallelism())) {
+                    products = pool.invoke(new PlanTask(root, run));
+                }
+            }
+            lastRunStartedAt = startedAt;
+
+            long millis = ChronoUnit.MILLIS.between(startedAt, LocalDateTime.now());
+            log.info("Planificacion de reposicion {}: {} productos en {} ms",
+                    fullRun ? "completa" : "incremental", products, millis);
+            return Optional.of(new ReplenishmentRunResDTO(fullRun, products, millis));
+        } finally {
+            running.set(false);
+        }
+    }
+
+    /**
+     * Devuelve los productos a reponer, primero los que antes se quedan sin stock.
+     *
+     * @param limit El número máximo de sugerencias.
+     * @return List las sugerencias de pedido.
+     */
+    @Transactional(readOnly = true)
+    public List<ReplenishmentSuggestionDTO> findSuggestions(int limit) {
+        if (limit <= 0) throw new IllegalArgumentException("Error: limit must be positive");
+        return suggestionRepository.findReorders(Limit.of(limit));
+    }
+
+    private Partition fullPartition() {
+        Optional<Long> min = productRepository.findMinId();
+        Optional<Long> max = productRepository.findMaxId();
+        if (min.isEmpty() || max.isEmpty()) return null;
+        return new Partition(min.get(), max.get(), null);
+    }
+
+    private Partition changedPartition(LocalDateTime since) {
+        long[] productIds = movementRepository.findProductIdsMovedSince(since).stream()
+                .mapToLong(Long::longValue)
+                .sorted()
+                .toArray();
+        return productIds.length == 0 ? null : new Partition(productIds[0], productIds[productIds.length - 1], productIds);
+    }
+
+    /**
+     * Divide la partición por la mitad hasta que cabe en partition-size y evalúa las hojas.
+     */
+    private final class PlanTask extends RecursiveTask<Integer> {
+
+        private final Partition partition;
+        private final Run run;
+
+        private PlanTask(Partition partition, Run run) {
+            this.partition = partition;
+            this.run = run;
+        }
+
+        @Override
+        protected Integer compute() {
+            long[] ids = partition.productIds();
+            long size = ids == null ? partition.toId() - partition.fromId() + 1 : ids.length;
+            if (size <= properties.getPartitionSize()) return plan(partition, run);
+
+            Partition left;
+            Partition right;
+            if (ids == null) {
+                long middle = partition.fromId() + size / 2;
+                left = new Partition(partition.fromId(), middle - 1, null);
+                right = new Partition(middle, partition.toId(), null);
+            } else {
+                int middle = ids.length / 2;
+                long[] low = Arrays.copyOfRange(ids, 0, middle);
+                long[] high = Arrays.copyOfRange(ids, middle, ids.length);
+                left = new Partition(low[0], low[low.length - 1], low);
+                right = new Partition(high[0], high[high.length - 1], high);
+            }
+            PlanTask leftTask = new PlanTask(left, run);
+            leftTask.fork();
+            int planned = new PlanTask(right, run).compute();
+            return planned + leftTask.join();
+        }
+    }
+
+    /**
+     * Evalúa los productos de una partición y sustituye sus sugerencias en una transacción.
+     *
+     * @return int el número de productos evaluados.
+     */
+    private int plan(Partition partition, Run run) {
+        Integer planned = transactionTemplate.execute(status -> {
+            List<Long> ids = partition.productIds() == null ? null
+                    : Arrays.stream(partition.productIds()).boxed().toList();
+            LocalDate from = run.windowEnd().minusDays(policy.windowDays());
+
+            // Ventas ponderadas por producto: solo se guarda un acumulado por producto de la partición
+            Map<Long, Double> weightedUnits = new HashMap<>();
+            try (Stream<ProductDayUnitsView> history = ids == null
+                    ? salesRepository.streamUnitsByProductIdBetween(partition.fromId(), partition.toId(),
+                    from, run.windowEnd())
+                    : salesRepository.streamUnitsByProductIdIn(ids, from, run.windowEnd())) {
+                history.forEach(day -> {
+                    int age = (int) ChronoUnit.DAYS.between(day.getDay(), run.windowEnd()) - 1;
+                    weightedUnits.merge(day.getProductId(), day.getUnits() * policy.weight(age), Double::sum);
+                });
+            }
+
+            List<ProductStockView> products = ids == null
+                    ? productRepository.findStockLevelsByIdBetween(partition.fromId(), partition.toId())
+                    : productRepository.findStockLevelsByIdIn(ids);
+            // Las sugerencias de productos borrados desaparecen con el borrado previo
+            if (ids == null) {
+                suggestionRepository.deleteByProductIdBetween(partition.fromId(), partition.toId());
+            } else {
+                suggestionRepository.deleteByProductIdIn(ids);
+            }
+
+            for (ProductStockView product : products) {
+                ReplenishmentPlan plan = policy.evaluate(product.getStockQuantity(), product.getMinThreshold(),
+                        weightedUnits.getOrDefault(product.getId(), 0.0));
+                entityManager.persist(ReplenishmentSuggestion.builder()
+                        .productId(product.getId())
+                        .stockQuantity(product.getStockQuantity())
+                        .velocity(plan.velocity())
+                        .daysOfCover(plan.daysOfCover())
+                        .suggestedQuantity(plan.suggestedQuantity())
+                        .reorder(plan.reorder())
+                        .computedAt(run.computedAt())
+                        .build());
+            }
+
+            // Las inserciones se envían en lotes JDBC y se vacía el contexto
+            entityManager.flush();
+            entityManager.clear();
+            return products.size();
+        });
+        return planned == null ? 0 : planned;
+    }
+}
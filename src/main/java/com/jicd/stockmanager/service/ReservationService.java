@@ -0,0 +1,444 @@
+package com.jicd.stockmanager.service;
+
+import com.jicd.stockmanager.Enums.RESERVATION_STATUS;
+import com.jicd.stockmanager.configs.ReservationProperties;
+import com.jicd.stockmanager.dto.ReservationItemDTO;
+import com.jicd.stockmanager.dto.ReservationResDTO;
+import com.jicd.stockmanager.dto.SaleReqDTO;
+import com.jicd.stockmanager.event.StockChangedEvent;
+import com.jicd.stockmanager.exceptions.InsufficientStockException;
+import com.jicd.stockmanager.exceptions.InvalidReservationStateException;
+import com.jicd.stockmanager.exceptions.ProductNotFoundException;
+import com.jicd.stockmanager.exceptions.ReservationNotFoundException;
+import com.jicd.stockmanager.model.ReservationItem;
+import com.jicd.stockmanager.model.StockReservation;
+import com.jicd.stockmanager.model.User;
+import com.jicd.stockmanager.repository.ProductRepository;
+import com.jicd.stockmanager.repository.ProductStockShardRepository;
+import com.jicd.stockmanager.repository.StockReservationRepository;
+import com.jicd.stockmanager.repository.UserRepository;
+import com.jicd.stockmanager.repository.projection.ProductStockView;
+import com.jicd.stockmanager.reservation.StockLedger;
+import jakarta.annotation.PreDestroy;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.event.TransactionalEventListener;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Queue;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+/**
+ * Reservas temporales de stock para carritos: reservar, confirmar como venta, liberar y expirar.
+ * Las retenciones se admiten contra el {@link StockLedger} en memoria, sin bloquear filas de productos;
+ * la reserva solo inserta su propia fila para poder recuperarse tras un reinicio.
+ * Las confirmaciones se encolan y se vuelcan en lotes: cada lote descuenta el stock con una única
+ * actualización por producto y registra todas sus ventas en una transacción.
+ */
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class ReservationService {
+
+    private static final int STATUS_UPDATE_CHUNK = 1_000;
+
+    private final StockReservationRepository reservationRepository;
+    private final ProductRepository productRepository;
+    private final ProductStockShardRepository shardRepository;
+    private final UserRepository userRepository;
+    private final StockLedger ledger;
+    private final StockService stockService;
+    private final SaleService saleService;
+    private final TransactionTemplate transactionTemplate;
+    private final ReservationProperties properties;
+
+    // Reservas no terminadas (activas o pendientes de volcar), por id
+    private final Map<Long, Hold> holds = new ConcurrentHashMap<>();
+    private final Queue<Hold> confirmations = new ConcurrentLinkedQueue<>();
+
+    /**
+     * Estado en memoria de una reserva no terminada. Las transiciones se hacen con CAS sobre el estado,
+     * de modo que confirmar, liberar y expirar nunca se aplican dos veces.
+     */
+    private static final class Hold {
+        private final Long id;
+        private final Long userId;
+        private final Map<Long, Integer> quantities;
+        private final LocalDateTime expiresAt;
+        private final AtomicReference<RESERVATION_STATUS> status;
+        private volatile Long saleId;
+
+        private Hold(Long id, Long userId, Map<Long, Integer> quantities, LocalDateTime expiresAt,
+                     RESERVATION_STATUS status) {
+            this.id = id;
+            this.userId = userId;
+            this.quantities = quantities;
+            this.expiresAt = expiresAt;
+            this.status = new AtomicReference<>(status);
+        }
+    }
+
+    /**
+     * Retiene stock para las líneas indicadas durante el TTL configurado.
+     *
+     * @param request Las líneas a reservar.
+     * @param principal El usuario autenticado.
+     * @return ReservationResDTO la reserva creada.
+     * @throws ProductNotFoundException si algún producto no existe.
+     * @throws InsufficientStockException si algún producto no tiene disponible suficiente.
+     */
+    public ReservationResDTO reserve(SaleReqDTO request, User principal) {
+
+        if (request == null) throw new IllegalArgumentException("Error: A reservation needs at least one item");
+        Map<Long, Integer> quantities = SaleService.mergeLines(request.items());
+        track(quantities.keySet());
+
+        if (!ledger.tryReserve(quantities)) {
+            throw new InsufficientStockException("Error: Insufficient stock to reserve");
+        }
+
+        Long userId = principal == null ? null : principal.getId();
+        LocalDateTime now = LocalDateTime.now();
+        LocalDateTime expiresAt = now.plus(Duration.ofMillis(properties.getTtl()));
+        StockReservation reservation;
+        try {
+            reservation = reservationRepository.save(StockReservation.builder()
+                    .status(RESERVATION_STATUS.ACTIVE)
+                    .createdAt(now)
+                    .expiresAt(expiresAt)
+                    .user(userId == null ? null : userRepository.getReferenceById(userId))
+                    .items(quantities.entrySet().stream()
+                            .map(line -> new ReservationItem(line.getKey(), line.getValue()))
+                            .collect(Collectors.toCollection(ArrayList::new)))
+                    .build());
+        } catch (RuntimeException e) {
+            ledger.release(quantities);
+            throw e;
+        }
+
+        Hold hold = new Hold(reservation.getId(), userId, quantities, expiresAt, RESERVATION_STATUS.ACTIVE);
+        holds.put(hold.id, hold);
+        return toResponse(hold);
+    }
+
+    /**
+     * Confirma una reserva: el stock retenido pasa a pendiente y la venta se registra en el siguiente volcado.
+     *
+     * @param id El id de la reserva.
+     * @param principal El usuario autenticado.
+     * @return ReservationResDTO la reserva en estado CONFIRMING.
+     * @throws ReservationNotFoundException si la reserva no existe o es de otro usuario.
+     * @throws InvalidReservationStateException si la reserva ya no está activa.
+     */
+    public ReservationResDTO confirm(Long id, User principal) {
+        Hold hold = requireHold(id, principal);
+        if (hold.expiresAt.isBefore(LocalDateTime.now())) {
+            expire(List.of(hold));
+            throw new InvalidReservationStateException("Error: Reservation " + id + " has expired");
+        }
+        if (!hold.status.compareAndSet(RESERVATION_STATUS.ACTIVE, RESERVATION_STATUS.CONFIRMING)) {
+            throw new InvalidReservationStateException("Error: Reservation " + id + " is " + hold.status.get());
+        }
+
+        // La intención se persiste para que un reinicio vuelva a encolar la confirmación
+        try {
+            reservationRepository.updateStatus(List.of(id), RESERVATION_STATUS.ACTIVE, RESERVATION_STATUS.CONFIRMING);
+        } catch (RuntimeException e) {
+            hold.status.set(RESERVATION_STATUS.ACTIVE);
+            throw e;
+        }
+        ledger.confirm(hold.quantities);
+        confirmations.add(hold);
+        return toResponse(hold);
+    }
+
+    /**
+     * Libera una reserva activa y devuelve su stock al disponible.
+     *
+     * @param id El id de la reserva.
+     * @param principal El usuario autenticado.
+     * @throws ReservationNotFoundException si la reserva no existe o es de otro usuario.
+     * @throws InvalidReservationStateException si la reserva ya no está activa.
+     */
+    public void release(Long id, User principal) {
+        Hold hold = requireHold(id, principal);
+        if (!hold.status.compareAndSet(RESERVATION_STATUS.ACTIVE, RESERVATION_STATUS.RELEASED)) {
+            throw new InvalidReservationStateException("Error: Reservation " + id + " is " + hold.status.get());
+        }
+        ledger.release(hold.quantities);
+        holds.remove(id);
+        reservationRepository.updateStatus(List.of(id), RESERVATION_STATUS.ACTIVE, RESERVATION_STATUS.RELEASED);
+    }
+
+    /**
+     * Devuelve el estado de una reserva, desde memoria si no ha terminado o desde la BD en caso contrario.
+     *
+     * @param id El id de la reserva.
+     * @param principal El usuario autenticado.
+     * @return ReservationResDTO la reserva.
+     * @throws ReservationNotFoundException si la reserva no existe o es de otro usuario.
+     */
+    @Transactional(readOnly = true)
+    public ReservationResDTO getReservation(Long id, User principal) {
+        Hold hold = holds.get(id);
+        if (hold != null && isOwner(hold.userId, principal)) return toResponse(hold);
+
+        StockReservation reservation = reservationRepository.findById(id)
+                .filter(found -> isOwner(found.getUser() == null ? null : found.getUser().getId(), principal))
+                .orElseThrow(() -> new ReservationNotFoundException("Error: Reservation not found with id: " + id));
+        List<ReservationItemDTO> items = reservation.getItems().stream()
+                .map(item -> new ReservationItemDTO(item.getProductId(), item.getQuantity()))
+                .toList();
+        return new ReservationResDTO(reservation.getId(), reservation.getStatus(), reservation.getExpiresAt(),
+                reservation.getSaleId(), items);
+    }
+
+    /**
+     * Libera las reservas activas cuyo TTL ha vencido.
+     */
+    @Scheduled(fixedDelayString = "${app.reservations.expiry-interval:5000}")
+    public void expireHolds() {
+        LocalDateTime now = LocalDateTime.now();
+        List<Hold> expired = holds.values().stream()
+                .filter(hold -> hold.expiresAt.isBefore(now))
+                .toList();
+        if (!expired.isEmpty()) expire(expired);
+    }
+
+    /**
+     * Vuelca las confirmaciones encoladas en lotes. Si un lote falla (p. ej. el stock cambió fuera
+     * de la aplicación), sus reservas se reintentan de una en una y solo las que no caben fallan.
+     */
+    @Scheduled(fixedDelayString = "${app.reservations.flush-interval:1000}")
+    @PreDestroy
+    public void flushConfirmations() {
+        List<Hold> batch;
+        while (!(batch = drain(properties.getFlushBatchSize())).isEmpty()) {
+            List<Hold> current = batch;
+            try {
+                transactionTemplate.executeWithoutResult(status -> recordBatch(current));
+                current.forEach(this::completed);
+            } catch (RuntimeException e) {
+                log.warn("Fallo el volcado de {} reservas confirmadas, se reintentan una a una: {}",
+                        current.size(), e.getMessage());
+                current.forEach(this::flushOne);
+            }
+        }
+    }
+
+    /**
+     * Recupera las reservas abiertas tras un reinicio: las activas vuelven a retener stock y las
+     * confirmadas pendientes se vuelven a encolar.
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    @Transactional
+    public void recover() {
+        int expired = reservationRepository.expireBefore(LocalDateTime.now());
+        List<StockReservation> open = reservationRepository.findWithItemsByStatusIn(
+                List.of(RESERVATION_STATUS.ACTIVE, RESERVATION_STATUS.CONFIRMING));
+
+        Set<Long> productIds = new HashSet<>();
+        open.forEach(reservation -> reservation.getItems().forEach(item -> productIds.add(item.getProductId())));
+        if (!productIds.isEmpty()) trackExisting(productIds);
+
+        for (StockReservation reservation : open) {
+            Map<Long, Integer> quantities = new TreeMap<>();
+            reservation.getItems().forEach(item -> quantities.merge(item.getProductId(), item.getQuantity(), Integer::sum));
+            boolean pending = reservation.getStatus() == RESERVATION_STATUS.CONFIRMING;
+            Hold hold = new Hold(reservation.getId(),
+                    reservation.getUser() == null ? null : reservation.getUser().getId(),
+                    quantities, reservation.getExpiresAt(), reservation.getStatus());
+
+            ledger.restore(quantities, pending);
+            holds.put(hold.id, hold);
+            if (pending) confirmations.add(hold);
+        }
+        log.info("Reservas recuperadas: {} abiertas, {} expiradas durante la parada", open.size(), expired);
+    }
+
+    /**
+     * Relee el stock de los productos del libro modificados una vez confirmada la transacción.
+     *
+     * @param event El evento con los productos modificados.
+     */
+    @TransactionalEventListener
+    @Transactional(propagation = Propagation.REQUIRES_NEW, readOnly = true)
+    public void onStockChanged(StockChangedEvent event) {
+        List<Long> tracked = event.productIds().stream()
+                .filter(ledger::isTracked)
+                .toList();
+        if (tracked.isEmpty()) return;
+
+        currentStock(tracked).forEach(ledger::updateStock);
+    }
+
+    /**
+     * Registra un lote en la transacción actual: una actualización de stock por producto,
+     * las ventas del lote y el estado final de sus reservas.
+     */
+    private void recordBatch(List<Hold> batch) {
+        Map<Long, Integer> totals = new TreeMap<>();
+        batch.forEach(hold -> hold.quantities.forEach((productId, quantity) ->
+                totals.merge(productId, quantity, Integer::sum)));
+
+        for (Map.Entry<Long, Integer> line : totals.entrySet()) {
+            if (!stockService.decrementReserved(line.getKey(), line.getValue())) {
+                throw new InsufficientStockException("Error: Insufficient stock for product " + line.getKey());
+            }
+        }
+
+        List<Long> saleIds = saleService.recordSales(batch.stream()
+                .map(hold -> new SaleService.SaleDraft(hold.userId, hold.quantities))
+                .toList());
+
+        Map<Long, StockReservation> reservations = reservationRepository
+                .findAllById(batch.stream().map(hold -> hold.id).toList()).stream()
+                .collect(Collectors.toMap(StockReservation::getId, Function.identity()));
+        for (int i = 0; i < batch.size(); i++) {
+            Hold hold = batch.get(i);
+            hold.saleId = saleIds.get(i);
+            StockReservation reservation = reservations.get(hold.id);
+            if (reservation != null) {
+                reservation.setStatus(RESERVATION_STATUS.CONFIRMED);
+                reservation.setSaleId(hold.saleId);
+            }
+        }
+    }
+
+    private void flushOne(Hold hold) {
+        try {
+            transactionTemplate.executeWithoutResult(status -> recordBatch(List.of(hold)));
+            completed(hold);
+        } catch (RuntimeException e) {
+            log.error("No se pudo registrar la venta de la reserva {}: {}", hold.id, e.getMessage());
+            hold.status.set(RESERVATION_STATUS.FAILED);
+            ledger.settle(hold.quantities);
+            holds.remove(hold.id);
+            reservationRepository.updateStatus(List.of(hold.id),
+                    RESERVATION_STATUS.CONFIRMING, RESERVATION_STATUS.FAILED);
+        }
+    }
+
+    /**
+     * Tras confirmar la transacción el stock ya se ha releído del evento de cambio de stock,
+     * por lo que el pendiente se puede eliminar sin sobreestimar el disponible.
+     */
+    private void completed(Hold hold) {
+        hold.status.set(RESERVATION_STATUS.CONFIRMED);
+        ledger.settle(hold.quantities);
+        holds.remove(hold.id);
+    }
+
+    private void expire(List<Hold> candidates) {
+        List<Long> ids = new ArrayList<>();
+        for (Hold hold : candidates) {
+            if (hold.status.compareAndSet(RESERVATION_STATUS.ACTIVE, RESERVATION_STATUS.EXPIRED)) {
+                ledger.release(hold.quantities);
+                holds.remove(hold.id);
+                ids.add(hold.id);
+            }
+        }
+        for (int from = 0; from < ids.size(); from += STATUS_UPDATE_CHUNK) {
+            List<Long> chunk = ids.subList(from, Math.min(from + STATUS_UPDATE_CHUNK, ids.size()));
+            reservationRepository.updateStatus(chunk, RESERVATION_STATUS.ACTIVE, RESERVATION_STATUS.EXPIRED);
+        }
+    }
+
+    private List<Hold> drain(int max) {
+        List<Hold> batch = new ArrayList<>(Math.min(max, 64));
+        Hold hold;
+        while (batch.size() < max && (hold = confirmations.poll()) != null) {
+            batch.add(hold);
+        }
+        return batch;
+    }
+
+    /**
+     * Añade al libro los productos que aún no están, leyendo su stock con una sola consulta.
+     *
+     * @throws ProductNotFoundException si algún producto no existe.
+     */
+    private void track(Set<Long> productIds) {
+        Set<Long> missing = trackExisting(productIds);
+        if (!missing.isEmpty()) {
+            throw new ProductNotFoundException("Error: Product not found with id: " + missing.iterator().next());
+        }
+    }
+
+    /**
+     * @return Set los productos que no existen en la BD.
+     */
+    private Set<Long> trackExisting(Set<Long> productIds) {
+        List<Long> untracked = productIds.stream()
+                .filter(productId -> !ledger.isTracked(productId))
+                .toList();
+        if (untracked.isEmpty()) return Set.of();
+
+        Set<Long> missing = new HashSet<>(untracked);
+        currentStock(untracked).forEach((productId, stock) -> {
+            ledger.track(productId, stock);
+            missing.remove(productId);
+        });
+        return missing;
+    }
+
+    /**
+     * Stock actual de los productos que existen. La columna de un producto repartido en slots solo se
+     * sincroniza periódicamente (ShardedStockService.syncTotals), así que para ellos se suman los slots.
+     */
+    private Map<Long, Long> currentStock(Collection<Long> productIds) {
+        Map<Long, Long> stock = new HashMap<>();
+        for (ProductStockView view : productRepository.findStockLevelsByIdIn(productIds)) {
+            stock.put(view.getId(), view.getStockQuantity().longValue());
+        }
+        shardRepository.sumByProductIdIn(productIds)
+                .forEach(total -> stock.replace(total.getProductId(), total.getQuantity()));
+        return stock;
+    }
+
+    private Hold requireHold(Long id, User principal) {
+        Hold hold = holds.get(id);
+        if (hold != null && isOwner(hold.userId, principal)) return hold;
+
+        RESERVATION_STATUS status = reservationRepository.findById(id)
+                .filter(found -> isOwner(found.getUser() == null ? null : found.getUser().getId(), principal))
+                .map(StockReservation::getStatus)
+                .orElseThrow(() -> new ReservationNotFoundException("Error: Reservation not found with id: " + id));
+        throw new InvalidReservationStateException("Error: Reservation " + id + " is " + status);
+    }
+
+    /**
+     * Solo el usuario que hizo la reserva puede verla o cambiarla; sin dueño o sin id no hay acceso.
+     */
+    private static boolean isOwner(Long ownerId, User principal) {
+        return ownerId != null && principal != null && Objects.equals(ownerId, principal.getId());
+    }
+
+    private ReservationResDTO toResponse(Hold hold) {
+        List<ReservationItemDTO> items = hold.quantities.entrySet().stream()
+                .map(line -> new ReservationItemDTO(line.getKey(), line.getValue()))
+                .toList();
+        return new ReservationResDTO(hold.id, hold.status.get(), hold.expiresAt, hold.saleId, items);
+    }
+}
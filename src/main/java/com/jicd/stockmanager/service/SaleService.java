@@ -0,0 +1,388 @@
+package com.jicd.stockmanager.service;
+
+import com.jicd.stockmanager.configs.SaleProperties;
+import com.jicd.stockmanager.dto.SaleImportReqDTO;
+import com.jicd.stockmanager.dto.SaleImportResDTO;
+import com.jicd.stockmanager.dto.SaleItemReqDTO;
+import com.jicd.stockmanager.dto.SaleItemResDTO;
+import com.jicd.stockmanager.dto.SaleReqDTO;
+import com.jicd.stockmanager.dto.SaleResDTO;
+import com.jicd.stockmanager.event.SalesRecordedEvent;
+import com.jicd.stockmanager.event.StockChangedEvent;
+import com.jicd.stockmanager.exceptions.InsufficientStockException;
+import com.jicd.stockmanager.exceptions.ProductNotFoundException;
+import com.jicd.stockmanager.exceptions.UserNotFoundException;
+import com.jicd.stockmanager.model.Sale;
+import com.jicd.stockmanager.model.SaleDetail;
+import com.jicd.stockmanager.model.User;
+import com.jicd.stockmanager.pricing.BasketTotals;
+import com.jicd.stockmanager.pricing.Money;
+import com.jicd.stockmanager.pricing.PricingEngine;
+import com.jicd.stockmanager.repository.ProductRepository;
+import com.jicd.stockmanager.repository.SaleDetailRepository;
+import com.jicd.stockmanager.repository.SaleRepository;
+import com.jicd.stockmanager.repository.UserRepository;
+import com.jicd.stockmanager.repository.projection.ProductPriceView;
+import jakarta.persistence.EntityManager;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+import tools.jackson.core.JacksonException;
+import tools.jackson.databind.json.JsonMapper;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+/**
+ * Servicio de ventas: registra una venta y descuenta el stock de cada línea en una única transacción corta.
+ */
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class SaleService {
+
+    private final SaleRepository saleRepository;
+    private final SaleDetailRepository saleDetailRepository;
+    private final ProductRepository productRepository;
+    private final UserRepository userRepository;
+    private final StockService stockService;
+    private final SalesPartitionService partitionService;
+    private final EntityManager entityManager;
+    private final TransactionTemplate transactionTemplate;
+    private final JsonMapper jsonMapper;
+    private final SaleProperties properties;
+    private final ApplicationEventPublisher eventPublisher;
+
+    /**
+     * Venta con el stock ya descontado: usuario y cantidades por id de producto.
+     */
+    public record SaleDraft(Long userId, Map<Long, Integer> quantities) {
+    }
+
+    /**
+     * Líneas de una venta con sus importes en céntimos (en el mismo orden).
+     */
+    private record PricedSale(List<SaleDetail> details, long[] lineTotals) {
+    }
+
+    /**
+     * Registra una venta descontando el stock con actualizaciones condicionales atómicas.
+     * Si alguna línea no tiene stock suficiente se lanza una excepción y la transacción completa
+     * (incluidos los descuentos ya aplicados) se revierte.
+     *
+     * @param request Las líneas de la venta.
+     * @param principal El usuario autenticado que realiza la venta.
+     * @return SaleResDTO la venta registrada.
+     * @throws ProductNotFoundException si algún producto no existe.
+     * @throws InsufficientStockException si algún producto no tiene stock suficiente.
+     */
+    @Transactional
+    public SaleResDTO checkout(SaleReqDTO request, User principal) {
+
+        if (request == null) throw new IllegalArgumentException("Error: A sale needs at least one item");
+        Map<Long, Integer> quantities = mergeLines(request.items());
+        Map<Long, ProductPriceView> products = loadProducts(quantities.keySet());
+
+        for (Long productId : quantities.keySet()) {
+            if (!products.containsKey(productId)) {
+                throw new ProductNotFoundException("Error: Product not found with id: " + productId);
+            }
+        }
+
+        // Los descuentos se aplican en orden de id para que las transacciones concurrentes
+        // bloqueen las filas siempre en el mismo orden y no se produzcan interbloqueos
+        for (Map.Entry<Long, Integer> line : quantities.entrySet()) {
+            if (!stockService.decrement(line.getKey(), line.getValue())) {
+                throw new InsufficientStockException("Error: Insufficient stock for product " + line.getKey());
+            }
+        }
+        eventPublisher.publishEvent(new StockChangedEvent(quantities.keySet()));
+
+        Sale sale = Sale.builder()
+                .date(LocalDateTime.now())
+                .user(resolveUser(principal))
+                .build();
+        PricedSale priced = buildDetails(sale, quantities, products);
+
+        saleRepository.save(sale);
+        saleDetailRepository.saveAll(priced.details());
+        eventPublisher.publishEvent(new SalesRecordedEvent(toFacts(sale, priced, products)));
+
+        return toResponse(sale, priced.details());
+    }
+
+    /**
+     * Importa un flujo NDJSON de ventas (una venta por línea) con memoria constante:
+     * las ventas se leen de una en una y se persisten en lotes de tamaño fijo, cada lote en su
+     * propia transacción con inserciones agrupadas por JDBC. Una venta con productos inexistentes,
+     * sin stock suficiente, mal formada o con fecha futura o anterior a la retención de ventas se
+     * descarta sin afectar al resto del lote.
+     *
+     * @param input El cuerpo NDJSON de la petición.
+     * @param principal El usuario que realiza la importación.
+     * @return SaleImportResDTO el número de ventas importadas y descartadas.
+     * @throws IOException si ocurre un error de lectura.
+     */
+    public SaleImportResDTO importSales(InputStream input, User principal) throws IOException {
+
+        int batchSize = properties.getIngest().getBatchSize();
+        User user = transactionTemplate.execute(status -> resolveUser(principal));
+        long imported = 0;
+        long rejected = 0;
+
+        BufferedReader reader = new BufferedReader(new InputStreamReader(input, StandardCharsets.UTF_8));
+        List<SaleImportReqDTO> batch = new ArrayList<>(batchSize);
+        String line;
+        while ((line = reader.readLine()) != null) {
+            if (line.isBlank()) continue;
+            SaleImportReqDTO request;
+            try {
+                request = jsonMapper.readValue(line, SaleImportReqDTO.class);
+            } catch (JacksonException e) {
+                log.warn("Venta descartada, linea NDJSON invalida: {}", e.getOriginalMessage());
+                rejected++;
+                continue;
+            }
+            // La línea "null" es JSON válido pero no es una venta
+            if (request == null) {
+                log.warn("Venta descartada, linea NDJSON sin venta");
+                rejected++;
+                continue;
+            }
+            batch.add(request);
+
+            if (batch.size() == batchSize) {
+                int persisted = persistBatch(batch, user);
+                imported += persisted;
+                rejected += batch.size() - persisted;
+                batch.clear();
+            }
+        }
+        if (!batch.isEmpty()) {
+            int persisted = persistBatch(batch, user);
+            imported += persisted;
+            rejected += batch.size() - persisted;
+        }
+
+        return new SaleImportResDTO(imported, rejected);
+    }
+
+    /**
+     * Registra en la transacción actual ventas cuyo stock ya se ha descontado (reservas confirmadas),
+     * con una sola consulta de precios para todo el lote.
+     *
+     * @param drafts Las ventas a registrar.
+     * @return List los ids de las ventas, en el mismo orden que los borradores.
+     * @throws ProductNotFoundException si algún producto ya no existe.
+     */
+    @Transactional(propagation = Propagation.MANDATORY)
+    public List<Long> recordSales(List<SaleDraft> drafts) {
+        Set<Long> productIds = new HashSet<>();
+        drafts.forEach(draft -> productIds.addAll(draft.quantities().keySet()));
+        Map<Long, ProductPriceView> products = loadProducts(productIds);
+        if (!products.keySet().containsAll(productIds)) {
+            throw new ProductNotFoundException("Error: Product not found in reserved sale");
+        }
+
+        List<Long> saleIds = new ArrayList<>(drafts.size());
+        List<SalesRecordedEvent.SaleFact> facts = new ArrayList<>();
+        for (SaleDraft draft : drafts) {
+            Sale sale = Sale.builder()
+                    .date(LocalDateTime.now())
+                    .user(draft.userId() == null ? null : userRepository.getReferenceById(draft.userId()))
+                    .build();
+            entityManager.persist(sale);
+            PricedSale priced = buildDetails(sale, draft.quantities(), products);
+            priced.details().forEach(entityManager::persist);
+            facts.addAll(toFacts(sale, priced, products));
+            saleIds.add(sale.getId());
+        }
+        eventPublisher.publishEvent(new StockChangedEvent(productIds));
+        eventPublisher.publishEvent(new SalesRecordedEvent(facts));
+        return saleIds;
+    }
+
+    /**
+     * Persiste un lote de ventas en una transacción y libera el contexto de persistencia al terminar.
+     *
+     * @return int el número de ventas persistidas.
+     */
+    private int persistBatch(List<SaleImportReqDTO> batch, User user) {
+        Integer persisted = transactionTemplate.execute(status -> {
+
+            // Precios de todos los productos del lote con una sola consulta
+            Set<Long> productIds = new HashSet<>();
+            batch.forEach(sale -> {
+                if (sale.items() == null) return;
+                sale.items().forEach(item -> {
+                    if (item != null) productIds.add(item.productId());
+                });
+            });
+            productIds.remove(null);
+            Map<Long, ProductPriceView> products = loadProducts(productIds);
+
+            // Las ventas con fecha pasada no deben caer en la partición por defecto
+            LocalDateTime now = LocalDateTime.now();
+            partitionService.createPastMonths(batch.stream()
+                    .map(SaleImportReqDTO::date)
+                    .filter(date -> date != null && partitionService.accepts(date, now))
+                    .toList());
+
+            int count = 0;
+            Set<Long> changedProducts = new HashSet<>();
+            List<SalesRecordedEvent.SaleFact> facts = new ArrayList<>();
+            for (SaleImportReqDTO request : batch) {
+                Map<Long, Integer> quantities;
+                try {
+                    quantities = mergeLines(request.items());
+                } catch (IllegalArgumentException e) {
+                    continue;
+                }
+                if ((request.date() != null && !partitionService.accepts(request.date(), now))
+                        || !products.keySet().containsAll(quantities.keySet())
+                        || !stockService.decrementAll(quantities)) {
+                    continue;
+                }
+
+                Sale sale = Sale.builder()
+                        .date(request.date() == null ? now : request.date())
+                        .user(user)
+                        .build();
+                entityManager.persist(sale);
+                PricedSale priced = buildDetails(sale, quantities, products);
+                priced.details().forEach(entityManager::persist);
+                facts.addAll(toFacts(sale, priced, products));
+                changedProducts.addAll(quantities.keySet());
+                count++;
+            }
+            if (!changedProducts.isEmpty()) {
+                eventPublisher.publishEvent(new StockChangedEvent(changedProducts));
+                eventPublisher.publishEvent(new SalesRecordedEvent(facts));
+            }
+
+            // Las inserciones pendientes se envían en lotes JDBC y se vacía el contexto
+            entityManager.flush();
+            entityManager.clear();
+            return count;
+        });
+        return persisted == null ? 0 : persisted;
+    }
+
+    /**
+     * Valida las líneas y agrupa las cantidades por producto, ordenadas por id.
+     */
+    static Map<Long, Integer> mergeLines(List<SaleItemReqDTO> items) {
+        if (items == null || items.isEmpty()) {
+            throw new IllegalArgumentException("Error: A sale needs at least one item");
+        }
+
+        Map<Long, Integer> quantities = new TreeMap<>();
+        for (SaleItemReqDTO item : items) {
+            if (item == null || item.productId() == null || item.quantity() == null || item.quantity() <= 0) {
+                throw new IllegalArgumentException("Error: Each item needs a product and a positive quantity");
+            }
+            quantities.merge(item.productId(), item.quantity(), Integer::sum);
+        }
+        return quantities;
+    }
+
+    /**
+     * Carga precio y categoría de los productos indicados con una sola consulta.
+     */
+    private Map<Long, ProductPriceView> loadProducts(Set<Long> productIds) {
+        return productRepository.findPricesByIdIn(productIds).stream()
+                .collect(Collectors.toMap(ProductPriceView::getId, Function.identity()));
+    }
+
+    /**
+     * Construye las líneas de la venta y calcula sus importes en céntimos con {@link PricingEngine};
+     * los importes solo se convierten a BigDecimal y Double al asignarlos a las entidades.
+     */
+    private PricedSale buildDetails(Sale sale, Map<Long, Integer> quantities,
+                                    Map<Long, ProductPriceView> products) {
+        int lines = quantities.size();
+        long[] unitPrices = new long[lines];
+        int[] units = new int[lines];
+        long[] lineTotals = new long[lines];
+        int i = 0;
+        for (Map.Entry<Long, Integer> line : quantities.entrySet()) {
+            unitPrices[i] = Money.toMinor(products.get(line.getKey()).getPrice());
+            units[i] = line.getValue();
+            i++;
+        }
+        BasketTotals totals = PricingEngine.price(unitPrices, units, lines, lineTotals, 0, 0);
+
+        List<SaleDetail> details = new ArrayList<>(lines);
+        i = 0;
+        for (Long productId : quantities.keySet()) {
+            details.add(SaleDetail.builder()
+                    .quantity(units[i])
+                    .unitPrice(Money.toDecimal(unitPrices[i]))
+                    .totalPrice(Money.toDecimal(lineTotals[i]))
+                    .product(productRepository.getReferenceById(productId))
+                    .sale(sale)
+                    .saleDate(sale.getDate())
+                    .build());
+            i++;
+        }
+        sale.setTotalAmount(Money.toDouble(totals.total()));
+        return new PricedSale(details, lineTotals);
+    }
+
+    /**
+     * Convierte las líneas de una venta en hechos para los agregados de ventas.
+     */
+    private List<SalesRecordedEvent.SaleFact> toFacts(Sale sale, PricedSale priced,
+                                                      Map<Long, ProductPriceView> products) {
+        List<SalesRecordedEvent.SaleFact> facts = new ArrayList<>(priced.details().size());
+        for (int i = 0; i < priced.details().size(); i++) {
+            SaleDetail detail = priced.details().get(i);
+            facts.add(new SalesRecordedEvent.SaleFact(
+                    sale.getId(),
+                    sale.getDate().toLocalDate(),
+                    detail.getProduct().getId(),
+                    products.get(detail.getProduct().getId()).getCategoryId(),
+                    detail.getQuantity(),
+                    priced.lineTotals()[i]));
+        }
+        return facts;
+    }
+
+    /**
+     * Obtiene una referencia al usuario sin cargarlo cuando el id viene en el token.
+     */
+    private User resolveUser(User principal) {
+        if (principal == null) return null;
+        if (principal.getId() != null) return userRepository.getReferenceById(principal.getId());
+
+        return userRepository.findByUsername(principal.getUsername())
+                .orElseThrow(() -> new UserNotFoundException("User not found"));
+    }
+
+    private SaleResDTO toResponse(Sale sale, List<SaleDetail> details) {
+        List<SaleItemResDTO> items = details.stream()
+                .map(detail -> new SaleItemResDTO(
+                        detail.getProduct().getId(),
+                        detail.getQuantity(),
+                        detail.getUnitPrice(),
+                        detail.getTotalPrice()))
+                .toList();
+        return new SaleResDTO(sale.getId(), sale.getDate(), sale.getTotalAmount(), items);
+    }
+}
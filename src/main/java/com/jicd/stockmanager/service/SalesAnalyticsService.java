@@ -0,0 +1,208 @@
+package com.jicd.stockmanager.service;
+
+import com.jicd.stockmanager.analytics.SalesColumnStore;
+import com.jicd.stockmanager.analytics.SalesSnapshot;
+import com.jicd.stockmanager.configs.SaleProperties;
+import com.jicd.stockmanager.dto.CategoryTopProductsDTO;
+import com.jicd.stockmanager.dto.ProductSalesDTO;
+import com.jicd.stockmanager.dto.SalesBucketDTO;
+import com.jicd.stockmanager.exceptions.AnalyticsUnavailableException;
+import com.jicd.stockmanager.pricing.Money;
+import com.jicd.stockmanager.repository.DailyProductSalesRepository;
+import com.jicd.stockmanager.repository.ProductRepository;
+import com.jicd.stockmanager.repository.projection.ProductCategoryView;
+import com.jicd.stockmanager.repository.projection.ProductDaySalesView;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDate;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.stream.Stream;
+
+/**
+ * Analítica de ventas en memoria: top-N de productos, los que menos rotan y series por día, semana
+ * o mes, respondidas desde una instantánea por columnas (SalesColumnStore) sin consultar la BD.
+ * La instantánea se carga de los agregados diarios por producto (SaleDetail ya agrupado por día y
+ * producto, con muchas menos filas) y se refresca de forma incremental: cada minuto solo se releen
+ * los días recientes y los días que se cierran pasan al histórico. La recarga completa nocturna
+ * recoge los cambios de catálogo y los agregados reconstruidos.
+ */
+@Service
+@Slf4j
+public class SalesAnalyticsService {
+
+    static final String ROWS_GAUGE = "sales.analytics.rows";
+    static final String QUERY_TIMER = "sales.analytics.query";
+    private static final int MAX_LIMIT = 1000;
+
+    private final DailyProductSalesRepository salesRepository;
+    private final ProductRepository productRepository;
+    private final SaleProperties.Analytics properties;
+    private final ForkJoinPool pool;
+
+    private final Timer topTimer;
+    private final Timer topByCategoryTimer;
+    private final Timer seriesTimer;
+
+    // Solo lo modifican reload y refresh (sincronizados); null si hay que recargar
+    private SalesColumnStore store;
+    // null hasta la primera carga
+    private volatile SalesSnapshot snapshot;
+
+    public SalesAnalyticsService(DailyProductSalesRepository salesRepository, ProductRepository productRepository,
+                                 SaleProperties saleProperties, MeterRegistry meterRegistry) {
+        this.salesRepository = salesRepository;
+        this.productRepository = productRepository;
+        this.properties = saleProperties.getAnalytics();
+        this.pool = new ForkJoinPool(properties.getParallelism() > 0
+                ? properties.getParallelism() : Runtime.getRuntime().availableProcessors());
+
+        this.topTimer = queryTimer(meterRegistry, "top");
+        this.topByCategoryTimer = queryTimer(meterRegistry, "top-by-category");
+        this.seriesTimer = queryTimer(meterRegistry, "series");
+        Gauge.builder(ROWS_GAUGE, this, service -> {
+                    SalesSnapshot current = service.snapshot;
+                    return current == null ? Double.NaN : current.rows();
+                })
+                .description("Filas (producto y día) de la instantánea de analítica de ventas")
+                .register(meterRegistry);
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        pool.shutdown();
+    }
+
+    /**
+     * Construye una instantánea nueva: el catálogo con su categoría actual y los agregados diarios
+     * de los últimos retention-days, recorridos en streaming.
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    @Scheduled(cron = "${app.sales.analytics.reload-cron:0 30 3 * * *}")
+    @Transactional(readOnly = true)
+    public synchronized void reload() {
+        long startedAt = System.currentTimeMillis();
+        LocalDate today = LocalDate.now();
+        LocalDate firstDay = today.minusDays(properties.getRetentionDays() - 1L);
+        SalesColumnStore next = new SalesColumnStore(firstDay, recentFrom(today));
+
+        try (Stream<ProductCategoryView> products = productRepository.streamCategories()) {
+            products.forEach(product -> next.list(product.getId(), product.getCategoryId()));
+        }
+        load(next, firstDay);
+
+        store = next;
+        snapshot = next.snapshot();
+        log.info("Instantanea de analitica de ventas cargada: {} filas desde {} en {} ms",
+                next.rows(), firstDay, System.currentTimeMillis() - startedAt);
+    }
+
+    /**
+     * Relee los días recientes. Si ha cambiado el día, los que dejan de ser recientes se añaden al
+     * histórico con sus datos definitivos. Tras un fallo se recarga todo en la siguiente ejecución,
+     * porque el histórico puede haber quedado a medias; la instantánea publicada no se ve afectada.
+     */
+    @Scheduled(fixedDelayString = "${app.sales.analytics.refresh-interval:60000}",
+            initialDelayString = "${app.sales.analytics.refresh-interval:60000}")
+    @Transactional(readOnly = true)
+    public synchronized void refresh() {
+        SalesColumnStore current = store;
+        if (current == null) {
+            reload();
+            return;
+        }
+
+        LocalDate previous = current.recentFrom();
+        LocalDate next = recentFrom(LocalDate.now());
+        store = null;
+        current.startRecent(next.isAfter(previous) ? next : previous);
+        load(current, previous);
+        store = current;
+        snapshot = current.snapshot();
+    }
+
+    /**
+     * @param categoryId La categoría, o null para todas.
+     * @param ascending true para los productos que menos venden, incluidos los que no tienen ventas.
+     * @return List los productos ordenados por la métrica.
+     */
+    public List<ProductSalesDTO> topProducts(LocalDate from, LocalDate to, Long categoryId,
+                                             SalesSnapshot.Metric metric, boolean ascending, int limit) {
+        SalesSnapshot current = current(from, to, limit);
+        return topTimer.record(() -> current.top(from, to, categoryId, metric, ascending, limit, pool).stream()
+                .map(SalesAnalyticsService::toDto)
+                .toList());
+    }
+
+    /**
+     * @return List los productos más vendidos de cada categoría, en orden de categoría.
+     */
+    public List<CategoryTopProductsDTO> topProductsByCategory(LocalDate from, LocalDate to,
+                                                              SalesSnapshot.Metric metric, int limit) {
+        SalesSnapshot current = current(from, to, limit);
+        return topByCategoryTimer.record(() -> current.topByCategory(from, to, metric, limit, pool).entrySet().stream()
+                .map(entry -> new CategoryTopProductsDTO(entry.getKey(),
+                        entry.getValue().stream().map(SalesAnalyticsService::toDto).toList()))
+                .toList());
+    }
+
+    /**
+     * @param categoryId La categoría, o null para todas.
+     * @param productId El producto, o null para todos.
+     * @return List las unidades e ingresos por intervalo.
+     */
+    public List<SalesBucketDTO> series(LocalDate from, LocalDate to, SalesSnapshot.Bucket bucket,
+                                       Long categoryId, Long productId) {
+        SalesSnapshot current = current(from, to, 1);
+        return seriesTimer.record(() -> current.series(from, to, bucket, categoryId, productId, pool).stream()
+                .map(total -> new SalesBucketDTO(total.start(), total.units(), Money.toDecimal(total.revenueMinor())))
+                .toList());
+    }
+
+    private void load(SalesColumnStore target, LocalDate from) {
+        try (Stream<ProductDaySalesView> days = salesRepository.streamSalesFrom(from)) {
+            days.forEach(day -> target.add(day.getDay(), day.getProductId(), day.getCategoryId(),
+                    day.getUnits(), Money.toMinor(day.getRevenue())));
+        }
+    }
+
+    private LocalDate recentFrom(LocalDate today) {
+        return today.minusDays(Math.max(properties.getRecentDays(), 1) - 1L);
+    }
+
+    private SalesSnapshot current(LocalDate from, LocalDate to, int limit) {
+        SalesSnapshot current = snapshot;
+        if (current == null) throw new AnalyticsUnavailableException("Error: Sales analytics are loading");
+        if (limit > MAX_LIMIT) throw new IllegalArgumentException("Error: limit must not exceed " + MAX_LIMIT);
+        if (from == null || to == null) throw new IllegalArgumentException("Error: Invalid date range");
+        if (from.isBefore(current.firstDay())) {
+            throw new IllegalArgumentException("Error: Sales analytics start on " + current.firstDay());
+        }
+        // Fuera de la instantánea no hay datos: se evita dimensionar series para rangos absurdos
+        if (from.plusDays(properties.getRetentionDays()).isBefore(to)) {
+            throw new IllegalArgumentException("Error: Invalid date range");
+        }
+        return current;
+    }
+
+    private static ProductSalesDTO toDto(SalesSnapshot.ProductTotal total) {
+        return new ProductSalesDTO(total.productId(), total.categoryId(), total.units(),
+                Money.toDecimal(total.revenueMinor()));
+    }
+
+    private static Timer queryTimer(MeterRegistry meterRegistry, String query) {
+        return Timer.builder(QUERY_TIMER)
+                .description("Duración de las consultas de analítica de ventas en memoria")
+                .tag("query", query)
+                .register(meterRegistry);
+    }
+}
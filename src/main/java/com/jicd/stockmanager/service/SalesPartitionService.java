@@ -0,0 +1,91 @@
+package com.jicd.stockmanager.service;
+
+import com.jicd.stockmanager.configs.SaleProperties;
+import com.jicd.stockmanager.repository.SaleRepository;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.Set;
+import java.util.TreeSet;
+
+/**
+ * Mantenimiento de las particiones mensuales de sales y sale_detail.
+ * Crea por adelantado las de los próximos meses, para que las ventas nuevas no caigan en la
+ * partición por defecto, y separa las que superan la retención. Las ventas importadas con fecha
+ * pasada crean su mes al vuelo; las anteriores a la retención se rechazan. Los agregados diarios de
+ * ventas no se particionan: los informes siguen cubriendo los meses archivados.
+ */
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class SalesPartitionService {
+
+    private final SaleRepository saleRepository;
+    private final SaleProperties properties;
+
+    @EventListener(ApplicationReadyEvent.class)
+    @Scheduled(fixedDelayString = "${app.sales.partitions.maintenance-interval:86400000}",
+            initialDelayString = "${app.sales.partitions.maintenance-interval:86400000}")
+    @Transactional
+    public void maintain() {
+        SaleProperties.Partitions config = properties.getPartitions();
+        LocalDate currentMonth = LocalDate.now().withDayOfMonth(1);
+
+        int created = saleRepository.createPartitions(currentMonth, config.getPremakeMonths() + 1);
+        if (created > 0) log.info("Particiones de ventas creadas: {} meses desde {}", created, currentMonth);
+
+        LocalDate cutoff = firstRetainedDay();
+        if (cutoff == null) return;
+        int detached = saleRepository.detachPartitionsBefore(cutoff,
+                config.getRetentionAction() == SaleProperties.RetentionAction.DROP);
+        if (detached > 0) {
+            log.info("Particiones de ventas anteriores a {} separadas ({}): {} meses",
+                    cutoff, config.getRetentionAction(), detached);
+        }
+    }
+
+    /**
+     * @param date La fecha de una venta importada.
+     * @param now El instante actual.
+     * @return boolean true si la fecha no es futura ni anterior a la retención.
+     */
+    public boolean accepts(LocalDateTime date, LocalDateTime now) {
+        LocalDate firstRetained = firstRetainedDay();
+        return !date.isAfter(now) && (firstRetained == null || !date.toLocalDate().isBefore(firstRetained));
+    }
+
+    /**
+     * Crea en la transacción actual las particiones que falten de los meses anteriores al actual en
+     * los que caen ventas importadas; los meses siguientes ya se crean por adelantado.
+     *
+     * @param dates Las fechas de las ventas.
+     */
+    @Transactional(propagation = Propagation.MANDATORY)
+    public void createPastMonths(Collection<LocalDateTime> dates) {
+        LocalDate currentMonth = LocalDate.now().withDayOfMonth(1);
+        Set<LocalDate> months = new TreeSet<>();
+        dates.forEach(date -> {
+            LocalDate month = date.toLocalDate().withDayOfMonth(1);
+            if (month.isBefore(currentMonth)) months.add(month);
+        });
+        months.forEach(month -> saleRepository.createPartitions(month, 1));
+    }
+
+    /**
+     * @return LocalDate el primer día cuyo detalle de ventas se conserva, o null si no hay retención.
+     */
+    public LocalDate firstRetainedDay() {
+        int retentionMonths = properties.getPartitions().getRetentionMonths();
+        if (retentionMonths <= 0) return null;
+        return LocalDate.now().withDayOfMonth(1).minusMonths(retentionMonths);
+    }
+}
@@ -0,0 +1,238 @@
+package com.jicd.stockmanager.service;
+
+import com.jicd.stockmanager.dto.CategoryRevenueDTO;
+import com.jicd.stockmanager.dto.DailyRevenueDTO;
+import com.jicd.stockmanager.dto.ProductRevenueDTO;
+import com.jicd.stockmanager.event.SalesRecordedEvent;
+import com.jicd.stockmanager.pricing.Money;
+import com.jicd.stockmanager.repository.DailyCategorySalesRepository;
+import com.jicd.stockmanager.repository.DailyProductSalesRepository;
+import jakarta.annotation.PreDestroy;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.data.domain.Limit;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.event.TransactionPhase;
+import org.springframework.transaction.event.TransactionalEventListener;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDate;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.Predicate;
+
+/**
+ * Agregados diarios de ventas por producto y por categoría.
+ * Las ventas confirmadas se acumulan en memoria y se vuelcan periódicamente con un upsert por
+ * clave (día, producto) y (día, categoría): así los agregados están al día con un retraso de
+ * segundos sin que cada venta compita por la misma fila de agregado. Los informes leen solo
+ * estas tablas, por lo que su coste no depende del volumen de SaleDetail.
+ * Cada venta acumula sus líneas sin soltar 'recording' desde antes de su commit hasta después: así
+ * una reconstrucción, que toma el cerrojo en exclusiva, sabe que todo lo pendiente pertenece a ventas
+ * ya confirmadas y que ninguna se confirma mientras fija la foto de la que recalcula.
+ */
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class SalesRollupService {
+
+    // Categoría usada para los productos sin categoría
+    static final long NO_CATEGORY = 0L;
+    private static final int MAX_REPORT_DAYS = 366 * 5;
+
+    private final DailyProductSalesRepository productRollupRepository;
+    private final DailyCategorySalesRepository categoryRollupRepository;
+    private final SalesPartitionService partitionService;
+    private final TransactionTemplate transactionTemplate;
+
+    private final Map<ProductDay, Aggregate> pendingProducts = new ConcurrentHashMap<>();
+    private final Map<CategoryDay, Aggregate> pendingCategories = new ConcurrentHashMap<>();
+    private final ReentrantReadWriteLock recording = new ReentrantReadWriteLock();
+
+    private record ProductDay(LocalDate day, Long productId, Long categoryId) {
+    }
+
+    private record CategoryDay(LocalDate day, Long categoryId) {
+    }
+
+    // Ingresos en céntimos: se acumulan sin crear BigDecimal y se convierten al volcar
+    private record Aggregate(long units, long revenue, long saleCount) {
+        Aggregate plus(Aggregate other) {
+            return new Aggregate(units + other.units, revenue + other.revenue, saleCount + other.saleCount);
+        }
+    }
+
+    /**
+     * Acumula las ventas en los agregados pendientes de volcar cuando su transacción se confirma.
+     *
+     * @param event Las líneas de las ventas registradas.
+     */
+    @TransactionalEventListener(phase = TransactionPhase.BEFORE_COMMIT)
+    public void onSalesRecorded(SalesRecordedEvent event) {
+        recording.readLock().lock();
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCompletion(int status) {
+                try {
+                    if (status == STATUS_COMMITTED) accumulate(event);
+                } finally {
+                    recording.readLock().unlock();
+                }
+            }
+        });
+    }
+
+    private void accumulate(SalesRecordedEvent event) {
+        // Cada venta cuenta una sola vez por categoría aunque tenga varios productos de la misma
+        Map<CategoryDay, Set<Long>> salesByCategory = new HashMap<>();
+
+        for (SalesRecordedEvent.SaleFact fact : event.facts()) {
+            Long categoryId = fact.categoryId() == null ? NO_CATEGORY : fact.categoryId();
+            long amount = fact.amountMinor();
+
+            pendingProducts.merge(new ProductDay(fact.day(), fact.productId(), fact.categoryId()),
+                    new Aggregate(fact.quantity(), amount, 1), Aggregate::plus);
+
+            CategoryDay categoryDay = new CategoryDay(fact.day(), categoryId);
+            boolean firstLineOfSale = salesByCategory.computeIfAbsent(categoryDay, key -> new HashSet<>())
+                    .add(fact.saleId());
+            pendingCategories.merge(categoryDay,
+                    new Aggregate(fact.quantity(), amount, firstLineOfSale ? 1 : 0), Aggregate::plus);
+        }
+    }
+
+    /**
+     * Vuelca los agregados pendientes en una transacción. Si el volcado falla, los valores
+     * se devuelven a la cola para el siguiente intento.
+     */
+    @Scheduled(fixedDelayString = "${app.reports.rollup-flush-interval:1000}")
+    @PreDestroy
+    public synchronized void flush() {
+        Map<ProductDay, Aggregate> products = drain(pendingProducts);
+        Map<CategoryDay, Aggregate> categories = drain(pendingCategories);
+        if (products.isEmpty() && categories.isEmpty()) return;
+
+        try {
+            transactionTemplate.executeWithoutResult(status -> {
+                products.forEach((key, value) -> productRollupRepository.upsert(
+                        key.day(), key.productId(), key.categoryId(), value.units(), Money.toDecimal(value.revenue()),
+                        value.saleCount()));
+                categories.forEach((key, value) -> categoryRollupRepository.upsert(
+                        key.day(), key.categoryId(), value.units(), Money.toDecimal(value.revenue()), value.saleCount()));
+            });
+        } catch (RuntimeException e) {
+            log.error("No se pudieron volcar los agregados de ventas, se reintentara: {}", e.getMessage());
+            products.forEach((key, value) -> pendingProducts.merge(key, value, Aggregate::plus));
+            categories.forEach((key, value) -> pendingCategories.merge(key, value, Aggregate::plus));
+        }
+    }
+
+    /**
+     * Recalcula los agregados de un rango de días a partir del detalle de ventas (backfill).
+     * Sin ventas confirmándose, se fija la foto de una transacción REPEATABLE READ con una sentencia
+     * trivial y se descarta lo pendiente del rango (ya está en el detalle); los borrados y el recálculo
+     * se hacen ya sin el cerrojo. Las ventas confirmadas después no están en esa foto
+     * y se vuelcan sobre los agregados reconstruidos. No se ejecuta a la vez que un volcado.
+     *
+     * @param from El primer día (incluido).
+     * @param to El último día (incluido).
+     * @return String mensaje de confirmación.
+     */
+    public synchronized String rebuild(LocalDate from, LocalDate to) {
+        validateRange(from, to);
+        // Sin el detalle de los meses archivados, reconstruirlos borraría sus agregados
+        LocalDate firstRetained = partitionService.firstRetainedDay();
+        if (firstRetained != null && from.isBefore(firstRetained)) {
+            throw new IllegalArgumentException("Error: Sales before " + firstRetained + " are archived");
+        }
+
+        TransactionTemplate snapshotTransaction = new TransactionTemplate(transactionTemplate.getTransactionManager());
+        snapshotTransaction.setIsolationLevel(TransactionDefinition.ISOLATION_REPEATABLE_READ);
+        Map<ProductDay, Aggregate> discardedProducts = new HashMap<>();
+        Map<CategoryDay, Aggregate> discardedCategories = new HashMap<>();
+        ReentrantReadWriteLock.WriteLock exclusive = recording.writeLock();
+        exclusive.lock();
+        try {
+            int[] rows = snapshotTransaction.execute(status -> {
+                categoryRollupRepository.takeSnapshot();
+                // La primera sentencia ha fijado la foto: lo pendiente del rango ya está en ella
+                drainRange(pendingProducts, discardedProducts, key -> within(key.day(), from, to));
+                drainRange(pendingCategories, discardedCategories, key -> within(key.day(), from, to));
+                exclusive.unlock();
+
+                // Fuera del cerrojo: un volcado no puede solaparse (synchronized) y las ventas ya no esperan
+                productRollupRepository.deleteByDayBetween(from, to);
+                categoryRollupRepository.deleteByDayBetween(from, to);
+                return new int[]{
+                        productRollupRepository.rebuild(from.atStartOfDay(), to.plusDays(1).atStartOfDay()),
+                        categoryRollupRepository.rebuild(from.atStartOfDay(), to.plusDays(1).atStartOfDay())};
+            });
+            log.info("Agregados reconstruidos entre {} y {}: {} por producto, {} por categoria",
+                    from, to, rows[0], rows[1]);
+        } catch (RuntimeException e) {
+            // Los agregados no han cambiado: lo descartado vuelve a la cola
+            discardedProducts.forEach((key, value) -> pendingProducts.merge(key, value, Aggregate::plus));
+            discardedCategories.forEach((key, value) -> pendingCategories.merge(key, value, Aggregate::plus));
+            throw e;
+        } finally {
+            if (exclusive.isHeldByCurrentThread()) exclusive.unlock();
+        }
+        return "Rollups rebuilt successfully";
+    }
+
+    @Transactional(readOnly = true)
+    public List<CategoryRevenueDTO> revenueByCategory(LocalDate from, LocalDate to) {
+        validateRange(from, to);
+        return categoryRollupRepository.sumByCategory(from, to);
+    }
+
+    @Transactional(readOnly = true)
+    public List<ProductRevenueDTO> revenueByProduct(LocalDate from, LocalDate to, int limit) {
+        validateRange(from, to);
+        if (limit <= 0) throw new IllegalArgumentException("Error: limit must be positive");
+        return productRollupRepository.sumByProduct(from, to, Limit.of(limit));
+    }
+
+    @Transactional(readOnly = true)
+    public List<DailyRevenueDTO> revenueByDay(LocalDate from, LocalDate to) {
+        validateRange(from, to);
+        return categoryRollupRepository.sumByDay(from, to);
+    }
+
+    private static <K> Map<K, Aggregate> drain(Map<K, Aggregate> pending) {
+        Map<K, Aggregate> drained = new HashMap<>();
+        for (K key : pending.keySet()) {
+            Aggregate value = pending.remove(key);
+            if (value != null) drained.put(key, value);
+        }
+        return drained;
+    }
+
+    private static <K> void drainRange(Map<K, Aggregate> pending, Map<K, Aggregate> drained, Predicate<K> inRange) {
+        for (K key : pending.keySet()) {
+            if (!inRange.test(key)) continue;
+            Aggregate value = pending.remove(key);
+            if (value != null) drained.put(key, value);
+        }
+    }
+
+    private static boolean within(LocalDate day, LocalDate from, LocalDate to) {
+        return !day.isBefore(from) && !day.isAfter(to);
+    }
+
+    private static void validateRange(LocalDate from, LocalDate to) {
+        if (from == null || to == null || to.isBefore(from) || from.plusDays(MAX_REPORT_DAYS).isBefore(to)) {
+            throw new IllegalArgumentException("Error: Invalid date range");
+        }
+    }
+}
@@ -0,0 +1,316 @@
+package com.jicd.stockmanager.service;
+
+import com.jicd.stockmanager.dto.StockShardsDTO;
+import com.jicd.stockmanager.event.StockChangedEvent;
+import com.jicd.stockmanager.exceptions.ProductNotFoundException;
+import com.jicd.stockmanager.model.Product;
+import com.jicd.stockmanager.model.ProductStockShard;
+import com.jicd.stockmanager.model.ProductStockShardId;
+import com.jicd.stockmanager.repository.ProductRepository;
+import com.jicd.stockmanager.repository.ProductStockShardRepository;
+import com.jicd.stockmanager.repository.projection.ProductQuantityView;
+import com.jicd.stockmanager.repository.projection.ProductStockView;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * Stock repartido en slots para productos muy demandados (modo opcional por producto).
+ * Cada venta descuenta de un slot aleatorio con un UPDATE condicional que salta los slots bloqueados
+ * por otras transacciones y prueba los vecinos; solo si ningún slot tiene la cantidad completa se
+ * bloquean todos y se reparte el descuento. La columna de stock del producto se sincroniza
+ * periódicamente con la suma de sus slots para las lecturas (catálogo, stock bajo, reservas).
+ */
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class ShardedStockService {
+
+    static final int MAX_SLOTS = 64;
+
+    private final ProductStockShardRepository shardRepository;
+    private final ProductRepository productRepository;
+    private final ApplicationEventPublisher eventPublisher;
+
+    // Productos repartidos y su número de slots; la columna del producto es la fuente de verdad
+    private final Map<Long, Integer> slotCounts = new ConcurrentHashMap<>();
+
+    /**
+     * Resultado de una operación sobre los slots.
+     */
+    public enum Outcome {
+        APPLIED,
+        INSUFFICIENT,
+        // El producto ya no está repartido: se debe operar sobre la columna del producto
+        NOT_SHARDED
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    @Transactional(readOnly = true)
+    public void load() {
+        slotCounts.clear();
+        productRepository.findShardCounts()
+                .forEach(view -> slotCounts.put(view.getProductId(), view.getQuantity().intValue()));
+        log.info("Productos con stock repartido en slots: {}", slotCounts.size());
+    }
+
+    /**
+     * @param productId El id del producto.
+     * @return boolean true si el producto está repartido según la vista local.
+     */
+    public boolean isSharded(Long productId) {
+        return slotCounts.containsKey(productId);
+    }
+
+    /**
+     * Relee de la BD si el producto está repartido (p. ej. cuando se repartió desde otro nodo).
+     *
+     * @param productId El id del producto.
+     * @return boolean true si el producto está repartido.
+     */
+    public boolean refresh(Long productId) {
+        return productRepository.findStockShardsById(productId)
+                .map(slots -> {
+                    slotCounts.put(productId, slots);
+                    return true;
+                })
+                .orElseGet(() -> {
+                    slotCounts.remove(productId);
+                    return false;
+                });
+    }
+
+    /**
+     * Descuenta stock de los slots de un producto.
+     * Con stock reservado pendiente se usa siempre el camino con bloqueo, que comprueba el total exacto.
+     *
+     * @param productId El id del producto.
+     * @param quantity La cantidad a descontar.
+     * @param reserved El stock reservado que no se puede consumir.
+     * @return Outcome el resultado del descuento.
+     */
+    @Transactional(propagation = Propagation.MANDATORY)
+    public Outcome decrement(Long productId, int quantity, long reserved) {
+        Integer slots = slotCounts.get(productId);
+        if (slots == null) return Outcome.NOT_SHARDED;
+
+        if (reserved == 0) {
+            int start = ThreadLocalRandom.current().nextInt(slots);
+            for (int i = 0; i < slots; i++) {
+                if (shardRepository.tryDecrementSlot(productId, (start + i) % slots, quantity) == 1) {
+                    return Outcome.APPLIED;
+                }
+            }
+            // Todos los slots con cantidad suficiente estaban ocupados: segunda vuelta esperando
+            for (int i = 0; i < slots; i++) {
+                if (shardRepository.decrementSlot(productId, (start + i) % slots, quantity) == 1) {
+                    return Outcome.APPLIED;
+                }
+            }
+        }
+        return drain(productId, quantity, reserved);
+    }
+
+    /**
+     * Repone stock en un slot aleatorio.
+     *
+     * @param productId El id del producto.
+     * @param quantity La cantidad a reponer.
+     * @return Outcome APPLIED o NOT_SHARDED si el producto ya no está repartido.
+     */
+    @Transactional(propagation = Propagation.MANDATORY)
+    public Outcome increment(Long productId, int quantity) {
+        Integer slots = slotCounts.get(productId);
+        if (slots == null) return Outcome.NOT_SHARDED;
+
+        int slot = ThreadLocalRandom.current().nextInt(slots);
+        if (shardRepository.incrementSlot(productId, slot, quantity) == 1) return Outcome.APPLIED;
+
+        slotCounts.remove(productId);
+        return Outcome.NOT_SHARDED;
+    }
+
+    /**
+     * Reparte el stock de un producto en 'slots' slots, o redistribuye a partes iguales si ya estaba
+     * repartido (rebalanceo en línea, con el nuevo número de slots).
+     *
+     * @param productId El id del producto.
+     * @param slots El número de slots (2..64).
+     * @return StockShardsDTO el reparto resultante.
+     * @throws ProductNotFoundException si el producto no existe.
+     */
+    @Transactional
+    public StockShardsDTO shard(Long productId, int slots) {
+        if (slots < 2 || slots > MAX_SLOTS) {
+            throw new IllegalArgumentException("Error: Slots must be between 2 and " + MAX_SLOTS);
+        }
+        Product product = lockProduct(productId);
+
+        List<ProductStockShard> existing = product.getStockShards() == null
+                ? List.of()
+                : shardRepository.lockSlots(productId);
+        long total = product.getStockShards() == null
+                ? product.getStockQuantity()
+                : existing.stream().mapToLong(ProductStockShard::getQuantity).sum();
+
+        // Se reutilizan los slots existentes; los que sobran se eliminan y los que faltan se crean
+        if (existing.size() > slots) {
+            shardRepository.deleteAll(existing.subList(slots, existing.size()));
+        }
+        List<ProductStockShard> shards = new ArrayList<>(slots);
+        for (int slot = 0; slot < slots; slot++) {
+            int quantity = (int) (total / slots + (slot < total % slots ? 1 : 0));
+            if (slot < existing.size()) {
+                existing.get(slot).setQuantity(quantity);
+                shards.add(existing.get(slot));
+            } else {
+                shards.add(shardRepository.save(ProductStockShard.builder()
+                        .id(new ProductStockShardId(productId, slot))
+                        .quantity(quantity)
+                        .build()));
+            }
+        }
+        product.setStockShards(slots);
+        product.setStockQuantity(Math.toIntExact(total));
+
+        afterCommit(() -> slotCounts.put(productId, slots));
+        return toDto(productId, shards);
+    }
+
+    /**
+     * Redistribuye el stock de un producto repartido a partes iguales entre sus slots.
+     *
+     * @param productId El id del producto.
+     * @return StockShardsDTO el reparto resultante.
+     */
+    @Transactional
+    public StockShardsDTO rebalance(Long productId) {
+        Integer slots = productRepository.findStockShardsById(productId)
+                .orElseThrow(() -> new IllegalArgumentException("Error: Product " + productId + " is not sharded"));
+        return shard(productId, slots);
+    }
+
+    /**
+     * Vuelve a concentrar el stock de un producto en su columna y elimina sus slots.
+     *
+     * @param productId El id del producto.
+     * @return StockShardsDTO el estado final (sin slots).
+     */
+    @Transactional
+    public StockShardsDTO merge(Long productId) {
+        Product product = lockProduct(productId);
+        if (product.getStockShards() == null) return toDto(productId, List.of());
+
+        long total = shardRepository.lockSlots(productId).stream().mapToLong(ProductStockShard::getQuantity).sum();
+        shardRepository.deleteByProductId(productId);
+        product.setStockShards(null);
+        product.setStockQuantity(Math.toIntExact(total));
+
+        afterCommit(() -> slotCounts.remove(productId));
+        return toDto(productId, List.of());
+    }
+
+    /**
+     * @param productId El id del producto.
+     * @return StockShardsDTO los slots del producto y su suma.
+     */
+    @Transactional(readOnly = true)
+    public StockShardsDTO getShards(Long productId) {
+        if (!productRepository.existsById(productId)) {
+            throw new ProductNotFoundException("Error: Product not found with id: " + productId);
+        }
+        return toDto(productId, shardRepository.findSlots(productId));
+    }
+
+    /**
+     * Actualiza la columna de stock de los productos repartidos con la suma de sus slots y notifica
+     * los que han cambiado. Es el único escritor de esas filas, así que no compite con las ventas.
+     */
+    @Scheduled(fixedDelayString = "${app.stock.shards.sync-interval:1000}")
+    @Transactional
+    public void syncTotals() {
+        List<ProductQuantityView> totals = shardRepository.sumByProduct();
+        if (totals.isEmpty()) return;
+
+        Map<Long, Integer> recorded = new HashMap<>();
+        for (ProductStockView view : productRepository.findStockLevelsByIdIn(
+                totals.stream().map(ProductQuantityView::getProductId).toList())) {
+            recorded.put(view.getId(), view.getStockQuantity());
+        }
+
+        Set<Long> changed = new HashSet<>();
+        for (ProductQuantityView total : totals) {
+            int quantity = total.getQuantity().intValue();
+            if (!Integer.valueOf(quantity).equals(recorded.get(total.getProductId()))
+                    && productRepository.updateShardedStock(total.getProductId(), quantity) == 1) {
+                changed.add(total.getProductId());
+            }
+        }
+        if (!changed.isEmpty()) eventPublisher.publishEvent(new StockChangedEvent(changed));
+    }
+
+    /**
+     * Reparte un descuento entre varios slots con todos ellos bloqueados, empezando por los de más stock.
+     */
+    private Outcome drain(Long productId, int quantity, long reserved) {
+        List<ProductStockShard> shards = shardRepository.lockSlots(productId);
+        if (shards.isEmpty()) {
+            return refresh(productId) ? Outcome.INSUFFICIENT : Outcome.NOT_SHARDED;
+        }
+
+        long total = shards.stream().mapToLong(ProductStockShard::getQuantity).sum();
+        if (total - reserved < quantity) return Outcome.INSUFFICIENT;
+
+        int remaining = quantity;
+        List<ProductStockShard> byQuantity = new ArrayList<>(shards);
+        byQuantity.sort(Comparator.comparing(ProductStockShard::getQuantity).reversed());
+        for (ProductStockShard shard : byQuantity) {
+            int taken = Math.min(remaining, shard.getQuantity());
+            shard.setQuantity(shard.getQuantity() - taken);
+            remaining -= taken;
+            if (remaining == 0) break;
+        }
+        return Outcome.APPLIED;
+    }
+
+    private Product lockProduct(Long productId) {
+        return productRepository.lockById(productId)
+                .orElseThrow(() -> new ProductNotFoundException("Error: Product not found with id: " + productId));
+    }
+
+    /**
+     * La vista local solo cambia si la transacción se confirma.
+     */
+    private static void afterCommit(Runnable action) {
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                action.run();
+            }
+        });
+    }
+
+    private static StockShardsDTO toDto(Long productId, List<ProductStockShard> shards) {
+        List<Integer> quantities = shards.stream().map(ProductStockShard::getQuantity).toList();
+        long total = quantities.stream().mapToLong(Integer::longValue).sum();
+        return new StockShardsDTO(productId, quantities.size(), quantities, total);
+    }
+}
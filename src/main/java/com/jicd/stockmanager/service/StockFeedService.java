@@ -0,0 +1,144 @@
+package com.jicd.stockmanager.service;
+
+import com.jicd.stockmanager.configs.StockFeedProperties;
+import com.jicd.stockmanager.dto.StockUpdateDTO;
+import com.jicd.stockmanager.event.StockChangedEvent;
+import com.jicd.stockmanager.exceptions.StockFeedSaturatedException;
+import com.jicd.stockmanager.feed.StockFeedBus;
+import com.jicd.stockmanager.repository.ProductRepository;
+import com.jicd.stockmanager.repository.projection.ProductStockView;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.event.TransactionalEventListener;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Feed SSE de niveles de stock en vivo, por producto o por categoría.
+ * Los cambios confirmados se acumulan por producto y cada ventana (app.stock.feed.window) se releen
+ * en una única consulta y se reparten por StockFeedBus: una ráfaga de ventas de un producto llega
+ * a los clientes como una sola actualización con el último valor.
+ */
+@Service
+public class StockFeedService {
+
+    static final String SNAPSHOT_EVENT = "snapshot";
+    static final String STOCK_EVENT = "stock";
+    static final String SUBSCRIBERS_GAUGE = "stock.feed.subscribers";
+    static final String DROPPED_COUNTER = "stock.feed.dropped";
+
+    private final ProductRepository productRepository;
+    private final StockFeedProperties properties;
+    private final StockFeedBus bus;
+
+    // Productos modificados desde la última ventana
+    private final Set<Long> changed = ConcurrentHashMap.newKeySet();
+
+    public StockFeedService(ProductRepository productRepository, StockFeedProperties properties,
+                            MeterRegistry meterRegistry) {
+        this.productRepository = productRepository;
+        this.properties = properties;
+        this.bus = new StockFeedBus(properties.getQueueCapacity());
+
+        Gauge.builder(SUBSCRIBERS_GAUGE, bus, StockFeedBus::subscriberCount)
+                .description("Suscriptores conectados al feed de stock")
+                .register(meterRegistry);
+        FunctionCounter.builder(DROPPED_COUNTER, bus, StockFeedBus::droppedCount)
+                .description("Suscriptores del feed de stock dados de baja por no consumir a tiempo")
+                .register(meterRegistry);
+    }
+
+    /**
+     * Registra un suscriptor y le envía el stock actual de los productos suscritos.
+     *
+     * @param productIds Los ids de producto, puede estar vacío.
+     * @param categoryIds Los ids de categoría, puede estar vacío.
+     * @return SseEmitter el emisor asociado al suscriptor.
+     */
+    @Transactional(readOnly = true)
+    public SseEmitter subscribe(Set<Long> productIds, Set<Long> categoryIds) {
+        if (productIds.isEmpty() && categoryIds.isEmpty()) {
+            throw new IllegalArgumentException("Indica al menos un producto o una categoría");
+        }
+        if (productIds.size() + categoryIds.size() > properties.getMaxFilterIds()) {
+            throw new IllegalArgumentException(
+                    "Como máximo " + properties.getMaxFilterIds() + " productos y categorías por suscripción");
+        }
+        if (bus.subscriberCount() >= properties.getMaxSubscribers()) {
+            throw new StockFeedSaturatedException("Feed de stock completo, reintenta más tarde");
+        }
+
+        SseEmitter emitter = new SseEmitter(0L);
+        StockFeedBus.Subscription subscription = bus.subscribe(productIds, categoryIds, new EmitterSink(emitter));
+        emitter.onCompletion(subscription::close);
+        emitter.onTimeout(subscription::close);
+        emitter.onError(e -> subscription.close());
+
+        // Después de suscribirse, para no perder los cambios que se confirmen mientras tanto
+        subscription.snapshot(productRepository.findStockLevelsByIdInOrCategoryIdIn(productIds, categoryIds)
+                .stream()
+                .map(this::toUpdate)
+                .toList());
+        return emitter;
+    }
+
+    /**
+     * Anota los productos modificados una vez confirmada la transacción.
+     *
+     * @param event El evento con los productos modificados.
+     */
+    @TransactionalEventListener
+    public void onStockChanged(StockChangedEvent event) {
+        if (bus.hasSubscribers()) changed.addAll(event.productIds());
+    }
+
+    /**
+     * Relee el stock de los productos modificados en la ventana y lo reparte a los suscriptores.
+     */
+    @Scheduled(fixedDelayString = "${app.stock.feed.window:200}")
+    @Transactional(readOnly = true)
+    public void flush() {
+        if (changed.isEmpty()) return;
+
+        List<Long> productIds = new ArrayList<>(changed);
+        productIds.forEach(changed::remove);
+        productRepository.findStockLevelsByIdIn(productIds)
+                .forEach(view -> bus.publish(toUpdate(view)));
+        bus.flush();
+    }
+
+    @Scheduled(fixedDelayString = "${app.stock.feed.heartbeat-interval:15000}")
+    public void heartbeat() {
+        bus.heartbeat();
+    }
+
+    private StockUpdateDTO toUpdate(ProductStockView view) {
+        return new StockUpdateDTO(view.getId(), view.getCategoryId(), view.getStockQuantity());
+    }
+
+    private record EmitterSink(SseEmitter emitter) implements StockFeedBus.Sink {
+
+        @Override
+        public void send(StockFeedBus.Kind kind, List<StockUpdateDTO> updates) throws IOException {
+            switch (kind) {
+                case SNAPSHOT -> emitter.send(SseEmitter.event().name(SNAPSHOT_EVENT).data(updates));
+                case UPDATE -> emitter.send(SseEmitter.event().name(STOCK_EVENT).data(updates));
+                case HEARTBEAT -> emitter.send(SseEmitter.event().comment("heartbeat"));
+            }
+        }
+
+        @Override
+        public void close() {
+            emitter.complete();
+        }
+    }
+}
@@ -0,0 +1,209 @@
+package com.jicd.stockmanager.service;
+
+import com.jicd.stockmanager.Enums.MOVEMENT_TYPE;
+import com.jicd.stockmanager.configs.StockJournalProperties;
+import com.jicd.stockmanager.dto.StockDiscrepancyDTO;
+import com.jicd.stockmanager.dto.StockLevelDTO;
+import com.jicd.stockmanager.exceptions.ProductNotFoundException;
+import com.jicd.stockmanager.model.StockMovement;
+import com.jicd.stockmanager.model.StockSnapshot;
+import com.jicd.stockmanager.repository.ProductRepository;
+import com.jicd.stockmanager.repository.ProductStockShardRepository;
+import com.jicd.stockmanager.repository.StockMovementRepository;
+import com.jicd.stockmanager.repository.StockSnapshotRepository;
+import com.jicd.stockmanager.repository.projection.ProductQuantityView;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.domain.Limit;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+
+/**
+ * Diario de movimientos de stock (entradas, ventas, ajustes y devoluciones) de solo inserción.
+ * El stock de un producto en cualquier instante es su última instantánea anterior más los movimientos
+ * posteriores; un compactador periódico pliega los movimientos en nuevas instantáneas.
+ * La columna de stock de productos se mantiene como valor materializado para las comprobaciones
+ * atómicas de las ventas; el diario permite auditarla y conciliarla.
+ */
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class StockJournalService {
+
+    // Inicio del diario para los productos que aún no tienen instantánea
+    private static final LocalDateTime EPOCH = LocalDateTime.of(1970, 1, 1, 0, 0);
+    private static final int SEED_BATCH_SIZE = 1_000;
+
+    private final StockMovementRepository movementRepository;
+    private final StockSnapshotRepository snapshotRepository;
+    private final ProductRepository productRepository;
+    private final ProductStockShardRepository shardRepository;
+    private final TransactionTemplate transactionTemplate;
+    private final StockJournalProperties properties;
+
+    /**
+     * Añade un movimiento al diario en la transacción que modifica el stock.
+     *
+     * @param productId El id del producto.
+     * @param type El tipo de movimiento.
+     * @param delta La variación con signo.
+     * @param reference Referencia opcional (albarán, motivo del ajuste...).
+     */
+    @Transactional(propagation = Propagation.MANDATORY)
+    public void record(Long productId, MOVEMENT_TYPE type, int delta, String reference) {
+        movementRepository.save(StockMovement.builder()
+                .productId(productId)
+                .type(type)
+                .delta(delta)
+                .occurredAt(LocalDateTime.now())
+                .reference(reference)
+                .build());
+    }
+
+    /**
+     * Reconstruye el stock de un producto en un instante a partir del diario.
+     *
+     * @param productId El id del producto.
+     * @param at El instante (null para el actual).
+     * @return StockLevelDTO el stock según el diario.
+     * @throws ProductNotFoundException si el producto no existe.
+     */
+    @Transactional(readOnly = true)
+    public StockLevelDTO levelAt(Long productId, LocalDateTime at) {
+        if (!productRepository.existsById(productId)) {
+            throw new ProductNotFoundException("Error: Product not found with id: " + productId);
+        }
+
+        LocalDateTime instant = at == null ? LocalDateTime.now() : at;
+        Optional<StockSnapshot> snapshot = snapshotRepository
+                .findFirstByProductIdAndAsOfLessThanEqualOrderByAsOfDesc(productId, instant);
+        long quantity = snapshot
+                .map(found -> found.getQuantity()
+                        + movementRepository.sumDeltaBetween(productId, found.getAsOf(), instant))
+                .orElseGet(() -> movementRepository.sumDeltaBefore(productId, instant));
+        return new StockLevelDTO(productId, instant, quantity);
+    }
+
+    /**
+     * Compara el stock registrado de cada producto (la suma de sus slots si está repartido) con el
+     * que resulta del diario.
+     * Todos los productos se concilian con cuatro consultas: cada compactación crea instantánea para
+     * todos los productos con movimientos en su ventana, así que basta sumar los movimientos
+     * posteriores a la última compactación.
+     *
+     * @return List los productos cuyo stock no coincide con el diario.
+     */
+    @Transactional(readOnly = true)
+    public List<StockDiscrepancyDTO> reconcile() {
+        Map<Long, Long> journal = new HashMap<>();
+        snapshotRepository.findLatestPerProduct()
+                .forEach(snapshot -> journal.put(snapshot.getProductId(), snapshot.getQuantity()));
+        LocalDateTime from = snapshotRepository.findLatestAsOf().orElse(EPOCH);
+        movementRepository.sumDeltaByProductSince(from)
+                .forEach(view -> journal.merge(view.getProductId(), view.getQuantity(), Long::sum));
+
+        // La columna de los productos repartidos va por detrás de sus slots hasta la siguiente sincronización
+        Map<Long, Long> slotTotals = new HashMap<>();
+        shardRepository.sumByProduct().forEach(total -> slotTotals.put(total.getProductId(), total.getQuantity()));
+
+        List<StockDiscrepancyDTO> discrepancies = new ArrayList<>();
+        for (ProductQuantityView recorded : movementRepository.findRecordedQuantities()) {
+            long journalQuantity = journal.getOrDefault(recorded.getProductId(), 0L);
+            Long slotTotal = slotTotals.get(recorded.getProductId());
+            long recordedQuantity = slotTotal != null ? slotTotal
+                    : recorded.getQuantity() == null ? 0 : recorded.getQuantity();
+            if (journalQuantity != recordedQuantity) {
+                discrepancies.add(new StockDiscrepancyDTO(recorded.getProductId(), recordedQuantity, journalQuantity));
+            }
+        }
+        return discrepancies;
+    }
+
+    /**
+     * Abre el diario de los productos nuevos y pliega los movimientos con antigüedad suficiente
+     * en nuevas instantáneas.
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    @Scheduled(fixedDelayString = "${app.stock.journal.compaction-interval:60000}",
+            initialDelayString = "${app.stock.journal.compaction-interval:60000}")
+    public void compact() {
+        int seeded = seedOpenings();
+        int snapshots = snapshot();
+        if (seeded > 0 || snapshots > 0) {
+            log.info("Diario de stock compactado: {} aperturas, {} instantaneas", seeded, snapshots);
+        }
+    }
+
+    /**
+     * Registra un movimiento de apertura para los productos sin él, de modo que la apertura más
+     * los movimientos existentes sumen el stock actual. Se procesa en lotes, cada uno en su transacción.
+     *
+     * @return int el número de productos abiertos.
+     */
+    private int seedOpenings() {
+        int total = 0;
+        Integer seeded;
+        do {
+            seeded = transactionTemplate.execute(status -> {
+                List<ProductQuantityView> openings = movementRepository.findMissingOpenings(Limit.of(SEED_BATCH_SIZE));
+                if (openings.isEmpty()) return 0;
+
+                LocalDateTime now = LocalDateTime.now();
+                movementRepository.saveAll(openings.stream()
+                        .map(opening -> StockMovement.builder()
+                                .productId(opening.getProductId())
+                                .type(MOVEMENT_TYPE.OPENING)
+                                .delta(Math.toIntExact(opening.getQuantity()))
+                                .occurredAt(now)
+                                .build())
+                        .toList());
+                return openings.size();
+            });
+            total += seeded == null ? 0 : seeded;
+        } while (seeded != null && seeded == SEED_BATCH_SIZE);
+        return total;
+    }
+
+    /**
+     * Crea una instantánea, con fecha 'ahora - margen', para cada producto con movimientos desde la compactación anterior.
+     *
+     * @return int el número de instantáneas creadas.
+     */
+    private int snapshot() {
+        Integer created = transactionTemplate.execute(status -> {
+            LocalDateTime horizon = LocalDateTime.now().minus(Duration.ofMillis(properties.getCompactionLag()));
+            LocalDateTime from = snapshotRepository.findLatestAsOf().orElse(EPOCH);
+            if (!horizon.isAfter(from)) return 0;
+
+            List<ProductQuantityView> deltas = movementRepository.sumDeltaByProductBetween(from, horizon);
+            if (deltas.isEmpty()) return 0;
+
+            Map<Long, Long> previous = new HashMap<>();
+            snapshotRepository.findLatestByProductIdIn(deltas.stream().map(ProductQuantityView::getProductId).toList())
+                    .forEach(snapshot -> previous.put(snapshot.getProductId(), snapshot.getQuantity()));
+
+            snapshotRepository.saveAll(deltas.stream()
+                    .map(delta -> StockSnapshot.builder()
+                            .productId(delta.getProductId())
+                            .quantity(previous.getOrDefault(delta.getProductId(), 0L) + delta.getQuantity())
+                            .asOf(horizon)
+                            .build())
+                    .toList());
+            return deltas.size();
+        });
+        return created == null ? 0 : created;
+    }
+}
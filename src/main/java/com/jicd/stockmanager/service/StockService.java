@@ -0,0 +1,236 @@
+package com.jicd.stockmanager.service;
+
+import com.jicd.stockmanager.Enums.MOVEMENT_TYPE;
+import com.jicd.stockmanager.dto.StockLevelDTO;
+import com.jicd.stockmanager.dto.StockMovementReqDTO;
+import com.jicd.stockmanager.event.StockChangedEvent;
+import com.jicd.stockmanager.exceptions.InsufficientStockException;
+import com.jicd.stockmanager.exceptions.ProductNotFoundException;
+import com.jicd.stockmanager.repository.ProductRepository;
+import com.jicd.stockmanager.reservation.StockLedger;
+import lombok.RequiredArgsConstructor;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.core.Ordered;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Operaciones atómicas sobre el stock de los productos.
+ * Nunca se lee y reescribe la entidad: cada cambio es un UPDATE condicional en la base de datos,
+ * por lo que no se pierden actualizaciones con compradores concurrentes.
+ * Las ventas directas no pueden consumir el stock retenido por reservas ({@link StockLedger}).
+ * Cada cambio aplicado se anota en el diario de movimientos en la misma transacción.
+ * Los productos repartidos en slots ({@link ShardedStockService}) se modifican en sus slots.
+ */
+@Service
+@RequiredArgsConstructor
+public class StockService {
+
+    private final ProductRepository productRepository;
+    private final StockLedger ledger;
+    private final StockJournalService journal;
+    private final ShardedStockService shardedStock;
+    private final ApplicationEventPublisher eventPublisher;
+
+    /**
+     * Descuenta stock de un producto solo si hay cantidad suficiente sin contar la reservada.
+     *
+     * @param productId El id del producto.
+     * @param quantity La cantidad a descontar.
+     * @return boolean true si se descontó, false si el stock era insuficiente.
+     */
+    @Transactional(propagation = Propagation.MANDATORY)
+    public boolean decrement(Long productId, int quantity) {
+        if (tryDecrement(productId, quantity) == null) return false;
+        journal.record(productId, MOVEMENT_TYPE.SALE, -quantity, null);
+        return true;
+    }
+
+    /**
+     * Descuenta stock ya reservado (volcado de reservas confirmadas).
+     *
+     * @param productId El id del producto.
+     * @param quantity La cantidad a descontar.
+     * @return boolean true si se descontó, false si el stock era insuficiente.
+     */
+    @Transactional(propagation = Propagation.MANDATORY)
+    public boolean decrementReserved(Long productId, int quantity) {
+        if (!tryDecrement(productId, quantity, 0)) return false;
+        journal.record(productId, MOVEMENT_TYPE.SALE, -quantity, null);
+        return true;
+    }
+
+    /**
+     * Repone stock de un producto.
+     *
+     * @param productId El id del producto.
+     * @param quantity La cantidad a reponer.
+     * @param type El tipo de movimiento (entrada, devolución o ajuste).
+     * @param reference Referencia opcional del movimiento.
+     */
+    @Transactional(propagation = Propagation.MANDATORY)
+    public void increment(Long productId, int quantity, MOVEMENT_TYPE type, String reference) {
+        restore(productId, quantity);
+        journal.record(productId, type, quantity, reference);
+    }
+
+    /**
+     * Descuenta el stock de todas las líneas o de ninguna. Si una línea no tiene stock suficiente
+     * se reponen las ya descontadas, sin necesidad de revertir la transacción en curso.
+     * Solo se anotan en el diario los descuentos de una venta completa.
+     *
+     * @param quantities Cantidades por id de producto, en orden de id.
+     * @return boolean true si se descontaron todas las líneas.
+     */
+    @Transactional(propagation = Propagation.MANDATORY)
+    public boolean decrementAll(Map<Long, Integer> quantities) {
+        List<Claim> applied = new ArrayList<>(quantities.size());
+        for (Map.Entry<Long, Integer> line : quantities.entrySet()) {
+            Claim claim = tryDecrement(line.getKey(), line.getValue());
+            if (claim == null) {
+                applied.forEach(done -> {
+                    restore(done.productId, done.quantity);
+                    done.complete(false);
+                });
+                return false;
+            }
+            applied.add(claim);
+        }
+        applied.forEach(claim -> journal.record(claim.productId, MOVEMENT_TYPE.SALE, -claim.quantity, null));
+        return true;
+    }
+
+    /**
+     * Registra un movimiento manual: entrada, devolución o ajuste (con signo).
+     *
+     * @param request El movimiento.
+     * @return StockLevelDTO el stock del producto según el diario tras el movimiento.
+     * @throws ProductNotFoundException si el producto no existe.
+     * @throws InsufficientStockException si un ajuste negativo deja el stock disponible por debajo de cero.
+     */
+    @Transactional
+    public StockLevelDTO recordMovement(StockMovementReqDTO request) {
+        if (request == null || request.productId() == null || request.type() == null
+                || request.quantity() == null || request.quantity() == 0) {
+            throw new IllegalArgumentException("Error: A movement needs a product, a type and a non-zero quantity");
+        }
+        if (!productRepository.existsById(request.productId())) {
+            throw new ProductNotFoundException("Error: Product not found with id: " + request.productId());
+        }
+
+        switch (request.type()) {
+            case RECEIPT, RETURN -> {
+                if (request.quantity() < 0) {
+                    throw new IllegalArgumentException("Error: Receipts and returns need a positive quantity");
+                }
+                increment(request.productId(), request.quantity(), request.type(), request.reference());
+            }
+            case ADJUSTMENT -> {
+                if (request.quantity() > 0) {
+                    increment(request.productId(), request.quantity(), MOVEMENT_TYPE.ADJUSTMENT, request.reference());
+                } else if (tryDecrement(request.productId(), -request.quantity()) != null) {
+                    journal.record(request.productId(), MOVEMENT_TYPE.ADJUSTMENT, request.quantity(), request.reference());
+                } else {
+                    throw new InsufficientStockException("Error: Insufficient stock for product " + request.productId());
+                }
+            }
+            default -> throw new IllegalArgumentException("Error: Movements of type " + request.type()
+                    + " are recorded by the system");
+        }
+
+        eventPublisher.publishEvent(new StockChangedEvent(Set.of(request.productId())));
+        return journal.levelAt(request.productId(), null);
+    }
+
+    /**
+     * Anota la venta directa en el libro de reservas antes del UPDATE: con el cerrojo de la franja del
+     * producto se lee lo reservado y se aparta la cantidad, de modo que ninguna reserva puede admitirse
+     * entre la lectura y el descuento ni contar con ese stock hasta que la transacción termine.
+     *
+     * @return Claim la anotación si se descontó, o null si el stock era insuficiente.
+     */
+    private Claim tryDecrement(Long productId, int quantity) {
+        Claim claim = new Claim(productId, quantity);
+        boolean applied = false;
+        try {
+            applied = tryDecrement(productId, quantity, ledger.claim(productId, quantity));
+        } finally {
+            if (!applied) claim.complete(false);
+        }
+        if (!applied) return null;
+        TransactionSynchronizationManager.registerSynchronization(claim);
+        return claim;
+    }
+
+    /**
+     * Si el UPDATE sobre la columna no afecta a ninguna fila puede ser porque el producto se acaba de
+     * repartir en slots (p. ej. desde otro nodo): se relee su estado y se reintenta una vez.
+     */
+    private boolean tryDecrement(Long productId, int quantity, long reserved) {
+        ShardedStockService.Outcome outcome = shardedStock.decrement(productId, quantity, reserved);
+        if (outcome != ShardedStockService.Outcome.NOT_SHARDED) {
+            return outcome == ShardedStockService.Outcome.APPLIED;
+        }
+        if (decrementColumn(productId, quantity, reserved)) return true;
+        return shardedStock.refresh(productId)
+                && shardedStock.decrement(productId, quantity, reserved) == ShardedStockService.Outcome.APPLIED;
+    }
+
+    private boolean decrementColumn(Long productId, int quantity, long reserved) {
+        if (reserved == 0) return productRepository.decrementStock(productId, quantity) == 1;
+        return productRepository.decrementUnreservedStock(productId, quantity, reserved) == 1;
+    }
+
+    private void restore(Long productId, int quantity) {
+        if (shardedStock.increment(productId, quantity) == ShardedStockService.Outcome.APPLIED) return;
+        if (productRepository.incrementStock(productId, quantity) == 0 && shardedStock.refresh(productId)) {
+            shardedStock.increment(productId, quantity);
+        }
+    }
+
+    /**
+     * Venta directa anotada en el libro. Al confirmarse la transacción su cantidad se descuenta del
+     * stock del libro; si se revierte (o se repone antes) simplemente se libera.
+     */
+    private final class Claim implements TransactionSynchronization {
+
+        private final Long productId;
+        private final int quantity;
+        private boolean completed;
+
+        private Claim(Long productId, int quantity) {
+            this.productId = productId;
+            this.quantity = quantity;
+        }
+
+        private void complete(boolean committed) {
+            if (completed) return;
+            completed = true;
+            ledger.completeClaim(productId, quantity, committed);
+        }
+
+        // Antes que la relectura del stock tras el commit (ReservationService.onStockChanged)
+        @Override
+        public int getOrder() {
+            return Ordered.HIGHEST_PRECEDENCE;
+        }
+
+        @Override
+        public void afterCommit() {
+            complete(true);
+        }
+
+        @Override
+        public void afterCompletion(int status) {
+            complete(false);
+        }
+    }
+}
@@ -1,16 +1,18 @@
 package com.jicd.stockmanager.service;
 
+import com.jicd.stockmanager.model.User;
 import com.jicd.stockmanager.repository.UserRepository;
 import lombok.RequiredArgsConstructor;
 import org.jspecify.annotations.NonNull;
 import org.springframework.security.core.userdetails.UserDetails;
+import org.springframework.security.core.userdetails.UserDetailsPasswordService;
 import org.springframework.security.core.userdetails.UserDetailsService;
 import org.springframework.security.core.userdetails.UsernameNotFoundException;
 import org.springframework.stereotype.Service;
 
 @Service
 @RequiredArgsConstructor
-public class UserDetailService implements UserDetailsService {
+public class UserDetailService implements UserDetailsService, UserDetailsPasswordService {
 
     private final UserRepository userRepository;
 
@@ -28,4 +30,21 @@ public class UserDetailService implements UserDetailsService {
         return userRepository.findByUsername(username)
                 .orElseThrow(() -> new UsernameNotFoundException("User not found with username: " + username));
     }
+
+    /**
+     * Guarda el hash de la contraseña recalculado con el coste configurado.
+     * Spring Security lo invoca tras un login correcto cuando el hash almacenado usa otro coste.
+     *
+     * @param user El usuario autenticado.
+     * @param newPassword El nuevo hash de la contraseña.
+     * @return UserDetails el usuario actualizado.
+     */
+    @Override
+    @NonNull
+    public UserDetails updatePassword(@NonNull UserDetails user, String newPassword) {
+        User entity = userRepository.findByUsername(user.getUsername())
+                .orElseThrow(() -> new UsernameNotFoundException("User not found with username: " + user.getUsername()));
+        entity.setPassword(newPassword);
+        return userRepository.save(entity);
+    }
 }
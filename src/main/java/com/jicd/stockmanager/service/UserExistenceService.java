@@ -0,0 +1,169 @@
+package com.jicd.stockmanager.service;
+
+import com.jicd.stockmanager.membership.BloomFilter;
+import com.jicd.stockmanager.repository.UserRepository;
+import com.jicd.stockmanager.repository.projection.UserIdentityView;
+import com.jicd.stockmanager.security.configs.RegistrationFilterProperties;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.function.Predicate;
+import java.util.stream.Stream;
+
+/**
+ * Comprobación de existencia de nombres de usuario y emails para el registro.
+ * Un filtro de Bloom en memoria por campo descarta sin consultar la BD los valores que seguro no
+ * existen (el caso habitual, también en avalanchas de altas automatizadas); solo los posibles
+ * positivos se confirman con una consulta. El filtro es local a cada nodo: las altas de otros nodos
+ * y los borrados se incorporan en la reconstrucción periódica, y la restricción única de la BD
+ * sigue siendo la garantía final.
+ */
+@Service
+@Slf4j
+public class UserExistenceService {
+
+    static final String FILTER_COUNTER = "auth.registration.filter";
+    static final String FILTER_FPP_GAUGE = "auth.registration.filter.fpp";
+
+    private final UserRepository userRepository;
+    private final RegistrationFilterProperties properties;
+
+    private final Counter emailNegatives;
+    private final Counter emailHits;
+    private final Counter emailFalsePositives;
+    private final Counter usernameNegatives;
+    private final Counter usernameHits;
+    private final Counter usernameFalsePositives;
+
+    /**
+     * Filtros de ambos campos; se sustituyen juntos al reconstruir.
+     */
+    private record Filters(BloomFilter usernames, BloomFilter emails) {
+        void add(String username, String email) {
+            if (username != null) usernames.put(username);
+            if (email != null) emails.put(email);
+        }
+    }
+
+    // null hasta la primera construcción: mientras tanto se consulta siempre la BD
+    private volatile Filters filters;
+    // Filtros en construcción, que también reciben las altas producidas durante el recorrido
+    private volatile Filters building;
+
+    public UserExistenceService(UserRepository userRepository, RegistrationFilterProperties properties,
+                                MeterRegistry meterRegistry) {
+        this.userRepository = userRepository;
+        this.properties = properties;
+        this.emailNegatives = counter(meterRegistry, "email", "negative");
+        this.emailHits = counter(meterRegistry, "email", "hit");
+        this.emailFalsePositives = counter(meterRegistry, "email", "false_positive");
+        this.usernameNegatives = counter(meterRegistry, "username", "negative");
+        this.usernameHits = counter(meterRegistry, "username", "hit");
+        this.usernameFalsePositives = counter(meterRegistry, "username", "false_positive");
+
+        Gauge.builder(FILTER_FPP_GAUGE, this, service -> service.expectedFalsePositiveRate(true))
+                .description("Probabilidad estimada de falso positivo del filtro de registro")
+                .tag("field", "username")
+                .register(meterRegistry);
+        Gauge.builder(FILTER_FPP_GAUGE, this, service -> service.expectedFalsePositiveRate(false))
+                .description("Probabilidad estimada de falso positivo del filtro de registro")
+                .tag("field", "email")
+                .register(meterRegistry);
+    }
+
+    /**
+     * @param email El email.
+     * @return boolean true si existe un usuario con ese email.
+     */
+    public boolean emailExists(String email) {
+        Filters current = filters;
+        if (current == null || email == null) return userRepository.existsByEmail(email);
+        return confirm(current.emails(), email, userRepository::existsByEmail,
+                emailNegatives, emailHits, emailFalsePositives);
+    }
+
+    /**
+     * @param username El nombre de usuario.
+     * @return boolean true si existe un usuario con ese nombre.
+     */
+    public boolean usernameExists(String username) {
+        Filters current = filters;
+        if (current == null || username == null) return userRepository.existsByUsername(username);
+        return confirm(current.usernames(), username, userRepository::existsByUsername,
+                usernameNegatives, usernameHits, usernameFalsePositives);
+    }
+
+    /**
+     * Añade un usuario recién registrado a los filtros.
+     *
+     * @param username El nombre de usuario.
+     * @param email El email.
+     */
+    public void add(String username, String email) {
+        Filters current = filters;
+        if (current != null) current.add(username, email);
+        Filters next = building;
+        if (next != null) next.add(username, email);
+    }
+
+    /**
+     * Construye filtros nuevos recorriendo los usuarios en streaming y los sustituye al terminar.
+     * Se dimensionan para el doble de los usuarios actuales (o los previstos, si son más).
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    @Scheduled(fixedDelayString = "${app.security.registration-filter.rebuild-interval:3600000}",
+            initialDelayString = "${app.security.registration-filter.rebuild-interval:3600000}")
+    @Transactional(readOnly = true)
+    public void rebuild() {
+        if (!properties.isEnabled()) {
+            filters = null;
+            return;
+        }
+
+        long expected = Math.max(properties.getExpectedUsers(), 2 * userRepository.count());
+        Filters next = new Filters(
+                new BloomFilter(expected, properties.getFalsePositiveRate()),
+                new BloomFilter(expected, properties.getFalsePositiveRate()));
+        building = next;
+        try (Stream<UserIdentityView> identities = userRepository.streamIdentities()) {
+            identities.forEach(identity -> next.add(identity.getUsername(), identity.getEmail()));
+            filters = next;
+        } finally {
+            building = null;
+        }
+        log.info("Filtro de registro construido: {} usuarios, {} bits por campo",
+                next.emails().insertions(), next.emails().bitCount());
+    }
+
+    private static boolean confirm(BloomFilter filter, String value, Predicate<String> query,
+                                   Counter negatives, Counter hits, Counter falsePositives) {
+        if (!filter.mightContain(value)) {
+            negatives.increment();
+            return false;
+        }
+        boolean exists = query.test(value);
+        (exists ? hits : falsePositives).increment();
+        return exists;
+    }
+
+    private double expectedFalsePositiveRate(boolean usernames) {
+        Filters current = filters;
+        if (current == null) return Double.NaN;
+        return (usernames ? current.usernames() : current.emails()).expectedFalsePositiveRate();
+    }
+
+    private static Counter counter(MeterRegistry meterRegistry, String field, String result) {
+        return Counter.builder(FILTER_COUNTER)
+                .description("Comprobaciones de existencia en el registro según el filtro")
+                .tag("field", field)
+                .tag("result", result)
+                .register(meterRegistry);
+    }
+}
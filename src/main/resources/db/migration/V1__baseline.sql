@@ -0,0 +1,159 @@
+-- Esquema de partida: el que generaba ddl-auto: update a partir de las entidades.
+-- Las bases de datos creadas antes de las migraciones se marcan en esta versión sin ejecutarla
+-- (spring.flyway.baseline-on-migrate).
+
+create sequence users_seq start with 1 increment by 50;
+create sequence category_seq start with 1 increment by 50;
+create sequence products_seq start with 1 increment by 50;
+create sequence sales_seq start with 1 increment by 50;
+create sequence sale_detail_seq start with 1 increment by 50;
+create sequence refresh_tokens_seq start with 1 increment by 50;
+create sequence stock_movements_seq start with 1 increment by 50;
+create sequence stock_snapshots_seq start with 1 increment by 50;
+create sequence stock_reservations_seq start with 1 increment by 50;
+
+create table users
+(
+    user_id            bigint       not null,
+    username           varchar(255),
+    user_email         varchar(255) not null unique,
+    user_password      varchar(255),
+    user_rol           varchar(255),
+    user_token_version integer,
+    primary key (user_id)
+);
+
+create table category
+(
+    category_id          bigint       not null,
+    category_name        varchar(255) not null unique,
+    category_description varchar(255),
+    primary key (category_id)
+);
+
+create table products
+(
+    product_id             bigint       not null,
+    product_sku            varchar(255) unique,
+    product_name           varchar(255) not null,
+    product_description    varchar(255),
+    product_price          float(53)    not null,
+    product_stock_quantity integer      not null,
+    product_stock_shards   integer,
+    product_min_threshold  integer,
+    category_id            bigint references category,
+    primary key (product_id)
+);
+
+create index idx_products_name_id on products (product_name, product_id);
+create index idx_products_category_id on products (category_id, product_id);
+create index idx_products_category_name_id on products (category_id, product_name, product_id);
+
+create table product_stock_shards
+(
+    product_id     bigint  not null,
+    shard_slot     integer not null,
+    shard_quantity integer not null,
+    primary key (product_id, shard_slot)
+);
+
+create table sales
+(
+    sale_id      bigint not null,
+    sale_date    timestamp(6),
+    total_amount float(53),
+    user_id      bigint references users,
+    primary key (sale_id)
+);
+
+create table sale_detail
+(
+    sale_detail_id   bigint         not null,
+    sale_quantity    integer        not null,
+    sale_unit_price  numeric(10, 2) not null,
+    sale_total_price numeric(10, 2),
+    product_id       bigint         not null references products,
+    sale_id          bigint         not null references sales,
+    primary key (sale_detail_id)
+);
+
+create table refresh_tokens
+(
+    refresh_token_id         bigint       not null,
+    refresh_token_hash       varchar(64)  not null unique,
+    refresh_token_family     varchar(36)  not null,
+    refresh_token_expires_at timestamp(6) not null,
+    refresh_token_revoked    boolean      not null,
+    user_id                  bigint       not null references users,
+    primary key (refresh_token_id)
+);
+
+create index idx_refresh_tokens_family on refresh_tokens (refresh_token_family);
+create index idx_refresh_tokens_expires_at on refresh_tokens (refresh_token_expires_at);
+
+create table stock_movements
+(
+    movement_id          bigint       not null,
+    product_id           bigint       not null,
+    movement_type        varchar(16)  not null,
+    movement_delta       integer      not null,
+    movement_occurred_at timestamp(6) not null,
+    movement_reference   varchar(128),
+    primary key (movement_id)
+);
+
+create index idx_stock_movements_product_time on stock_movements (product_id, movement_occurred_at);
+create index idx_stock_movements_time on stock_movements (movement_occurred_at);
+
+create table stock_snapshots
+(
+    snapshot_id       bigint       not null,
+    product_id        bigint       not null,
+    snapshot_quantity bigint       not null,
+    snapshot_as_of    timestamp(6) not null,
+    primary key (snapshot_id)
+);
+
+create index idx_stock_snapshots_product_as_of on stock_snapshots (product_id, snapshot_as_of);
+create index idx_stock_snapshots_as_of on stock_snapshots (snapshot_as_of);
+
+create table stock_reservations
+(
+    reservation_id         bigint       not null,
+    reservation_status     varchar(16)  not null,
+    reservation_created_at timestamp(6) not null,
+    reservation_expires_at timestamp(6) not null,
+    sale_id                bigint,
+    user_id                bigint references users,
+    primary key (reservation_id)
+);
+
+create index idx_stock_reservations_status_expires on stock_reservations (reservation_status, reservation_expires_at);
+
+create table stock_reservation_items
+(
+    reservation_id            bigint  not null references stock_reservations,
+    product_id                bigint  not null,
+    reservation_item_quantity integer not null
+);
+
+create table daily_product_sales
+(
+    rollup_day  date           not null,
+    product_id  bigint         not null,
+    category_id bigint,
+    units       bigint         not null,
+    revenue     numeric(14, 2) not null,
+    sale_count  bigint         not null,
+    primary key (rollup_day, product_id)
+);
+
+create table daily_category_sales
+(
+    rollup_day  date           not null,
+    category_id bigint         not null,
+    units       bigint         not null,
+    revenue     numeric(14, 2) not null,
+    sale_count  bigint         not null,
+    primary key (rollup_day, category_id)
+);
@@ -0,0 +1,165 @@
+-- Ventas y líneas de venta particionadas por mes de sale_date. sale_detail repite la fecha de su
+-- venta para particionarse igual: las consultas por rango de fechas solo leen las particiones del
+-- rango y la retención separa cada mes de ambas tablas a la vez.
+-- Las claves primarias incluyen sale_date, como exige PostgreSQL en tablas particionadas.
+
+create schema if not exists sales_archive;
+
+alter table sale_detail rename to sale_detail_legacy;
+alter table sales rename to sales_legacy;
+alter index sale_detail_pkey rename to sale_detail_legacy_pkey;
+alter index sales_pkey rename to sales_legacy_pkey;
+
+create table sales
+(
+    sale_id      bigint       not null,
+    sale_date    timestamp(6) not null,
+    total_amount float(53),
+    user_id      bigint references users,
+    primary key (sale_id, sale_date)
+) partition by range (sale_date);
+
+create table sale_detail
+(
+    sale_detail_id   bigint         not null,
+    sale_id          bigint         not null,
+    sale_date        timestamp(6)   not null,
+    sale_quantity    integer        not null,
+    sale_unit_price  numeric(10, 2) not null,
+    sale_total_price numeric(10, 2),
+    product_id       bigint         not null references products,
+    primary key (sale_detail_id, sale_date),
+    foreign key (sale_id, sale_date) references sales (sale_id, sale_date)
+) partition by range (sale_date);
+
+-- Filas fuera de los meses creados (p. ej. ventas importadas con fechas antiguas); al crear su mes
+-- se trasladan a la partición nueva
+create table sales_default partition of sales default;
+create table sale_detail_default partition of sale_detail default;
+
+-- Crea las particiones mensuales (sales_yAAAAmMM y sale_detail_yAAAAmMM) de 'months' meses a partir
+-- del mes de 'first_month' que aún no existan. Devuelve el número de meses creados.
+create or replace function create_sales_partitions(first_month date, months integer) returns integer
+    language plpgsql as
+$$
+declare
+    month_start date;
+    month_end   date;
+    suffix      text;
+    created     integer := 0;
+begin
+    -- Evita que dos nodos creen la misma partición a la vez
+    perform pg_advisory_xact_lock(hashtext('sales_partitions'));
+
+    for i in 0 .. months - 1
+        loop
+            month_start := (date_trunc('month', first_month) + make_interval(months => i))::date;
+            month_end := (month_start + interval '1 month')::date;
+            suffix := to_char(month_start, '"y"YYYY"m"MM');
+            continue when to_regclass('sales_' || suffix) is not null;
+
+            -- Se crean sueltas y se adjuntan al final: así admiten las filas del mes que estuvieran
+            -- en las particiones por defecto
+            execute format('create table %I (like sales including defaults)', 'sales_' || suffix);
+            execute format('create table %I (like sale_detail including defaults)', 'sale_detail_' || suffix);
+            execute format('insert into %I select * from sales_default where sale_date >= %L and sale_date < %L',
+                           'sales_' || suffix, month_start, month_end);
+            execute format('insert into %I select * from sale_detail_default where sale_date >= %L and sale_date < %L',
+                           'sale_detail_' || suffix, month_start, month_end);
+            delete from sale_detail_default where sale_date >= month_start and sale_date < month_end;
+            delete from sales_default where sale_date >= month_start and sale_date < month_end;
+            execute format('alter table sales attach partition %I for values from (%L) to (%L)',
+                           'sales_' || suffix, month_start, month_end);
+            execute format('alter table sale_detail attach partition %I for values from (%L) to (%L)',
+                           'sale_detail_' || suffix, month_start, month_end);
+            created := created + 1;
+        end loop;
+    return created;
+end
+$$;
+
+-- Separa las particiones mensuales que terminan antes de 'cutoff'. Las líneas se separan antes que
+-- sus ventas y pierden la clave ajena; después ambas tablas se mueven al esquema sales_archive
+-- o se borran. Devuelve el número de meses separados.
+create or replace function detach_sales_partitions(cutoff date, drop_tables boolean) returns integer
+    language plpgsql as
+$$
+declare
+    part     record;
+    detail   text;
+    fk       record;
+    detached integer := 0;
+begin
+    perform pg_advisory_xact_lock(hashtext('sales_partitions'));
+
+    for part in
+        select c.relname as name, substr(c.relname, 7) as suffix
+        from pg_inherits i
+                 join pg_class c on c.oid = i.inhrelid
+        where i.inhparent = 'sales'::regclass
+          and c.relname ~ '^sales_y[0-9]{4}m[0-9]{2}$'
+        order by c.relname
+        loop
+            continue when (to_date(part.suffix, '"y"YYYY"m"MM') + interval '1 month')::date > cutoff;
+
+            detail := 'sale_detail_' || part.suffix;
+            if to_regclass(detail) is not null then
+                execute format('alter table sale_detail detach partition %I', detail);
+                for fk in
+                    select conname
+                    from pg_constraint
+                    where conrelid = to_regclass(detail)
+                      and contype = 'f'
+                      and confrelid = 'sales'::regclass
+                    loop
+                        execute format('alter table %I drop constraint %I', detail, fk.conname);
+                    end loop;
+            end if;
+            execute format('alter table sales detach partition %I', part.name);
+
+            if drop_tables then
+                execute format('drop table if exists %I', detail);
+                execute format('drop table %I', part.name);
+            else
+                if to_regclass(detail) is not null then
+                    execute format('alter table %I set schema sales_archive', detail);
+                end if;
+                execute format('alter table %I set schema sales_archive', part.name);
+            end if;
+            detached := detached + 1;
+        end loop;
+    return detached;
+end
+$$;
+
+-- Meses con ventas existentes más los tres siguientes al actual
+do
+$$
+    declare
+        first_month date := date_trunc('month', coalesce((select min(sale_date) from sales_legacy), now()))::date;
+        span        interval := age(date_trunc('month', now()), first_month);
+    begin
+        perform create_sales_partitions(first_month,
+                                        (extract(year from span) * 12 + extract(month from span))::integer + 4);
+    end
+$$;
+
+-- Las ventas antiguas sin fecha quedan en la partición por defecto
+insert into sales (sale_id, sale_date, total_amount, user_id)
+select sale_id, coalesce(sale_date, timestamp '1970-01-01'), total_amount, user_id
+from sales_legacy;
+
+insert into sale_detail (sale_detail_id, sale_id, sale_date, sale_quantity, sale_unit_price, sale_total_price,
+                         product_id)
+select d.sale_detail_id,
+       d.sale_id,
+       coalesce(s.sale_date, timestamp '1970-01-01'),
+       d.sale_quantity,
+       d.sale_unit_price,
+       d.sale_total_price,
+       d.product_id
+from sale_detail_legacy d
+         join sales_legacy s on s.sale_id = d.sale_id;
+
+drop table sale_detail_legacy;
+drop table sales_legacy;
@@ -0,0 +1,10 @@
+-- Índices de las claves ajenas y fechas que recorren las consultas. En las tablas particionadas
+-- se crean en cada partición, también en las que se creen después.
+-- products.category_id ya está cubierto por idx_products_category_id (category_id, product_id).
+
+create index idx_sales_user on sales (user_id);
+create index idx_sales_date on sales (sale_date);
+create index idx_sale_detail_sale on sale_detail (sale_id, sale_date);
+create index idx_sale_detail_product on sale_detail (product_id);
+create index idx_refresh_tokens_user on refresh_tokens (user_id);
+create index idx_stock_reservation_items_reservation on stock_reservation_items (reservation_id);
@@ -0,0 +1,17 @@
+-- Última evaluación del planificador de reposición por producto
+
+create table replenishment_suggestions
+(
+    product_id         bigint       not null,
+    stock_quantity     integer      not null,
+    velocity           float(53)    not null,
+    days_of_cover      float(53),
+    suggested_quantity integer      not null,
+    reorder            boolean      not null,
+    computed_at        timestamp(6) not null,
+    primary key (product_id)
+);
+
+-- Solo se consultan los productos a reponer
+create index idx_replenishment_suggestions_reorder on replenishment_suggestions (days_of_cover nulls first, product_id)
+    where reorder;
@@ -0,0 +1,36 @@
+-- Nombres de usuario únicos. El filtro de Bloom del registro es local a cada nodo, así que solo la
+-- restricción impide duplicados; ambas restricciones se nombran para traducir el error al registrar.
+
+do
+$$
+    declare
+        duplicates       bigint;
+        email_constraint text;
+    begin
+        select count(*)
+        into duplicates
+        from (select username from users where username is not null group by username having count(*) > 1) d;
+        if duplicates > 0 then
+            raise exception 'users: % nombres de usuario duplicados, hay que resolverlos antes de migrar', duplicates;
+        end if;
+
+        -- Con el esquema generado por Hibernate (baseline) la restricción del email tiene otro nombre
+        select c.conname
+        into email_constraint
+        from pg_constraint c
+        where c.conrelid = 'users'::regclass
+          and c.contype = 'u'
+          and c.conkey = array [(select a.attnum
+                                 from pg_attribute a
+                                 where a.attrelid = 'users'::regclass
+                                   and a.attname = 'user_email')];
+        if email_constraint is null then
+            alter table users add constraint uk_users_email unique (user_email);
+        elsif email_constraint <> 'uk_users_email' then
+            execute format('alter table users rename constraint %I to uk_users_email', email_constraint);
+        end if;
+    end
+$$;
+
+alter table users
+    add constraint uk_users_username unique (username);
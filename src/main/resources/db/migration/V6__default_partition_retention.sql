@@ -0,0 +1,65 @@
+-- La retención también alcanza a las particiones por defecto (sales_default y sale_detail_default),
+-- que guardan las ventas antiguas sin fecha (1970-01-01) y las importadas de meses sin partición.
+-- Sus filas anteriores a 'cutoff' se mueven a sales_archive.sales_default y
+-- sales_archive.sale_detail_default, o se borran, junto con los meses separados.
+
+create or replace function detach_sales_partitions(cutoff date, drop_tables boolean) returns integer
+    language plpgsql as
+$$
+declare
+    part     record;
+    detail   text;
+    fk       record;
+    detached integer := 0;
+begin
+    perform pg_advisory_xact_lock(hashtext('sales_partitions'));
+
+    for part in
+        select c.relname as name, substr(c.relname, 7) as suffix
+        from pg_inherits i
+                 join pg_class c on c.oid = i.inhrelid
+        where i.inhparent = 'sales'::regclass
+          and c.relname ~ '^sales_y[0-9]{4}m[0-9]{2}$'
+        order by c.relname
+        loop
+            continue when (to_date(part.suffix, '"y"YYYY"m"MM') + interval '1 month')::date > cutoff;
+
+            detail := 'sale_detail_' || part.suffix;
+            if to_regclass(detail) is not null then
+                execute format('alter table sale_detail detach partition %I', detail);
+                for fk in
+                    select conname
+                    from pg_constraint
+                    where conrelid = to_regclass(detail)
+                      and contype = 'f'
+                      and confrelid = 'sales'::regclass
+                    loop
+                        execute format('alter table %I drop constraint %I', detail, fk.conname);
+                    end loop;
+            end if;
+            execute format('alter table sales detach partition %I', part.name);
+
+            if drop_tables then
+                execute format('drop table if exists %I', detail);
+                execute format('drop table %I', part.name);
+            else
+                if to_regclass(detail) is not null then
+                    execute format('alter table %I set schema sales_archive', detail);
+                end if;
+                execute format('alter table %I set schema sales_archive', part.name);
+            end if;
+            detached := detached + 1;
+        end loop;
+
+    -- Las particiones por defecto no se separan: se vacían de las filas anteriores a 'cutoff'
+    if not drop_tables then
+        create table if not exists sales_archive.sales_default (like sales including defaults);
+        create table if not exists sales_archive.sale_detail_default (like sale_detail including defaults);
+        insert into sales_archive.sale_detail_default select * from sale_detail_default where sale_date < cutoff;
+        insert into sales_archive.sales_default select * from sales_default where sale_date < cutoff;
+    end if;
+    delete from sale_detail_default where sale_date < cutoff;
+    delete from sales_default where sale_date < cutoff;
+    return detached;
+end
+$$;
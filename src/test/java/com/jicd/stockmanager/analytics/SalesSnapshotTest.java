@@ -0,0 +1,145 @@
+package com.jicd.stockmanager.analytics;
+
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDate;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.ForkJoinPool;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class SalesSnapshotTest {
+
+    private static final LocalDate MONDAY = LocalDate.of(2026, 3, 2);
+
+    private static ForkJoinPool pool;
+
+    @BeforeAll
+    static void startPool() {
+        pool = new ForkJoinPool(4);
+    }
+
+    @AfterAll
+    static void stopPool() {
+        pool.shutdown();
+    }
+
+    @Test
+    void topSellersSlowestMoversAndCategoryFilter() {
+        SalesColumnStore store = new SalesColumnStore(MONDAY, MONDAY.plusDays(10));
+        store.list(1, 10L);
+        store.list(2, 10L);
+        store.list(3, 20L);
+        store.list(4, null);
+        store.add(MONDAY, 1, 10L, 5, 500);
+        store.add(MONDAY, 2, 10L, 8, 400);
+        store.add(MONDAY.plusDays(1), 1, 10L, 4, 400);
+        store.add(MONDAY.plusDays(1), 3, 20L, 1, 2_000);
+        // Producto borrado del catálogo: cuenta en las ventas pero no entre los que no rotan
+        store.add(MONDAY.plusDays(2), 9, 10L, 1, 100);
+        SalesSnapshot snapshot = store.snapshot();
+
+        assertEquals(List.of(
+                        new SalesSnapshot.ProductTotal(1, 10, 9, 900),
+                        new SalesSnapshot.ProductTotal(2, 10, 8, 400)),
+                snapshot.top(MONDAY, MONDAY.plusDays(1), null, SalesSnapshot.Metric.UNITS, false, 2, pool));
+        assertEquals(List.of(3L, 1L, 2L, 9L),
+                snapshot.top(MONDAY, MONDAY.plusDays(6), null, SalesSnapshot.Metric.REVENUE, false, 10, pool)
+                        .stream().map(SalesSnapshot.ProductTotal::productId).toList());
+        assertEquals(List.of(new SalesSnapshot.ProductTotal(1, 10, 4, 400)),
+                snapshot.top(MONDAY.plusDays(1), MONDAY.plusDays(1), 10L, SalesSnapshot.Metric.UNITS, false, 5, pool));
+
+        assertEquals(List.of(4L, 3L, 2L),
+                snapshot.top(MONDAY, MONDAY.plusDays(6), null, SalesSnapshot.Metric.UNITS, true, 3, pool)
+                        .stream().map(SalesSnapshot.ProductTotal::productId).toList());
+        assertEquals(List.of(new SalesSnapshot.ProductTotal(4, SalesColumnStore.NO_CATEGORY, 0, 0)),
+                snapshot.top(MONDAY, MONDAY, SalesColumnStore.NO_CATEGORY, SalesSnapshot.Metric.UNITS, true, 5, pool));
+    }
+
+    @Test
+    void topByCategoryAndCalendarBuckets() {
+        SalesColumnStore store = new SalesColumnStore(MONDAY, MONDAY.plusDays(60));
+        store.list(1, 10L);
+        store.list(2, 10L);
+        store.list(3, 20L);
+        store.add(MONDAY.minusDays(1), 1, 10L, 99, 99);
+        store.add(MONDAY, 1, 10L, 2, 200);
+        store.add(MONDAY, 3, 20L, 7, 700);
+        store.add(MONDAY.plusDays(8), 2, 10L, 4, 400);
+        store.add(MONDAY.plusDays(31), 1, 10L, 1, 100);
+        SalesSnapshot snapshot = store.snapshot();
+
+        Map<Long, List<SalesSnapshot.ProductTotal>> byCategory =
+                snapshot.topByCategory(MONDAY, MONDAY.plusDays(40), SalesSnapshot.Metric.UNITS, 1, pool);
+        assertEquals(List.of(10L, 20L), List.copyOf(byCategory.keySet()));
+        assertEquals(2, byCategory.get(10L).getFirst().productId());
+        assertEquals(7, byCategory.get(20L).getFirst().units());
+
+        assertEquals(List.of(
+                        new SalesSnapshot.BucketTotal(MONDAY, 9, 900),
+                        new SalesSnapshot.BucketTotal(MONDAY.plusDays(7), 4, 400),
+                        new SalesSnapshot.BucketTotal(MONDAY.plusDays(14), 0, 0)),
+                snapshot.series(MONDAY, MONDAY.plusDays(20), SalesSnapshot.Bucket.WEEK, null, null, pool));
+        assertEquals(List.of(
+                        new SalesSnapshot.BucketTotal(LocalDate.of(2026, 3, 1), 2, 200),
+                        new SalesSnapshot.BucketTotal(LocalDate.of(2026, 4, 1), 1, 100)),
+                snapshot.series(MONDAY, MONDAY.plusDays(31), SalesSnapshot.Bucket.MONTH, null, 1L, pool));
+        assertEquals(List.of(new SalesSnapshot.BucketTotal(MONDAY, 0, 0)),
+                snapshot.series(MONDAY, MONDAY, SalesSnapshot.Bucket.DAY, null, 42L, pool));
+    }
+
+    @Test
+    void refreshReplacesRecentDaysWithoutChangingPublishedSnapshots() {
+        SalesColumnStore store = new SalesColumnStore(MONDAY, MONDAY.plusDays(1));
+        store.add(MONDAY, 1, 10L, 1, 100);
+        store.add(MONDAY.plusDays(1), 1, 10L, 2, 200);
+        SalesSnapshot before = store.snapshot();
+
+        // El día 1 se cierra con más ventas y el día 2 pasa a ser el reciente
+        store.startRecent(MONDAY.plusDays(2));
+        store.add(MONDAY.plusDays(1), 1, 10L, 5, 500);
+        store.add(MONDAY.plusDays(2), 2, 10L, 1, 100);
+        SalesSnapshot after = store.snapshot();
+
+        assertEquals(3, before.top(MONDAY, MONDAY.plusDays(2), null, SalesSnapshot.Metric.UNITS, false, 5, pool)
+                .getFirst().units());
+        assertEquals(6, after.top(MONDAY, MONDAY.plusDays(2), null, SalesSnapshot.Metric.UNITS, false, 5, pool)
+                .getFirst().units());
+        assertEquals(1, before.products());
+        assertEquals(List.of(new SalesSnapshot.BucketTotal(MONDAY.plusDays(2), 0, 0)),
+                before.series(MONDAY.plusDays(2), MONDAY.plusDays(2), SalesSnapshot.Bucket.DAY, null, 2L, pool));
+        assertThrows(IllegalArgumentException.class, () -> store.startRecent(MONDAY));
+    }
+
+    @Test
+    void parallelAggregationMatchesSequentialSums() {
+        Random random = new Random(11);
+        SalesColumnStore store = new SalesColumnStore(MONDAY, MONDAY.plusDays(300));
+        long[] units = new long[500];
+        for (int day = 0; day < 200; day++) {
+            for (int i = 0; i < 1_000; i++) {
+                int product = random.nextInt(units.length);
+                int quantity = 1 + random.nextInt(5);
+                store.add(MONDAY.plusDays(day), product, (long) (product % 7), quantity, quantity * 100L);
+                if (day >= 50 && day < 150) units[product] += quantity;
+            }
+        }
+
+        List<SalesSnapshot.ProductTotal> top = store.snapshot().top(MONDAY.plusDays(50), MONDAY.plusDays(149), null,
+                SalesSnapshot.Metric.UNITS, false, units.length, pool);
+        assertEquals(units.length, top.size());
+        for (SalesSnapshot.ProductTotal total : top) {
+            assertEquals(units[(int) total.productId()], total.units());
+            assertEquals(100 * total.units(), total.revenueMinor());
+        }
+        for (int i = 1; i < top.size(); i++) {
+            assertTrue(top.get(i - 1).units() >= top.get(i).units());
+        }
+    }
+}
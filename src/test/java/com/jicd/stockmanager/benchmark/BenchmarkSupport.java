@@ -0,0 +1,64 @@
+package com.jicd.stockmanager.benchmark;
+
+import ch.qos.logback.classic.Level;
+import ch.qos.logback.classic.Logger;
+import com.jicd.stockmanager.Enums.ROL_TYPE;
+import com.jicd.stockmanager.model.User;
+import com.jicd.stockmanager.repository.UserRepository;
+import com.jicd.stockmanager.security.configs.JwtProperties;
+import org.slf4j.LoggerFactory;
+
+import java.lang.reflect.Proxy;
+import java.util.Optional;
+
+/**
+ * Objetos comunes para los benchmarks: se construyen sin contexto de Spring ni base de datos.
+ */
+final class BenchmarkSupport {
+
+    static final String SECRET_KEY = "benchmark-secret-key-with-at-least-256-bits-for-hmac-sha";
+
+    private BenchmarkSupport() {
+    }
+
+    static JwtProperties jwtProperties(boolean stateless, boolean verifiedCache) {
+        JwtProperties properties = new JwtProperties();
+        properties.setSecretKey(SECRET_KEY);
+        properties.setExpiration(3_600_000);
+        properties.setStateless(stateless);
+        properties.getVerifiedCache().setEnabled(verifiedCache);
+        return properties;
+    }
+
+    static User user() {
+        return User.builder()
+                .id(1L)
+                .username("benchmark")
+                .email("benchmark@test.com")
+                .password("secret")
+                .rol(ROL_TYPE.CASHIER)
+                .tokenVersion(0)
+                .build();
+    }
+
+    /**
+     * Repositorio en memoria que solo responde a las consultas usadas por la ruta de autenticación.
+     */
+    static UserRepository userRepository(User user) {
+        return (UserRepository) Proxy.newProxyInstance(
+                UserRepository.class.getClassLoader(),
+                new Class<?>[]{UserRepository.class},
+                (proxy, method, args) -> switch (method.getName()) {
+                    case "findByUsername" -> Optional.of(user);
+                    case "findTokenVersionByUsername" -> Optional.of(user.getTokenVersion());
+                    default -> throw new UnsupportedOperationException(method.getName());
+                });
+    }
+
+    /**
+     * Evita que el logging por petición distorsione las mediciones.
+     */
+    static void quietLogging() {
+        ((Logger) LoggerFactory.getLogger(org.slf4j.Logger.ROOT_LOGGER_NAME)).setLevel(Level.WARN);
+    }
+}
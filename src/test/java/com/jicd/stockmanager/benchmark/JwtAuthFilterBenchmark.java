@@ -0,0 +1,64 @@
+package com.jicd.stockmanager.benchmark;
+
+import com.jicd.stockmanager.model.User;
+import com.jicd.stockmanager.security.configs.JwtProperties;
+import com.jicd.stockmanager.security.jwt.JwtAuthFilter;
+import com.jicd.stockmanager.security.jwt.JwtPrincipalCache;
+import com.jicd.stockmanager.security.jwt.JwtUtils;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import jakarta.servlet.FilterChain;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.context.SecurityContextHolder;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Coste completo del filtro JWT por petición: cabecera, verificación del token y carga del principal.
+ */
+@BenchmarkMode({Mode.Throughput, Mode.AverageTime})
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class JwtAuthFilterBenchmark {
+
+    @Param({"true", "false"})
+    public boolean stateless;
+
+    private JwtAuthFilter filter;
+    private MockHttpServletRequest request;
+    private MockHttpServletResponse response;
+    private final FilterChain chain = (req, res) -> {
+    };
+
+    @Setup
+    public void setUp() {
+        BenchmarkSupport.quietLogging();
+        User user = BenchmarkSupport.user();
+        JwtProperties properties = BenchmarkSupport.jwtProperties(stateless, true);
+        JwtUtils jwtUtils = new JwtUtils(properties);
+        JwtPrincipalCache principalCache = new JwtPrincipalCache(BenchmarkSupport.userRepository(user), properties);
+        filter = new JwtAuthFilter(jwtUtils, username -> user, principalCache, properties,
+                new SimpleMeterRegistry());
+
+        Authentication authentication = new UsernamePasswordAuthenticationToken(user, null, user.getAuthorities());
+        request = new MockHttpServletRequest("GET", "/api/products");
+        request.addHeader("Authorization", "Bearer " + jwtUtils.generateToken(authentication));
+        response = new MockHttpServletResponse();
+    }
+
+    @Benchmark
+    public Authentication doFilter() throws Exception {
+        // OncePerRequestFilter marca la petición como filtrada: se limpia para cada invocación
+        request.clearAttributes();
+        filter.doFilter(request, response, chain);
+        Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
+        SecurityContextHolder.clearContext();
+        return authentication;
+    }
+}
@@ -0,0 +1,64 @@
+package com.jicd.stockmanager.benchmark;
+
+import com.jicd.stockmanager.pricing.BasketTotals;
+import com.jicd.stockmanager.pricing.Money;
+import com.jicd.stockmanager.pricing.PricingEngine;
+import org.openjdk.jmh.annotations.*;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Cálculo de una cesta desde los precios Double de los productos: el camino anterior con BigDecimal
+ * frente al cálculo en céntimos. Con -prof gc se comparan también las asignaciones por cesta.
+ */
+@BenchmarkMode({Mode.Throughput, Mode.AverageTime})
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 2, time = 2)
+@Measurement(iterations = 3, time = 2)
+@Fork(1)
+@State(Scope.Thread)
+public class PricingBenchmark {
+
+    @Param({"5", "50", "500"})
+    public int lines;
+
+    private double[] prices;
+    private int[] quantities;
+    private long[] unitPrices;
+    private long[] lineTotals;
+
+    @Setup
+    public void setUp() {
+        Random random = new Random(7);
+        prices = new double[lines];
+        quantities = new int[lines];
+        for (int i = 0; i < lines; i++) {
+            prices[i] = random.nextInt(100_000) / 100.0;
+            quantities[i] = 1 + random.nextInt(20);
+        }
+        unitPrices = new long[lines];
+        lineTotals = new long[lines];
+    }
+
+    @Benchmark
+    public double bigDecimal() {
+        BigDecimal total = BigDecimal.ZERO;
+        for (int i = 0; i < lines; i++) {
+            BigDecimal unitPrice = BigDecimal.valueOf(prices[i]).setScale(2, RoundingMode.HALF_UP);
+            total = total.add(unitPrice.multiply(BigDecimal.valueOf(quantities[i])));
+        }
+        return total.doubleValue();
+    }
+
+    @Benchmark
+    public double minorUnits() {
+        for (int i = 0; i < lines; i++) {
+            unitPrices[i] = Money.toMinor(prices[i]);
+        }
+        BasketTotals totals = PricingEngine.price(unitPrices, quantities, lines, lineTotals, 0, 0);
+        return Money.toDouble(totals.total());
+    }
+}
@@ -0,0 +1,82 @@
+package com.jicd.stockmanager.benchmark;
+
+import com.jicd.stockmanager.analytics.SalesColumnStore;
+import com.jicd.stockmanager.analytics.SalesSnapshot;
+import org.openjdk.jmh.annotations.*;
+
+import java.time.LocalDate;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Consultas de analítica sobre una instantánea de 400 días con 5000 productos vendidos al día
+ * (2 millones de filas) de un catálogo de 100000 productos en 200 categorías.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 2, time = 2)
+@Measurement(iterations = 3, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class SalesAnalyticsBenchmark {
+
+    private static final int DAYS = 400;
+    private static final int PRODUCTS = 100_000;
+    private static final int PRODUCTS_PER_DAY = 5_000;
+    private static final int CATEGORIES = 200;
+
+    @Param({"1", "4"})
+    public int parallelism;
+
+    private ForkJoinPool pool;
+    private SalesSnapshot snapshot;
+    private LocalDate today;
+
+    @Setup
+    public void setUp() {
+        Random random = new Random(3);
+        today = LocalDate.of(2026, 6, 30);
+        LocalDate firstDay = today.minusDays(DAYS - 1);
+        SalesColumnStore store = new SalesColumnStore(firstDay, today);
+        for (long product = 1; product <= PRODUCTS; product++) {
+            store.list(product, product % CATEGORIES + 1);
+        }
+        for (int day = 0; day < DAYS; day++) {
+            for (int i = 0; i < PRODUCTS_PER_DAY; i++) {
+                long product = 1 + random.nextInt(PRODUCTS);
+                int units = 1 + random.nextInt(10);
+                store.add(firstDay.plusDays(day), product, null, units, units * 1_250L);
+            }
+        }
+        snapshot = store.snapshot();
+        pool = new ForkJoinPool(parallelism);
+    }
+
+    @TearDown
+    public void tearDown() {
+        pool.shutdown();
+    }
+
+    @Benchmark
+    public List<SalesSnapshot.ProductTotal> topSellersLastWeek() {
+        return snapshot.top(today.minusDays(6), today, null, SalesSnapshot.Metric.UNITS, false, 100, pool);
+    }
+
+    @Benchmark
+    public List<SalesSnapshot.ProductTotal> slowestMoversLastYear() {
+        return snapshot.top(today.minusDays(364), today, null, SalesSnapshot.Metric.UNITS, true, 100, pool);
+    }
+
+    @Benchmark
+    public Map<Long, List<SalesSnapshot.ProductTotal>> topSellersPerCategoryLastWeek() {
+        return snapshot.topByCategory(today.minusDays(6), today, SalesSnapshot.Metric.UNITS, 100, pool);
+    }
+
+    @Benchmark
+    public List<SalesSnapshot.BucketTotal> monthlyRevenueOfCategory() {
+        return snapshot.series(today.minusDays(364), today, SalesSnapshot.Bucket.MONTH, 7L, null, pool);
+    }
+}
@@ -0,0 +1,70 @@
+package com.jicd.stockmanager.benchmark;
+
+import com.jicd.stockmanager.StockManagerApplication;
+import com.jicd.stockmanager.model.Product;
+import com.jicd.stockmanager.repository.ProductRepository;
+import com.jicd.stockmanager.service.ShardedStockService;
+import com.jicd.stockmanager.service.StockService;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.boot.WebApplicationType;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Ventas concurrentes de un único producto con el stock en una sola fila (slots = 0) o repartido en slots.
+ * A diferencia del resto de benchmarks necesita el contexto completo y la base de datos de desarrollo:
+ * mvn -Pbenchmark verify -Djmh.includes=StockContentionBenchmark
+ */
+@BenchmarkMode({Mode.Throughput, Mode.AverageTime})
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 2, time = 2)
+@Measurement(iterations = 3, time = 2)
+@Fork(1)
+@Threads(32)
+@State(Scope.Benchmark)
+public class StockContentionBenchmark {
+
+    private static final int STOCK = 10_000_000;
+
+    @Param({"0", "8"})
+    public int slots;
+
+    private ConfigurableApplicationContext context;
+    private StockService stockService;
+    private TransactionTemplate transactionTemplate;
+    private Long productId;
+
+    @Setup
+    public void setUp() {
+        BenchmarkSupport.quietLogging();
+        context = new SpringApplicationBuilder(StockManagerApplication.class)
+                .web(WebApplicationType.NONE)
+                .run();
+        stockService = context.getBean(StockService.class);
+        transactionTemplate = context.getBean(TransactionTemplate.class);
+
+        productId = context.getBean(ProductRepository.class).save(Product.builder()
+                .name("contention-" + UUID.randomUUID())
+                .price(1.0)
+                .stockQuantity(STOCK)
+                .minThreshold(0)
+                .build()).getId();
+        if (slots > 0) {
+            context.getBean(ShardedStockService.class).shard(productId, slots);
+        }
+    }
+
+    @TearDown
+    public void tearDown() {
+        context.close();
+    }
+
+    @Benchmark
+    public Boolean decrement() {
+        return transactionTemplate.execute(status -> stockService.decrement(productId, 1));
+    }
+}
@@ -0,0 +1,60 @@
+package com.jicd.stockmanager.csv;
+
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.io.StringReader;
+import java.io.StringWriter;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class CsvReaderTest {
+
+    @Test
+    void readsQuotedFieldsWithDelimitersQuotesAndNewlines() throws IOException {
+        CsvReader reader = new CsvReader(new StringReader(
+                "sku,name,description\r\nA-1,\"Tornillo, 5mm\",\"Dice \"\"hola\"\"\nen dos lineas\"\nB-2,,\n"));
+
+        assertEquals(List.of("sku", "name", "description"), reader.next());
+        assertEquals(List.of("A-1", "Tornillo, 5mm", "Dice \"hola\"\nen dos lineas"), reader.next());
+        assertEquals(List.of("B-2", "", ""), reader.next());
+        assertEquals(3, reader.recordNumber());
+        assertNull(reader.next());
+    }
+
+    @Test
+    void lastRecordWithoutLineBreakAndBlankLines() throws IOException {
+        CsvReader reader = new CsvReader(new StringReader("a;b\n\nc;\"d\""), ';');
+
+        assertEquals(List.of("a", "b"), reader.next());
+        assertTrue(CsvReader.isBlank(reader.next()));
+        assertEquals(List.of("c", "d"), reader.next());
+        assertNull(reader.next());
+    }
+
+    @Test
+    void unterminatedQuotedFieldIsRejected() throws IOException {
+        CsvReader reader = new CsvReader(new StringReader("ok\n\"abierto,sin cerrar\n"));
+
+        assertEquals(List.of("ok"), reader.next());
+        assertThrows(IOException.class, reader::next);
+    }
+
+    @Test
+    void writerOutputReadsBackUnchanged() throws IOException {
+        List<String> row = Arrays.asList("X-9", "Caja \"grande\"", "linea 1\nlinea 2", null, "12.5");
+        StringWriter output = new StringWriter();
+        CsvWriter writer = new CsvWriter(output);
+        writer.writeRow(row);
+        writer.flush();
+
+        assertEquals("X-9,\"Caja \"\"grande\"\"\",\"linea 1\nlinea 2\",,12.5\r\n", output.toString());
+        assertEquals(Arrays.asList("X-9", "Caja \"grande\"", "linea 1\nlinea 2", "", "12.5"),
+                new CsvReader(new StringReader(output.toString())).next());
+    }
+}
@@ -0,0 +1,105 @@
+package com.jicd.stockmanager.feed;
+
+import com.jicd.stockmanager.dto.StockUpdateDTO;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class StockFeedBusTest {
+
+    /**
+     * Sink que deja los mensajes en una cola; opcionalmente bloquea cada envío hasta que se libere.
+     */
+    private static class RecordingSink implements StockFeedBus.Sink {
+        final BlockingQueue<List<StockUpdateDTO>> received = new LinkedBlockingQueue<>();
+        final CountDownLatch closed = new CountDownLatch(1);
+        final CountDownLatch release;
+
+        RecordingSink(boolean blocking) {
+            this.release = new CountDownLatch(blocking ? 1 : 0);
+        }
+
+        @Override
+        public void send(StockFeedBus.Kind kind, List<StockUpdateDTO> updates) {
+            try {
+                release.await();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            }
+            received.add(updates);
+        }
+
+        @Override
+        public void close() {
+            closed.countDown();
+        }
+    }
+
+    @Test
+    void burstsAreCoalescedPerProductAndRoutedOnce() throws InterruptedException {
+        StockFeedBus bus = new StockFeedBus(8);
+        RecordingSink sink = new RecordingSink(false);
+        bus.subscribe(Set.of(1L), Set.of(7L), sink);
+
+        bus.publish(new StockUpdateDTO(1L, 7L, 10));
+        bus.publish(new StockUpdateDTO(1L, 7L, 9));
+        bus.publish(new StockUpdateDTO(1L, 7L, 8));
+        bus.publish(new StockUpdateDTO(2L, 7L, 4));
+        bus.publish(new StockUpdateDTO(3L, 5L, 1));
+        bus.flush();
+
+        List<StockUpdateDTO> batch = sink.received.poll(5, TimeUnit.SECONDS);
+        assertEquals(Set.of(new StockUpdateDTO(1L, 7L, 8), new StockUpdateDTO(2L, 7L, 4)), Set.copyOf(batch));
+        assertEquals(2, batch.size());
+
+        bus.flush();
+        assertEquals(null, sink.received.poll(100, TimeUnit.MILLISECONDS));
+    }
+
+    @Test
+    void slowSubscriberIsDroppedWithoutStallingOthers() throws InterruptedException {
+        StockFeedBus bus = new StockFeedBus(2);
+        RecordingSink slow = new RecordingSink(true);
+        RecordingSink fast = new RecordingSink(false);
+        StockFeedBus.Subscription slowSubscription = bus.subscribe(Set.of(1L), Set.of(), slow);
+        bus.subscribe(Set.of(1L), Set.of(), fast);
+
+        // El envío al suscriptor lento queda bloqueado: el reparto no debe esperarle
+        for (int i = 0; i < 10; i++) {
+            bus.publish(new StockUpdateDTO(1L, null, i));
+            bus.flush();
+            assertEquals(List.of(new StockUpdateDTO(1L, null, i)), fast.received.poll(5, TimeUnit.SECONDS));
+        }
+
+        assertTrue(slow.closed.await(5, TimeUnit.SECONDS));
+        assertTrue(slowSubscription.isClosed());
+        assertEquals(1, bus.droppedCount());
+        assertEquals(1, bus.subscriberCount());
+        assertFalse(fast.closed.await(50, TimeUnit.MILLISECONDS));
+    }
+
+    @Test
+    void closedSubscriptionLeavesTheIndexes() throws InterruptedException {
+        StockFeedBus bus = new StockFeedBus(8);
+        RecordingSink sink = new RecordingSink(false);
+        StockFeedBus.Subscription subscription = bus.subscribe(Set.of(1L), Set.of(7L), sink);
+
+        subscription.close();
+        assertTrue(sink.closed.await(5, TimeUnit.SECONDS));
+        assertFalse(bus.hasSubscribers());
+
+        bus.publish(new StockUpdateDTO(1L, 7L, 3));
+        bus.flush();
+        assertEquals(null, sink.received.poll(100, TimeUnit.MILLISECONDS));
+    }
+}
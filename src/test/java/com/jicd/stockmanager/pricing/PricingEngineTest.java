@@ -0,0 +1,65 @@
+package com.jicd.stockmanager.pricing;
+
+import org.junit.jupiter.api.Test;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+class PricingEngineTest {
+
+    @Test
+    void toMinorMatchesBigDecimalRounding() {
+        for (double amount : new double[]{0.285, 1.005, 2.675, 8.345, 0.015, -0.005, 1234567.125, 19.99, 0}) {
+            assertEquals(viaBigDecimal(amount), Money.toMinor(amount), "amount " + amount);
+        }
+
+        Random random = new Random(42);
+        for (int i = 0; i < 200_000; i++) {
+            double amount = i % 2 == 0
+                    ? random.nextInt(10_000_000) / 1000.0
+                    : (random.nextInt(2_000_000) + 0.5) / 100.0;
+            assertEquals(viaBigDecimal(amount), Money.toMinor(amount), "amount " + amount);
+        }
+    }
+
+    @Test
+    void basketTotalsAreExactInMinorUnits() {
+        long[] unitPrices = {1999, 5, 333};
+        int[] quantities = {3, 7, 10};
+        long[] lineTotals = new long[3];
+
+        BasketTotals totals = PricingEngine.price(unitPrices, quantities, 3, lineTotals, 1000, 2100);
+
+        assertEquals(5997, lineTotals[0]);
+        assertEquals(35, lineTotals[1]);
+        assertEquals(3330, lineTotals[2]);
+        assertEquals(9362, totals.subtotal());
+        // 10 % de 93,62 = 9,362 -> 9,36; 21 % de 84,26 = 17,6946 -> 17,69
+        assertEquals(936, totals.discount());
+        assertEquals(1769, totals.tax());
+        assertEquals(9362 - 936 + 1769, totals.total());
+    }
+
+    @Test
+    void percentOfRoundsHalfAwayFromZero() {
+        assertEquals(1, PricingEngine.percentOf(10, 500));
+        assertEquals(-1, PricingEngine.percentOf(-10, 500));
+        assertEquals(0, PricingEngine.percentOf(9, 500));
+    }
+
+    @Test
+    void overflowAndInvalidRatesAreRejected() {
+        assertThrows(ArithmeticException.class, () -> PricingEngine.lineTotal(Long.MAX_VALUE / 2, 3));
+        assertThrows(IllegalArgumentException.class,
+                () -> PricingEngine.price(new long[0], new int[0], 0, new long[0], 10_001, 0));
+        assertThrows(IllegalArgumentException.class, () -> Money.toMinor(Double.NaN));
+    }
+
+    private static long viaBigDecimal(double amount) {
+        return BigDecimal.valueOf(amount).setScale(2, RoundingMode.HALF_UP).unscaledValue().longValueExact();
+    }
+}
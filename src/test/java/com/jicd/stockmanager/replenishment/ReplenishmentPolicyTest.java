@@ -0,0 +1,70 @@
+package com.jicd.stockmanager.replenishment;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class ReplenishmentPolicyTest {
+
+    // Sin caída de peso apreciable: la velocidad es la media simple de la ventana
+    private final ReplenishmentPolicy flat = new ReplenishmentPolicy(10, 1e9, 5, 2, 3);
+
+    @Test
+    void steadySalesGiveTheirDailyAverage() {
+        double weighted = 0;
+        for (int age = 0; age < 10; age++) weighted += 4 * flat.weight(age);
+
+        ReplenishmentPlan plan = flat.evaluate(100, null, weighted);
+
+        assertEquals(4.0, plan.velocity(), 1e-9);
+        assertEquals(25.0, plan.daysOfCover(), 1e-9);
+        assertFalse(plan.reorder());
+        assertEquals(0, plan.suggestedQuantity());
+    }
+
+    @Test
+    void stockBelowLeadTimeAndSafetyIsReorderedUpToTheReviewPeriod() {
+        double weighted = 0;
+        for (int age = 0; age < 10; age++) weighted += 4 * flat.weight(age);
+
+        // 4 unidades/dia: punto de pedido 4 * (5 + 2) = 28, objetivo 4 * (5 + 2 + 3) = 40
+        ReplenishmentPlan plan = flat.evaluate(28, null, weighted);
+
+        assertTrue(plan.reorder());
+        assertEquals(7.0, plan.daysOfCover(), 1e-9);
+        assertEquals(12, plan.suggestedQuantity());
+    }
+
+    @Test
+    void recentSalesWeighMoreThanOldOnes() {
+        ReplenishmentPolicy policy = new ReplenishmentPolicy(28, 7, 7, 0, 0);
+        double recent = 10 * policy.weight(0);
+        double old = 10 * policy.weight(27);
+
+        assertTrue(policy.velocity(recent) > 8 * policy.velocity(old));
+        assertEquals(0.5, policy.weight(7), 1e-12);
+        assertEquals(0, policy.weight(28));
+        assertEquals(0, policy.weight(-1));
+    }
+
+    @Test
+    void productWithoutSalesIsOnlyReorderedBelowItsThreshold() {
+        ReplenishmentPlan idle = flat.evaluate(0, null, 0);
+        assertFalse(idle.reorder());
+        assertNull(idle.daysOfCover());
+
+        ReplenishmentPlan belowThreshold = flat.evaluate(3, 10, 0);
+        assertTrue(belowThreshold.reorder());
+        assertEquals(7, belowThreshold.suggestedQuantity());
+    }
+
+    @Test
+    void invalidParametersAreRejected() {
+        assertThrows(IllegalArgumentException.class, () -> new ReplenishmentPolicy(0, 14, 7, 3, 7));
+        assertThrows(IllegalArgumentException.class, () -> new ReplenishmentPolicy(56, 0, 7, 3, 7));
+    }
+}
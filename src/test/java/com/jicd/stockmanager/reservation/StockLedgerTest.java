@@ -0,0 +1,101 @@
+package com.jicd.stockmanager.reservation;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class StockLedgerTest {
+
+    @Test
+    void concurrentReservationsNeverExceedStock() throws Exception {
+        StockLedger ledger = new StockLedger();
+        ledger.track(1L, 100);
+        Map<Long, Integer> line = Map.of(1L, 1);
+
+        AtomicInteger reserved = new AtomicInteger();
+        CountDownLatch start = new CountDownLatch(1);
+        ExecutorService executor = Executors.newFixedThreadPool(32);
+        List<Future<?>> futures = new ArrayList<>();
+        for (int i = 0; i < 500; i++) {
+            futures.add(executor.submit(() -> {
+                start.await();
+                if (ledger.tryReserve(line)) reserved.incrementAndGet();
+                return null;
+            }));
+        }
+        start.countDown();
+        for (Future<?> future : futures) {
+            future.get();
+        }
+        executor.shutdown();
+
+        assertEquals(100, reserved.get());
+        assertEquals(0, ledger.available(1L));
+        assertEquals(100, ledger.reserved(1L));
+    }
+
+    @Test
+    void multiLineReservationIsAllOrNothing() {
+        StockLedger ledger = new StockLedger();
+        ledger.track(1L, 10);
+        ledger.track(2L, 1);
+
+        Map<Long, Integer> lines = new TreeMap<>(Map.of(1L, 5, 2L, 2));
+        assertFalse(ledger.tryReserve(lines));
+        assertEquals(10, ledger.available(1L));
+        assertEquals(1, ledger.available(2L));
+    }
+
+    @Test
+    void confirmedStockStaysReservedUntilSettled() {
+        StockLedger ledger = new StockLedger();
+        ledger.track(1L, 10);
+        Map<Long, Integer> lines = Map.of(1L, 4);
+
+        assertTrue(ledger.tryReserve(lines));
+        ledger.confirm(lines);
+        assertEquals(4, ledger.reserved(1L));
+
+        // Volcado: la BD ya tiene el stock descontado y el pendiente se elimina
+        ledger.updateStock(1L, 6);
+        ledger.settle(lines);
+        assertEquals(6, ledger.available(1L));
+        assertEquals(0, ledger.reserved(1L));
+    }
+
+    @Test
+    void directSaleInFlightIsNotReservable() {
+        StockLedger ledger = new StockLedger();
+        ledger.track(1L, 10);
+        assertTrue(ledger.tryReserve(Map.of(1L, 3)));
+
+        assertEquals(3, ledger.claim(1L, 5));
+        assertFalse(ledger.tryReserve(Map.of(1L, 3)));
+        ledger.completeClaim(1L, 5, true);
+        assertEquals(2, ledger.available(1L));
+
+        // Venta revertida: la cantidad vuelve a estar disponible
+        ledger.claim(1L, 2);
+        assertEquals(0, ledger.available(1L));
+        ledger.completeClaim(1L, 2, false);
+        assertEquals(2, ledger.available(1L));
+
+        // Un producto que aún no está en el libro entra con la venta en curso ya descontada
+        ledger.claim(2L, 4);
+        assertFalse(ledger.isTracked(2L));
+        ledger.track(2L, 10);
+        assertEquals(6, ledger.available(2L));
+    }
+}
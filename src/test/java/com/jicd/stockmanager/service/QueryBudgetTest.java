@@ -0,0 +1,112 @@
+package com.jicd.stockmanager.service;
+
+import com.jicd.stockmanager.Enums.ROL_TYPE;
+import com.jicd.stockmanager.dto.KeysetPageDTO;
+import com.jicd.stockmanager.dto.ProductSummaryDTO;
+import com.jicd.stockmanager.dto.SaleItemReqDTO;
+import com.jicd.stockmanager.dto.SaleReqDTO;
+import com.jicd.stockmanager.model.Category;
+import com.jicd.stockmanager.model.Product;
+import com.jicd.stockmanager.model.User;
+import com.jicd.stockmanager.repository.CategoryRepository;
+import com.jicd.stockmanager.repository.ProductRepository;
+import com.jicd.stockmanager.repository.UserRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.cache.CacheManager;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+
+import static com.jicd.stockmanager.support.QueryCountAssertions.assertMaxQueries;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+/**
+ * Presupuestos de sentencias SQL de las operaciones que hay detrás de cada endpoint.
+ * El número de sentencias no debe crecer con el tamaño de la página ni con el de las relaciones lazy.
+ */
+@SpringBootTest
+class QueryBudgetTest {
+
+    private static final int PRODUCTS = 30;
+    // Sentencias fijas de una venta: precios, inserciones (venta, líneas y diario), secuencias
+    // y relectura del stock bajo
+    private static final int CHECKOUT_FIXED_QUERIES = 10;
+
+    @Autowired
+    private CatalogService catalogService;
+
+    @Autowired
+    private SaleService saleService;
+
+    @Autowired
+    private ProductRepository productRepository;
+
+    @Autowired
+    private CategoryRepository categoryRepository;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private CacheManager cacheManager;
+
+    private Category category;
+    private List<Product> products;
+
+    @BeforeEach
+    void setUp() {
+        String suffix = UUID.randomUUID().toString();
+        category = categoryRepository.save(Category.builder().name("budget-" + suffix).build());
+        products = new ArrayList<>();
+        for (int i = 0; i < PRODUCTS; i++) {
+            products.add(Product.builder()
+                    .name("budget-" + i + "-" + suffix)
+                    .price(1.5)
+                    .stockQuantity(1_000)
+                    .minThreshold(0)
+                    .category(category)
+                    .build());
+        }
+        products = productRepository.saveAll(products);
+        cacheManager.getCacheNames().forEach(name -> cacheManager.getCache(name).clear());
+    }
+
+    @Test
+    void productPageIsASingleQueryRegardlessOfSize() {
+        KeysetPageDTO<ProductSummaryDTO> page = assertMaxQueries(1,
+                () -> catalogService.listProducts(category.getId(), CatalogService.SORT_BY_NAME, null, 25));
+        assertEquals(25, page.items().size());
+
+        assertMaxQueries(1,
+                () -> catalogService.listProducts(category.getId(), CatalogService.SORT_BY_NAME, page.nextCursor(), 25));
+    }
+
+    @Test
+    void productDetailAndCategoriesAreASingleQuery() {
+        assertMaxQueries(1, () -> catalogService.getProduct(products.getFirst().getId()));
+        assertMaxQueries(1, () -> catalogService.listCategories());
+    }
+
+    @Test
+    void checkoutIssuesOneStockUpdatePerLine() {
+        String suffix = UUID.randomUUID().toString();
+        User cashier = userRepository.save(User.builder()
+                .username("budget-" + suffix)
+                .email("budget-" + suffix + "@test.com")
+                .password("secret")
+                .rol(ROL_TYPE.CASHIER)
+                .build());
+
+        for (int lines : new int[]{1, 10}) {
+            List<SaleItemReqDTO> items = products.subList(0, lines).stream()
+                    .map(product -> new SaleItemReqDTO(product.getId(), 1))
+                    .toList();
+            assertMaxQueries(lines + CHECKOUT_FIXED_QUERIES,
+                    () -> saleService.checkout(new SaleReqDTO(items), cashier));
+        }
+    }
+}
@@ -0,0 +1,100 @@
+package com.jicd.stockmanager.service;
+
+import com.jicd.stockmanager.Enums.ROL_TYPE;
+import com.jicd.stockmanager.dto.SaleItemReqDTO;
+import com.jicd.stockmanager.dto.SaleReqDTO;
+import com.jicd.stockmanager.exceptions.InsufficientStockException;
+import com.jicd.stockmanager.model.Product;
+import com.jicd.stockmanager.model.User;
+import com.jicd.stockmanager.repository.ProductRepository;
+import com.jicd.stockmanager.repository.UserRepository;
+import jakarta.persistence.EntityManager;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+@SpringBootTest
+class SaleServiceConcurrencyTest {
+
+    private static final int BUYERS = 300;
+    private static final int INITIAL_STOCK = 100;
+
+    @Autowired
+    private SaleService saleService;
+
+    @Autowired
+    private ProductRepository productRepository;
+
+    @Autowired
+    private EntityManager entityManager;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Test
+    void concurrentBuyersNeverOversellTheSameProduct() throws Exception {
+        String suffix = UUID.randomUUID().toString();
+        User cashier = userRepository.save(User.builder()
+                .username("cashier-" + suffix)
+                .email("cashier-" + suffix + "@test.com")
+                .password("secret")
+                .rol(ROL_TYPE.CASHIER)
+                .build());
+        Product product = productRepository.save(Product.builder()
+                .name("contended-" + suffix)
+                .price(9.99)
+                .stockQuantity(INITIAL_STOCK)
+                .minThreshold(0)
+                .build());
+
+        SaleReqDTO request = new SaleReqDTO(List.of(new SaleItemReqDTO(product.getId(), 1)));
+        AtomicInteger sold = new AtomicInteger();
+        AtomicInteger rejected = new AtomicInteger();
+        CountDownLatch start = new CountDownLatch(1);
+
+        ExecutorService executor = Executors.newFixedThreadPool(64);
+        List<Future<?>> futures = new ArrayList<>();
+        for (int i = 0; i < BUYERS; i++) {
+            futures.add(executor.submit(() -> {
+                start.await();
+                try {
+                    saleService.checkout(request, cashier);
+                    sold.incrementAndGet();
+                } catch (InsufficientStockException e) {
+                    rejected.incrementAndGet();
+                }
+                return null;
+            }));
+        }
+
+        // Todos los compradores arrancan a la vez sobre la misma fila
+        start.countDown();
+        for (Future<?> future : futures) {
+            future.get(60, TimeUnit.SECONDS);
+        }
+        executor.shutdown();
+
+        assertEquals(INITIAL_STOCK, sold.get());
+        assertEquals(BUYERS - INITIAL_STOCK, rejected.get());
+        assertEquals(0, productRepository.findById(product.getId()).orElseThrow().getStockQuantity());
+        assertEquals(INITIAL_STOCK, entityManager
+                .createQuery("select count(d) from SaleDetail d where d.product.id = :productId", Long.class)
+                .setParameter("productId", product.getId())
+                .getSingleResult()
+                .intValue());
+        assertTrue(executor.awaitTermination(10, TimeUnit.SECONDS));
+    }
+}
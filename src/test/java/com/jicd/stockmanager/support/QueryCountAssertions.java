@@ -0,0 +1,48 @@
+package com.jicd.stockmanager.support;
+
+import com.jicd.stockmanager.observability.QueryCounter;
+
+import java.util.function.Supplier;
+
+import static org.junit.jupiter.api.Assertions.fail;
+
+/**
+ * Aserciones sobre el número de sentencias SQL que ejecuta una operación, para que una regresión
+ * N+1 haga fallar el build. Cuenta en el hilo actual mediante el {@link QueryCounter}.
+ */
+public final class QueryCountAssertions {
+
+    private QueryCountAssertions() {
+    }
+
+    /**
+     * Ejecuta la operación y falla si ejecuta más de 'max' sentencias SQL.
+     *
+     * @param max El número máximo de sentencias permitidas.
+     * @param action La operación a medir.
+     * @return T el resultado de la operación.
+     */
+    public static <T> T assertMaxQueries(int max, Supplier<T> action) {
+        try (QueryCounter.Scope scope = QueryCounter.start()) {
+            T result = action.get();
+            if (scope.count() > max) {
+                fail("Expected at most " + max + " SQL statements but " + scope.count() + " were executed; "
+                        + "repeated: " + scope.repeatedStatements(2));
+            }
+            return result;
+        }
+    }
+
+    /**
+     * Ejecuta la operación y devuelve el número de sentencias SQL ejecutadas.
+     *
+     * @param action La operación a medir.
+     * @return int el número de sentencias.
+     */
+    public static int countQueries(Runnable action) {
+        try (QueryCounter.Scope scope = QueryCounter.start()) {
+            action.run();
+            return scope.count();
+        }
+    }
+}